@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.util.string.AppendingStringBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes the rows of a table into an {@link AppendingStringBuffer}, the way components write
+ * their markup, and into a <code>StringBuilder</code> for reference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppendingStringBufferBenchmark
+{
+	private static final int ROWS = 100;
+
+	private final String name = "Wireless kitchen #42";
+
+	/**
+	 * @return the written rows
+	 */
+	@Benchmark
+	public String appendingStringBuffer()
+	{
+		AppendingStringBuffer buffer = new AppendingStringBuffer();
+		for (int i = 0; i < ROWS; i++)
+		{
+			buffer.append("<tr><td><a href=\"products/").append(i).append("\">");
+			buffer.append(name).append("</a></td><td class=\"price\">").append(i * 1.5d);
+			buffer.append("</td></tr>\n");
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * @return the written rows
+	 */
+	@Benchmark
+	public String stringBuilder()
+	{
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < ROWS; i++)
+		{
+			builder.append("<tr><td><a href=\"products/").append(i).append("\">");
+			builder.append(name).append("</a></td><td class=\"price\">").append(i * 1.5d);
+			builder.append("</td></tr>\n");
+		}
+		return builder.toString();
+	}
+}
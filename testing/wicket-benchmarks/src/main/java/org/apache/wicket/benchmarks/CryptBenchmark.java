@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.util.crypt.AbstractCrypt;
+import org.apache.wicket.util.crypt.AesGcmCrypt;
+import org.apache.wicket.util.crypt.SunJceCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encrypts and decrypts the query of a url with {@link SunJceCrypt} and {@link AesGcmCrypt}, as
+ * done by a <code>CryptoMapper</code> for every url of a page. The crypt is shared by all
+ * benchmark threads, run with <code>-t</code> to measure the contention of its ciphers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptBenchmark
+{
+	private static final String TEXT = "wicket/bookmarkable/" +
+		"org.apache.wicket.benchmarks.fixtures.ProductPage?id=42&rows=100";
+
+	/** the class of the crypt */
+	@Param({ "SunJceCrypt", "AesGcmCrypt" })
+	public String crypt;
+
+	private AbstractCrypt instance;
+
+	private String encrypted;
+
+	/**
+	 * Creates the crypt and encrypts the text once.
+	 */
+	@Setup
+	public void setUp()
+	{
+		if ("AesGcmCrypt".equals(crypt))
+		{
+			if (!AesGcmCrypt.isSupported())
+			{
+				throw new IllegalStateException("AES-GCM is not supported by this runtime");
+			}
+			instance = new AesGcmCrypt();
+		}
+		else
+		{
+			instance = new SunJceCrypt();
+		}
+		instance.setKey("benchmark secret");
+		encrypted = instance.encryptUrlSafe(TEXT);
+	}
+
+	/**
+	 * @return the encrypted text
+	 */
+	@Benchmark
+	public String encrypt()
+	{
+		return instance.encryptUrlSafe(TEXT);
+	}
+
+	/**
+	 * @return the decrypted text
+	 */
+	@Benchmark
+	public String decrypt()
+	{
+		return instance.decryptUrlSafe(encrypted);
+	}
+}
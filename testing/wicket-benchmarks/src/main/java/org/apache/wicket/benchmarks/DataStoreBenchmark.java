@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.pageStore.DiskDataStore;
+import org.apache.wicket.pageStore.IDataStore;
+import org.apache.wicket.pageStore.SegmentDataStore;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.lang.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stores and loads pages with the {@link DiskDataStore} and the {@link SegmentDataStore}. Each
+ * benchmark thread stores into a session of its own, all threads load from the same session. Run
+ * with <code>-t</code> to measure the contention of several sessions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataStoreBenchmark
+{
+	/** the number of pages loaded from */
+	private static final int PAGES = 64;
+
+	private static final String LOAD_SESSION = "load";
+
+	/** the data store */
+	@Param({ "disk", "segment" })
+	public String store;
+
+	/** the size of a serialized page */
+	@Param({ "4096", "65536" })
+	public int pageSize;
+
+	private File folder;
+
+	private IDataStore dataStore;
+
+	private byte[] data;
+
+	/**
+	 * The session of a benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class Session
+	{
+		private static final AtomicInteger sessions = new AtomicInteger();
+
+		private final String id = "session" + sessions.incrementAndGet();
+
+		private int page;
+	}
+
+	/**
+	 * Creates the data store and stores the pages to load.
+	 */
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		folder = new File(System.getProperty("java.io.tmpdir"), "wicket-benchmarks-" +
+			System.nanoTime());
+		Bytes maxSizePerSession = Bytes.bytes(pageSize * PAGES * 2L);
+		dataStore = "segment".equals(store) ? new SegmentDataStore("benchmarks", folder,
+			maxSizePerSession) : new DiskDataStore("benchmarks", folder, maxSizePerSession);
+
+		data = new byte[pageSize];
+		new Random(pageSize).nextBytes(data);
+		for (int i = 0; i < PAGES; i++)
+		{
+			dataStore.storeData(LOAD_SESSION, i, data);
+		}
+	}
+
+	/**
+	 * Destroys the data store and removes its files.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		dataStore.destroy();
+		Files.removeFolder(folder);
+	}
+
+	/**
+	 * Stores a new page, the oldest pages are evicted from the session when it is full.
+	 *
+	 * @param session
+	 */
+	@Benchmark
+	public void store(Session session)
+	{
+		dataStore.storeData(session.id, session.page++, data);
+	}
+
+	/**
+	 * @param session
+	 * @return the loaded page
+	 */
+	@Benchmark
+	public byte[] load(Session session)
+	{
+		return dataStore.getData(LOAD_SESSION, session.page++ % PAGES);
+	}
+}
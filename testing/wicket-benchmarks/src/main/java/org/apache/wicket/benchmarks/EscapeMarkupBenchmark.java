@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.benchmarks.fixtures.Catalog;
+import org.apache.wicket.util.string.Strings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Escapes the model values of labels with {@link Strings#escapeMarkup(CharSequence)}: a text
+ * without any character to escape, which is the common case, and a product description with
+ * markup characters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeMarkupBenchmark
+{
+	private final String plain = Catalog.product(0).getName();
+
+	private final String markup = Catalog.product(0).getDescription();
+
+	/**
+	 * @return the escaped text
+	 */
+	@Benchmark
+	public CharSequence plain()
+	{
+		return Strings.escapeMarkup(plain);
+	}
+
+	/**
+	 * @return the escaped text
+	 */
+	@Benchmark
+	public CharSequence markup()
+	{
+		return Strings.escapeMarkup(markup);
+	}
+
+	/**
+	 * @return the escaped text
+	 */
+	@Benchmark
+	public CharSequence markupAndSpaces()
+	{
+		return Strings.escapeMarkup(markup, true);
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.benchmarks.fixtures.CatalogPage;
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupParser;
+import org.apache.wicket.markup.parser.XmlPullParser;
+import org.apache.wicket.util.io.Streams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses the markup of the {@link CatalogPage}, with the bare {@link XmlPullParser} and with the
+ * {@link MarkupParser} and its chain of markup filters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkupParserBenchmark
+{
+	private String markup;
+
+	/**
+	 * Reads the markup.
+	 *
+	 * @throws Exception
+	 */
+	@Setup
+	public void setUp() throws Exception
+	{
+		markup = Streams.readString(CatalogPage.class.getResourceAsStream("CatalogPage.html"),
+			"UTF-8");
+	}
+
+	/**
+	 * @return the number of tags
+	 * @throws Exception
+	 */
+	@Benchmark
+	public int xmlPullParser() throws Exception
+	{
+		XmlPullParser parser = new XmlPullParser();
+		parser.parse(markup);
+		int tags = 0;
+		while (parser.nextTag() != null)
+		{
+			tags++;
+		}
+		return tags;
+	}
+
+	/**
+	 * @param wicket
+	 *            the markup filters read the markup settings of the application
+	 * @return the parsed markup
+	 * @throws Exception
+	 */
+	@Benchmark
+	public Markup markupParser(WicketState wicket) throws Exception
+	{
+		return new MarkupParser(markup).parse();
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.proxy.IProxyTargetLocator;
+import org.apache.wicket.proxy.LazyInitProxyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creates and invokes the proxies of {@link LazyInitProxyFactory}, as done for every injected
+ * field of a component: a JDK proxy of an interface and a CGLib proxy of a class. The invocation
+ * of the service itself is measured for reference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyBenchmark
+{
+	/**
+	 * The interface of the service.
+	 */
+	public static interface IService
+	{
+		/**
+		 * @return name
+		 */
+		String getName();
+	}
+
+	/**
+	 * The service.
+	 */
+	public static class Service implements IService
+	{
+		/**
+		 * @see org.apache.wicket.benchmarks.ProxyBenchmark.IService#getName()
+		 */
+		public String getName()
+		{
+			return "service";
+		}
+	}
+
+	/**
+	 * Locates the service.
+	 */
+	public static class ServiceLocator implements IProxyTargetLocator
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final Service SERVICE = new Service();
+
+		/**
+		 * @see org.apache.wicket.proxy.IProxyTargetLocator#locateProxyTarget()
+		 */
+		public Object locateProxyTarget()
+		{
+			return SERVICE;
+		}
+	}
+
+	private final IProxyTargetLocator locator = new ServiceLocator();
+
+	private final IService service = (IService)locator.locateProxyTarget();
+
+	private final IService interfaceProxy = (IService)LazyInitProxyFactory.createProxy(
+		IService.class, locator);
+
+	private final IService classProxy = (IService)LazyInitProxyFactory.createProxy(Service.class,
+		locator);
+
+	/**
+	 * @return the proxy
+	 */
+	@Benchmark
+	public Object createInterfaceProxy()
+	{
+		return LazyInitProxyFactory.createProxy(IService.class, locator);
+	}
+
+	/**
+	 * @return the proxy
+	 */
+	@Benchmark
+	public Object createClassProxy()
+	{
+		return LazyInitProxyFactory.createProxy(Service.class, locator);
+	}
+
+	/**
+	 * @return the result of the service
+	 */
+	@Benchmark
+	public String invokeInterfaceProxy()
+	{
+		return interfaceProxy.getName();
+	}
+
+	/**
+	 * @return the result of the service
+	 */
+	@Benchmark
+	public String invokeClassProxy()
+	{
+		return classProxy.getName();
+	}
+
+	/**
+	 * @return the result of the service
+	 */
+	@Benchmark
+	public String invokeService()
+	{
+		return service.getName();
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.benchmarks.fixtures.BenchmarkApplication;
+import org.apache.wicket.mock.MockWebRequest;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.mapper.CompoundRequestMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Maps requests with the root {@link CompoundRequestMapper} of the {@link BenchmarkApplication}:
+ * mounted pages with and without placeholders, a bookmarkable page, a resource and a url no
+ * mapper matches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestMapperBenchmark
+{
+	/** the url of the request */
+	@Param({ "catalog?rows=100", "products/42", "shop/toys-games", "archive/2011/12",
+			"wicket/bookmarkable/org.apache.wicket.benchmarks.fixtures.ProductPage?id=42",
+			"wicket/resource/org.apache.wicket.markup.html.WicketEventReference/wicket-event.js",
+			"no/such/page" })
+	public String url;
+
+	private IRequestMapper mapper;
+
+	private Request request;
+
+	/**
+	 * @param wicket
+	 */
+	@Setup
+	public void setUp(WicketState wicket)
+	{
+		mapper = wicket.getApplication().getRootRequestMapper();
+		request = new MockWebRequest(Url.parse(url));
+	}
+
+	/**
+	 * @return the handler of the request
+	 */
+	@Benchmark
+	public IRequestHandler mapRequest()
+	{
+		return mapper.mapRequest(request);
+	}
+}
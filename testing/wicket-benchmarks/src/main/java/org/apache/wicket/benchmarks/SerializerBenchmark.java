@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.Page;
+import org.apache.wicket.benchmarks.fixtures.CatalogPage;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.serialize.java.CompactJavaSerializer;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializes and deserializes a rendered {@link CatalogPage} with the {@link JavaSerializer} and
+ * the {@link CompactJavaSerializer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark
+{
+	/** the serializer */
+	@Param({ "java", "compact" })
+	public String serializer;
+
+	/** the number of products of the catalog */
+	@Param({ "100", "1000", "10000" })
+	public int rows;
+
+	private ISerializer instance;
+
+	private Page page;
+
+	private byte[] data;
+
+	/**
+	 * Renders the page and serializes it once.
+	 *
+	 * @param wicket
+	 *            deserialization resolves the classes with the application bound to the thread
+	 */
+	@Setup
+	public void setUp(WicketState wicket)
+	{
+		String applicationKey = wicket.getApplication().getApplicationKey();
+		instance = "compact".equals(serializer) ? new CompactJavaSerializer(applicationKey)
+			: new JavaSerializer(applicationKey);
+		page = wicket.getTester().startPage(CatalogPage.class,
+			new PageParameters().set(CatalogPage.ROWS, rows));
+		data = instance.serialize(page);
+	}
+
+	/**
+	 * @return the serialized page
+	 */
+	@Benchmark
+	public byte[] serialize()
+	{
+		return instance.serialize(page);
+	}
+
+	/**
+	 * @return the deserialized page
+	 */
+	@Benchmark
+	public Object deserialize()
+	{
+		return instance.deserialize(data);
+	}
+
+	/**
+	 * @return the page serialized and deserialized again
+	 */
+	@Benchmark
+	public Object roundTrip()
+	{
+		return instance.deserialize(instance.serialize(page));
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.util.time.Time;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formats and parses {@link Time}s, with a single thread and with a thread per processor. The
+ * <code>Last-Modified</code> and <code>Expires</code> headers of every resource response are
+ * written with {@link Time#toRfc1123TimestampString()}; its timestamps are measured once for the
+ * same second and once for a new second each time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeBenchmark
+{
+	private static final String TIME = "2011.05.26-10.15pm";
+
+	private final Time time = Time.millis(1306404900000L);
+
+	private long seconds = time.getMilliseconds() / 1000;
+
+	/**
+	 * @return the formatted time
+	 */
+	@Benchmark
+	public String format()
+	{
+		return time.toString();
+	}
+
+	/**
+	 * @return the formatted time
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public String formatContended()
+	{
+		return time.toString();
+	}
+
+	/**
+	 * @return the parsed time
+	 * @throws ParseException
+	 */
+	@Benchmark
+	public Time parse() throws ParseException
+	{
+		return Time.valueOf(TIME);
+	}
+
+	/**
+	 * @return the parsed time
+	 * @throws ParseException
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Time parseContended() throws ParseException
+	{
+		return Time.valueOf(TIME);
+	}
+
+	/**
+	 * @return the timestamp of the same second
+	 */
+	@Benchmark
+	public String rfc1123()
+	{
+		return time.toRfc1123TimestampString();
+	}
+
+	/**
+	 * @return the timestamp of the same second
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public String rfc1123Contended()
+	{
+		return time.toRfc1123TimestampString();
+	}
+
+	/**
+	 * @return the timestamp of a new second
+	 */
+	@Benchmark
+	public String rfc1123NewSecond()
+	{
+		return Time.millis(++seconds * 1000).toRfc1123TimestampString();
+	}
+}
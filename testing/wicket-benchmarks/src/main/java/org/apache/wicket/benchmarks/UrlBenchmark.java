@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.mock.MockWebRequest;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.UrlRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses a {@link Url}, writes it and renders it relative to the url of the current request with
+ * the {@link UrlRenderer}, as done for every link of a page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlBenchmark
+{
+	private static final String URL = "shop/toys-games?rows=100&category=Toys+%26+Games" +
+		"&inStock=true&query=wireless+classic";
+
+	private final Url url = Url.parse(URL);
+
+	private final UrlRenderer renderer = new UrlRenderer(new MockWebRequest(
+		Url.parse("archive/2005/3?rows=100")));
+
+	/**
+	 * @return the parsed url
+	 */
+	@Benchmark
+	public Url parse()
+	{
+		return Url.parse(URL);
+	}
+
+	/**
+	 * @return the written url
+	 */
+	@Benchmark
+	public String write()
+	{
+		return url.toString();
+	}
+
+	/**
+	 * @return the relative url
+	 */
+	@Benchmark
+	public String renderRelativeUrl()
+	{
+		return renderer.renderRelativeUrl(url);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import org.apache.wicket.benchmarks.fixtures.BenchmarkApplication;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.util.tester.BaseWicketTester;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A started {@link BenchmarkApplication} for the benchmarks needing an application, a session or a
+ * request cycle. The state is confined to the benchmark thread, since the tester binds the
+ * application and its session to the thread which created it.
+ */
+@State(Scope.Thread)
+public class WicketState
+{
+	private BaseWicketTester tester;
+
+	/**
+	 * Starts the application.
+	 */
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		tester = new BaseWicketTester(new BenchmarkApplication());
+	}
+
+	/**
+	 * Destroys the application.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		tester.destroy();
+	}
+
+	/**
+	 * @return the tester of the application
+	 */
+	public BaseWicketTester getTester()
+	{
+		return tester;
+	}
+
+	/**
+	 * @return the application
+	 */
+	public WebApplication getApplication()
+	{
+		return tester.getApplication();
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks.fixtures;
+
+import java.io.Serializable;
+
+/**
+ * The address of a {@link Customer}.
+ */
+public class Address implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private String street;
+
+	private String zip;
+
+	private String city;
+
+	/**
+	 * @return street
+	 */
+	public String getStreet()
+	{
+		return street;
+	}
+
+	/**
+	 * @param street
+	 */
+	public void setStreet(String street)
+	{
+		this.street = street;
+	}
+
+	/**
+	 * @return zip
+	 */
+	public String getZip()
+	{
+		return zip;
+	}
+
+	/**
+	 * @param zip
+	 */
+	public void setZip(String zip)
+	{
+		this.zip = zip;
+	}
+
+	/**
+	 * @return city
+	 */
+	public String getCity()
+	{
+		return city;
+	}
+
+	/**
+	 * @param city
+	 */
+	public void setCity(String city)
+	{
+		this.city = city;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks.fixtures;
+
+import org.apache.wicket.Page;
+import org.apache.wicket.protocol.http.WebApplication;
+
+/**
+ * The application of the benchmarks. Besides the pages of the {@link Catalog} it mounts a page per
+ * category and per year of an archive, so the root request mapper has a realistic number of
+ * mappers to choose from.
+ */
+public class BenchmarkApplication extends WebApplication
+{
+	/** the years mounted below <code>/archive</code> */
+	public static final int ARCHIVE_YEARS = 12;
+
+	@Override
+	public Class<? extends Page> getHomePage()
+	{
+		return CatalogPage.class;
+	}
+
+	@Override
+	protected void init()
+	{
+		super.init();
+
+		mountPage("/catalog", CatalogPage.class);
+		mountPage("/products/${id}", ProductPage.class);
+		for (String category : Catalog.CATEGORIES)
+		{
+			mountPage("/shop/" + slug(category), CatalogPage.class);
+		}
+		for (int i = 0; i < ARCHIVE_YEARS; i++)
+		{
+			mountPage("/archive/" + (2000 + i) + "/${month}", CatalogPage.class);
+		}
+	}
+
+	/**
+	 * @param category
+	 * @return the path segment of a category
+	 */
+	public static String slug(String category)
+	{
+		return category.toLowerCase().replaceAll("[^a-z]+", "-");
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks.fixtures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the data of the fixture pages. Each product is generated from its id as seed, so every
+ * run of a benchmark works with the same data.
+ */
+public final class Catalog
+{
+	/** the categories of the products */
+	public static final List<String> CATEGORIES = Arrays.asList("Books", "Music", "Garden",
+		"Toys & Games", "Kitchen", "Sports", "Electronics", "Shoes");
+
+	private static final String[] WORDS = { "classic", "deluxe", "compact", "wireless",
+			"organic", "vintage", "portable", "ergonomic", "handmade", "premium" };
+
+	private Catalog()
+	{
+	}
+
+	/**
+	 * Generates products.
+	 *
+	 * @param count
+	 *            the number of products
+	 * @return the products with the ids <code>0</code> to <code>count - 1</code>
+	 */
+	public static List<Product> products(int count)
+	{
+		List<Product> products = new ArrayList<Product>(count);
+		for (int i = 0; i < count; i++)
+		{
+			products.add(product(i));
+		}
+		return products;
+	}
+
+	/**
+	 * Generates a product.
+	 *
+	 * @param id
+	 * @return the product of the id
+	 */
+	public static Product product(int id)
+	{
+		Random random = new Random(id);
+		Product product = new Product(id);
+		String word = WORDS[random.nextInt(WORDS.length)];
+		product.setCategory(CATEGORIES.get(random.nextInt(CATEGORIES.size())));
+		product.setName(Character.toUpperCase(word.charAt(0)) + word.substring(1) + " " +
+			product.getCategory().toLowerCase() + " #" + id);
+		product.setDescription("The <b>" + word + "</b> choice for \"" + product.getCategory() +
+			"\" & more, rated " + (1 + random.nextInt(5)) +
+			" out of 5 by our customers. Ships within " + (1 + random.nextInt(9)) + " days.");
+		product.setPrice(random.nextInt(100000) / 100d);
+		product.setInStock(random.nextInt(4) != 0);
+		return product;
+	}
+
+	/**
+	 * Generates a customer.
+	 *
+	 * @return customer
+	 */
+	public static Customer customer()
+	{
+		Customer customer = new Customer();
+		customer.setName("Jane Doe");
+		customer.getAddress().setStreet("1 Main Street");
+		customer.getAddress().setZip("12345");
+		customer.getAddress().setCity("Springfield");
+		customer.setWishList(products(5));
+		return customer;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks.fixtures;
+
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.form.CheckBox;
+import org.apache.wicket.markup.html.form.DropDownChoice;
+import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.form.TextField;
+import org.apache.wicket.markup.html.link.BookmarkablePageLink;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.model.CompoundPropertyModel;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+
+/**
+ * A page listing the products of the {@link Catalog}, with a search form and the address of the
+ * customer. The number of products is given by the <code>rows</code> page parameter, each product
+ * adds a {@link ListItem} of five components.
+ */
+public class CatalogPage extends WebPage
+{
+	private static final long serialVersionUID = 1L;
+
+	/** the page parameter holding the number of products */
+	public static final String ROWS = "rows";
+
+	private String query;
+
+	private String category = Catalog.CATEGORIES.get(0);
+
+	private boolean inStock = true;
+
+	/**
+	 * Construct.
+	 *
+	 * @param parameters
+	 */
+	public CatalogPage(PageParameters parameters)
+	{
+		super(parameters);
+
+		int rows = parameters.get(ROWS).toInt(100);
+
+		add(new Label("title", "Catalog"));
+
+		WebMarkupContainer customer = new WebMarkupContainer("customer",
+			new CompoundPropertyModel<Customer>(Catalog.customer()));
+		add(customer);
+		customer.add(new Label("name"));
+		customer.add(new Label("address.street"));
+		customer.add(new Label("address.zip"));
+		customer.add(new Label("address.city"));
+		customer.add(new Label("wishList.0.name"));
+
+		Form<Void> search = new Form<Void>("search");
+		add(search);
+		search.add(new TextField<String>("query", new PropertyModel<String>(this, "query")));
+		search.add(new DropDownChoice<String>("category", new PropertyModel<String>(this,
+			"category"), Catalog.CATEGORIES));
+		search.add(new CheckBox("inStock", new PropertyModel<Boolean>(this, "inStock")));
+
+		add(new ListView<Product>("products", Catalog.products(rows))
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void populateItem(ListItem<Product> item)
+			{
+				Product product = item.getModelObject();
+				BookmarkablePageLink<Void> link = new BookmarkablePageLink<Void>("link",
+					ProductPage.class, new PageParameters().set(ProductPage.ID, product.getId()));
+				item.add(link);
+				link.add(new Label("name", product.getName()));
+				item.add(new Label("description", product.getDescription()));
+				item.add(new Label("price", String.format("%.2f", product.getPrice())));
+				item.add(new Label("availability", product.isInStock() ? "in stock"
+					: "sold out"));
+			}
+		});
+
+		add(new BookmarkablePageLink<Void>("more", CatalogPage.class,
+			new PageParameters().set(ROWS, rows * 2)));
+	}
+}
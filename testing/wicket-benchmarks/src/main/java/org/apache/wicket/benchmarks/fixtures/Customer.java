@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks.fixtures;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The customer browsing the {@link Catalog}.
+ */
+public class Customer implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private String name;
+
+	private Address address = new Address();
+
+	private List<Product> wishList = new ArrayList<Product>();
+
+	/**
+	 * @return name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @param name
+	 */
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * @return address
+	 */
+	public Address getAddress()
+	{
+		return address;
+	}
+
+	/**
+	 * @param address
+	 */
+	public void setAddress(Address address)
+	{
+		this.address = address;
+	}
+
+	/**
+	 * @return the products the customer wishes for
+	 */
+	public List<Product> getWishList()
+	{
+		return wishList;
+	}
+
+	/**
+	 * @param wishList
+	 */
+	public void setWishList(List<Product> wishList)
+	{
+		this.wishList = wishList;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks.fixtures;
+
+import java.io.Serializable;
+
+/**
+ * A product of the {@link Catalog}.
+ */
+public class Product implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final int id;
+
+	private String name;
+
+	private String description;
+
+	private String category;
+
+	private double price;
+
+	private boolean inStock;
+
+	/**
+	 * Construct.
+	 *
+	 * @param id
+	 */
+	public Product(int id)
+	{
+		this.id = id;
+	}
+
+	/**
+	 * @return id
+	 */
+	public int getId()
+	{
+		return id;
+	}
+
+	/**
+	 * @return name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @param name
+	 */
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * @return description, which contains markup characters
+	 */
+	public String getDescription()
+	{
+		return description;
+	}
+
+	/**
+	 * @param description
+	 */
+	public void setDescription(String description)
+	{
+		this.description = description;
+	}
+
+	/**
+	 * @return category
+	 */
+	public String getCategory()
+	{
+		return category;
+	}
+
+	/**
+	 * @param category
+	 */
+	public void setCategory(String category)
+	{
+		this.category = category;
+	}
+
+	/**
+	 * @return price
+	 */
+	public double getPrice()
+	{
+		return price;
+	}
+
+	/**
+	 * @param price
+	 */
+	public void setPrice(double price)
+	{
+		this.price = price;
+	}
+
+	/**
+	 * @return whether the product is in stock
+	 */
+	public boolean isInStock()
+	{
+		return inStock;
+	}
+
+	/**
+	 * @param inStock
+	 */
+	public void setInStock(boolean inStock)
+	{
+		this.inStock = inStock;
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks.fixtures;
+
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.link.BookmarkablePageLink;
+import org.apache.wicket.model.CompoundPropertyModel;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+
+/**
+ * A page showing a single product of the {@link Catalog}, mounted with the product id in its path.
+ */
+public class ProductPage extends WebPage
+{
+	private static final long serialVersionUID = 1L;
+
+	/** the page parameter holding the id of the product */
+	public static final String ID = "id";
+
+	/**
+	 * Construct.
+	 *
+	 * @param parameters
+	 */
+	public ProductPage(PageParameters parameters)
+	{
+		super(parameters);
+
+		int id = parameters.get(ID).toInt(0);
+		setDefaultModel(new CompoundPropertyModel<Product>(Catalog.product(id)));
+
+		add(new Label("name"));
+		add(new Label("description"));
+		add(new Label("price"));
+		add(new Label("category"));
+		add(new BookmarkablePageLink<Void>("catalog", CatalogPage.class));
+	}
+}
@@ -24,6 +24,8 @@ import java.util.List;
 import java.util.Locale;
 
 import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.markup.html.AjaxLink;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.markup.html.basic.Label;
@@ -353,6 +355,8 @@ public class Home extends WebPage
 
 	private Contact selected;
 
+	private int ajaxCount;
+
 	/**
 	 * Construct.
 	 */
@@ -374,6 +378,21 @@ public class Home extends WebPage
 
 		add(new Label("selectedLabel", new PropertyModel<Contact>(this, "selectedContactLabel")));
 
+		final Label ajaxCountLabel = new Label("ajaxCount", new PropertyModel<Integer>(this,
+			"ajaxCount"));
+		add(ajaxCountLabel.setOutputMarkupId(true));
+		add(new AjaxLink<Void>("ajaxLink")
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void onClick(AjaxRequestTarget target)
+			{
+				ajaxCount++;
+				target.add(ajaxCountLabel);
+			}
+		});
+
 		add(new DataView<Contact>("simple", new ContactDataProvider())
 		{
 			private static final long serialVersionUID = 1L;
@@ -407,6 +426,14 @@ public class Home extends WebPage
 		add(new InputForm("inputForm"));
 	}
 
+	/**
+	 * @return the number of ajax link clicks
+	 */
+	public int getAjaxCount()
+	{
+		return ajaxCount;
+	}
+
 	/**
 	 * @return string representation of selceted contact property
 	 */
@@ -20,10 +20,13 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+import javax.imageio.ImageIO;
+
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.markup.html.image.Image;
@@ -31,9 +34,6 @@ import org.apache.wicket.markup.html.list.ListItem;
 import org.apache.wicket.markup.html.list.ListView;
 import org.apache.wicket.request.resource.DynamicImageResource;
 
-import com.sun.image.codec.jpeg.JPEGCodec;
-import com.sun.image.codec.jpeg.JPEGImageEncoder;
-
 /**
  * Web page with 50 dynamically-created image resources.
  * 
@@ -70,12 +70,11 @@ public class ResourceTestPage extends WebPage
 
 				// Write it into a byte array as a JPEG.
 				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				JPEGImageEncoder encoder = JPEGCodec.createJPEGEncoder(baos);
 				try
 				{
-					encoder.encode(image);
+					ImageIO.write(image, "jpeg", baos);
 				}
-				catch (Exception e)
+				catch (IOException e)
 				{
 					throw new WicketRuntimeException(e);
 				}
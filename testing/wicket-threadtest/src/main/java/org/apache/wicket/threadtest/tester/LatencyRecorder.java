@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.threadtest.tester;
+
+import java.util.Arrays;
+
+/**
+ * Records the latencies of an operation of a load test.
+ * <p>
+ * The latencies are measured from the time a request was scheduled to be sent, not from the time
+ * it actually was sent. A stalled server delays the requests queued behind a slow one, and these
+ * delays are included in the latencies, which corrects the coordinated omission of a closed loop
+ * tester.
+ *
+ * @see LoadTester
+ */
+public final class LatencyRecorder
+{
+	private final String name;
+
+	/** latencies in nanoseconds */
+	private long[] latencies = new long[1024];
+
+	private int count;
+
+	private int errors;
+
+	/**
+	 * Construct.
+	 *
+	 * @param name
+	 *            the name of the operation
+	 */
+	public LatencyRecorder(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Gets the name of the operation.
+	 *
+	 * @return name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Records a successful execution.
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public synchronized void record(long nanos)
+	{
+		if (count == latencies.length)
+		{
+			long[] grown = new long[count * 2];
+			System.arraycopy(latencies, 0, grown, 0, count);
+			latencies = grown;
+		}
+		latencies[count++] = nanos;
+	}
+
+	/**
+	 * Records a failed execution.
+	 */
+	public synchronized void error()
+	{
+		errors++;
+	}
+
+	/**
+	 * Records all executions of another recorder.
+	 *
+	 * @param other
+	 */
+	public void add(LatencyRecorder other)
+	{
+		long[] sorted = other.getSorted();
+		int otherErrors = other.getErrors();
+		synchronized (this)
+		{
+			for (long nanos : sorted)
+			{
+				record(nanos);
+			}
+			errors += otherErrors;
+		}
+	}
+
+	/**
+	 * Gets the number of successful executions.
+	 *
+	 * @return count
+	 */
+	public synchronized int getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Gets the number of failed executions.
+	 *
+	 * @return errors
+	 */
+	public synchronized int getErrors()
+	{
+		return errors;
+	}
+
+	/**
+	 * @return a sorted copy of the latencies
+	 */
+	private synchronized long[] getSorted()
+	{
+		long[] sorted = new long[count];
+		System.arraycopy(latencies, 0, sorted, 0, count);
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	/**
+	 * Takes a snapshot of the statistics.
+	 *
+	 * @param seconds
+	 *            the measured duration
+	 * @return snapshot
+	 */
+	public Snapshot snapshot(double seconds)
+	{
+		return new Snapshot(name, getSorted(), getErrors(), seconds);
+	}
+
+	/**
+	 * Statistics of an operation, the latencies in milliseconds.
+	 */
+	public static final class Snapshot
+	{
+		/** percentiles included in a snapshot */
+		static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+		/** names of the percentiles */
+		static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p99_9" };
+
+		private final String name;
+
+		private final int count;
+
+		private final int errors;
+
+		private final double throughput;
+
+		private final double mean;
+
+		private final double max;
+
+		private final double[] percentiles = new double[PERCENTILES.length];
+
+		private Snapshot(String name, long[] sorted, int errors, double seconds)
+		{
+			this.name = name;
+			count = sorted.length;
+			this.errors = errors;
+			throughput = seconds > 0 ? count / seconds : 0;
+
+			long sum = 0;
+			for (long nanos : sorted)
+			{
+				sum += nanos;
+			}
+			mean = count > 0 ? millis(sum / count) : 0;
+			max = count > 0 ? millis(sorted[count - 1]) : 0;
+			for (int i = 0; i < PERCENTILES.length; i++)
+			{
+				percentiles[i] = percentile(sorted, PERCENTILES[i]);
+			}
+		}
+
+		/**
+		 * @param sorted
+		 * @param percentile
+		 * @return the nearest rank percentile in milliseconds
+		 */
+		private static double percentile(long[] sorted, double percentile)
+		{
+			if (sorted.length == 0)
+			{
+				return 0;
+			}
+			int rank = (int)Math.ceil(percentile / 100 * sorted.length);
+			return millis(sorted[Math.max(rank, 1) - 1]);
+		}
+
+		private static double millis(long nanos)
+		{
+			return nanos / 1000000d;
+		}
+
+		/**
+		 * @return the name of the operation
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * @return the number of successful executions
+		 */
+		public int getCount()
+		{
+			return count;
+		}
+
+		/**
+		 * @return the number of failed executions
+		 */
+		public int getErrors()
+		{
+			return errors;
+		}
+
+		/**
+		 * @return the successful executions per second
+		 */
+		public double getThroughput()
+		{
+			return throughput;
+		}
+
+		/**
+		 * @return the mean latency
+		 */
+		public double getMean()
+		{
+			return mean;
+		}
+
+		/**
+		 * @return the maximum latency
+		 */
+		public double getMax()
+		{
+			return max;
+		}
+
+		/**
+		 * @param index
+		 *            the index in {@link #PERCENTILES}
+		 * @return the latency of the percentile
+		 */
+		double getPercentile(int index)
+		{
+			return percentiles[index];
+		}
+
+		/**
+		 * @return the median latency
+		 */
+		public double getP50()
+		{
+			return percentiles[0];
+		}
+
+		/**
+		 * @return the 99th percentile latency
+		 */
+		public double getP99()
+		{
+			return percentiles[2];
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.threadtest.tester;
+
+import java.io.IOException;
+
+/**
+ * The operations of the workload of a load test.
+ *
+ * @see LoadTester
+ */
+public enum LoadOperation {
+	/** renders a new instance of the page */
+	RENDER {
+		@Override
+		public boolean execute(LoadSession session) throws IOException
+		{
+			return session.render();
+		}
+	},
+
+	/** invokes an Ajax behavior of the page */
+	AJAX {
+		@Override
+		public boolean execute(LoadSession session) throws IOException
+		{
+			return session.ajax();
+		}
+	},
+
+	/** submits the form of the page */
+	FORM {
+		@Override
+		public boolean execute(LoadSession session) throws IOException
+		{
+			return session.submit();
+		}
+	},
+
+	/** fetches a resource referenced by the page */
+	RESOURCE {
+		@Override
+		public boolean execute(LoadSession session) throws IOException
+		{
+			return session.fetchResource();
+		}
+	};
+
+	/**
+	 * Executes the operation.
+	 *
+	 * @param session
+	 *            the client session to execute the operation in
+	 * @return whether the operation succeeded
+	 * @throws IOException
+	 */
+	public abstract boolean execute(LoadSession session) throws IOException;
+}
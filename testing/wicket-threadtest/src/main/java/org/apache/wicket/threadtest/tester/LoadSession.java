@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.threadtest.tester;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.io.Streams;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * A client session of a load test. It keeps the cookies of its own http client and the urls found
+ * on the page it rendered last, i.e. the callback urls of the form, of an Ajax behavior and the
+ * resource urls.
+ *
+ * @see LoadTester
+ */
+public class LoadSession
+{
+	/** the urls of links, forms, scripts, style sheets and images */
+	private static final Pattern URL_ATTRIBUTE = Pattern.compile("(?:href|src|action)=\"([^\"]*)\"");
+
+	/** the callback urls of Ajax behaviors, the quotes may be escaped */
+	private static final Pattern AJAX_URL = Pattern.compile(
+		"wicketAjaxGet\\((?:'|&#039;)(.*?)(?:'|&#039;)");
+
+	/** the session id in urls rewritten before the session cookie was received */
+	private static final Pattern SESSION_ID = Pattern.compile(";jsessionid=[^?#]*");
+
+	private final HttpClient client;
+
+	private final String applicationUrl;
+
+	private final String homePath;
+
+	private final NameValuePair[] formParameters;
+
+	private String pageUrl;
+
+	private String formUrl;
+
+	private String ajaxUrl;
+
+	private final List<String> resourceUrls = new ArrayList<String>();
+
+	private int nextResource;
+
+	/**
+	 * Construct.
+	 *
+	 * @param client
+	 *            the http client of this session
+	 * @param applicationUrl
+	 *            the absolute url of the application, ending with a slash
+	 * @param homePath
+	 *            the path of the page to render, relative to the application url
+	 * @param formParameters
+	 *            the parameters to submit the form of the page with
+	 */
+	public LoadSession(HttpClient client, String applicationUrl, String homePath,
+		NameValuePair[] formParameters)
+	{
+		this.client = client;
+		this.applicationUrl = applicationUrl;
+		this.homePath = homePath;
+		this.formParameters = formParameters;
+	}
+
+	/**
+	 * Renders a new instance of the page.
+	 *
+	 * @return whether the request succeeded
+	 * @throws IOException
+	 */
+	public boolean render() throws IOException
+	{
+		return get(applicationUrl + homePath);
+	}
+
+	/**
+	 * Invokes the Ajax behavior of the page rendered last, rendering the page first if necessary.
+	 *
+	 * @return whether the requests succeeded
+	 * @throws IOException
+	 */
+	public boolean ajax() throws IOException
+	{
+		if (ajaxUrl == null && (!render() || ajaxUrl == null))
+		{
+			return false;
+		}
+
+		GetMethod method = new GetMethod(ajaxUrl);
+		method.setRequestHeader("Wicket-Ajax", "true");
+		method.setRequestHeader("Wicket-Ajax-BaseURL",
+			SESSION_ID.matcher(pageUrl.substring(applicationUrl.length())).replaceFirst(""));
+		try
+		{
+			int code = client.executeMethod(method);
+			consume(method);
+			return code < 400;
+		}
+		finally
+		{
+			method.releaseConnection();
+		}
+	}
+
+	/**
+	 * Submits the form of the page rendered last, rendering the page first if necessary. The
+	 * redirect to the rendered result is followed.
+	 *
+	 * @return whether the requests succeeded
+	 * @throws IOException
+	 */
+	public boolean submit() throws IOException
+	{
+		if (formUrl == null && (!render() || formUrl == null))
+		{
+			return false;
+		}
+
+		PostMethod method = new PostMethod(formUrl);
+		method.setRequestBody(formParameters);
+		String location = null;
+		try
+		{
+			int code = client.executeMethod(method);
+			String body = read(method);
+			if (code >= 400)
+			{
+				return false;
+			}
+			Header header = method.getResponseHeader("Location");
+			if (header != null)
+			{
+				location = resolve(formUrl, header.getValue());
+			}
+			else
+			{
+				parse(formUrl, body);
+			}
+		}
+		finally
+		{
+			method.releaseConnection();
+		}
+		return location == null || get(location);
+	}
+
+	/**
+	 * Fetches the next resource referenced by the page rendered last, rendering the page first if
+	 * necessary.
+	 *
+	 * @return whether the requests succeeded
+	 * @throws IOException
+	 */
+	public boolean fetchResource() throws IOException
+	{
+		if (resourceUrls.isEmpty() && (!render() || resourceUrls.isEmpty()))
+		{
+			return false;
+		}
+
+		GetMethod method = new GetMethod(resourceUrls.get(nextResource++ % resourceUrls.size()));
+		try
+		{
+			int code = client.executeMethod(method);
+			consume(method);
+			return code < 400;
+		}
+		finally
+		{
+			method.releaseConnection();
+		}
+	}
+
+	/**
+	 * Gets a page, following redirects, and remembers its urls.
+	 *
+	 * @param url
+	 * @return whether the request succeeded
+	 * @throws IOException
+	 */
+	private boolean get(String url) throws IOException
+	{
+		GetMethod method = new GetMethod(url);
+		method.setFollowRedirects(true);
+		try
+		{
+			int code = client.executeMethod(method);
+			String body = read(method);
+			if (code >= 400)
+			{
+				return false;
+			}
+			parse(method.getURI().toString(), body);
+			return true;
+		}
+		finally
+		{
+			method.releaseConnection();
+		}
+	}
+
+	/**
+	 * Reads the response of a method.
+	 *
+	 * @param method
+	 * @return the response body
+	 * @throws IOException
+	 */
+	private static String read(HttpMethodBase method) throws IOException
+	{
+		InputStream in = method.getResponseBodyAsStream();
+		return in == null ? "" : Streams.readString(in, method.getResponseCharSet());
+	}
+
+	/**
+	 * Reads and discards the response of a method, so the connection can be reused.
+	 *
+	 * @param method
+	 * @throws IOException
+	 */
+	private static void consume(HttpMethodBase method) throws IOException
+	{
+		InputStream in = method.getResponseBodyAsStream();
+		if (in != null)
+		{
+			IOUtils.toByteArray(in);
+		}
+	}
+
+	/**
+	 * Remembers the urls of a page.
+	 *
+	 * @param url
+	 *            the url of the page
+	 * @param page
+	 *            the markup of the page
+	 */
+	private void parse(String url, String page)
+	{
+		pageUrl = url;
+		formUrl = null;
+		ajaxUrl = null;
+		resourceUrls.clear();
+
+		Matcher matcher = URL_ATTRIBUTE.matcher(page);
+		while (matcher.find())
+		{
+			String found = resolve(url, matcher.group(1));
+			if (found == null)
+			{
+				continue;
+			}
+			if (found.contains("IFormSubmitListener"))
+			{
+				formUrl = found;
+			}
+			else if ((found.endsWith(".js") || found.endsWith(".css") ||
+				found.contains("/resource/")) &&
+				!resourceUrls.contains(found))
+			{
+				resourceUrls.add(found);
+			}
+		}
+
+		matcher = AJAX_URL.matcher(page);
+		if (matcher.find())
+		{
+			ajaxUrl = resolve(url, matcher.group(1));
+		}
+	}
+
+	/**
+	 * Resolves a url found on a page.
+	 *
+	 * @param base
+	 *            the url of the page
+	 * @param relative
+	 *            the url found on the page
+	 * @return the absolute url or <code>null</code> if it doesn't refer to this application
+	 */
+	private String resolve(String base, String relative)
+	{
+		String url = Strings.replaceAll(relative, "&amp;", "&").toString();
+		if (url.startsWith("?"))
+		{
+			// java.net.URI drops the last segment of the base
+			int query = base.indexOf('?');
+			url = (query == -1 ? base : base.substring(0, query)) + url;
+		}
+		else
+		{
+			try
+			{
+				url = URI.create(base).resolve(url).toString();
+			}
+			catch (IllegalArgumentException e)
+			{
+				return null;
+			}
+		}
+		return url.startsWith(applicationUrl) ? url : null;
+	}
+}
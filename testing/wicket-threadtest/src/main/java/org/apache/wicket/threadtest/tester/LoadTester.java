@@ -0,0 +1,561 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.threadtest.tester;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.params.HttpClientParams;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.wicket.threadtest.tester.LatencyRecorder.Snapshot;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.time.Time;
+import org.eclipse.jetty.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load test of a mixed workload at a fixed arrival rate against the test applications, which are
+ * started in an embedded Jetty on a free port.
+ * <p>
+ * The requests are scheduled at fixed intervals, regardless of how fast the server answers, and
+ * executed by a pool of threads in a pool of client sessions. Each scheduled request executes an
+ * operation drawn from the weighted mix with a seeded random, so runs are repeatable. The
+ * latencies are measured from the scheduled time (see {@link LatencyRecorder}). The results of the
+ * requests scheduled after the warmup are logged and written as JSON, so runs before and after a
+ * change, e.g. of the page store, the serializer or the request mappers, can be compared.
+ * <p>
+ * Run {@link #main(String[])} from the directory of this project with arguments like
+ *
+ * <pre>
+ * rate=200 warmup=10 duration=60 threads=32 sessions=64 mix=render:4,ajax:3,form:2,resource:1 out=target/load.json label=baseline
+ * </pre>
+ *
+ * @see LoadOperation
+ */
+public final class LoadTester
+{
+	private static final Logger log = LoggerFactory.getLogger(LoadTester.class);
+
+	/** the parameters the form of the home page of TestApp1 is submitted with */
+	private static final NameValuePair[] APP1_FORM = { new NameValuePair("stringProperty", "load"),
+			new NameValuePair("integerProperty", "42"), new NameValuePair("doubleProperty", "4.2"),
+			new NameValuePair("integerInRangeProperty", "50"),
+			new NameValuePair("urlProperty", "http://wicket.apache.org"),
+			new NameValuePair("saveButton", "Save") };
+
+	private final Map<LoadOperation, Integer> mix;
+
+	private double rate = 100;
+
+	private int warmupSeconds = 10;
+
+	private int durationSeconds = 30;
+
+	private int threads = 16;
+
+	private int sessions = 32;
+
+	private long seed = 1;
+
+	private String applicationPath = "app1/";
+
+	private String homePath = "wicket/bookmarkable/org.apache.wicket.threadtest.apps.app1.Home";
+
+	private NameValuePair[] formParameters = APP1_FORM;
+
+	/**
+	 * Construct.
+	 *
+	 * @param mix
+	 *            the operations of the workload and their weights
+	 */
+	public LoadTester(Map<LoadOperation, Integer> mix)
+	{
+		if (mix.isEmpty())
+		{
+			throw new IllegalArgumentException("mix must not be empty");
+		}
+		this.mix = new EnumMap<LoadOperation, Integer>(mix);
+	}
+
+	/**
+	 * Runs the load test.
+	 *
+	 * @return the statistics of the operations, followed by the statistics of all operations
+	 * @throws Exception
+	 */
+	public List<Snapshot> run() throws Exception
+	{
+		Server server = Tester.startServer(0);
+		int port = server.getConnectors()[0].getLocalPort();
+
+		HttpConnectionManagerParams connManagerParams = new HttpConnectionManagerParams();
+		connManagerParams.setDefaultMaxConnectionsPerHost(threads);
+		connManagerParams.setMaxTotalConnections(threads);
+		MultiThreadedHttpConnectionManager manager = new MultiThreadedHttpConnectionManager();
+		manager.setParams(connManagerParams);
+
+		HttpClientParams params = new HttpClientParams();
+		params.setParameter(HttpClientParams.ALLOW_CIRCULAR_REDIRECTS, true);
+
+		String applicationUrl = "http://localhost:" + port + "/" + applicationPath;
+		BlockingQueue<LoadSession> idle = new LinkedBlockingQueue<LoadSession>();
+		for (int i = 0; i < sessions; i++)
+		{
+			idle.add(new LoadSession(new HttpClient(params, manager), applicationUrl, homePath,
+				formParameters));
+		}
+
+		Map<LoadOperation, LatencyRecorder> recorders = new EnumMap<LoadOperation, LatencyRecorder>(
+			LoadOperation.class);
+		for (LoadOperation operation : mix.keySet())
+		{
+			recorders.put(operation, new LatencyRecorder(operation.name().toLowerCase()));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			log.info("running " + mix + " at " + rate + "/s against " + applicationUrl);
+			schedule(executor, idle, recorders);
+			executor.shutdown();
+			if (!executor.awaitTermination(durationSeconds + 60, TimeUnit.SECONDS))
+			{
+				log.warn("requests still running after the end of the test");
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+			manager.shutdown();
+			server.stop();
+		}
+
+		List<Snapshot> snapshots = new ArrayList<Snapshot>();
+		LatencyRecorder all = new LatencyRecorder("all");
+		for (LatencyRecorder recorder : recorders.values())
+		{
+			snapshots.add(recorder.snapshot(durationSeconds));
+			all.add(recorder);
+		}
+		snapshots.add(all.snapshot(durationSeconds));
+		return snapshots;
+	}
+
+	/**
+	 * Schedules the requests at the arrival rate until the end of the test.
+	 *
+	 * @param executor
+	 * @param idle
+	 *            the idle client sessions
+	 * @param recorders
+	 */
+	private void schedule(ExecutorService executor, BlockingQueue<LoadSession> idle,
+		Map<LoadOperation, LatencyRecorder> recorders)
+	{
+		LoadOperation[] operations = mix.keySet().toArray(new LoadOperation[mix.size()]);
+		int[] weights = new int[operations.length];
+		int totalWeight = 0;
+		for (int i = 0; i < operations.length; i++)
+		{
+			totalWeight += mix.get(operations[i]);
+			weights[i] = totalWeight;
+		}
+
+		Random random = new Random(seed);
+		long interval = (long)(TimeUnit.SECONDS.toNanos(1) / rate);
+		long start = System.nanoTime();
+		long measured = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long end = measured + TimeUnit.SECONDS.toNanos(durationSeconds);
+		for (long scheduled = start; scheduled < end; scheduled += interval)
+		{
+			long delay;
+			while ((delay = scheduled - System.nanoTime()) > 0)
+			{
+				LockSupport.parkNanos(delay);
+			}
+
+			int drawn = random.nextInt(totalWeight);
+			int index = 0;
+			while (drawn >= weights[index])
+			{
+				index++;
+			}
+			LoadOperation operation = operations[index];
+			executor.execute(new Request(operation, scheduled, idle,
+				scheduled >= measured ? recorders.get(operation) : null));
+		}
+	}
+
+	/**
+	 * Writes the results of a run as JSON.
+	 *
+	 * @param snapshots
+	 *            the results of {@link #run()}
+	 * @param file
+	 * @param label
+	 *            the label of the run, e.g. the change tested
+	 * @throws IOException
+	 */
+	public void write(List<Snapshot> snapshots, File file, String label) throws IOException
+	{
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs())
+		{
+			throw new IOException("Unable to create directory " + parent);
+		}
+
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"label\": ").append(quote(label)).append(",\n");
+		json.append("  \"date\": ").append(quote(Time.now().toRfc1123TimestampString())).append(
+			",\n");
+		json.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(
+			",\n");
+		json.append("  \"processors\": ")
+			.append(Runtime.getRuntime().availableProcessors())
+			.append(",\n");
+		json.append("  \"rate\": ").append(rate).append(",\n");
+		json.append("  \"warmupSeconds\": ").append(warmupSeconds).append(",\n");
+		json.append("  \"durationSeconds\": ").append(durationSeconds).append(",\n");
+		json.append("  \"threads\": ").append(threads).append(",\n");
+		json.append("  \"sessions\": ").append(sessions).append(",\n");
+		json.append("  \"seed\": ").append(seed).append(",\n");
+		json.append("  \"mix\": {");
+		String separator = "";
+		for (Map.Entry<LoadOperation, Integer> entry : mix.entrySet())
+		{
+			json.append(separator)
+				.append(quote(entry.getKey().name().toLowerCase()))
+				.append(": ")
+				.append(entry.getValue());
+			separator = ", ";
+		}
+		json.append("},\n");
+		json.append("  \"operations\": [\n");
+		for (int i = 0; i < snapshots.size(); i++)
+		{
+			Snapshot snapshot = snapshots.get(i);
+			json.append("    {\"name\": ").append(quote(snapshot.getName()));
+			json.append(", \"count\": ").append(snapshot.getCount());
+			json.append(", \"errors\": ").append(snapshot.getErrors());
+			json.append(", \"throughput\": ").append(format(snapshot.getThroughput()));
+			json.append(", \"meanMillis\": ").append(format(snapshot.getMean()));
+			for (int p = 0; p < Snapshot.PERCENTILES.length; p++)
+			{
+				json.append(", \"")
+					.append(Snapshot.PERCENTILE_NAMES[p])
+					.append("Millis\": ")
+					.append(format(snapshot.getPercentile(p)));
+			}
+			json.append(", \"maxMillis\": ").append(format(snapshot.getMax()));
+			json.append(i < snapshots.size() - 1 ? "},\n" : "}\n");
+		}
+		json.append("  ]\n");
+		json.append("}\n");
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try
+		{
+			writer.write(json.toString());
+		}
+		finally
+		{
+			IOUtils.close(writer);
+		}
+	}
+
+	private static String format(double value)
+	{
+		return String.format(Locale.ENGLISH, "%.3f", value);
+	}
+
+	private static String quote(String value)
+	{
+		StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+			{
+				quoted.append('\\').append(c);
+			}
+			else if (c < 0x20)
+			{
+				quoted.append(String.format("\\u%04x", (int)c));
+			}
+			else
+			{
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * Logs the results of a run.
+	 *
+	 * @param snapshots
+	 *            the results of {@link #run()}
+	 */
+	public static void logResults(List<Snapshot> snapshots)
+	{
+		StringBuilder table = new StringBuilder("\n");
+		table.append(String.format("%-10s %8s %7s %10s %9s %9s %9s %9s %9s %9s\n", "operation",
+			"count", "errors", "req/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms",
+			"max ms"));
+		for (Snapshot snapshot : snapshots)
+		{
+			table.append(String.format(Locale.ENGLISH,
+				"%-10s %8d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f\n", snapshot.getName(),
+				snapshot.getCount(), snapshot.getErrors(), snapshot.getThroughput(),
+				snapshot.getMean(), snapshot.getPercentile(0), snapshot.getPercentile(1),
+				snapshot.getPercentile(2), snapshot.getPercentile(3), snapshot.getMax()));
+		}
+		log.info(table.toString());
+	}
+
+	/**
+	 * Sets the number of requests per second.
+	 *
+	 * @param rate
+	 */
+	public void setRate(double rate)
+	{
+		this.rate = rate;
+	}
+
+	/**
+	 * Sets the duration of the warmup, whose requests aren't included in the results.
+	 *
+	 * @param warmupSeconds
+	 */
+	public void setWarmupSeconds(int warmupSeconds)
+	{
+		this.warmupSeconds = warmupSeconds;
+	}
+
+	/**
+	 * Sets the duration of the measured part of the test.
+	 *
+	 * @param durationSeconds
+	 */
+	public void setDurationSeconds(int durationSeconds)
+	{
+		this.durationSeconds = durationSeconds;
+	}
+
+	/**
+	 * Sets the number of threads executing the requests.
+	 *
+	 * @param threads
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the number of client sessions.
+	 *
+	 * @param sessions
+	 */
+	public void setSessions(int sessions)
+	{
+		this.sessions = sessions;
+	}
+
+	/**
+	 * Sets the seed of the random drawing the operations.
+	 *
+	 * @param seed
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the application to test.
+	 *
+	 * @param applicationPath
+	 *            the path of the application in the web application, ending with a slash
+	 * @param homePath
+	 *            the path of the page to render, relative to the application
+	 * @param formParameters
+	 *            the parameters to submit the form of the page with
+	 */
+	public void setApplication(String applicationPath, String homePath,
+		NameValuePair[] formParameters)
+	{
+		this.applicationPath = applicationPath;
+		this.homePath = homePath;
+		this.formParameters = formParameters;
+	}
+
+	/**
+	 * Runs a load test of TestApp1.
+	 *
+	 * @param args
+	 *            key=value pairs of rate, warmup, duration (in seconds), threads, sessions, seed,
+	 *            mix (e.g. render:4,ajax:3,form:2,resource:1), label and out (the JSON file)
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		Map<String, String> arguments = new LinkedHashMap<String, String>();
+		arguments.put("mix", "render:4,ajax:3,form:2,resource:1");
+		arguments.put("label", "");
+		arguments.put("out", "target/load-results.json");
+		for (String arg : args)
+		{
+			int equals = arg.indexOf('=');
+			if (equals == -1)
+			{
+				throw new IllegalArgumentException("expected key=value but was " + arg);
+			}
+			arguments.put(arg.substring(0, equals), arg.substring(equals + 1));
+		}
+
+		Map<LoadOperation, Integer> mix = new EnumMap<LoadOperation, Integer>(
+			LoadOperation.class);
+		for (String weighted : arguments.get("mix").split(","))
+		{
+			String[] parts = weighted.split(":");
+			mix.put(LoadOperation.valueOf(parts[0].trim().toUpperCase()),
+				parts.length > 1 ? Integer.valueOf(parts[1].trim()) : 1);
+		}
+
+		LoadTester tester = new LoadTester(mix);
+		if (arguments.containsKey("rate"))
+		{
+			tester.setRate(Double.parseDouble(arguments.get("rate")));
+		}
+		if (arguments.containsKey("warmup"))
+		{
+			tester.setWarmupSeconds(Integer.parseInt(arguments.get("warmup")));
+		}
+		if (arguments.containsKey("duration"))
+		{
+			tester.setDurationSeconds(Integer.parseInt(arguments.get("duration")));
+		}
+		if (arguments.containsKey("threads"))
+		{
+			tester.setThreads(Integer.parseInt(arguments.get("threads")));
+		}
+		if (arguments.containsKey("sessions"))
+		{
+			tester.setSessions(Integer.parseInt(arguments.get("sessions")));
+		}
+		if (arguments.containsKey("seed"))
+		{
+			tester.setSeed(Long.parseLong(arguments.get("seed")));
+		}
+
+		List<Snapshot> snapshots = tester.run();
+		logResults(snapshots);
+		File out = new File(arguments.get("out"));
+		tester.write(snapshots, out, arguments.get("label"));
+		log.info("results written to " + out.getAbsolutePath());
+	}
+
+	/**
+	 * A scheduled request
+	 */
+	private static final class Request implements Runnable
+	{
+		private final LoadOperation operation;
+
+		private final long scheduled;
+
+		private final BlockingQueue<LoadSession> idle;
+
+		private final LatencyRecorder recorder;
+
+		private Request(LoadOperation operation, long scheduled, BlockingQueue<LoadSession> idle,
+			LatencyRecorder recorder)
+		{
+			this.operation = operation;
+			this.scheduled = scheduled;
+			this.idle = idle;
+			this.recorder = recorder;
+		}
+
+		public void run()
+		{
+			LoadSession session;
+			try
+			{
+				session = idle.take();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			try
+			{
+				boolean succeeded = operation.execute(session);
+				long latency = System.nanoTime() - scheduled;
+				if (recorder != null)
+				{
+					if (succeeded)
+					{
+						recorder.record(latency);
+					}
+					else
+					{
+						recorder.error();
+					}
+				}
+			}
+			catch (Exception e)
+			{
+				log.debug("execution of " + operation + " failed", e);
+				if (recorder != null)
+				{
+					recorder.error();
+				}
+			}
+			finally
+			{
+				idle.add(session);
+			}
+		}
+	}
+}
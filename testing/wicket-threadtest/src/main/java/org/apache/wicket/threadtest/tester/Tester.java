@@ -83,9 +83,10 @@ public final class Tester implements CommandRunnerObserver
 	 * Start Jetty server instance and return the handle.
 	 * 
 	 * @param port
+	 *            the port to listen on, or 0 for any free port
 	 * @return server handle
 	 */
-	private static Server startServer(int port)
+	static Server startServer(int port)
 	{
 		Server server;
 		// start up server
@@ -44,6 +44,8 @@ import org.apache.wicket.markup.MarkupStream;
 import org.apache.wicket.markup.WicketTag;
 import org.apache.wicket.markup.html.IHeaderContributor;
 import org.apache.wicket.markup.html.IHeaderResponse;
+import org.apache.wicket.markup.html.IStaticHeaderContributor;
+import org.apache.wicket.markup.html.internal.HeaderRenderPlan;
 import org.apache.wicket.markup.html.internal.HtmlHeaderContainer;
 import org.apache.wicket.markup.html.panel.DefaultMarkupSourcingStrategy;
 import org.apache.wicket.markup.html.panel.IMarkupSourcingStrategy;
@@ -2639,6 +2641,9 @@ public abstract class Component
 
 			IHeaderResponse response = container.getHeaderResponse();
 
+			// The static contributions are replayed, if possible
+			HeaderRenderPlan plan = container.getRenderPlan();
+
 			// Allow component to contribute
 			if (response.wasRendered(this) == false)
 			{
@@ -2647,22 +2652,38 @@ public abstract class Component
 				getMarkupSourcingStrategy().renderHead(this, container);
 
 				// Then let the component itself to contribute to the header
-				renderHead(this, response);
+				if ((plan != null) && (this instanceof IStaticHeaderContributor))
+				{
+					plan.render(this, response);
+				}
+				else
+				{
+					renderHead(this, response);
+				}
 
 				response.markRendered(this);
 			}
 
 			// Than ask all behaviors
+			int index = 0;
 			for (Behavior behavior : getBehaviors())
 			{
 				if (isBehaviorAccepted(behavior))
 				{
 					if (response.wasRendered(behavior) == false)
 					{
-						behavior.renderHead(this, response);
+						if ((plan != null) && (behavior instanceof IStaticHeaderContributor))
+						{
+							plan.render(this, behavior, index, response);
+						}
+						else
+						{
+							behavior.renderHead(this, response);
+						}
 						response.markRendered(behavior);
 					}
 				}
+				index++;
 			}
 		}
 	}
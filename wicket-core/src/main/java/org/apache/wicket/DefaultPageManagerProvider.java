@@ -56,7 +56,8 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		if (storeSettings.isAsynchronous())
 		{
 			int capacity = storeSettings.getAsynchronousQueueCapacity();
-			dataStore = new AsynchronousDataStore(dataStore, capacity);
+			int writerCount = storeSettings.getAsynchronousWriterCount();
+			dataStore = new AsynchronousDataStore(dataStore, capacity, writerCount);
 		}
 
 		IPageStore pageStore = newPageStore(dataStore);
@@ -16,20 +16,27 @@
  */
 package org.apache.wicket;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.wicket.markup.repeater.AbstractRepeater;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.resource.IPropertiesChangeListener;
 import org.apache.wicket.resource.loader.IStringResourceLoader;
 import org.apache.wicket.settings.IResourceSettings;
+import org.apache.wicket.util.collections.WeightedLruCache;
+import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Generics;
+import org.apache.wicket.util.lang.Objects;
 import org.apache.wicket.util.string.AppendingStringBuffer;
 import org.apache.wicket.util.string.interpolator.PropertyVariableInterpolator;
 import org.slf4j.Logger;
@@ -44,6 +51,10 @@ import org.slf4j.LoggerFactory;
  * You may register additional IStringResourceLoader to extend or replace Wickets default search
  * strategy for the properties. E.g. string resource loaders which load the properties from a
  * database. There should be hardly any need to extend Localizer.
+ * <p>
+ * The strings found are cached, by default up to {@link #DEFAULT_MAX_CACHE_SIZE} of them. When a
+ * properties file changes only the strings of its locale are removed from the cache, see
+ * {@link #propertiesChanged(String)}.
  * 
  * @see org.apache.wicket.settings.IResourceSettings#getLocalizer()
  * @see org.apache.wicket.resource.loader.IStringResourceLoader
@@ -52,15 +63,29 @@ import org.slf4j.LoggerFactory;
  * @author Chris Turner
  * @author Juergen Donnerstag
  */
-public class Localizer
+public class Localizer implements IPropertiesChangeListener
 {
 	private static final Logger log = LoggerFactory.getLogger(Localizer.class);
 
+	/** The default maximum number of cached strings */
+	public static final int DEFAULT_MAX_CACHE_SIZE = 50000;
+
 	/** ConcurrentHashMap does not allow null values */
 	private static final String NULL_VALUE = "<null-value>";
 
+	/** The ISO 639 language codes, to recognize the locale in the name of a properties file */
+	private static final Set<String> LANGUAGES = new HashSet<String>(
+		Arrays.asList(Locale.getISOLanguages()));
+
+	/** The maximum number of cached strings, 0 for no limit */
+	private final int maxCacheSize;
+
 	/** Cache properties */
-	private Map<String, String> cache = newCache();
+	private volatile WeightedLruCache<CacheKey, String> cache;
+
+	private final AtomicLong cacheHitCount = new AtomicLong();
+
+	private final AtomicLong cacheMissCount = new AtomicLong();
 
 	/** Database that maps class names to an integer id. */
 	private final ClassMetaDatabase metaDatabase = new ClassMetaDatabase();
@@ -79,18 +104,81 @@ public class Localizer
 	 */
 	public Localizer()
 	{
+		this(DEFAULT_MAX_CACHE_SIZE);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxCacheSize
+	 *            the maximum number of cached strings, the least recently used strings are
+	 *            removed above it. 0 for no limit.
+	 */
+	public Localizer(final int maxCacheSize)
+	{
+		Args.isTrue(maxCacheSize >= 0, "maxCacheSize must not be negative but was %s",
+			maxCacheSize);
+		this.maxCacheSize = maxCacheSize;
+		cache = newCacheImplementation();
 	}
 
 	/**
 	 * Clear all cache entries by instantiating a new cache object
 	 * 
-	 * @see #newCache()
+	 * @see #newCacheImplementation()
 	 */
 	public final void clearCache()
 	{
 		if (cache != null)
 		{
-			cache = newCache();
+			cache = newCacheImplementation();
+		}
+	}
+
+	/**
+	 * Removes the cached strings of a locale, including those of its more specific locales. E.g.
+	 * the strings of <code>de_DE</code> and <code>de_CH</code> are removed for <code>de</code>.
+	 * 
+	 * @param locale
+	 *            the locale
+	 */
+	public final void clearCache(final Locale locale)
+	{
+		Args.notNull(locale, "locale");
+
+		final WeightedLruCache<CacheKey, String> cache = this.cache;
+		if (cache == null)
+		{
+			return;
+		}
+
+		for (CacheKey cacheKey : cache.keys())
+		{
+			// the locale of the keys of the deprecated string methods is unknown
+			if ((cacheKey.getLocale() == null) || isMoreSpecific(cacheKey.getLocale(), locale))
+			{
+				cache.remove(cacheKey);
+			}
+		}
+	}
+
+	/**
+	 * Removes the cached strings which may have been loaded from the changed properties file. If
+	 * the name of the file ends with a locale, e.g. <code>MyPage_de_DE</code>, only the strings
+	 * of that locale are removed, otherwise all the strings.
+	 * 
+	 * @see org.apache.wicket.resource.IPropertiesChangeListener#propertiesChanged(java.lang.String)
+	 */
+	public void propertiesChanged(final String key)
+	{
+		Locale locale = getLocale(key);
+		if (locale != null)
+		{
+			clearCache(locale);
+		}
+		else
+		{
+			clearCache();
 		}
 	}
 
@@ -309,7 +397,8 @@ public class Localizer
 			}
 		}
 
-		String cacheKey = null;
+		final WeightedLruCache<CacheKey, String> cache = this.cache;
+		CacheKey cacheKey = null;
 		String value = null;
 
 		// Make sure locale, style and variation have the right values
@@ -337,13 +426,15 @@ public class Localizer
 		// cache as we can generate an invalid cache key
 		if ((cache != null) && ((component == null) || addedToPage))
 		{
-			cacheKey = getCacheKey(key, component, locale, style, variation);
+			cacheKey = newCacheKey(key, component, locale, style, variation);
 		}
 
-		// Value not found are cached as well (value = null)
-		if ((cacheKey != null) && cache.containsKey(cacheKey))
+		// Value not found are cached as well (value = NULL_VALUE)
+		final String cached = (cacheKey != null) ? cache.get(cacheKey) : null;
+		if (cached != null)
 		{
-			value = getFromCache(cacheKey);
+			cacheHitCount.incrementAndGet();
+			value = (cached == NULL_VALUE) ? null : cached;
 			if (log.isDebugEnabled())
 			{
 				log.debug("Property found in cache: '" + key + "'; Component: '" +
@@ -353,6 +444,11 @@ public class Localizer
 		}
 		else
 		{
+			if (cacheKey != null)
+			{
+				cacheMissCount.incrementAndGet();
+			}
+
 			if (log.isDebugEnabled())
 			{
 				log.debug("Locate property: key: '" + key + "'; Component: '" +
@@ -411,9 +507,23 @@ public class Localizer
 	 * 
 	 * @param cacheKey
 	 * @param string
+	 * @deprecated use {@link #putIntoCache(CacheKey, String)}
 	 */
+	@Deprecated
 	protected void putIntoCache(final String cacheKey, final String string)
 	{
+		putIntoCache(new CacheKey(cacheKey), string);
+	}
+
+	/**
+	 * Put the value into the cache and associate it with the cache key
+	 * 
+	 * @param cacheKey
+	 * @param string
+	 */
+	protected void putIntoCache(final CacheKey cacheKey, final String string)
+	{
+		final WeightedLruCache<CacheKey, String> cache = this.cache;
 		if (cache == null)
 		{
 			return;
@@ -435,9 +545,23 @@ public class Localizer
 	 * 
 	 * @param cacheKey
 	 * @return The value of the key
+	 * @deprecated use {@link #getFromCache(CacheKey)}
 	 */
+	@Deprecated
 	protected String getFromCache(final String cacheKey)
 	{
+		return getFromCache(new CacheKey(cacheKey));
+	}
+
+	/**
+	 * Get the value associated with the key from the cache.
+	 * 
+	 * @param cacheKey
+	 * @return The value of the key
+	 */
+	protected String getFromCache(final CacheKey cacheKey)
+	{
+		final WeightedLruCache<CacheKey, String> cache = this.cache;
 		if (cache == null)
 		{
 			return null;
@@ -463,53 +587,73 @@ public class Localizer
 	 * @param style
 	 * @param variation
 	 * @return The value of the key
+	 * @deprecated use {@link #newCacheKey(String, Component, Locale, String, String)}, the
+	 *             returned string is the {@link CacheKey#toString() string} of its key
 	 */
+	@Deprecated
 	protected String getCacheKey(final String key, final Component component, final Locale locale,
 		final String style, final String variation)
 	{
-		if (component != null)
-		{
-			StringBuilder buffer = new StringBuilder(200);
-			buffer.append(key);
+		return newCacheKey(key, component, locale, style, variation).toString();
+	}
 
-			Component cursor = component;
+	/**
+	 * Gets the cache key. Instead of concatenating the path of the component into a string it
+	 * keeps the class and component ids of the path in two arrays.
+	 * 
+	 * @param key
+	 * @param component
+	 * @param locale
+	 *            Guaranteed to be != null
+	 * @param style
+	 * @param variation
+	 * @return The value of the key
+	 */
+	protected CacheKey newCacheKey(final String key, final Component component,
+		final Locale locale, final String style, final String variation)
+	{
+		if (component == null)
+		{
+			return new CacheKey(key, locale, style, null, null, null);
+		}
 
-			while (cursor != null)
+		int depth = 0;
+		for (Component cursor = component; cursor != null; cursor = cursor.getParent())
+		{
+			depth++;
+			if (cursor instanceof Page)
 			{
-				buffer.append('-').append(metaDatabase.id(cursor.getClass()));
-
-				if (cursor instanceof Page)
-				{
-					break;
-				}
-
-				/*
-				 * only append component id if component is not a loop item because (a) these ids
-				 * are irrelevant when generating resource cache keys (b) they cause a lot of
-				 * redundant keys to be generated
-				 */
-				final Component parent = cursor.getParent();
-				final boolean skip = parent instanceof AbstractRepeater;
+				break;
+			}
+		}
 
-				if (skip == false)
-				{
-					buffer.append(':').append(cursor.getId());
-				}
+		final long[] classIds = new long[depth];
+		final String[] componentIds = new String[depth];
+		Component cursor = component;
+		for (int i = 0; i < depth; i++)
+		{
+			classIds[i] = metaDatabase.id(cursor.getClass());
 
-				cursor = parent;
+			if (cursor instanceof Page)
+			{
+				break;
 			}
 
-			buffer.append('-').append(locale);
-			buffer.append('-').append(style);
-			buffer.append('-').append(variation);
+			/*
+			 * only keep component id if component is not a loop item because (a) these ids are
+			 * irrelevant when generating resource cache keys (b) they cause a lot of redundant
+			 * keys to be generated
+			 */
+			final Component parent = cursor.getParent();
+			if ((parent instanceof AbstractRepeater) == false)
+			{
+				componentIds[i] = cursor.getId();
+			}
 
-			return buffer.toString();
-		}
-		else
-		{
-			// locale is guaranteed to be != null
-			return key + '-' + locale.toString() + '-' + style;
+			cursor = parent;
 		}
+
+		return new CacheKey(key, locale, style, variation, classIds, componentIds);
 	}
 
 	/**
@@ -547,7 +691,7 @@ public class Localizer
 		}
 		else if (cache == null)
 		{
-			cache = newCache();
+			cache = newCacheImplementation();
 		}
 	}
 
@@ -558,12 +702,264 @@ public class Localizer
 	 * By default it uses the {@link ConcurrentHashMap}
 	 * 
 	 * @return cache
+	 * @deprecated the strings are cached in the cache created by {@link #newCacheImplementation()},
+	 *             this method isn't called anymore
 	 */
+	@Deprecated
 	protected Map<String, String> newCache()
 	{
 		return new ConcurrentHashMap<String, String>();
 	}
 
+	/**
+	 * Create a new cache, override this method if you want a different cache implementation.
+	 * 
+	 * By default it uses a {@link WeightedLruCache} holding up to the maximum cache size strings,
+	 * without a maximum it is never evicted from.
+	 * 
+	 * @return cache
+	 */
+	protected WeightedLruCache<CacheKey, String> newCacheImplementation()
+	{
+		if (maxCacheSize > 0)
+		{
+			return new WeightedLruCache<CacheKey, String>(maxCacheSize);
+		}
+		return new WeightedLruCache<CacheKey, String>(Long.MAX_VALUE);
+	}
+
+	/**
+	 * @return the maximum number of cached strings, 0 for no limit
+	 */
+	public final int getMaxCacheSize()
+	{
+		return maxCacheSize;
+	}
+
+	/**
+	 * @return the number of cached strings
+	 */
+	public final int getCacheSize()
+	{
+		final WeightedLruCache<CacheKey, String> cache = this.cache;
+		return cache != null ? cache.size() : 0;
+	}
+
+	/**
+	 * @return the number of strings found in the cache
+	 */
+	public final long getCacheHitCount()
+	{
+		return cacheHitCount.get();
+	}
+
+	/**
+	 * @return the number of strings not found in the cache
+	 */
+	public final long getCacheMissCount()
+	{
+		return cacheMissCount.get();
+	}
+
+	/**
+	 * @return the number of strings removed from the cache to keep it below its maximum size
+	 */
+	public final long getCacheEvictionCount()
+	{
+		final WeightedLruCache<CacheKey, String> cache = this.cache;
+		return cache != null ? cache.getEvictionCount() : 0;
+	}
+
+	/**
+	 * Gets the locale at the end of the path of a properties file
+	 * 
+	 * @param path
+	 *            the path of the properties file without extension, e.g.
+	 *            <code>org/example/MyPage_de_DE</code>
+	 * @return the locale or {@code null} if the path doesn't end with a locale
+	 */
+	static Locale getLocale(final String path)
+	{
+		if (path == null)
+		{
+			return null;
+		}
+
+		final String[] parts = path.substring(path.lastIndexOf('/') + 1).split("_");
+		final int last = parts.length - 1;
+		if ((last >= 2) && isCountry(parts[last]) && LANGUAGES.contains(parts[last - 1]))
+		{
+			return new Locale(parts[last - 1], parts[last]);
+		}
+		if ((last >= 1) && LANGUAGES.contains(parts[last]))
+		{
+			return new Locale(parts[last]);
+		}
+		return null;
+	}
+
+	private static boolean isCountry(final String part)
+	{
+		return (part.length() == 2) && Character.isUpperCase(part.charAt(0)) &&
+			Character.isUpperCase(part.charAt(1));
+	}
+
+	/**
+	 * @param locale
+	 * @param general
+	 * @return whether the locale is the general locale or more specific, e.g. <code>de_DE</code>
+	 *         for <code>de</code>
+	 */
+	private static boolean isMoreSpecific(final Locale locale, final Locale general)
+	{
+		return locale.getLanguage().equals(general.getLanguage()) &&
+			((general.getCountry().length() == 0) || locale.getCountry().equals(
+				general.getCountry())) &&
+			((general.getVariant().length() == 0) || locale.getVariant().equals(
+				general.getVariant()));
+	}
+
+	/**
+	 * The key of a cached string. It keeps the path of the component as the ids of the classes
+	 * and of the components, from the component up to its page.
+	 */
+	public static final class CacheKey
+	{
+		private final String key;
+
+		private final Locale locale;
+
+		private final String style;
+
+		private final String variation;
+
+		private final long[] classIds;
+
+		/** the component ids, {@code null} for the items of repeaters */
+		private final String[] componentIds;
+
+		private final int hashCode;
+
+		/**
+		 * Construct a key of the deprecated methods taking a string key
+		 * 
+		 * @param key
+		 *            the string key
+		 */
+		private CacheKey(final String key)
+		{
+			this(key, null, null, null, null, null);
+		}
+
+		private CacheKey(final String key, final Locale locale, final String style,
+			final String variation, final long[] classIds, final String[] componentIds)
+		{
+			this.key = key;
+			this.locale = locale;
+			this.style = style;
+			this.variation = variation;
+			this.classIds = classIds;
+			this.componentIds = componentIds;
+
+			int result = (key != null) ? key.hashCode() : 0;
+			result = 31 * result + ((locale != null) ? locale.hashCode() : 0);
+			result = 31 * result + ((style != null) ? style.hashCode() : 0);
+			result = 31 * result + ((variation != null) ? variation.hashCode() : 0);
+			result = 31 * result + Arrays.hashCode(classIds);
+			result = 31 * result + Arrays.hashCode(componentIds);
+			hashCode = result;
+		}
+
+		/**
+		 * @return the key of the string
+		 */
+		public String getKey()
+		{
+			return key;
+		}
+
+		/**
+		 * @return the locale of the string, {@code null} for the keys of the deprecated string
+		 *         methods
+		 */
+		public Locale getLocale()
+		{
+			return locale;
+		}
+
+		/**
+		 * @return the style of the string
+		 */
+		public String getStyle()
+		{
+			return style;
+		}
+
+		/**
+		 * @return the variation of the string
+		 */
+		public String getVariation()
+		{
+			return variation;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof CacheKey == false)
+			{
+				return false;
+			}
+			CacheKey other = (CacheKey)obj;
+			return (hashCode == other.hashCode) && Objects.equal(key, other.key) &&
+				Objects.equal(locale, other.locale) && Objects.equal(style, other.style) &&
+				Objects.equal(variation, other.variation) &&
+				Arrays.equals(classIds, other.classIds) &&
+				Arrays.equals(componentIds, other.componentIds);
+		}
+
+		/**
+		 * @return the key as string, as built by the former string keys
+		 */
+		@Override
+		public String toString()
+		{
+			if (locale == null)
+			{
+				return key;
+			}
+			if (classIds == null)
+			{
+				return key + '-' + locale + '-' + style;
+			}
+
+			StringBuilder buffer = new StringBuilder(200);
+			buffer.append(key);
+			for (int i = 0; i < classIds.length; i++)
+			{
+				buffer.append('-').append(classIds[i]);
+				if (componentIds[i] != null)
+				{
+					buffer.append(':').append(componentIds[i]);
+				}
+			}
+			buffer.append('-').append(locale);
+			buffer.append('-').append(style);
+			buffer.append('-').append(variation);
+			return buffer.toString();
+		}
+	}
+
 	/**
 	 * Database that maps class names to an integer id. This is used to make localizer keys shorter
 	 * because sometimes they can contain a large number of class names.
@@ -20,8 +20,10 @@ import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.wicket.markup.ComponentTag;
 import org.apache.wicket.markup.IMarkupFragment;
@@ -1127,7 +1129,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	 * @param object
 	 * @return The id of the object (object can be component or componentsourcentry)
 	 */
-	private final String getId(Object object)
+	private static String getId(Object object)
 	{
 		if (object instanceof Component)
 		{
@@ -1150,50 +1152,12 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	 */
 	private final Component children_get(final String id)
 	{
-		if (children == null)
+		int index = children_indexOf(id);
+		if (index == -1)
 		{
 			return null;
 		}
-		Component component = null;
-		if ((children instanceof Object[] == false) && (children instanceof List == false))
-		{
-			if (getId(children).equals(id))
-			{
-				component = (Component)postprocess(children, true, this, 0);
-				if (children != component)
-				{
-					children = component;
-				}
-			}
-		}
-		else
-		{
-			Object[] children;
-			int size = 0;
-			if (this.children instanceof ChildList)
-			{
-				children = ((ChildList)this.children).childs;
-				size = ((ChildList)this.children).size;
-			}
-			else
-			{
-				children = (Object[])this.children;
-				size = children.length;
-			}
-			for (int i = 0; i < size; i++)
-			{
-				if (getId(children[i]).equals(id))
-				{
-					component = (Component)postprocess(children[i], true, this, i);
-					if (children[i] != component)
-					{
-						children[i] = component;
-					}
-					break;
-				}
-			}
-		}
-		return component;
+		return children_get(index);
 	}
 
 	/**
@@ -1202,6 +1166,18 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	 * @return The index of the given child component
 	 */
 	private final int children_indexOf(Component child)
+	{
+		return children_indexOf(child.getId());
+	}
+
+	/**
+	 * Finds the index of the child with the given id. Big containers are looked up through the id
+	 * index of {@link ChildList}, so an array of such a container is turned into a list first.
+	 * 
+	 * @param id
+	 * @return The index of the child with the given id or -1 if there is none
+	 */
+	private final int children_indexOf(final String id)
 	{
 		if (children == null)
 		{
@@ -1209,29 +1185,28 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		}
 		if (children instanceof Object[] == false && children instanceof ChildList == false)
 		{
-			if (getId(children).equals(child.getId()))
+			if (getId(children).equals(id))
 			{
 				return 0;
 			}
 		}
 		else
 		{
-			int size = 0;
-			Object[] children;
-			if (this.children instanceof Object[])
+			if (children instanceof Object[] &&
+				((Object[])children).length >= ChildList.INDEX_THRESHOLD)
 			{
-				children = (Object[])this.children;
-				size = children.length;
+				children = new ChildList(children);
 			}
-			else
+
+			if (children instanceof ChildList)
 			{
-				children = ((ChildList)this.children).childs;
-				size = ((ChildList)this.children).size;
+				return ((ChildList)children).indexOf(id);
 			}
 
-			for (int i = 0; i < size; i++)
+			Object[] children = (Object[])this.children;
+			for (int i = 0; i < children.length; i++)
 			{
-				if (getId(children[i]).equals(child.getId()))
+				if (getId(children[i]).equals(id))
 				{
 					return i;
 				}
@@ -1722,9 +1697,17 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		if (children instanceof ChildList)
 		{
 			ChildList lst = (ChildList)children;
-			Object[] tmp = new Object[lst.size];
-			System.arraycopy(lst.childs, 0, tmp, 0, lst.size);
-			children = tmp;
+			if (lst.size < ChildList.INDEX_THRESHOLD)
+			{
+				Object[] tmp = new Object[lst.size];
+				System.arraycopy(lst.childs, 0, tmp, 0, lst.size);
+				children = tmp;
+			}
+			else
+			{
+				// keep the list of a big container so its id index survives the request
+				lst.trimToSize();
+			}
 		}
 	}
 
@@ -1868,14 +1851,24 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	}
 
 	/**
-	 * 
+	 * The list of children of a container with more than two children. Once the list reaches
+	 * {@link #INDEX_THRESHOLD} children it maintains an index of the positions of the children by
+	 * their id, so looking a child up doesn't scan the whole list. The index is transient and is
+	 * rebuilt on the first lookup after deserialization.
 	 */
 	private static class ChildList extends AbstractList<Object> implements IClusterable
 	{
 		private static final long serialVersionUID = -7861580911447631127L;
+
+		/** the number of children from which the children are looked up through the index */
+		private static final int INDEX_THRESHOLD = 32;
+
 		private int size;
 		private Object[] childs;
 
+		/** id -> position of the first child with that id, built lazily */
+		private transient Map<String, Integer> index;
+
 		/**
 		 * Construct.
 		 * 
@@ -1911,6 +1904,14 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		public boolean add(Object o)
 		{
 			ensureCapacity(size + 1);
+			if (index != null)
+			{
+				String id = getId(o);
+				if (index.containsKey(id) == false)
+				{
+					index.put(id, size);
+				}
+			}
 			childs[size++] = o;
 			return true;
 		}
@@ -1927,6 +1928,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			System.arraycopy(childs, index, childs, index + 1, size - index);
 			childs[index] = element;
 			size++;
+			this.index = null;
 		}
 
 		@Override
@@ -1939,6 +1941,10 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 
 			Object oldValue = childs[index];
 			childs[index] = element;
+			if (this.index != null && getId(oldValue).equals(getId(element)) == false)
+			{
+				this.index = null;
+			}
 			return oldValue;
 		}
 
@@ -1959,9 +1965,58 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			}
 			childs[--size] = null; // Let gc do its work
 
+			if (this.index != null)
+			{
+				String id = getId(oldValue);
+				if (numMoved == 0 && Integer.valueOf(index).equals(this.index.get(id)))
+				{
+					// the positions of the other children didn't change
+					this.index.remove(id);
+				}
+				else if (numMoved > 0)
+				{
+					this.index = null;
+				}
+			}
+
 			return oldValue;
 		}
 
+		/**
+		 * @param id
+		 * @return the position of the first child with the given id or -1 if there is none
+		 */
+		public int indexOf(String id)
+		{
+			if (size < INDEX_THRESHOLD)
+			{
+				index = null;
+				for (int i = 0; i < size; i++)
+				{
+					if (getId(childs[i]).equals(id))
+					{
+						return i;
+					}
+				}
+				return -1;
+			}
+
+			if (index == null)
+			{
+				index = new HashMap<String, Integer>((int)(size / 0.75f) + 1);
+				for (int i = 0; i < size; i++)
+				{
+					String childId = getId(childs[i]);
+					if (index.containsKey(childId) == false)
+					{
+						index.put(childId, i);
+					}
+				}
+			}
+			Integer position = index.get(id);
+			return position != null ? position : -1;
+		}
+
 		/**
 		 * @param minCapacity
 		 */
@@ -1980,6 +2035,19 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 				System.arraycopy(oldData, 0, childs, 0, size);
 			}
 		}
+
+		/**
+		 * Releases the unused capacity of the list
+		 */
+		public void trimToSize()
+		{
+			if (size < childs.length)
+			{
+				Object oldData[] = childs;
+				childs = new Object[size];
+				System.arraycopy(oldData, 0, childs, 0, size);
+			}
+		}
 	}
 
 	/**
@@ -2024,6 +2092,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			Object tmp = list.childs[idx1];
 			list.childs[idx1] = list.childs[idx2];
 			list.childs[idx2] = tmp;
+			list.index = null;
 		}
 	}
 
@@ -20,8 +20,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.authorization.AuthorizationException;
 import org.apache.wicket.behavior.Behavior;
@@ -40,8 +40,8 @@ import org.slf4j.LoggerFactory;
  */
 public class RequestListenerInterface
 {
-	/** Map from name to request listener interface */
-	private static final Map<String, RequestListenerInterface> interfaces = Collections.synchronizedMap(new HashMap<String, RequestListenerInterface>());
+	/** Map from name to request listener interface, looked up without locking */
+	private static final ConcurrentMap<String, RequestListenerInterface> interfaces = new ConcurrentHashMap<String, RequestListenerInterface>();
 
 	/** Log. */
 	private static final Logger log = LoggerFactory.getLogger(RequestListenerInterface.class);
@@ -32,6 +32,7 @@ import org.apache.wicket.feedback.FeedbackMessage;
 import org.apache.wicket.feedback.FeedbackMessages;
 import org.apache.wicket.page.IPageManager;
 import org.apache.wicket.page.PageAccessSynchronizer;
+import org.apache.wicket.page.PageLockStatistics;
 import org.apache.wicket.request.ClientInfo;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.cycle.RequestCycle;
@@ -863,9 +864,11 @@ public abstract class Session implements IClusterable, IEventSink
 		protected PageAccessSynchronizer createInstance()
 		{
 			final Duration timeout;
+			PageLockStatistics statistics = null;
 			if (Application.exists())
 			{
 				timeout = Application.get().getRequestCycleSettings().getTimeout();
+				statistics = PageLockStatistics.get(Application.get());
 			}
 			else
 			{
@@ -874,7 +877,7 @@ public abstract class Session implements IClusterable, IEventSink
 					"PageAccessSynchronizer created outside of application thread, using default timeout: {}",
 					timeout);
 			}
-			return new PageAccessSynchronizer(timeout);
+			return new PageAccessSynchronizer(timeout, statistics);
 		}
 	}
 
@@ -16,7 +16,10 @@
  */
 package org.apache.wicket;
 
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestHandlerDelegate;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.handler.IPageClassRequestHandler;
 import org.apache.wicket.request.mapper.BookmarkableMapper;
 import org.apache.wicket.request.mapper.BufferedResponseMapper;
 import org.apache.wicket.request.mapper.CompoundRequestMapper;
@@ -55,6 +58,25 @@ public class SystemMapper extends CompoundRequestMapper
 		add(new BufferedResponseMapper());
 	}
 
+	/**
+	 * The key of the handlers of pages is the page class.
+	 * 
+	 * @see org.apache.wicket.request.mapper.CompoundRequestMapper#getHandlerKey(org.apache.wicket.request.IRequestHandler)
+	 */
+	@Override
+	protected Object getHandlerKey(IRequestHandler handler)
+	{
+		while (handler instanceof IRequestHandlerDelegate)
+		{
+			handler = ((IRequestHandlerDelegate)handler).getDelegateHandler();
+		}
+		if (handler instanceof IPageClassRequestHandler)
+		{
+			return ((IPageClassRequestHandler)handler).getPageClass();
+		}
+		return null;
+	}
+
 	private IProvider<IResourceCachingStrategy> getResourceCachingStrategy()
 	{
 		return new IProvider<IResourceCachingStrategy>()
@@ -196,12 +196,18 @@ public class AjaxRequestTarget implements IPageRequestHandler
 		@Override
 		public void write(CharSequence cs)
 		{
-			String string = cs.toString();
-			if (needsEncoding(string))
+			if (needsEncoding(cs))
 			{
-				string = encode(string);
+				if (isStreamingEncoderEnabled())
+				{
+					// escape while appending, without an intermediate copy of the markup
+					appendEncoded(cs, buffer);
+				}
+				else
+				{
+					buffer.append(encode(cs));
+				}
 				escaped = true;
-				buffer.append(string);
 			}
 			else
 			{
@@ -270,6 +276,12 @@ public class AjaxRequestTarget implements IPageRequestHandler
 	private transient boolean listenersFrozen;
 	private transient boolean respondersFrozen;
 
+	/** the number of characters of the response body, see {@link #getResponseSize()} */
+	private transient int responseSize;
+
+	/** the time to construct the response body in ms, see {@link #getEncodeTime()} */
+	private transient long encodeTime;
+
 	/**
 	 * Constructor
 	 * 
@@ -627,10 +639,23 @@ public class AjaxRequestTarget implements IPageRequestHandler
 
 		try
 		{
+			// the body is written in one piece when complete because the response can't be reset
+			// after something was written to it, e.g. when the rendering of a component throws a
+			// RestartResponseException
+			final long start = System.nanoTime();
 			final StringResponse bodyResponse = new StringResponse();
 			constructResponseBody(bodyResponse, encoding);
 			CharSequence filteredResponse = invokeResponseFilters(bodyResponse);
+			encodeTime = (System.nanoTime() - start) / 1000000;
+			responseSize = filteredResponse.length();
+
 			response.write(filteredResponse);
+
+			if (log.isDebugEnabled())
+			{
+				log.debug("Ajax response of " + responseSize + " characters constructed in " +
+					encodeTime + " ms for page " + page.getClass().getName());
+			}
 		}
 		finally
 		{
@@ -639,6 +664,24 @@ public class AjaxRequestTarget implements IPageRequestHandler
 		}
 	}
 
+	/**
+	 * @return the number of characters of the response body, 0 if the response hasn't been
+	 *         written yet
+	 */
+	public final int getResponseSize()
+	{
+		return responseSize;
+	}
+
+	/**
+	 * @return the time in milliseconds it took to render the components, encode them and to run the
+	 *         response filters, 0 if the response hasn't been written yet
+	 */
+	public final long getEncodeTime()
+	{
+		return encodeTime;
+	}
+
 	/**
 	 * Collects the response body (without the headers) so that it can be pre-processed before
 	 * written down to the original response.
@@ -696,21 +739,25 @@ public class AjaxRequestTarget implements IPageRequestHandler
 	 *            the Ajax {@link Response} body
 	 * @return filtered response
 	 */
-	private AppendingStringBuffer invokeResponseFilters(final StringResponse contentResponse)
+	private CharSequence invokeResponseFilters(final StringResponse contentResponse)
 	{
-		AppendingStringBuffer responseBuffer = new AppendingStringBuffer(
-			contentResponse.getBuffer());
-
 		List<IResponseFilter> responseFilters = Application.get()
 			.getRequestCycleSettings()
 			.getResponseFilters();
 
-		if (responseFilters != null)
+		if ((responseFilters == null) || responseFilters.isEmpty())
 		{
-			for (IResponseFilter filter : responseFilters)
-			{
-				responseBuffer = filter.filter(responseBuffer);
-			}
+			return contentResponse.getBuffer();
+		}
+
+		// the response is not used anymore, so its buffer can be handed to the filters without
+		// copying it
+		final CharSequence body = contentResponse.getBuffer();
+		AppendingStringBuffer responseBuffer = body instanceof AppendingStringBuffer
+			? (AppendingStringBuffer)body : new AppendingStringBuffer(body);
+		for (IResponseFilter filter : responseFilters)
+		{
+			responseBuffer = filter.filter(responseBuffer);
 		}
 		return responseBuffer;
 	}
@@ -873,7 +920,11 @@ public class AjaxRequestTarget implements IPageRequestHandler
 	 * 
 	 * @param str
 	 * @return encoded string
+	 * @deprecated the markup of the components is encoded while it is written, a subclass
+	 *             overriding this method has to return <code>false</code> from
+	 *             {@link #isStreamingEncoderEnabled()} for the markup to be encoded by it
 	 */
+	@Deprecated
 	protected String encode(CharSequence str)
 	{
 		if (str == null)
@@ -881,7 +932,45 @@ public class AjaxRequestTarget implements IPageRequestHandler
 			return null;
 		}
 
-		return Strings.replaceAll(str, "]", "]^").toString();
+		AppendingStringBuffer buffer = new AppendingStringBuffer(str.length() + 16);
+		appendEncoded(str, buffer);
+		return buffer.toString();
+	}
+
+	/**
+	 * Whether the markup of the components is encoded while it is written to the response.
+	 * Subclasses which encode the markup differently override this method to return
+	 * <code>false</code>, then all content is encoded by {@link #encode(CharSequence)}.
+	 * 
+	 * @return <code>true</code> by default
+	 */
+	protected boolean isStreamingEncoderEnabled()
+	{
+		return true;
+	}
+
+	/**
+	 * Appends a string to a buffer, encoded like {@link #encode(CharSequence)} does by default.
+	 * 
+	 * @param str
+	 *            the string to encode
+	 * @param buffer
+	 *            the buffer to append the encoded string to
+	 */
+	private static void appendEncoded(final CharSequence str, final AppendingStringBuffer buffer)
+	{
+		final int length = str.length();
+		int start = 0;
+		for (int i = 0; i < length; i++)
+		{
+			if (str.charAt(i) == ']')
+			{
+				buffer.append(str, start, i + 1);
+				buffer.append('^');
+				start = i + 1;
+			}
+		}
+		buffer.append(str, start, length);
 	}
 
 	/**
@@ -31,6 +31,7 @@ import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.util.collections.ClassMetaCache;
 
 /**
  * An abstract implementation of a {@link IClassResolver} which uses a {@link ClassLoader} for
@@ -52,14 +53,19 @@ public abstract class AbstractClassResolver implements IClassResolver
 	 *    wicket/examples/repeater/RepeatingPage at java.lang.ClassLoader.defineClass1(Native Method)
 	 * </pre>
 	 * 
-	 * This problem has gone since we synchronize the access.
+	 * This problem has gone since we synchronize the loading of a class name. Classes of distinct
+	 * names are loaded concurrently, and lookups of resolved classes don't lock at all.
 	 */
-	private final ConcurrentMap<String, WeakReference<Class<?>>> classes = new ConcurrentHashMap<String, WeakReference<Class<?>>>();
+	private final ClassMetaCache<WeakReference<Class<?>>> classes = new ClassMetaCache<WeakReference<Class<?>>>();
+
+	/** locks of the class names being loaded */
+	private final ConcurrentMap<String, Object> loading = new ConcurrentHashMap<String, Object>();
 
 	public final Class<?> resolveClass(final String className) throws ClassNotFoundException
 	{
 		Class<?> clazz = null;
-		WeakReference<Class<?>> ref = classes.get(className);
+		final ClassLoader classLoader = getClassLoader();
+		WeakReference<Class<?>> ref = classes.get(classLoader, className);
 
 		// Might be garbage-collected between getting the WeakRef and retrieving
 		// the Class from it.
@@ -103,17 +109,30 @@ public abstract class AbstractClassResolver implements IClassResolver
 			}
 			else
 			{
-				// synchronize on the only class member to load only one class at a time and
-				// prevent LinkageError. See above for more info
-				synchronized (classes)
+				// load a class name only once at a time to prevent LinkageError. See above for
+				// more info
+				Object lock = new Object();
+				Object existing = loading.putIfAbsent(className, lock);
+				if (existing != null)
+				{
+					lock = existing;
+				}
+				try
 				{
-					clazz = Class.forName(className, false, getClassLoader());
-					if (clazz == null)
+					synchronized (lock)
 					{
-						throw new ClassNotFoundException(className);
+						clazz = Class.forName(className, false, classLoader);
+						if (clazz == null)
+						{
+							throw new ClassNotFoundException(className);
+						}
 					}
 				}
-				classes.put(className, new WeakReference<Class<?>>(clazz));
+				finally
+				{
+					loading.remove(className, lock);
+				}
+				classes.put(classLoader, className, new WeakReference<Class<?>>(clazz));
 			}
 		}
 		return clazz;
@@ -126,6 +145,41 @@ public abstract class AbstractClassResolver implements IClassResolver
 	 */
 	protected abstract ClassLoader getClassLoader();
 
+	/**
+	 * Enables or disables counting the cache hits and misses of this resolver. Counting is disabled
+	 * by default, since every resolved class name would update the counters shared by all threads.
+	 * 
+	 * @param enabled
+	 */
+	public void setCacheStatisticsEnabled(final boolean enabled)
+	{
+		classes.setStatisticsEnabled(enabled);
+	}
+
+	/**
+	 * Gets the number of class names resolved from the cache of this resolver while the
+	 * statistics were enabled.
+	 * 
+	 * @return the number of cache hits
+	 * @see #setCacheStatisticsEnabled(boolean)
+	 */
+	public long getCacheHits()
+	{
+		return classes.getHits();
+	}
+
+	/**
+	 * Gets the number of class names that had to be loaded by the {@link ClassLoader}, including
+	 * the primitive types, while the statistics were enabled.
+	 * 
+	 * @return the number of cache misses
+	 * @see #setCacheStatisticsEnabled(boolean)
+	 */
+	public long getCacheMisses()
+	{
+		return classes.getMisses();
+	}
+
 	public Iterator<URL> getResources(final String name)
 	{
 		List<URL> resultList = new ArrayList<URL>();
@@ -19,11 +19,13 @@ package org.apache.wicket.markup;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.settings.IMarkupSettings;
+import org.apache.wicket.util.collections.WeightedLruCache;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.listener.IChangeListener;
 import org.apache.wicket.util.watch.IModifiable;
@@ -73,6 +75,12 @@ public class MarkupCache implements IMarkupCache
 	 */
 	private final Application application;
 
+	/** The number of markups loaded */
+	private final AtomicLong loadCount = new AtomicLong();
+
+	/** The time in nanoseconds spent loading markup */
+	private final AtomicLong loadTime = new AtomicLong();
+
 	/**
 	 * A convenient helper to get the markup cache registered with the application.
 	 * 
@@ -249,6 +257,23 @@ public class MarkupCache implements IMarkupCache
 		return markupCache.size();
 	}
 
+	/**
+	 * @return the number of markups loaded, i.e. the number of cache misses which found a markup
+	 *         resource
+	 */
+	public final long getLoadCount()
+	{
+		return loadCount.get();
+	}
+
+	/**
+	 * @return the total time in milliseconds spent loading markup
+	 */
+	public final long getLoadTime()
+	{
+		return loadTime.get() / 1000000;
+	}
+
 	/**
 	 * Get a unmodifiable map which contains the cached data. The map key is of type String and the
 	 * value is of type Markup.
@@ -439,8 +464,12 @@ public class MarkupCache implements IMarkupCache
 			locationString = cacheKey;
 		}
 
+		long start = System.nanoTime();
 		Markup markup = MarkupFactory.get().loadMarkup(container, markupResourceStream,
 			enforceReload);
+		loadTime.addAndGet(System.nanoTime() - start);
+		loadCount.incrementAndGet();
+
 		if (markup != null)
 		{
 			if (cacheKey != null)
@@ -558,6 +587,8 @@ public class MarkupCache implements IMarkupCache
 	/**
 	 * Allows you to change the map implementation which will hold the cache data. By default it is
 	 * a ConcurrentHashMap() in order to allow multiple thread to access the data in a secure way.
+	 * If {@link IMarkupSettings#getMarkupCacheMaxWeight()} is set, a
+	 * {@link WeightedCacheImplementation} bounded by that weight is used instead.
 	 * 
 	 * @param <K>
 	 * @param <V>
@@ -565,6 +596,11 @@ public class MarkupCache implements IMarkupCache
 	 */
 	protected <K, V> ICache<K, V> newCacheImplementation()
 	{
+		long maxWeight = application.getMarkupSettings().getMarkupCacheMaxWeight();
+		if (maxWeight > 0)
+		{
+			return new WeightedCacheImplementation<K, V>(maxWeight);
+		}
 		return new DefaultCacheImplementation<K, V>();
 	}
 
@@ -719,4 +755,138 @@ public class MarkupCache implements IMarkupCache
 			clear();
 		}
 	}
+
+	/**
+	 * A cache whose entries are removed when their total weight exceeds a limit. The weight of a
+	 * {@link Markup} is the number of its markup elements, any other value weighs 1. It adapts a
+	 * {@link WeightedLruCache}, see there for the eviction.
+	 * 
+	 * @param <K>
+	 * @param <V>
+	 */
+	public static class WeightedCacheImplementation<K, V> implements ICache<K, V>
+	{
+		private final WeightedLruCache<K, V> cache;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param maxWeight
+		 *            the total weight of the entries above which the least recently used entries
+		 *            are removed
+		 */
+		public WeightedCacheImplementation(final long maxWeight)
+		{
+			cache = new WeightedLruCache<K, V>(maxWeight)
+			{
+				@Override
+				protected int weigh(final K key, final V value)
+				{
+					return WeightedCacheImplementation.this.weigh(key, value);
+				}
+			};
+		}
+
+		public void clear()
+		{
+			cache.clear();
+		}
+
+		public boolean containsKey(final Object key)
+		{
+			return cache.containsKey(key);
+		}
+
+		public V get(final Object key)
+		{
+			return cache.get(key);
+		}
+
+		public Collection<K> getKeys()
+		{
+			return cache.keys();
+		}
+
+		public Collection<V> getValues()
+		{
+			return cache.values();
+		}
+
+		public void put(final K key, final V value)
+		{
+			cache.put(key, value);
+		}
+
+		public boolean remove(final K key)
+		{
+			return cache.remove(key);
+		}
+
+		public int size()
+		{
+			return cache.size();
+		}
+
+		public void shutdown()
+		{
+			clear();
+		}
+
+		/**
+		 * Computes the weight of a value. By default the weight of a {@link Markup} is the number
+		 * of its markup elements plus one, any other value weighs 1.
+		 * 
+		 * @param key
+		 * @param value
+		 * @return the weight of the value, at least 1
+		 */
+		protected int weigh(final K key, final V value)
+		{
+			if ((value instanceof Markup) && (value != Markup.NO_MARKUP))
+			{
+				return ((Markup)value).size() + 1;
+			}
+			return 1;
+		}
+
+		/**
+		 * @return the maximum total weight of the entries
+		 */
+		public final long getMaxWeight()
+		{
+			return cache.getMaxWeight();
+		}
+
+		/**
+		 * @return the total weight of the entries
+		 */
+		public final long getWeight()
+		{
+			return cache.getWeight();
+		}
+
+		/**
+		 * @return the number of lookups which found an entry
+		 */
+		public final long getHitCount()
+		{
+			return cache.getHitCount();
+		}
+
+		/**
+		 * @return the number of lookups which didn't find an entry
+		 */
+		public final long getMissCount()
+		{
+			return cache.getMissCount();
+		}
+
+		/**
+		 * @return the number of entries removed because the cache was too heavy
+		 */
+		public final long getEvictionCount()
+		{
+			return cache.getEvictionCount();
+		}
+	}
 }
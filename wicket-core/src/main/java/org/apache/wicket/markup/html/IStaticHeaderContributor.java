@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.html.internal.HeaderRenderPlanCache;
+
+/**
+ * Marks a {@link Component} or a {@link Behavior} whose header contribution never changes for a
+ * page class, locale, style and variation. The contribution is rendered only once, on later
+ * renders of the page it is replayed from a {@link HeaderRenderPlanCache render plan} without
+ * calling <code>renderHead()</code>.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * class MyPanel extends Panel implements IStaticHeaderContributor
+ * {
+ * 	public void renderHead(IHeaderResponse response)
+ * 	{
+ * 		response.renderCSSReference(new PackageResourceReference(MyPanel.class, &quot;my.css&quot;));
+ * 	}
+ * }
+ * </pre>
+ *
+ * Only the contribution of the component's own <code>renderHead()</code> is static, the
+ * &lt;wicket:head&gt; sections of its markup and its behaviors are rendered as usual unless the
+ * behaviors are static too. The contribution must not depend on the state of the component, the
+ * request or the session.
+ */
+public interface IStaticHeaderContributor
+{
+}
@@ -223,7 +223,9 @@ public class FileUpload implements IClusterable
 	}
 
 	/**
-	 * Saves this file upload to a given file on the server side.
+	 * Saves this file upload to a given file on the server side. An upload stored in a temporary
+	 * file is moved to the file if possible, otherwise the temporary file is copied. Either way the
+	 * upload can be saved only once.
 	 * 
 	 * @param file
 	 *            The file
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.html.IHeaderResponse;
+import org.apache.wicket.markup.html.IStaticHeaderContributor;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.response.StringResponse;
+
+/**
+ * The recorded header contributions of the {@link IStaticHeaderContributor}s of a page class,
+ * locale, style, variation and base url.
+ * <p>
+ * A contribution is recorded by rendering it into a separate header response, and kept as the
+ * sequence of its outputs together with the tokens the header response de-duplicates them by.
+ * Replaying a contribution writes the outputs whose tokens weren't rendered yet, so the result is
+ * the same as if the contributor had been asked to render its header again.
+ *
+ * @see HeaderRenderPlanCache
+ */
+public final class HeaderRenderPlan
+{
+	/** the maximum number of contributions recorded per plan, e.g. for large repeaters */
+	private static final int MAX_CONTRIBUTIONS = 1000;
+
+	private final ConcurrentMap<String, Contribution> contributions = new ConcurrentHashMap<String, Contribution>();
+
+	private final HeaderRenderPlanCache cache;
+
+	/**
+	 * Construct.
+	 *
+	 * @param cache
+	 *            the cache keeping the statistics
+	 */
+	HeaderRenderPlan(final HeaderRenderPlanCache cache)
+	{
+		this.cache = cache;
+	}
+
+	/**
+	 * Renders the static header contribution of a component, replaying it if already recorded.
+	 *
+	 * @param component
+	 *            the {@link IStaticHeaderContributor} component
+	 * @param response
+	 *            the header response to render to
+	 */
+	public void render(final Component component, final IHeaderResponse response)
+	{
+		String key = component.getPageRelativePath() + '|' + component.getClass().getName();
+		Contribution contribution = contributions.get(key);
+		if (contribution == null)
+		{
+			Recorder recorder = new Recorder();
+			component.renderHead(component, recorder);
+			contribution = add(key, recorder);
+		}
+		else
+		{
+			cache.onHit();
+		}
+		contribution.replay(response);
+	}
+
+	/**
+	 * Renders the static header contribution of a behavior, replaying it if already recorded.
+	 *
+	 * @param component
+	 *            the component the behavior is attached to
+	 * @param behavior
+	 *            the {@link IStaticHeaderContributor} behavior
+	 * @param index
+	 *            the index of the behavior in the behaviors of the component
+	 * @param response
+	 *            the header response to render to
+	 */
+	public void render(final Component component, final Behavior behavior, final int index,
+		final IHeaderResponse response)
+	{
+		String key = component.getPageRelativePath() + '|' + index + '|' +
+			behavior.getClass().getName();
+		Contribution contribution = contributions.get(key);
+		if (contribution == null)
+		{
+			Recorder recorder = new Recorder();
+			behavior.renderHead(component, recorder);
+			contribution = add(key, recorder);
+		}
+		else
+		{
+			cache.onHit();
+		}
+		contribution.replay(response);
+	}
+
+	/**
+	 * @return the number of recorded contributions
+	 */
+	public int size()
+	{
+		return contributions.size();
+	}
+
+	private Contribution add(final String key, final Recorder recorder)
+	{
+		cache.onMiss();
+		Contribution contribution = recorder.getContribution();
+		if (contributions.size() < MAX_CONTRIBUTIONS)
+		{
+			contributions.put(key, contribution);
+		}
+		return contribution;
+	}
+
+	/**
+	 * The recorded header contribution of a contributor
+	 */
+	private static final class Contribution
+	{
+		private final List<Entry> entries;
+
+		private Contribution(final List<Entry> entries)
+		{
+			this.entries = entries;
+		}
+
+		private void replay(final IHeaderResponse response)
+		{
+			if (response.isClosed())
+			{
+				return;
+			}
+			for (Entry entry : entries)
+			{
+				entry.replay(response);
+			}
+		}
+	}
+
+	/**
+	 * An output and the tokens it is de-duplicated by, it is written only if none of the tokens
+	 * was rendered.
+	 */
+	private static final class Entry
+	{
+		private final List<Object> tokens = new ArrayList<Object>(2);
+
+		private String output = "";
+
+		private void replay(final IHeaderResponse response)
+		{
+			for (Object token : tokens)
+			{
+				if (response.wasRendered(token))
+				{
+					return;
+				}
+			}
+			if (output.length() > 0)
+			{
+				response.getResponse().write(output);
+			}
+			for (Object token : tokens)
+			{
+				response.markRendered(token);
+			}
+		}
+	}
+
+	/**
+	 * The header response recording a contribution
+	 */
+	private static final class Recorder extends HeaderResponse
+	{
+		private final StringResponse response = new StringResponse();
+
+		private final List<Entry> entries = new ArrayList<Entry>();
+
+		/** the length of the output already assigned to an entry */
+		private int recorded;
+
+		/** whether tokens were marked since the last output */
+		private boolean marked;
+
+		/**
+		 * @see org.apache.wicket.markup.html.internal.HeaderResponse#getRealResponse()
+		 */
+		@Override
+		protected Response getRealResponse()
+		{
+			return response;
+		}
+
+		/**
+		 * The output written before a check belongs to no token, e.g. when the contributor
+		 * writes to the response directly.
+		 *
+		 * @see org.apache.wicket.markup.html.internal.HeaderResponse#onWasRendered(java.lang.Object)
+		 */
+		@Override
+		void onWasRendered(final Object token)
+		{
+			flush();
+		}
+
+		/**
+		 * Records the output which doesn't belong to a token
+		 */
+		private void flush()
+		{
+			String output = takeOutput();
+			if (output != null)
+			{
+				Entry entry = new Entry();
+				entry.output = output;
+				entries.add(entry);
+			}
+			marked = false;
+		}
+
+		/**
+		 * @see org.apache.wicket.markup.html.internal.HeaderResponse#onMarkRendered(java.lang.Object)
+		 */
+		@Override
+		void onMarkRendered(final Object token)
+		{
+			// components and behaviors are specific to a page instance
+			if ((token instanceof Component) || (token instanceof Behavior))
+			{
+				return;
+			}
+
+			String output = takeOutput();
+			Entry entry;
+			if ((output == null) && marked)
+			{
+				// another token of the same output
+				entry = entries.get(entries.size() - 1);
+			}
+			else
+			{
+				entry = new Entry();
+				if (output != null)
+				{
+					entry.output = output;
+				}
+				entries.add(entry);
+			}
+			entry.tokens.add(token);
+			marked = true;
+		}
+
+		private String takeOutput()
+		{
+			CharSequence buffer = response.getBuffer();
+			if (buffer.length() == recorded)
+			{
+				return null;
+			}
+			String output = buffer.subSequence(recorded, buffer.length()).toString();
+			recorded = buffer.length();
+			return output;
+		}
+
+		private Contribution getContribution()
+		{
+			flush();
+			return new Contribution(entries);
+		}
+	}
+}
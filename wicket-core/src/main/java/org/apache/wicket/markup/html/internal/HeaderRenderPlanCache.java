@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.internal;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.Page;
+import org.apache.wicket.markup.html.IStaticHeaderContributor;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.collections.WeightedLruCache;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Objects;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Application wide cache of the {@link HeaderRenderPlan}s, which record the header contributions
+ * of the {@link IStaticHeaderContributor}s per page class, locale, style, variation and base url.
+ * On later renders of a page the static contributions are replayed, only the other contributors
+ * are asked to render their headers.
+ * <p>
+ * The plans are used only with the default header response, they are bypassed if the application
+ * decorates the header response. The cache is disabled by default in development mode, so changed
+ * resources are picked up. Requests whose urls carry the session id, e.g. the first request of a
+ * session when cookies are not known to be supported, neither record nor replay the plans.
+ */
+public class HeaderRenderPlanCache
+{
+	private static final MetaDataKey<HeaderRenderPlanCache> KEY = new MetaDataKey<HeaderRenderPlanCache>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** a relative url to find out whether the session id is encoded into the urls */
+	private static final String PROBE_URL = "probe";
+
+	/** The default maximum number of cached plans */
+	public static final int DEFAULT_MAX_PLANS = 1000;
+
+	/** the cache or {@code null} if caching is disabled */
+	private final WeightedLruCache<Key, HeaderRenderPlan> cache;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Gets the cache of the application, creating a default one on first access.
+	 *
+	 * @param application
+	 * @return the cache of the application
+	 */
+	public static HeaderRenderPlanCache get(final Application application)
+	{
+		HeaderRenderPlanCache cache = application.getMetaData(KEY);
+		if (cache == null)
+		{
+			synchronized (application)
+			{
+				cache = application.getMetaData(KEY);
+				if (cache == null)
+				{
+					cache = new HeaderRenderPlanCache(application.usesDeploymentConfig()
+						? DEFAULT_MAX_PLANS : 0);
+					application.setMetaData(KEY, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Replaces the cache of the application, e.g. to change its size or to enable it in
+	 * development mode.
+	 *
+	 * @param application
+	 * @param cache
+	 */
+	public static void set(final Application application, final HeaderRenderPlanCache cache)
+	{
+		Args.notNull(cache, "cache");
+		application.setMetaData(KEY, cache);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param maxPlans
+	 *            the maximum number of cached plans, the least recently used plans are evicted
+	 *            first. Nothing is cached if zero.
+	 */
+	public HeaderRenderPlanCache(final int maxPlans)
+	{
+		Args.isTrue(maxPlans >= 0, "maxPlans must not be negative");
+		if (maxPlans > 0)
+		{
+			cache = new WeightedLruCache<Key, HeaderRenderPlan>(maxPlans);
+		}
+		else
+		{
+			cache = null;
+		}
+	}
+
+	/**
+	 * Gets the plan of the current render of a page, creating it if necessary.
+	 *
+	 * @param page
+	 * @return the plan or {@code null} if caching is disabled or the session id is encoded into
+	 *         the urls
+	 */
+	public HeaderRenderPlan getPlan(final Page page)
+	{
+		if (cache == null)
+		{
+			return null;
+		}
+
+		RequestCycle requestCycle = RequestCycle.get();
+		if (isSessionEncoded(requestCycle))
+		{
+			// the recorded urls would carry the session id to the other users of the plan, and the
+			// replayed ones would lack the session id of the current user
+			return null;
+		}
+
+		String baseUrl = Strings.join("/", requestCycle.getUrlRenderer()
+			.getBaseUrl()
+			.getSegments());
+		Key key = new Key(page.getClass().getName(), page.getLocale(), page.getStyle(),
+			page.getVariation(), baseUrl);
+
+		HeaderRenderPlan plan = cache.get(key);
+		if (plan == null)
+		{
+			// a race creates an extra plan, which is harmless
+			plan = new HeaderRenderPlan(this);
+			cache.put(key, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * @param requestCycle
+	 * @return whether the response encodes the session id into the urls, e.g. because the client
+	 *         doesn't support cookies or it is not known yet whether it does
+	 */
+	private static boolean isSessionEncoded(final RequestCycle requestCycle)
+	{
+		return !PROBE_URL.equals(requestCycle.getOriginalResponse().encodeURL(PROBE_URL));
+	}
+
+	/**
+	 * @return whether the plans are cached
+	 */
+	public boolean isEnabled()
+	{
+		return cache != null;
+	}
+
+	/**
+	 * @return the number of cached plans
+	 */
+	public int size()
+	{
+		return cache != null ? cache.size() : 0;
+	}
+
+	/**
+	 * Removes all the cached plans
+	 */
+	public void clear()
+	{
+		if (cache != null)
+		{
+			cache.clear();
+		}
+	}
+
+	/**
+	 * @return the number of static contributions replayed
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * @return the number of static contributions rendered because they weren't recorded yet
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	void onHit()
+	{
+		hitCount.incrementAndGet();
+	}
+
+	void onMiss()
+	{
+		missCount.incrementAndGet();
+	}
+
+	private static final class Key
+	{
+		private final String pageClass;
+
+		private final Locale locale;
+
+		private final String style;
+
+		private final String variation;
+
+		private final String baseUrl;
+
+		private final int hash;
+
+		private Key(final String pageClass, final Locale locale, final String style,
+			final String variation, final String baseUrl)
+		{
+			this.pageClass = pageClass;
+			this.locale = locale;
+			this.style = style;
+			this.variation = variation;
+			this.baseUrl = baseUrl;
+
+			int result = pageClass.hashCode();
+			result = 31 * result + (locale != null ? locale.hashCode() : 0);
+			result = 31 * result + (style != null ? style.hashCode() : 0);
+			result = 31 * result + (variation != null ? variation.hashCode() : 0);
+			result = 31 * result + baseUrl.hashCode();
+			hash = result;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof Key == false)
+			{
+				return false;
+			}
+			Key other = (Key)obj;
+			return hash == other.hash && pageClass.equals(other.pageClass) &&
+				baseUrl.equals(other.baseUrl) && Objects.equal(locale, other.locale) &&
+				Objects.equal(style, other.style) && Objects.equal(variation, other.variation);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+}
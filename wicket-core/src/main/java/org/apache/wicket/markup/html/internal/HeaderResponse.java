@@ -55,6 +55,27 @@ public abstract class HeaderResponse implements IHeaderResponse
 	public final void markRendered(Object object)
 	{
 		rendered.add(object);
+		onMarkRendered(object);
+	}
+
+	/**
+	 * Called when an object is marked as rendered, allows {@link HeaderRenderPlan} to record the
+	 * tokens of the contributions.
+	 * 
+	 * @param object
+	 */
+	void onMarkRendered(Object object)
+	{
+	}
+
+	/**
+	 * Called before checking whether an object was rendered, allows {@link HeaderRenderPlan} to
+	 * record the tokens of the contributions.
+	 * 
+	 * @param object
+	 */
+	void onWasRendered(Object object)
+	{
 	}
 
 	public void renderCSS(CharSequence css, String id)
@@ -304,6 +325,7 @@ public abstract class HeaderResponse implements IHeaderResponse
 	 */
 	public final boolean wasRendered(Object object)
 	{
+		onWasRendered(object);
 		return rendered.contains(object);
 	}
 
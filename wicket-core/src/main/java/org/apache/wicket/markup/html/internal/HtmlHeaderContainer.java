@@ -83,6 +83,11 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 	 */
 	private transient IHeaderResponse headerResponse = null;
 
+	/**
+	 * The plan of the static header contributions while the headers are rendered
+	 */
+	private transient HeaderRenderPlan renderPlan;
+
 	/**
 	 * Construct
 	 * 
@@ -130,6 +135,12 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 				getRequestCycle().setResponse(headerResponse.getResponse());
 			}
 
+			// Replay the static contributions, unless the header response is decorated
+			if (headerResponse instanceof ContainerHeaderResponse)
+			{
+				renderPlan = HeaderRenderPlanCache.get(getApplication()).getPlan(getPage());
+			}
+
 			// Render the header sections of all components on the page
 			AbstractHeaderRenderStrategy.get().renderHeader(this, getPage());
 
@@ -167,6 +178,8 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 		}
 		finally
 		{
+			renderPlan = null;
+
 			// Restore the original response
 			getRequestCycle().setResponse(webResponse);
 		}
@@ -266,14 +279,18 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 	 */
 	protected IHeaderResponse newHeaderResponse()
 	{
-		return new HeaderResponse()
-		{
-			@Override
-			protected Response getRealResponse()
-			{
-				return HtmlHeaderContainer.this.getResponse();
-			}
-		};
+		return new ContainerHeaderResponse();
+	}
+
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT.
+	 * 
+	 * @return the plan of the static header contributions while the headers of the page are
+	 *         rendered, {@code null} otherwise or if there is no plan
+	 */
+	public final HeaderRenderPlan getRenderPlan()
+	{
+		return renderPlan;
 	}
 
 	/**
@@ -337,4 +354,16 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 		setMarkup(headerMarkup);
 		return headerMarkup;
 	}
+
+	/**
+	 * The default header response writing to the response of the container
+	 */
+	private final class ContainerHeaderResponse extends HeaderResponse
+	{
+		@Override
+		protected Response getRealResponse()
+		{
+			return HtmlHeaderContainer.this.getResponse();
+		}
+	}
 }
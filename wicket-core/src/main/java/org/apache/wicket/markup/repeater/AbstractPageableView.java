@@ -20,8 +20,10 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+import org.apache.wicket.IClusterable;
 import org.apache.wicket.markup.html.navigation.paging.IPageableItems;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.util.time.Duration;
 
 
 /**
@@ -66,6 +68,12 @@ public abstract class AbstractPageableView<T> extends RefreshingView<T> implemen
 	 */
 	private transient int cachedItemCount;
 
+	/**
+	 * Keeps the item count across requests, {@code null} unless enabled with
+	 * {@link #setItemCountCacheDuration(Duration)}.
+	 */
+	private ItemCountCache itemCountCache;
+
 	/**
 	 * Constructor
 	 * 
@@ -230,12 +238,71 @@ public abstract class AbstractPageableView<T> extends RefreshingView<T> implemen
 			return getCachedItemCount();
 		}
 
-		int count = internalGetItemCount();
+		int count;
+		if ((itemCountCache != null) && itemCountCache.isFresh())
+		{
+			count = itemCountCache.count;
+		}
+		else
+		{
+			count = internalGetItemCount();
+			if (itemCountCache != null)
+			{
+				itemCountCache.set(count);
+			}
+		}
 
 		setCachedItemCount(count);
 		return count;
 	}
 
+	/**
+	 * Sets how long the item count is kept across requests. By default the items are counted in
+	 * every request, for views of e.g. a slowly changing database table it may suffice to count
+	 * them now and then.
+	 * 
+	 * @param duration
+	 *            the time the item count is kept, {@code null} or {@link Duration#NONE} to count
+	 *            the items in every request
+	 * @return {@code this}
+	 * @see #clearItemCountCache()
+	 */
+	public final AbstractPageableView<T> setItemCountCacheDuration(final Duration duration)
+	{
+		if ((duration == null) || (duration.getMilliseconds() <= 0))
+		{
+			itemCountCache = null;
+		}
+		else
+		{
+			itemCountCache = new ItemCountCache(duration.getMilliseconds());
+		}
+		return this;
+	}
+
+	/**
+	 * @return the time the item count is kept across requests, {@link Duration#NONE} if it isn't
+	 */
+	public final Duration getItemCountCacheDuration()
+	{
+		return itemCountCache != null ? Duration.milliseconds(itemCountCache.duration)
+			: Duration.NONE;
+	}
+
+	/**
+	 * Forgets the item count kept across requests, e.g. after items have been added or removed.
+	 * 
+	 * @see #setItemCountCacheDuration(Duration)
+	 */
+	public final void clearItemCountCache()
+	{
+		if (itemCountCache != null)
+		{
+			itemCountCache.count = -1;
+		}
+		clearCachedItemCount();
+	}
+
 	/**
 	 * @see org.apache.wicket.markup.html.navigation.paging.IPageable#getCurrentPage()
 	 */
@@ -300,6 +367,19 @@ public abstract class AbstractPageableView<T> extends RefreshingView<T> implemen
 		return getCurrentPage() * getItemsPerPage();
 	}
 
+	/**
+	 * Gets the index of the first item of the current page before the page is trimmed to the
+	 * number of pages, so unlike {@link #getFirstItemOffset()} it can be determined without the
+	 * item count. It differs from {@link #getFirstItemOffset()} only if there are less items than
+	 * when the current page was set.
+	 * 
+	 * @return the index of the first item of the current page
+	 */
+	protected final int getRequestedFirstItemOffset()
+	{
+		return (int)Math.min((long)currentPage * getItemsPerPage(), Integer.MAX_VALUE);
+	}
+
 
 	/**
 	 * @return the number of items visible
@@ -313,6 +393,39 @@ public abstract class AbstractPageableView<T> extends RefreshingView<T> implemen
 	// HELPER CLASSES
 	// /////////////////////////////////////////////////////////////////////////
 
+	/**
+	 * The item count kept across requests
+	 */
+	private static final class ItemCountCache implements IClusterable
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** how long the count is kept, in milliseconds */
+		private final long duration;
+
+		/** the count or -1 if unknown */
+		private int count = -1;
+
+		/** when the items were counted */
+		private long time;
+
+		private ItemCountCache(final long duration)
+		{
+			this.duration = duration;
+		}
+
+		private boolean isFresh()
+		{
+			return (count >= 0) && (System.currentTimeMillis() - time < duration);
+		}
+
+		private void set(final int count)
+		{
+			this.count = count;
+			time = System.currentTimeMillis();
+		}
+	}
+
 	/**
 	 * Iterator adapter that makes sure only the specified max number of items can be accessed from
 	 * its delegate.
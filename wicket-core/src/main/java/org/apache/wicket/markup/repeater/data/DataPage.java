@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater.data;
+
+import java.util.List;
+
+import org.apache.wicket.util.lang.Args;
+
+
+/**
+ * A page of items and the total number of items, as retrieved by an {@link IPagedDataProvider}.
+ * 
+ * @param <T>
+ */
+public final class DataPage<T>
+{
+	private final List<? extends T> items;
+
+	private final int size;
+
+	private final boolean exact;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param items
+	 *            the items of the page
+	 * @param size
+	 *            the total number of items
+	 */
+	public DataPage(final List<? extends T> items, final int size)
+	{
+		this(items, size, true);
+	}
+
+	private DataPage(final List<? extends T> items, final int size, final boolean exact)
+	{
+		this.items = Args.notNull(items, "items");
+		this.size = size;
+		this.exact = exact;
+	}
+
+	/**
+	 * Creates a page whose total number of items is estimated from whether there are more items
+	 * after it, so the pagers offer one page more as long as there are more items. A provider can
+	 * tell by retrieving one item more than requested.
+	 * 
+	 * @param <T>
+	 * @param first
+	 *            first row of the page
+	 * @param items
+	 *            the items of the page
+	 * @param hasMore
+	 *            whether there are more items after the page
+	 * @return the page
+	 */
+	public static <T> DataPage<T> withMore(final int first, final List<? extends T> items,
+		final boolean hasMore)
+	{
+		return new DataPage<T>(items, first + items.size() + (hasMore ? 1 : 0), hasMore == false);
+	}
+
+	/**
+	 * @return the items of the page
+	 */
+	public List<? extends T> getItems()
+	{
+		return items;
+	}
+
+	/**
+	 * @return the total number of items, an estimate if not {@link #isExact()}
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * @return whether {@link #getSize()} is the exact number of items
+	 */
+	public boolean isExact()
+	{
+		return exact;
+	}
+}
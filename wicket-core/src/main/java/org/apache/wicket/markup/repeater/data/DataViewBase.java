@@ -45,6 +45,18 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	private static final long serialVersionUID = 1L;
 	private final IDataProvider<T> dataProvider;
 
+	/**
+	 * The page retrieved together with the item count from an {@link IPagedDataProvider}, kept for
+	 * the duration of the request
+	 */
+	private transient DataPage<T> cachedPage;
+
+	/** the first row of {@link #cachedPage} */
+	private transient int cachedPageOffset;
+
+	/** the number of rows requested for {@link #cachedPage} */
+	private transient int cachedPageCount;
+
 	/**
 	 * @param id
 	 *            component id
@@ -73,7 +85,24 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	@Override
 	protected final Iterator<IModel<T>> getItemModels(int offset, int count)
 	{
-		return new ModelIterator<T>(internalGetDataProvider(), offset, count);
+		final IDataProvider<T> dataProvider = internalGetDataProvider();
+
+		Iterator<? extends T> items = null;
+		if (count > 0)
+		{
+			if ((cachedPage != null) && (cachedPageOffset == offset) && (cachedPageCount >= count))
+			{
+				// the items have been retrieved together with the item count
+				items = cachedPage.getItems().iterator();
+			}
+			else
+			{
+				items = dataProvider.iterator(offset, count);
+			}
+		}
+		cachedPage = null;
+
+		return new ModelIterator<T>(dataProvider, items, count);
 	}
 
 	/**
@@ -96,17 +125,16 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 		 * 
 		 * @param dataProvider
 		 *            data provider
-		 * @param offset
-		 *            index of first item
+		 * @param items
+		 *            the items, may be null if there are none
 		 * @param count
 		 *            max number of items to return
 		 */
-		public ModelIterator(IDataProvider<T> dataProvider, int offset, int count)
+		public ModelIterator(IDataProvider<T> dataProvider, Iterator<? extends T> items, int count)
 		{
 			this.dataProvider = dataProvider;
+			this.items = items;
 			max = count;
-
-			items = count > 0 ? dataProvider.iterator(offset, count) : null;
 		}
 
 		/**
@@ -135,10 +163,36 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 		}
 	}
 
+	/**
+	 * Counts the items. An {@link IPagedDataProvider} retrieves the items of the current page at
+	 * the same time, they are kept for {@link #getItemModels(int, int)}.
+	 * 
+	 * @see org.apache.wicket.markup.repeater.AbstractPageableView#internalGetItemCount()
+	 */
 	@Override
 	protected final int internalGetItemCount()
 	{
-		return internalGetDataProvider().size();
+		final IDataProvider<T> dataProvider = internalGetDataProvider();
+		if (dataProvider instanceof IPagedDataProvider)
+		{
+			cachedPageOffset = getRequestedFirstItemOffset();
+			cachedPageCount = getItemsPerPage();
+			cachedPage = ((IPagedDataProvider<T>)dataProvider).page(cachedPageOffset,
+				cachedPageCount);
+			return cachedPage.getSize();
+		}
+		return dataProvider.size();
+	}
+
+	/**
+	 * @see org.apache.wicket.markup.repeater.AbstractPageableView#onBeforeRender()
+	 */
+	@Override
+	protected void onBeforeRender()
+	{
+		// the item count is counted again, so is the page
+		cachedPage = null;
+		super.onBeforeRender();
 	}
 
 	/**
@@ -147,6 +201,7 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	@Override
 	protected void onDetach()
 	{
+		cachedPage = null;
 		dataProvider.detach();
 		super.onDetach();
 	}
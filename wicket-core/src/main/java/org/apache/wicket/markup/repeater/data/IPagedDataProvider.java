@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater.data;
+
+
+/**
+ * A data provider which retrieves a page of items together with the total number of items, e.g.
+ * with one database query instead of a count and a select query. The data views use
+ * {@link #page(int, int)} instead of {@link #size()} and {@link #iterator(int, int)} when they
+ * render the items.
+ * <p>
+ * {@link #size()} and {@link #iterator(int, int)} are still used, e.g. when the item count is
+ * needed without the items, or when the item count has been kept from a previous request.
+ * 
+ * @see DataPage
+ * @see DataViewBase
+ * 
+ * @param <T>
+ */
+public interface IPagedDataProvider<T> extends IDataProvider<T>
+{
+	/**
+	 * Gets a page of items together with the total number of items
+	 * 
+	 * @param first
+	 *            first row of data
+	 * @param count
+	 *            maximum number of items to retrieve
+	 * @return the page, see {@link DataPage#withMore(int, java.util.List, boolean)} for providers
+	 *         which can't count the items cheaply
+	 */
+	DataPage<T> page(int first, int count);
+}
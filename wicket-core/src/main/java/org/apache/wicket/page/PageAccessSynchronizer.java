@@ -17,7 +17,9 @@
 package org.apache.wicket.page;
 
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -30,6 +32,11 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Synchronizes access to page instances from multiple threads
+ * <p>
+ * The threads waiting for a page are queued and the lock is handed over to the first one in the
+ * queue when it is released, so the threads get the page in the order they asked for it. The locks
+ * held by each thread are tracked, so releasing them doesn't have to look at the locks of the
+ * other threads.
  * 
  * @author Igor Vaynberg (ivaynberg)
  */
@@ -51,9 +58,24 @@ public class PageAccessSynchronizer implements Serializable
 		}
 	};
 
+	/** map of the locks held by each thread */
+	private IProvider<ConcurrentMap<Thread, List<PageLock>>> heldLocks = new LazyInitializer<ConcurrentMap<Thread, List<PageLock>>>()
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected ConcurrentMap<Thread, List<PageLock>> createInstance()
+		{
+			return new ConcurrentHashMap<Thread, List<PageLock>>();
+		}
+	};
+
 	/** timeout value for acquiring a page lock */
 	private final Duration timeout;
 
+	/** optional statistics of the waits for the locks */
+	private final transient PageLockStatistics statistics;
+
 	/**
 	 * Constructor
 	 * 
@@ -62,12 +84,21 @@ public class PageAccessSynchronizer implements Serializable
 	 */
 	public PageAccessSynchronizer(Duration timeout)
 	{
-		this.timeout = timeout;
+		this(timeout, null);
 	}
 
-	private static long remaining(Time start, Duration timeout)
+	/**
+	 * Constructor
+	 * 
+	 * @param timeout
+	 *            timeout value for acquiring a page lock
+	 * @param statistics
+	 *            the statistics to record the waits for the locks in, may be <code>null</code>
+	 */
+	public PageAccessSynchronizer(Duration timeout, PageLockStatistics statistics)
 	{
-		return Math.max(0, timeout.subtract(start.elapsedSince()).getMilliseconds());
+		this.timeout = timeout;
+		this.statistics = statistics;
 	}
 
 	/**
@@ -81,69 +112,93 @@ public class PageAccessSynchronizer implements Serializable
 	public void lockPage(int pageId) throws CouldNotLockPageException
 	{
 		final Thread thread = Thread.currentThread();
-		final PageLock lock = new PageLock(pageId, thread);
 		final Time start = Time.now();
-
-		boolean locked = false;
+		final long deadline = start.getMilliseconds() + timeout.getMilliseconds();
 
 		final boolean isDebugEnabled = logger.isDebugEnabled();
+		if (isDebugEnabled)
+		{
+			logger.debug("'{}' attempting to acquire lock to page with id '{}'", thread.getName(),
+				pageId);
+		}
 
-		while (!locked && start.elapsedSince().lessThan(timeout))
+		while (true)
 		{
-			if (isDebugEnabled)
+			PageLock lock = locks.get().get(pageId);
+			if (lock == null)
 			{
-				logger.debug("'{}' attempting to acquire lock to page with id '{}'",
-					thread.getName(), pageId);
+				PageLock newLock = new PageLock(pageId, thread);
+				lock = locks.get().putIfAbsent(pageId, newLock);
+				if (lock == null)
+				{
+					// first thread to acquire lock
+					onAcquired(newLock, start);
+					return;
+				}
 			}
 
-			PageLock previous = locks.get().putIfAbsent(pageId, lock);
-			if (previous == null || previous.getThread() == thread)
+			final int result;
+			try
 			{
-				// first thread to acquire lock or lock is already owned by this thread
-				locked = true;
+				result = lock.acquire(thread, deadline);
 			}
-			else
+			catch (InterruptedException e)
 			{
-				// wait for a lock to become available
-				long remaining = remaining(start, timeout);
-				if (remaining > 0)
-				{
-					synchronized (previous)
-					{
-						if (isDebugEnabled)
-						{
-							logger.debug("{} waiting for lock to page {} for {}", new Object[] {
-									thread.getName(), pageId, Duration.milliseconds(remaining) });
-						}
-						try
-						{
-							previous.wait(remaining);
-						}
-						catch (InterruptedException e)
-						{
-							// TODO better exception
-							throw new RuntimeException(e);
-						}
-					}
-				}
+				// TODO better exception
+				throw new RuntimeException(e);
 			}
-		}
-		if (locked)
-		{
-			if (isDebugEnabled)
+
+			if (result == PageLock.ACQUIRED)
 			{
-				logger.debug("{} acquired lock to page {}", thread.getName(), pageId);
+				onAcquired(lock, start);
+				return;
 			}
-		}
-		else
-		{
-			if (logger.isWarnEnabled())
+			else if (result == PageLock.OWNED)
+			{
+				// lock is already owned by this thread
+				return;
+			}
+			else if (result == PageLock.TIMEOUT)
 			{
-				logger.warn(
-					"{} failed to acquire lock to page {}, attempted for {} out of allowed {}",
-					new Object[] { thread.getName(), pageId, start.elapsedSince(), timeout });
+				break;
 			}
-			throw new CouldNotLockPageException(pageId, thread.getName(), timeout);
+			// else the lock has just been released, try again
+		}
+
+		Duration waited = start.elapsedSince();
+		if (statistics != null)
+		{
+			statistics.onTimeout(waited.getMilliseconds());
+		}
+		if (logger.isWarnEnabled())
+		{
+			logger.warn(
+				"{} failed to acquire lock to page {}, attempted for {} out of allowed {}",
+				new Object[] { thread.getName(), pageId, waited, timeout });
+		}
+		throw new CouldNotLockPageException(pageId, thread.getName(), timeout);
+	}
+
+	private void onAcquired(final PageLock lock, final Time start)
+	{
+		final Thread thread = lock.getThread();
+
+		List<PageLock> held = heldLocks.get().get(thread);
+		if (held == null)
+		{
+			// only the owning thread modifies the list
+			held = new ArrayList<PageLock>(2);
+			heldLocks.get().put(thread, held);
+		}
+		held.add(lock);
+
+		if (statistics != null)
+		{
+			statistics.onAcquired(start.elapsedSince().getMilliseconds());
+		}
+		if (logger.isDebugEnabled())
+		{
+			logger.debug("{} acquired lock to page {}", thread.getName(), lock.getPageId());
 		}
 	}
 
@@ -153,34 +208,32 @@ public class PageAccessSynchronizer implements Serializable
 	public void unlockAllPages()
 	{
 		final Thread thread = Thread.currentThread();
-		final Iterator<PageLock> locks = this.locks.get().values().iterator();
+		final List<PageLock> held = heldLocks.get().remove(thread);
+		if (held == null)
+		{
+			return;
+		}
 
 		final boolean isDebugEnabled = logger.isDebugEnabled();
-
-		while (locks.hasNext())
+		for (PageLock lock : held)
 		{
-			// remove all locks held by this thread
-			final PageLock lock = locks.next();
-			if (lock.getThread() == thread)
+			// hand the lock over to the next waiting thread or remove it
+			lock.release(thread, locks.get());
+			if (isDebugEnabled)
 			{
-				locks.remove();
-				if (isDebugEnabled)
-				{
-					logger.debug("{} released lock to page {}", thread.getName(), lock.getPageId());
-				}
-				// if any locks were removed notify threads waiting for a lock
-				synchronized (lock)
-				{
-					if (isDebugEnabled)
-					{
-						logger.debug("{} notifying blocked threads", thread.getName());
-					}
-					lock.notifyAll();
-				}
+				logger.debug("{} released lock to page {}", thread.getName(), lock.getPageId());
 			}
 		}
 	}
 
+	/**
+	 * @return the statistics of the waits for the locks or <code>null</code>
+	 */
+	public PageLockStatistics getStatistics()
+	{
+		return statistics;
+	}
+
 	/**
 	 * Wraps a page manager with this synchronizer
 	 * 
@@ -227,11 +280,22 @@ public class PageAccessSynchronizer implements Serializable
 	 */
 	public static class PageLock
 	{
+		private static final int ACQUIRED = 0;
+
+		private static final int OWNED = 1;
+
+		private static final int TIMEOUT = 2;
+
+		private static final int RELEASED = 3;
+
 		/** page id */
 		private final int pageId;
 
-		/** thread that owns the lock */
-		private final Thread thread;
+		/** thread that owns the lock, guarded by this */
+		private Thread thread;
+
+		/** threads waiting for the lock in the order they asked for it, guarded by this */
+		private final LinkedList<Thread> waiters = new LinkedList<Thread>();
 
 		/**
 		 * Constructor
@@ -256,9 +320,100 @@ public class PageAccessSynchronizer implements Serializable
 		/**
 		 * @return thread that owns the lock
 		 */
-		public Thread getThread()
+		public synchronized Thread getThread()
 		{
 			return thread;
 		}
+
+		/**
+		 * Waits until the lock is handed over to the thread.
+		 * 
+		 * @param thread
+		 * @param deadline
+		 *            the time in milliseconds until which to wait
+		 * @return {@link #ACQUIRED}, {@link #OWNED} if the thread already owned the lock,
+		 *         {@link #TIMEOUT} or {@link #RELEASED} if the lock has been released before the
+		 *         thread could wait for it
+		 * @throws InterruptedException
+		 */
+		private synchronized int acquire(final Thread thread, final long deadline)
+			throws InterruptedException
+		{
+			if (this.thread == thread)
+			{
+				return OWNED;
+			}
+			else if (this.thread == null)
+			{
+				return RELEASED;
+			}
+
+			waiters.add(thread);
+			try
+			{
+				while (this.thread != thread)
+				{
+					long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0)
+					{
+						return TIMEOUT;
+					}
+					if (logger.isDebugEnabled())
+					{
+						logger.debug("{} waiting for lock to page {} for {}", new Object[] {
+								thread.getName(), pageId, Duration.milliseconds(remaining) });
+					}
+					try
+					{
+						wait(remaining);
+					}
+					catch (InterruptedException e)
+					{
+						if (this.thread == thread)
+						{
+							// the lock has been handed over already
+							Thread.currentThread().interrupt();
+							return ACQUIRED;
+						}
+						throw e;
+					}
+				}
+				return ACQUIRED;
+			}
+			finally
+			{
+				if (this.thread != thread)
+				{
+					waiters.remove(thread);
+				}
+			}
+		}
+
+		/**
+		 * Hands the lock over to the first waiting thread or removes it from the locks if there is
+		 * none.
+		 * 
+		 * @param thread
+		 *            the owner of the lock
+		 * @param locks
+		 */
+		private synchronized void release(final Thread thread,
+			final ConcurrentMap<Integer, PageLock> locks)
+		{
+			if (this.thread != thread)
+			{
+				return;
+			}
+
+			this.thread = waiters.poll();
+			if (this.thread == null)
+			{
+				locks.remove(pageId, this);
+			}
+			else
+			{
+				notifyAll();
+			}
+		}
 	}
 }
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+
+/**
+ * Statistics of the page locks acquired by the {@link PageAccessSynchronizer}s of an application:
+ * how long the threads waited for the locks and how many times they gave up.
+ *
+ * @see PageAccessSynchronizer
+ */
+public class PageLockStatistics
+{
+	private static final MetaDataKey<PageLockStatistics> KEY = new MetaDataKey<PageLockStatistics>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** the upper bounds (exclusive, in milliseconds) of the buckets of the wait time histogram */
+	private static final long[] BUCKET_LIMITS = { 1, 10, 100, 1000, 10000 };
+
+	/** the last bucket counts the waits longer than the last limit */
+	private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_LIMITS.length + 1);
+
+	private final AtomicLong acquiredCount = new AtomicLong();
+
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	private final AtomicLong totalWaitTime = new AtomicLong();
+
+	private final AtomicLong maxWaitTime = new AtomicLong();
+
+	/**
+	 * Returns the statistics of the application, creating them on first access.
+	 *
+	 * @param application
+	 * @return the statistics of the page locks of the application
+	 */
+	public static PageLockStatistics get(final Application application)
+	{
+		PageLockStatistics statistics = application.getMetaData(KEY);
+		if (statistics == null)
+		{
+			synchronized (application)
+			{
+				statistics = application.getMetaData(KEY);
+				if (statistics == null)
+				{
+					statistics = new PageLockStatistics();
+					application.setMetaData(KEY, statistics);
+				}
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Records a lock which has been acquired
+	 *
+	 * @param waitTime
+	 *            the time in milliseconds the thread waited for the lock
+	 */
+	public void onAcquired(final long waitTime)
+	{
+		acquiredCount.incrementAndGet();
+		onWait(waitTime);
+	}
+
+	/**
+	 * Records a lock which could not be acquired in time
+	 *
+	 * @param waitTime
+	 *            the time in milliseconds the thread waited for the lock
+	 */
+	public void onTimeout(final long waitTime)
+	{
+		timeoutCount.incrementAndGet();
+		onWait(waitTime);
+	}
+
+	private void onWait(final long waitTime)
+	{
+		int bucket = 0;
+		while (bucket < BUCKET_LIMITS.length && waitTime >= BUCKET_LIMITS[bucket])
+		{
+			bucket++;
+		}
+		histogram.incrementAndGet(bucket);
+		totalWaitTime.addAndGet(waitTime);
+
+		long max = maxWaitTime.get();
+		while (waitTime > max && maxWaitTime.compareAndSet(max, waitTime) == false)
+		{
+			max = maxWaitTime.get();
+		}
+	}
+
+	/**
+	 * @return the number of acquired locks
+	 */
+	public long getAcquiredCount()
+	{
+		return acquiredCount.get();
+	}
+
+	/**
+	 * @return the number of locks which could not be acquired in time
+	 */
+	public long getTimeoutCount()
+	{
+		return timeoutCount.get();
+	}
+
+	/**
+	 * @return the average time in milliseconds the threads waited for the locks
+	 */
+	public long getAverageWaitTime()
+	{
+		long count = acquiredCount.get() + timeoutCount.get();
+		return count > 0 ? totalWaitTime.get() / count : 0;
+	}
+
+	/**
+	 * @return the longest time in milliseconds a thread waited for a lock
+	 */
+	public long getMaxWaitTime()
+	{
+		return maxWaitTime.get();
+	}
+
+	/**
+	 * @return the upper bounds in milliseconds of the buckets of the
+	 *         {@link #getWaitTimeHistogram() histogram}, the last bucket has no upper bound
+	 */
+	public long[] getBucketLimits()
+	{
+		return BUCKET_LIMITS.clone();
+	}
+
+	/**
+	 * @return the number of waits in each bucket, see {@link #getBucketLimits()}
+	 */
+	public long[] getWaitTimeHistogram()
+	{
+		long[] result = new long[histogram.length()];
+		for (int i = 0; i < result.length; i++)
+		{
+			result[i] = histogram.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Resets the statistics
+	 */
+	public void reset()
+	{
+		for (int i = 0; i < histogram.length(); i++)
+		{
+			histogram.set(i, 0);
+		}
+		acquiredCount.set(0);
+		timeoutCount.set(0);
+		totalWaitTime.set(0);
+		maxWaitTime.set(0);
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder histogram = new StringBuilder();
+		long[] counts = getWaitTimeHistogram();
+		for (int i = 0; i < counts.length; i++)
+		{
+			histogram.append(i < BUCKET_LIMITS.length ? "<" + BUCKET_LIMITS[i] + "ms" : ">=" +
+				BUCKET_LIMITS[BUCKET_LIMITS.length - 1] + "ms");
+			histogram.append('=').append(counts[i]).append(i < counts.length - 1 ? ", " : "");
+		}
+		return "PageLockStatistics [acquired=" + getAcquiredCount() + ", timeouts=" +
+			getTimeoutCount() + ", averageWait=" + getAverageWaitTime() + "ms, maxWait=" +
+			getMaxWaitTime() + "ms, histogram={" + histogram + "}]";
+	}
+}
@@ -16,29 +16,38 @@
  */
 package org.apache.wicket.pageStore;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.wicket.util.lang.Args;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Facade for {@link IDataStore} that does the actual saving in worker thread.
+ * Facade for {@link IDataStore} that does the actual saving in worker threads.
  * <p>
- * Creates an {@link Entry} for each triple (sessionId, pageId, data) and puts it in
- * {@link #entries} queue if there is room. Acts as producer.<br/>
- * Later {@link PageSavingRunnable} reads in blocking manner from {@link #entries} and saves each
- * entry. Acts as consumer.
+ * Creates an {@link Entry} for each triple (sessionId, pageId, data) and puts it in the queue of
+ * the session's shard if there is room. Acts as producer.<br/>
+ * Later {@link PageSavingRunnable} reads in blocking manner from the queue of its shard and saves
+ * each entry. Acts as consumer.
+ * </p>
+ * By default it starts only one instance of {@link PageSavingRunnable} because all we need is to
+ * make the page storing asynchronous. If the wrapped {@link IDataStore} can be written concurrently
+ * more writer threads may be used. The entries are sharded by their session id so the pages of a
+ * session are always written by the same thread and in the order they have been stored.
+ * <p>
+ * A page which is stored again while its previous data is still waiting in the queue just replaces
+ * the queued data, so only the latest version is written.
  * </p>
- * It starts only one instance of {@link PageSavingRunnable} because all we need is to make the page
- * storing asynchronous. We don't want to write concurrently in the wrapped {@link IDataStore},
- * though it may happen in the extreme case when the queue is full. These cases should be avoided.
  * 
  * @author Matej Knopp
  */
@@ -57,20 +66,31 @@ public class AsynchronousDataStore implements IDataStore
 	 */
 	private static final long POLL_WAIT = 1000L;
 
+	/**
+	 * The maximum number of entries a writer thread takes from its queue at once
+	 */
+	private static final int MAX_BATCH_SIZE = 32;
+
 	/**
 	 * A flag indicating that this {@link IDataStore} should stop
 	 */
 	private final AtomicBoolean destroy;
 
+	/**
+	 * Counted down by each writer thread when it stops
+	 */
+	private final CountDownLatch stopped;
+
 	/**
 	 * The wrapped {@link IDataStore} that actually stores that pages
 	 */
 	private final IDataStore dataStore;
 
 	/**
-	 * The queue where the entries which have to be saved are temporary stored
+	 * The queues where the entries which have to be saved are temporary stored. One per writer
+	 * thread.
 	 */
-	private final BlockingQueue<Entry> entries;
+	private final BlockingQueue<Entry>[] shards;
 
 	/**
 	 * A map 'sessionId:::pageId' -> {@link Entry}. Used for fast retrieval of {@link Entry}s which
@@ -78,6 +98,15 @@ public class AsynchronousDataStore implements IDataStore
 	 */
 	private final ConcurrentMap<String, Entry> entryMap;
 
+	/** the number of entries saved by the writer threads */
+	private final AtomicLong savedCount = new AtomicLong();
+
+	/** the number of writes which replaced the data of an entry still in the queue */
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	/** the number of writes done in the caller's thread because the queue was full */
+	private final AtomicLong synchronousCount = new AtomicLong();
+
 	/**
 	 * Construct.
 	 * 
@@ -88,16 +117,45 @@ public class AsynchronousDataStore implements IDataStore
 	 */
 	public AsynchronousDataStore(final IDataStore dataStore, final int capacity)
 	{
+		this(dataStore, capacity, 1);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param dataStore
+	 *            the wrapped {@link IDataStore} that actually saved the data. Must be thread safe
+	 *            if more than one writer thread is used.
+	 * @param capacity
+	 *            the total capacity of the queues that delay the saving
+	 * @param writerCount
+	 *            the number of threads which save the data
+	 */
+	@SuppressWarnings("unchecked")
+	public AsynchronousDataStore(final IDataStore dataStore, final int capacity,
+		final int writerCount)
+	{
+		Args.withinRange(1, Integer.MAX_VALUE, writerCount, "writerCount");
+
 		this.dataStore = dataStore;
 		destroy = new AtomicBoolean(false);
-		entries = new LinkedBlockingQueue<Entry>(capacity);
+		stopped = new CountDownLatch(writerCount);
 		entryMap = new ConcurrentHashMap<String, Entry>();
+		shards = new BlockingQueue[writerCount];
 
-		PageSavingRunnable savingRunnable = new PageSavingRunnable(dataStore, entries, entryMap,
-			destroy);
-		Thread thread = new Thread(savingRunnable, "Wicket-PageSavingThread");
-		thread.setDaemon(true);
-		thread.start();
+		int shardCapacity = Math.max(1, capacity / writerCount);
+		for (int i = 0; i < writerCount; i++)
+		{
+			shards[i] = new LinkedBlockingQueue<Entry>(shardCapacity);
+
+			PageSavingRunnable savingRunnable = new PageSavingRunnable(dataStore, shards[i],
+				entryMap, destroy, stopped, savedCount);
+			String name = writerCount == 1 ? "Wicket-PageSavingThread" : "Wicket-PageSavingThread-" +
+				i;
+			Thread thread = new Thread(savingRunnable, name);
+			thread.setDaemon(true);
+			thread.start();
+		}
 	}
 
 	/**
@@ -109,10 +167,7 @@ public class AsynchronousDataStore implements IDataStore
 
 		try
 		{
-			synchronized (destroy)
-			{
-				destroy.wait();
-			}
+			stopped.await();
 		}
 		catch (InterruptedException e)
 		{
@@ -134,6 +189,19 @@ public class AsynchronousDataStore implements IDataStore
 		return entryMap.get(getKey(sessionId, id));
 	}
 
+	/**
+	 * @param sessionId
+	 * @return the queue where the entries of the session are put
+	 */
+	private BlockingQueue<Entry> getShard(final String sessionId)
+	{
+		if (shards.length == 1)
+		{
+			return shards[0];
+		}
+		return shards[(sessionId.hashCode() & Integer.MAX_VALUE) % shards.length];
+	}
+
 	/**
 	 * @see org.apache.wicket.pageStore.IDataStore#getData(java.lang.String, int)
 	 */
@@ -145,7 +213,7 @@ public class AsynchronousDataStore implements IDataStore
 			log.debug(
 				"Returning the data of a non-stored entry with sessionId '{}' and pageId '{}'",
 				sessionId, id);
-			return entry.data;
+			return entry.getData();
 		}
 		byte[] data = dataStore.getData(sessionId, id);
 
@@ -174,7 +242,7 @@ public class AsynchronousDataStore implements IDataStore
 			Entry entry = entryMap.remove(key);
 			if (entry != null)
 			{
-				entries.remove(entry);
+				getShard(sessionId).remove(entry);
 			}
 		}
 
@@ -186,7 +254,7 @@ public class AsynchronousDataStore implements IDataStore
 	 */
 	public void removeData(final String sessionId)
 	{
-		for (Iterator<Entry> itor = entries.iterator(); itor.hasNext();)
+		for (Iterator<Entry> itor = getShard(sessionId).iterator(); itor.hasNext();)
 		{
 			Entry entry = itor.next();
 			if (entry != null) // this check is not needed in JDK6
@@ -213,27 +281,80 @@ public class AsynchronousDataStore implements IDataStore
 	public void storeData(final String sessionId, final int id, final byte[] data)
 	{
 		Entry entry = new Entry(sessionId, id, data);
+		String key = getKey(entry);
+
+		Entry queued = entryMap.get(key);
+		if (queued != null && queued.replaceData(data))
+		{
+			log.debug("Replaced the data of queued page with id '{}' in session '{}'", id,
+				sessionId);
+			coalescedCount.incrementAndGet();
+			return;
+		}
+
 		try
 		{
-			boolean added = entries.offer(entry, OFFER_WAIT, TimeUnit.MILLISECONDS);
+			entryMap.put(key, entry);
+			boolean added = getShard(sessionId).offer(entry, OFFER_WAIT, TimeUnit.MILLISECONDS);
 
 			if (added == false)
 			{
 				log.debug("Storing synchronously page with id '{}' in session '{}'", id, sessionId);
-				dataStore.storeData(sessionId, id, data);
-			}
-			else
-			{
-				entryMap.put(getKey(entry), entry);
+				storeSynchronously(key, entry);
 			}
 		}
 		catch (InterruptedException e)
 		{
 			log.error(e.getMessage(), e);
-			dataStore.storeData(sessionId, id, data);
+			storeSynchronously(key, entry);
 		}
 	}
 
+	private void storeSynchronously(final String key, final Entry entry)
+	{
+		synchronousCount.incrementAndGet();
+		dataStore.storeData(entry.sessionId, entry.pageId, entry.take());
+		entryMap.remove(key, entry);
+	}
+
+	/**
+	 * @return the number of entries waiting to be saved
+	 */
+	public int getQueueSize()
+	{
+		int size = 0;
+		for (BlockingQueue<Entry> shard : shards)
+		{
+			size += shard.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return the number of entries saved by the writer threads
+	 */
+	public long getSavedCount()
+	{
+		return savedCount.get();
+	}
+
+	/**
+	 * @return the number of writes which just replaced the data of a page still waiting in the
+	 *         queue
+	 */
+	public long getCoalescedCount()
+	{
+		return coalescedCount.get();
+	}
+
+	/**
+	 * @return the number of writes done in the request thread because the queue was full
+	 */
+	public long getSynchronousCount()
+	{
+		return synchronousCount.get();
+	}
+
 	/**
 	 * 
 	 * @param pageId
@@ -262,7 +383,10 @@ public class AsynchronousDataStore implements IDataStore
 	{
 		private final String sessionId;
 		private final int pageId;
-		private final byte data[];
+		private byte data[];
+
+		/** whether a writer already took the data of this entry */
+		private boolean taken;
 
 		public Entry(final String sessionId, final int pageId, final byte data[])
 		{
@@ -271,6 +395,38 @@ public class AsynchronousDataStore implements IDataStore
 			this.data = Args.notNull(data, "data");
 		}
 
+		private synchronized byte[] getData()
+		{
+			return data;
+		}
+
+		/**
+		 * Replaces the data if it is not yet being written
+		 * 
+		 * @param newData
+		 * @return {@code true} if the data has been replaced
+		 */
+		private synchronized boolean replaceData(final byte[] newData)
+		{
+			if (taken)
+			{
+				return false;
+			}
+			data = Args.notNull(newData, "data");
+			return true;
+		}
+
+		/**
+		 * Marks the entry as being written
+		 * 
+		 * @return the data to write
+		 */
+		private synchronized byte[] take()
+		{
+			taken = true;
+			return data;
+		}
+
 		@Override
 		public int hashCode()
 		{
@@ -320,23 +476,31 @@ public class AsynchronousDataStore implements IDataStore
 
 		private final AtomicBoolean destroy;
 
+		private final CountDownLatch stopped;
+
 		private final BlockingQueue<Entry> entries;
 
 		private final ConcurrentMap<String, Entry> entryMap;
 
 		private final IDataStore dataStore;
 
+		private final AtomicLong savedCount;
+
 		private PageSavingRunnable(IDataStore dataStore, BlockingQueue<Entry> entries,
-			ConcurrentMap<String, Entry> entryMap, AtomicBoolean destroy)
+			ConcurrentMap<String, Entry> entryMap, AtomicBoolean destroy, CountDownLatch stopped,
+			AtomicLong savedCount)
 		{
 			this.dataStore = dataStore;
 			this.entries = entries;
 			this.entryMap = entryMap;
 			this.destroy = destroy;
+			this.stopped = stopped;
+			this.savedCount = savedCount;
 		}
 
 		public void run()
 		{
+			List<Entry> batch = new ArrayList<Entry>(MAX_BATCH_SIZE);
 			while (destroy.get() == false)
 			{
 				Entry entry = null;
@@ -351,16 +515,22 @@ public class AsynchronousDataStore implements IDataStore
 
 				if (entry != null)
 				{
-					log.debug("Saving asynchronously: {}...", entry);
-					dataStore.storeData(entry.sessionId, entry.pageId, entry.data);
-					entryMap.remove(getKey(entry));
+					// take whatever else is already waiting to save the queue's lock round trips
+					batch.add(entry);
+					entries.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+					for (Entry e : batch)
+					{
+						log.debug("Saving asynchronously: {}...", e);
+						dataStore.storeData(e.sessionId, e.pageId, e.take());
+						entryMap.remove(getKey(e), e);
+					}
+					savedCount.addAndGet(batch.size());
+					batch.clear();
 				}
 			}
 
-			synchronized (destroy)
-			{
-				destroy.notify();
-			}
+			stopped.countDown();
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,473 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.util.collections.MostRecentlyUsedMap;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Facade for {@link IDataStore} which stores only the difference between the new and the previous
+ * data of a page.
+ * <p>
+ * A page which is stored again with the same id (e.g. after an Ajax request) usually differs only
+ * in a few bytes from its previous data. Instead of writing the whole data again this store writes
+ * a binary delta against the previous version, next to the full snapshot of the page. The page is
+ * rebuilt from the snapshot and its deltas when it is read. After the configured number of deltas a
+ * new full snapshot is written.
+ * <p>
+ * The deltas are stored in the wrapped {@link IDataStore} in the same session with negative page
+ * ids, so the wrapped store must accept such ids. To compute a delta the previous data of the page
+ * must be in the cache of recently stored pages, otherwise a full snapshot is written.
+ * <p>
+ * A store like {@link DiskDataStore} overwrites the oldest data of a session once the session
+ * exceeds its maximum size. To keep the snapshot of a page from being overwritten while its
+ * deltas are still stored, a new snapshot is written once the data stored in the session since
+ * the last snapshot exceeds half of that size.
+ * <p>
+ * It is meant to wrap the {@link IDataStore} which writes to the disk, e.g.
+ * {@code new AsynchronousDataStore(new DeltaDataStore(new DiskDataStore(...), 8, 100), capacity)}
+ * so the deltas are computed in the background.
+ */
+public class DeltaDataStore implements IDataStore
+{
+	private static final Logger log = LoggerFactory.getLogger(DeltaDataStore.class);
+
+	/** the maximum number of deltas between two snapshots */
+	public static final int MAX_SNAPSHOT_INTERVAL = 64;
+
+	/** the biggest page id whose deltas can be mapped to a negative page id */
+	private static final int MAX_PAGE_ID = (Integer.MAX_VALUE - 2) / MAX_SNAPSHOT_INTERVAL - 1;
+
+	/** the wrapped {@link IDataStore} */
+	private final IDataStore dataStore;
+
+	/** the number of deltas after which a full snapshot is written */
+	private final int snapshotInterval;
+
+	/**
+	 * the number of bytes stored in a session after which a snapshot has to be written again, or
+	 * {@code -1} if unlimited
+	 */
+	private final long maxBytesSinceSnapshot;
+
+	/** sessionId -> pageId -> the deltas of the page */
+	private final ConcurrentMap<String, ConcurrentMap<Integer, Chain>> chains;
+
+	/** sessionId -> the number of bytes stored in the session */
+	private final ConcurrentMap<String, AtomicLong> sessionBytes;
+
+	/** 'pageId:::sessionId' -> the latest data of the page. Guarded by itself */
+	private final Map<String, byte[]> lastVersions;
+
+	private final AtomicLong snapshotCount = new AtomicLong();
+
+	private final AtomicLong deltaCount = new AtomicLong();
+
+	private final AtomicLong bytesSaved = new AtomicLong();
+
+	/**
+	 * Construct.
+	 *
+	 * @param dataStore
+	 *            the wrapped {@link IDataStore}
+	 * @param snapshotInterval
+	 *            the number of deltas after which a full snapshot of the page is written again
+	 * @param cacheSize
+	 *            the number of pages whose latest data is kept in memory to compute the delta
+	 *            against
+	 */
+	public DeltaDataStore(final IDataStore dataStore, final int snapshotInterval,
+		final int cacheSize)
+	{
+		this(dataStore, snapshotInterval, cacheSize,
+			dataStore instanceof DiskDataStore ? ((DiskDataStore)dataStore).getMaxSizePerSession()
+				: null);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param dataStore
+	 *            the wrapped {@link IDataStore}
+	 * @param snapshotInterval
+	 *            the number of deltas after which a full snapshot of the page is written again
+	 * @param cacheSize
+	 *            the number of pages whose latest data is kept in memory to compute the delta
+	 *            against
+	 * @param maxSizePerSession
+	 *            the size of a session after which the wrapped store overwrites its oldest data,
+	 *            or {@code null} if it doesn't
+	 */
+	public DeltaDataStore(final IDataStore dataStore, final int snapshotInterval,
+		final int cacheSize, final Bytes maxSizePerSession)
+	{
+		this.dataStore = Args.notNull(dataStore, "dataStore");
+		Args.withinRange(0, MAX_SNAPSHOT_INTERVAL, snapshotInterval, "snapshotInterval");
+		this.snapshotInterval = snapshotInterval;
+		maxBytesSinceSnapshot = maxSizePerSession != null ? maxSizePerSession.bytes() / 2 : -1;
+		chains = new ConcurrentHashMap<String, ConcurrentMap<Integer, Chain>>();
+		sessionBytes = new ConcurrentHashMap<String, AtomicLong>();
+		lastVersions = new MostRecentlyUsedMap<String, byte[]>(cacheSize);
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#getData(java.lang.String, int)
+	 */
+	public byte[] getData(final String sessionId, final int id)
+	{
+		Chain chain = getChain(sessionId, id, false);
+		if (chain == null)
+		{
+			// e.g. after a restart, the number of deltas is unknown
+			return load(sessionId, id, -1);
+		}
+
+		synchronized (chain)
+		{
+			byte[] data = getLastVersion(sessionId, id);
+			if (data == null)
+			{
+				data = load(sessionId, id, chain.deltas);
+			}
+			return data;
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#removeData(java.lang.String, int)
+	 */
+	public void removeData(final String sessionId, final int id)
+	{
+		Chain chain = null;
+		ConcurrentMap<Integer, Chain> sessionChains = chains.get(sessionId);
+		if (sessionChains != null)
+		{
+			chain = sessionChains.remove(id);
+		}
+
+		if (chain != null)
+		{
+			synchronized (chain)
+			{
+				removeDeltas(sessionId, id, chain.deltas);
+				chain.deltas = 0;
+			}
+		}
+		else
+		{
+			removeDeltas(sessionId, id, -1);
+		}
+		setLastVersion(sessionId, id, null);
+		dataStore.removeData(sessionId, id);
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#removeData(java.lang.String)
+	 */
+	public void removeData(final String sessionId)
+	{
+		chains.remove(sessionId);
+		sessionBytes.remove(sessionId);
+
+		String suffix = ":::" + sessionId;
+		synchronized (lastVersions)
+		{
+			for (Iterator<String> keys = lastVersions.keySet().iterator(); keys.hasNext();)
+			{
+				if (keys.next().endsWith(suffix))
+				{
+					keys.remove();
+				}
+			}
+		}
+
+		dataStore.removeData(sessionId);
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#storeData(java.lang.String, int, byte[])
+	 */
+	public void storeData(final String sessionId, final int id, final byte[] data)
+	{
+		if (id < 0 || id > MAX_PAGE_ID)
+		{
+			dataStore.storeData(sessionId, id, data);
+			addSessionBytes(sessionId, data.length);
+			return;
+		}
+
+		Chain chain = getChain(sessionId, id, true);
+		synchronized (chain)
+		{
+			byte[] previous = getLastVersion(sessionId, id);
+			if (previous != null && chain.deltas >= 0 && chain.deltas < snapshotInterval)
+			{
+				byte[] delta = PageDelta.encode(previous, data);
+
+				// not worth it if the page changed too much, and the snapshot must not be
+				// overwritten before its deltas
+				if (delta.length < data.length / 2 &&
+					(maxBytesSinceSnapshot == -1 || getSessionBytes(sessionId) + delta.length -
+						chain.snapshotPosition <= maxBytesSinceSnapshot))
+				{
+					chain.deltas++;
+					log.debug("Storing delta {} of page with id '{}' in session '{}'",
+						new Object[] { chain.deltas, id, sessionId });
+					dataStore.storeData(sessionId, getDeltaId(id, chain.deltas), delta);
+					addSessionBytes(sessionId, delta.length);
+					setLastVersion(sessionId, id, data);
+					deltaCount.incrementAndGet();
+					bytesSaved.addAndGet(data.length - delta.length);
+					return;
+				}
+			}
+
+			dataStore.storeData(sessionId, id, data);
+			chain.snapshotPosition = addSessionBytes(sessionId, data.length);
+			removeDeltas(sessionId, id, chain.deltas);
+			chain.deltas = 0;
+			setLastVersion(sessionId, id, data);
+			snapshotCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#destroy()
+	 */
+	public void destroy()
+	{
+		chains.clear();
+		sessionBytes.clear();
+		synchronized (lastVersions)
+		{
+			lastVersions.clear();
+		}
+		dataStore.destroy();
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#isReplicated()
+	 */
+	public boolean isReplicated()
+	{
+		return dataStore.isReplicated();
+	}
+
+	/**
+	 * @return the number of full snapshots written
+	 */
+	public long getSnapshotCount()
+	{
+		return snapshotCount.get();
+	}
+
+	/**
+	 * @return the number of deltas written
+	 */
+	public long getDeltaCount()
+	{
+		return deltaCount.get();
+	}
+
+	/**
+	 * @return the number of bytes which didn't have to be written thanks to the deltas
+	 */
+	public long getBytesSaved()
+	{
+		return bytesSaved.get();
+	}
+
+	/**
+	 * Rebuilds the page from its snapshot and deltas.
+	 *
+	 * @param sessionId
+	 * @param id
+	 * @param deltas
+	 *            the number of deltas or {@code -1} if unknown
+	 * @return the data of the page or {@code null} if the snapshot or any of the deltas is missing
+	 */
+	private byte[] load(final String sessionId, final int id, final int deltas)
+	{
+		byte[] data = dataStore.getData(sessionId, id);
+		if (data == null || id < 0 || id > MAX_PAGE_ID)
+		{
+			return data;
+		}
+
+		int max = deltas == -1 ? MAX_SNAPSHOT_INTERVAL : deltas;
+		for (int i = 1; i <= max && data != null; i++)
+		{
+			byte[] delta = dataStore.getData(sessionId, getDeltaId(id, i));
+			if (delta == null)
+			{
+				if (deltas == -1)
+				{
+					break;
+				}
+				log.debug("Delta {} of page with id '{}' in session '{}' is missing",
+					new Object[] { i, id, sessionId });
+				return null;
+			}
+			data = PageDelta.apply(data, delta);
+		}
+		return data;
+	}
+
+	/**
+	 * @param sessionId
+	 * @param id
+	 * @param deltas
+	 *            the number of deltas or {@code -1} if unknown
+	 */
+	private void removeDeltas(final String sessionId, final int id, final int deltas)
+	{
+		if (id < 0 || id > MAX_PAGE_ID)
+		{
+			return;
+		}
+
+		// removing a missing delta is cheap, unlike reading all data to find the existing ones
+		int max = deltas == -1 ? MAX_SNAPSHOT_INTERVAL : deltas;
+		for (int i = 1; i <= max; i++)
+		{
+			dataStore.removeData(sessionId, getDeltaId(id, i));
+		}
+	}
+
+	/**
+	 * @param sessionId
+	 * @return the number of bytes stored in the session so far
+	 */
+	private long getSessionBytes(final String sessionId)
+	{
+		AtomicLong bytes = sessionBytes.get(sessionId);
+		return bytes != null ? bytes.get() : 0;
+	}
+
+	/**
+	 * @param sessionId
+	 * @param length
+	 *            the number of bytes just stored in the session
+	 * @return the number of bytes stored in the session so far
+	 */
+	private long addSessionBytes(final String sessionId, final int length)
+	{
+		AtomicLong bytes = sessionBytes.get(sessionId);
+		if (bytes == null)
+		{
+			bytes = new AtomicLong();
+			AtomicLong existing = sessionBytes.putIfAbsent(sessionId, bytes);
+			if (existing != null)
+			{
+				bytes = existing;
+			}
+		}
+		return bytes.addAndGet(length);
+	}
+
+	private Chain getChain(final String sessionId, final int id, final boolean create)
+	{
+		ConcurrentMap<Integer, Chain> sessionChains = chains.get(sessionId);
+		if (sessionChains == null)
+		{
+			if (create == false)
+			{
+				return null;
+			}
+			sessionChains = new ConcurrentHashMap<Integer, Chain>();
+			ConcurrentMap<Integer, Chain> existing = chains.putIfAbsent(sessionId, sessionChains);
+			if (existing != null)
+			{
+				sessionChains = existing;
+			}
+		}
+
+		Chain chain = sessionChains.get(id);
+		if (chain == null && create)
+		{
+			chain = new Chain();
+			Chain existing = sessionChains.putIfAbsent(id, chain);
+			if (existing != null)
+			{
+				chain = existing;
+			}
+		}
+		return chain;
+	}
+
+	private byte[] getLastVersion(final String sessionId, final int id)
+	{
+		synchronized (lastVersions)
+		{
+			return lastVersions.get(getKey(sessionId, id));
+		}
+	}
+
+	private void setLastVersion(final String sessionId, final int id, final byte[] data)
+	{
+		synchronized (lastVersions)
+		{
+			if (data != null)
+			{
+				lastVersions.put(getKey(sessionId, id), data);
+			}
+			else
+			{
+				lastVersions.remove(getKey(sessionId, id));
+			}
+		}
+	}
+
+	/**
+	 * Maps the n-th delta of a page to a page id which cannot collide with the ids of the pages.
+	 * <code>-1</code> is avoided because some stores use it as a marker.
+	 *
+	 * @param id
+	 * @param n
+	 * @return the id under which the delta is stored
+	 */
+	private static int getDeltaId(final int id, final int n)
+	{
+		return -2 - (id * MAX_SNAPSHOT_INTERVAL + n - 1);
+	}
+
+	private static String getKey(final String sessionId, final int pageId)
+	{
+		return pageId + ":::" + sessionId;
+	}
+
+	/**
+	 * The deltas written since the last snapshot of a page
+	 */
+	private static class Chain
+	{
+		/** the number of deltas or {@code -1} if unknown */
+		private int deltas = -1;
+
+		/** the number of bytes stored in the session when the snapshot was written */
+		private long snapshotPosition;
+	}
+}
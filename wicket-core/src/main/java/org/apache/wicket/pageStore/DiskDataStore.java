@@ -132,6 +132,15 @@ public class DiskDataStore implements IDataStore
 		return false;
 	}
 
+	/**
+	 * @return the maximum size of the data of a session, older pages are overwritten when it is
+	 *         exceeded
+	 */
+	public Bytes getMaxSizePerSession()
+	{
+		return maxSizePerPageSession;
+	}
+
 	/**
 	 * @see org.apache.wicket.pageStore.IDataStore#removeData(java.lang.String, int)
 	 */
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An open addressing hash table that maps (sessionKey, pageId) to the location of the page data
+ * (segment, offset, length). The table lives in a direct {@link ByteBuffer} so the entries do not
+ * contribute to the heap regardless of the number of stored pages.
+ * <p>
+ * This class is not thread safe. {@link SegmentDataStore} guards all the access to it.
+ *
+ * @see SegmentDataStore
+ */
+final class OffHeapPageIndex
+{
+	/** slot layout: state, sessionKey, pageId, segment, offset, length */
+	private static final int SLOT_SIZE = 24;
+
+	private static final int STATE = 0;
+	private static final int SESSION_KEY = 4;
+	private static final int PAGE_ID = 8;
+	private static final int SEGMENT = 12;
+	private static final int OFFSET = 16;
+	private static final int LENGTH = 20;
+
+	private static final int FREE = 0;
+	private static final int USED = 1;
+	private static final int REMOVED = 2;
+
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private ByteBuffer table;
+
+	private int capacity;
+
+	/** number of used slots */
+	private int size;
+
+	/** number of used and removed slots */
+	private int occupied;
+
+	/**
+	 * Construct.
+	 *
+	 * @param initialCapacity
+	 *            the expected number of pages
+	 */
+	OffHeapPageIndex(final int initialCapacity)
+	{
+		int cap = 16;
+		while (cap * LOAD_FACTOR < initialCapacity)
+		{
+			cap <<= 1;
+		}
+		allocate(cap);
+	}
+
+	private void allocate(final int newCapacity)
+	{
+		capacity = newCapacity;
+		table = ByteBuffer.allocateDirect(newCapacity * SLOT_SIZE);
+		size = 0;
+		occupied = 0;
+	}
+
+	/**
+	 * @return the number of indexed pages
+	 */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Removes all the entries
+	 */
+	void clear()
+	{
+		allocate(capacity);
+	}
+
+	/**
+	 * @return the number of bytes used by the table
+	 */
+	long getTableSize()
+	{
+		return (long)capacity * SLOT_SIZE;
+	}
+
+	/**
+	 * Finds the slot for the given key.
+	 *
+	 * @param sessionKey
+	 * @param pageId
+	 * @return the slot where the key is stored or <code>-1</code>
+	 */
+	int find(final int sessionKey, final int pageId)
+	{
+		int mask = capacity - 1;
+		int slot = hash(sessionKey, pageId) & mask;
+		for (int i = 0; i < capacity; i++)
+		{
+			int base = slot * SLOT_SIZE;
+			int state = table.getInt(base + STATE);
+			if (state == FREE)
+			{
+				return -1;
+			}
+			if (state == USED && table.getInt(base + SESSION_KEY) == sessionKey &&
+				table.getInt(base + PAGE_ID) == pageId)
+			{
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Stores the location of a page, replacing the previous one if any.
+	 *
+	 * @param sessionKey
+	 * @param pageId
+	 * @param segment
+	 * @param offset
+	 * @param length
+	 * @return the slot where the location is stored
+	 */
+	int put(final int sessionKey, final int pageId, final int segment, final int offset,
+		final int length)
+	{
+		int slot = find(sessionKey, pageId);
+		if (slot == -1)
+		{
+			if (occupied + 1 > capacity * LOAD_FACTOR)
+			{
+				// grow only if the live entries need it, otherwise just purge the removed slots
+				rehash(size + 1 > (capacity * LOAD_FACTOR) / 2 ? capacity << 1 : capacity);
+			}
+			slot = findFree(sessionKey, pageId);
+			int base = slot * SLOT_SIZE;
+			if (table.getInt(base + STATE) == FREE)
+			{
+				occupied++;
+			}
+			size++;
+			table.putInt(base + STATE, USED);
+			table.putInt(base + SESSION_KEY, sessionKey);
+			table.putInt(base + PAGE_ID, pageId);
+		}
+		int base = slot * SLOT_SIZE;
+		table.putInt(base + SEGMENT, segment);
+		table.putInt(base + OFFSET, offset);
+		table.putInt(base + LENGTH, length);
+		return slot;
+	}
+
+	/**
+	 * Removes the location of a page.
+	 *
+	 * @param slot
+	 *            the slot as returned by {@link #find(int, int)}
+	 */
+	void remove(final int slot)
+	{
+		table.putInt(slot * SLOT_SIZE + STATE, REMOVED);
+		size--;
+	}
+
+	/**
+	 * @param slot
+	 * @return <code>true</code> if there is a page location stored in the slot
+	 */
+	boolean isUsed(final int slot)
+	{
+		return table.getInt(slot * SLOT_SIZE + STATE) == USED;
+	}
+
+	/**
+	 * @return the number of slots, i.e. the upper bound when iterating over all slots
+	 */
+	int getCapacity()
+	{
+		return capacity;
+	}
+
+	int getSessionKey(final int slot)
+	{
+		return table.getInt(slot * SLOT_SIZE + SESSION_KEY);
+	}
+
+	int getPageId(final int slot)
+	{
+		return table.getInt(slot * SLOT_SIZE + PAGE_ID);
+	}
+
+	int getSegment(final int slot)
+	{
+		return table.getInt(slot * SLOT_SIZE + SEGMENT);
+	}
+
+	int getOffset(final int slot)
+	{
+		return table.getInt(slot * SLOT_SIZE + OFFSET);
+	}
+
+	int getLength(final int slot)
+	{
+		return table.getInt(slot * SLOT_SIZE + LENGTH);
+	}
+
+	private int findFree(final int sessionKey, final int pageId)
+	{
+		int mask = capacity - 1;
+		int slot = hash(sessionKey, pageId) & mask;
+		while (table.getInt(slot * SLOT_SIZE + STATE) == USED)
+		{
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash(final int newCapacity)
+	{
+		ByteBuffer oldTable = table;
+		int oldCapacity = capacity;
+		allocate(newCapacity);
+		for (int slot = 0; slot < oldCapacity; slot++)
+		{
+			int base = slot * SLOT_SIZE;
+			if (oldTable.getInt(base + STATE) == USED)
+			{
+				put(oldTable.getInt(base + SESSION_KEY), oldTable.getInt(base + PAGE_ID),
+					oldTable.getInt(base + SEGMENT), oldTable.getInt(base + OFFSET),
+					oldTable.getInt(base + LENGTH));
+			}
+		}
+	}
+
+	private static int hash(final int sessionKey, final int pageId)
+	{
+		int h = sessionKey * 0x9E3779B9 + pageId;
+		h ^= (h >>> 16);
+		h *= 0x85EBCA6B;
+		h ^= (h >>> 13);
+		return h;
+	}
+}
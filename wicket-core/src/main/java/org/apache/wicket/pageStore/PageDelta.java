@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Adler32;
+
+/**
+ * Computes and applies binary deltas between two versions of the serialized data of a page.
+ * <p>
+ * The delta is a sequence of instructions which either copy a range of the base data or insert
+ * new bytes. Matching ranges are found by indexing the base data in fixed size blocks, so the
+ * delta of a page where only a few fields changed contains mostly copy instructions.
+ * <p>
+ * Format: {@code resultLength, baseChecksum, (COPY offset length | INSERT length bytes)*}, all
+ * numbers are variable length encoded.
+ */
+final class PageDelta
+{
+	/** the size of the blocks of the base data used to find matching ranges */
+	private static final int BLOCK_SIZE = 16;
+
+	private static final int COPY = 1;
+
+	private static final int INSERT = 2;
+
+	private PageDelta()
+	{
+	}
+
+	/**
+	 * Computes the delta which transforms the base data into the target data.
+	 *
+	 * @param base
+	 * @param target
+	 * @return the delta
+	 */
+	static byte[] encode(final byte[] base, final byte[] target)
+	{
+		Output out = new Output(target.length / 8 + 16);
+		out.writeVarInt(target.length);
+		out.writeVarLong(checksum(base));
+
+		int[] table = index(base);
+		int mask = table.length - 1;
+
+		int pos = 0;
+		int literalStart = 0;
+		int end = target.length - BLOCK_SIZE;
+		while (pos <= end)
+		{
+			int candidate = table[hash(target, pos) & mask] - 1;
+			if (candidate >= 0 && equals(base, candidate, target, pos, BLOCK_SIZE))
+			{
+				// extend the match in both directions
+				int matchStart = pos;
+				int baseStart = candidate;
+				while (matchStart > literalStart && baseStart > 0 &&
+					base[baseStart - 1] == target[matchStart - 1])
+				{
+					matchStart--;
+					baseStart--;
+				}
+				int matchEnd = pos + BLOCK_SIZE;
+				int baseEnd = candidate + BLOCK_SIZE;
+				while (matchEnd < target.length && baseEnd < base.length &&
+					base[baseEnd] == target[matchEnd])
+				{
+					matchEnd++;
+					baseEnd++;
+				}
+
+				out.writeInsert(target, literalStart, matchStart - literalStart);
+				out.write(COPY);
+				out.writeVarInt(baseStart);
+				out.writeVarInt(matchEnd - matchStart);
+
+				pos = matchEnd;
+				literalStart = matchEnd;
+			}
+			else
+			{
+				pos++;
+			}
+		}
+		out.writeInsert(target, literalStart, target.length - literalStart);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Applies a delta computed by {@link #encode(byte[], byte[])}.
+	 *
+	 * @param base
+	 * @param delta
+	 * @return the target data or {@code null} if the delta has not been computed against this base
+	 */
+	static byte[] apply(final byte[] base, final byte[] delta)
+	{
+		Input in = new Input(delta);
+		byte[] result = new byte[in.readVarInt()];
+		if (in.readVarLong() != checksum(base))
+		{
+			return null;
+		}
+
+		int pos = 0;
+		while (in.hasMore())
+		{
+			int op = in.read();
+			if (op == COPY)
+			{
+				int offset = in.readVarInt();
+				int length = in.readVarInt();
+				System.arraycopy(base, offset, result, pos, length);
+				pos += length;
+			}
+			else if (op == INSERT)
+			{
+				int length = in.readVarInt();
+				in.read(result, pos, length);
+				pos += length;
+			}
+			else
+			{
+				throw new IllegalStateException("Corrupted page delta");
+			}
+		}
+		return result;
+	}
+
+	private static long checksum(final byte[] data)
+	{
+		Adler32 adler = new Adler32();
+		adler.update(data, 0, data.length);
+		return ((long)data.length << 32) | adler.getValue();
+	}
+
+	/**
+	 * @param base
+	 * @return a hash table of the offsets (+1) of the blocks of the base data
+	 */
+	private static int[] index(final byte[] base)
+	{
+		int blocks = base.length / BLOCK_SIZE;
+		int size = 16;
+		while (size < blocks * 2)
+		{
+			size <<= 1;
+		}
+		int[] table = new int[size];
+		int mask = size - 1;
+		for (int offset = 0; offset + BLOCK_SIZE <= base.length; offset += BLOCK_SIZE)
+		{
+			int slot = hash(base, offset) & mask;
+			if (table[slot] == 0)
+			{
+				table[slot] = offset + 1;
+			}
+		}
+		return table;
+	}
+
+	private static int hash(final byte[] data, final int offset)
+	{
+		int h = 1;
+		for (int i = offset, end = offset + BLOCK_SIZE; i < end; i++)
+		{
+			h = 31 * h + data[i];
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equals(final byte[] a, final int aOffset, final byte[] b,
+		final int bOffset, final int length)
+	{
+		for (int i = 0; i < length; i++)
+		{
+			if (a[aOffset + i] != b[bOffset + i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static class Output extends ByteArrayOutputStream
+	{
+		private Output(final int size)
+		{
+			super(size);
+		}
+
+		private void writeInsert(final byte[] data, final int offset, final int length)
+		{
+			if (length > 0)
+			{
+				write(INSERT);
+				writeVarInt(length);
+				write(data, offset, length);
+			}
+		}
+
+		private void writeVarInt(final int value)
+		{
+			writeVarLong(value & 0xFFFFFFFFL);
+		}
+
+		private void writeVarLong(long value)
+		{
+			while ((value & ~0x7FL) != 0)
+			{
+				write((int)((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int)value);
+		}
+	}
+
+	private static class Input
+	{
+		private final byte[] data;
+
+		private int pos;
+
+		private Input(final byte[] data)
+		{
+			this.data = data;
+		}
+
+		private boolean hasMore()
+		{
+			return pos < data.length;
+		}
+
+		private int read()
+		{
+			return data[pos++] & 0xFF;
+		}
+
+		private void read(final byte[] target, final int offset, final int length)
+		{
+			System.arraycopy(data, pos, target, offset, length);
+			pos += length;
+		}
+
+		private int readVarInt()
+		{
+			return (int)readVarLong();
+		}
+
+		private long readVarLong()
+		{
+			long value = 0;
+			int shift = 0;
+			int b;
+			do
+			{
+				b = read();
+				value |= (long)(b & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((b & 0x80) != 0);
+			return value;
+		}
+	}
+}
@@ -0,0 +1,1060 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A data store implementation which stores the data of all sessions in a few shared, append-only,
+ * memory-mapped segment files.
+ * <p>
+ * Unlike {@link DiskDataStore} it doesn't need a file (and a file handle) per session. The location
+ * of each page (segment, offset, length) is kept in an off-heap index, on the heap there is only a
+ * small entry per session with the ids of its pages in the order they have been stored. Space freed
+ * by removed or overwritten pages is reclaimed by a background thread which copies the remaining
+ * pages of the sparsely used segments into the current segment. The emptied segments are kept as
+ * spares and written again once the current segment is full, so the pages of their files are
+ * already mapped and don't have to be faulted in on every write.
+ * <p>
+ * To use it override {@link org.apache.wicket.DefaultPageManagerProvider#newDataStore()}.
+ *
+ * @see DiskDataStore
+ */
+public class SegmentDataStore implements IDataStore
+{
+	private static final Logger log = LoggerFactory.getLogger(SegmentDataStore.class);
+
+	private static final String INDEX_FILE_NAME = "SegmentDataStoreIndex";
+
+	private static final String SEGMENT_FILE_PREFIX = "segment-";
+
+	private static final int INDEX_VERSION = 1;
+
+	/**
+	 * The default size of a segment file
+	 */
+	public static final Bytes DEFAULT_SEGMENT_SIZE = Bytes.megabytes(64);
+
+	/**
+	 * The default period between two compactions
+	 */
+	public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.seconds(10);
+
+	/**
+	 * Segments which have less live data than this ratio of their used size are compacted
+	 */
+	private static final float COMPACTION_THRESHOLD = 0.5f;
+
+	/**
+	 * The maximum number of emptied segments kept for reuse, the files of the others are deleted
+	 */
+	private static final int MAX_SPARE_SEGMENTS = 2;
+
+	private final String applicationName;
+
+	private final File fileStoreFolder;
+
+	private final long maxSizePerSession;
+
+	private final int segmentSize;
+
+	/** sessionId -> the pages stored for the session */
+	private final ConcurrentMap<String, SessionEntry> sessionEntryMap;
+
+	/** segment id -> segment */
+	private final ConcurrentMap<Integer, Segment> segments;
+
+	/** guards {@link #index} and the bookkeeping of the sessions and segments */
+	private final ReadWriteLock lock;
+
+	private final OffHeapPageIndex index;
+
+	private final AtomicInteger sessionKeys;
+
+	/** guards {@link #activeSegment}, {@link #spareSegments} and {@link #nextSegmentId} */
+	private final Object allocationLock = new Object();
+
+	private Segment activeSegment;
+
+	/** the emptied segments which are written again before a new one is created */
+	private final List<Segment> spareSegments = new ArrayList<Segment>();
+
+	private int nextSegmentId;
+
+	/** makes sure only one thread compacts at a time */
+	private final Object compactionLock = new Object();
+
+	private final AtomicBoolean destroy;
+
+	private final Thread compactionThread;
+
+	/**
+	 * Construct.
+	 *
+	 * @param applicationName
+	 * @param fileStoreFolder
+	 * @param maxSizePerSession
+	 */
+	public SegmentDataStore(final String applicationName, final File fileStoreFolder,
+		final Bytes maxSizePerSession)
+	{
+		this(applicationName, fileStoreFolder, maxSizePerSession, DEFAULT_SEGMENT_SIZE,
+			DEFAULT_COMPACTION_INTERVAL);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param applicationName
+	 * @param fileStoreFolder
+	 * @param maxSizePerSession
+	 *            the maximum size of the pages of a single session. When exceeded the oldest pages
+	 *            of the session are removed
+	 * @param segmentSize
+	 *            the size of a segment file
+	 * @param compactionInterval
+	 *            the period between two compactions
+	 */
+	public SegmentDataStore(final String applicationName, final File fileStoreFolder,
+		final Bytes maxSizePerSession, final Bytes segmentSize, final Duration compactionInterval)
+	{
+		this.applicationName = applicationName;
+		this.fileStoreFolder = fileStoreFolder;
+		this.maxSizePerSession = Args.notNull(maxSizePerSession, "maxSizePerSession").bytes();
+		Args.notNull(segmentSize, "segmentSize");
+		Args.withinRange(1L, (long)Integer.MAX_VALUE, segmentSize.bytes(), "segmentSize");
+		this.segmentSize = (int)segmentSize.bytes();
+		Args.notNull(compactionInterval, "compactionInterval");
+
+		sessionEntryMap = new ConcurrentHashMap<String, SessionEntry>();
+		segments = new ConcurrentHashMap<Integer, Segment>();
+		lock = new ReentrantReadWriteLock();
+		index = new OffHeapPageIndex(1024);
+		sessionKeys = new AtomicInteger();
+		destroy = new AtomicBoolean(false);
+
+		try
+		{
+			File storeFolder = getStoreFolder();
+			if (storeFolder.exists() || storeFolder.mkdirs())
+			{
+				loadIndex();
+			}
+			else
+			{
+				log.warn("Cannot create file store folder for some reason.");
+			}
+		}
+		catch (SecurityException e)
+		{
+			throw new WicketRuntimeException(
+				"SecurityException occurred while creating SegmentDataStore. Consider using a non-disk based IDataStore implementation. "
+					+ "See org.apache.wicket.Application.setPageManagerProvider(IPageManagerProvider)",
+				e);
+		}
+
+		compactionThread = new Thread(new CompactionRunnable(compactionInterval.getMilliseconds()),
+			"Wicket-SegmentCompactionThread");
+		compactionThread.setDaemon(true);
+		compactionThread.start();
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#destroy()
+	 */
+	public void destroy()
+	{
+		log.debug("Destroying...");
+		if (destroy.getAndSet(true))
+		{
+			return;
+		}
+
+		synchronized (destroy)
+		{
+			destroy.notifyAll();
+		}
+		try
+		{
+			compactionThread.join();
+		}
+		catch (InterruptedException e)
+		{
+			log.error(e.getMessage(), e);
+		}
+
+		lock.writeLock().lock();
+		try
+		{
+			saveIndex();
+			for (Segment segment : segments.values())
+			{
+				segment.close();
+			}
+			segments.clear();
+			sessionEntryMap.clear();
+
+			// the spares are not in the index
+			synchronized (allocationLock)
+			{
+				for (Segment segment : spareSegments)
+				{
+					segment.close();
+					Files.remove(segment.file);
+				}
+				spareSegments.clear();
+			}
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+		log.debug("Destroyed.");
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#getData(java.lang.String, int)
+	 */
+	public byte[] getData(final String sessionId, final int id)
+	{
+		byte[] pageData = null;
+		SessionEntry sessionEntry = sessionEntryMap.get(sessionId);
+		if (sessionEntry != null)
+		{
+			Segment segment = null;
+			int offset = 0;
+			int length = 0;
+
+			lock.readLock().lock();
+			try
+			{
+				int slot = index.find(sessionEntry.key, id);
+				if (slot != -1)
+				{
+					segment = segments.get(index.getSegment(slot));
+					offset = index.getOffset(slot);
+					length = index.getLength(slot);
+					if (segment != null)
+					{
+						segment.pendingReads.incrementAndGet();
+					}
+				}
+			}
+			finally
+			{
+				lock.readLock().unlock();
+			}
+
+			// the data at this location cannot change until the segment is reused, which waits
+			// for the pending reads
+			if (segment != null)
+			{
+				try
+				{
+					pageData = segment.read(offset, length);
+				}
+				finally
+				{
+					segment.pendingReads.decrementAndGet();
+				}
+			}
+		}
+
+		log.debug("Returning data{} for page with id '{}' in session with id '{}'", new Object[] {
+				pageData != null ? "" : "(null)", id, sessionId });
+		return pageData;
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#isReplicated()
+	 */
+	public boolean isReplicated()
+	{
+		return false;
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#removeData(java.lang.String, int)
+	 */
+	public void removeData(final String sessionId, final int id)
+	{
+		SessionEntry sessionEntry = sessionEntryMap.get(sessionId);
+		if (sessionEntry != null)
+		{
+			log.debug("Removing data for page with id '{}' in session with id '{}'", new Object[] {
+					id, sessionId });
+
+			lock.writeLock().lock();
+			try
+			{
+				removePage(sessionEntry, id);
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#removeData(java.lang.String)
+	 */
+	public void removeData(final String sessionId)
+	{
+		SessionEntry sessionEntry = sessionEntryMap.remove(sessionId);
+		if (sessionEntry != null)
+		{
+			log.debug("Removing data for pages in session with id '{}'", sessionId);
+
+			lock.writeLock().lock();
+			try
+			{
+				sessionEntry.removed = true;
+				while (sessionEntry.pageCount > 0)
+				{
+					removePage(sessionEntry, sessionEntry.pageIds[0]);
+				}
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.IDataStore#storeData(java.lang.String, int, byte[])
+	 */
+	public void storeData(final String sessionId, final int id, final byte[] data)
+	{
+		// only save page that has some data
+		if (data == null || destroy.get())
+		{
+			return;
+		}
+
+		SessionEntry sessionEntry = getSessionEntry(sessionId);
+
+		Location location = allocate(data.length);
+		if (location == null)
+		{
+			return;
+		}
+		Segment segment = location.segment;
+		int offset = location.offset;
+
+		log.debug("Storing data for page with id '{}' in session with id '{}'", new Object[] { id,
+				sessionId });
+
+		try
+		{
+			segment.write(offset, data);
+
+			lock.writeLock().lock();
+			try
+			{
+				if (sessionEntry.removed == false)
+				{
+					removePage(sessionEntry, id);
+
+					index.put(sessionEntry.key, id, segment.id, offset, data.length);
+					segment.liveBytes += data.length;
+					sessionEntry.addPage(id, data.length);
+
+					// drop the oldest pages but always keep the one which was just stored
+					while (sessionEntry.size > maxSizePerSession && sessionEntry.pageCount > 1)
+					{
+						removePage(sessionEntry, sessionEntry.pageIds[0]);
+					}
+				}
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+		}
+		finally
+		{
+			segment.pendingWrites.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the number of segment files currently in use
+	 */
+	public int getSegmentCount()
+	{
+		return segments.size();
+	}
+
+	/**
+	 * @return the number of stored pages
+	 */
+	public int getPageCount()
+	{
+		lock.readLock().lock();
+		try
+		{
+			return index.size();
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Reclaims the space of removed pages. Called by a background thread periodically and whenever
+	 * the active segment is full.
+	 */
+	public void compact()
+	{
+		synchronized (compactionLock)
+		{
+			for (Segment segment : segments.values())
+			{
+				if (destroy.get())
+				{
+					return;
+				}
+
+				if (isCompactable(segment))
+				{
+					compact(segment);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This folder contains the segment files and the index file
+	 *
+	 * @return the folder where the pages are stored
+	 */
+	protected File getStoreFolder()
+	{
+		return new File(fileStoreFolder, applicationName + "-segmentstore");
+	}
+
+	private SessionEntry getSessionEntry(final String sessionId)
+	{
+		SessionEntry entry = sessionEntryMap.get(sessionId);
+		if (entry == null)
+		{
+			entry = new SessionEntry(sessionKeys.incrementAndGet());
+			SessionEntry existing = sessionEntryMap.putIfAbsent(sessionId, entry);
+			if (existing != null)
+			{
+				entry = existing;
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Checks whether a segment has enough garbage to be compacted. Once a segment is not the
+	 * active one it never receives new pages again.
+	 *
+	 * @param segment
+	 * @return <code>true</code> if the live pages should be moved out of the segment
+	 */
+	private boolean isCompactable(final Segment segment)
+	{
+		synchronized (allocationLock)
+		{
+			if (segment == activeSegment)
+			{
+				return false;
+			}
+		}
+
+		lock.readLock().lock();
+		try
+		{
+			return segment.liveBytes < segment.position * COMPACTION_THRESHOLD;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a page from the index. Must be called with the write lock held.
+	 *
+	 * @param sessionEntry
+	 * @param pageId
+	 */
+	private void removePage(final SessionEntry sessionEntry, final int pageId)
+	{
+		int length = 0;
+		int slot = index.find(sessionEntry.key, pageId);
+		if (slot != -1)
+		{
+			length = index.getLength(slot);
+			Segment segment = segments.get(index.getSegment(slot));
+			if (segment != null)
+			{
+				segment.liveBytes -= length;
+			}
+			index.remove(slot);
+		}
+		sessionEntry.removePage(pageId, length);
+	}
+
+	/**
+	 * Reserves room for the given number of bytes in the active segment. The caller has to
+	 * decrement {@link Segment#pendingWrites} once the location is in the index, until then the
+	 * segment cannot be reused or deleted by the compaction.
+	 *
+	 * @param length
+	 * @return the location where the data has to be written or <code>null</code> if no segment
+	 *         could be created
+	 */
+	private Location allocate(final int length)
+	{
+		synchronized (allocationLock)
+		{
+			Segment segment = activeSegment;
+			if (segment == null || segment.capacity - segment.position < length)
+			{
+				if (length <= segmentSize && spareSegments.isEmpty() == false)
+				{
+					segment = spareSegments.remove(spareSegments.size() - 1);
+					segments.put(segment.id, segment);
+				}
+				else
+				{
+					try
+					{
+						segment = createSegment(nextSegmentId++, Math.max(segmentSize, length));
+					}
+					catch (IOException e)
+					{
+						log.error("Cannot create a new segment in " + getStoreFolder(), e);
+						return null;
+					}
+				}
+				if (activeSegment != null)
+				{
+					// compact the full segment before the spares run out
+					synchronized (destroy)
+					{
+						destroy.notifyAll();
+					}
+				}
+				activeSegment = segment;
+			}
+			Location location = new Location(segment, segment.position);
+			segment.position += length;
+			segment.pendingWrites.incrementAndGet();
+			return location;
+		}
+	}
+
+	private Segment createSegment(final int id, final int capacity) throws IOException
+	{
+		Segment segment = new Segment(id, getSegmentFile(id), capacity, 0);
+		segments.put(id, segment);
+		return segment;
+	}
+
+	private File getSegmentFile(final int id)
+	{
+		return new File(getStoreFolder(), SEGMENT_FILE_PREFIX + id);
+	}
+
+	/**
+	 * Moves the live pages of a sparse segment to the active one and keeps it as spare or deletes
+	 * it.
+	 *
+	 * @param segment
+	 */
+	private void compact(final Segment segment)
+	{
+		List<int[]> live = new ArrayList<int[]>();
+		lock.readLock().lock();
+		try
+		{
+			for (int slot = 0, capacity = index.getCapacity(); slot < capacity; slot++)
+			{
+				if (index.isUsed(slot) && index.getSegment(slot) == segment.id)
+				{
+					live.add(new int[] { index.getSessionKey(slot), index.getPageId(slot),
+							index.getOffset(slot), index.getLength(slot) });
+				}
+			}
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+
+		log.debug("Compacting segment {} with {} live pages", segment.id, live.size());
+
+		for (int[] page : live)
+		{
+			int sessionKey = page[0];
+			int pageId = page[1];
+			int offset = page[2];
+			int length = page[3];
+
+			Location location = allocate(length);
+			if (location == null)
+			{
+				return;
+			}
+			Segment target = location.segment;
+			int targetOffset = location.offset;
+			try
+			{
+				target.write(targetOffset, segment.read(offset, length));
+
+				lock.writeLock().lock();
+				try
+				{
+					// the page may have been removed or overwritten in the meantime
+					int slot = index.find(sessionKey, pageId);
+					if (slot != -1 && index.getSegment(slot) == segment.id &&
+						index.getOffset(slot) == offset)
+					{
+						index.put(sessionKey, pageId, target.id, targetOffset, length);
+						segment.liveBytes -= length;
+						target.liveBytes += length;
+					}
+				}
+				finally
+				{
+					lock.writeLock().unlock();
+				}
+			}
+			finally
+			{
+				target.pendingWrites.decrementAndGet();
+			}
+		}
+
+		lock.writeLock().lock();
+		try
+		{
+			// no reader can find the segment in the index anymore, so it is enough to wait for
+			// the ones which already did
+			if (segment.liveBytes == 0 && segment.pendingWrites.get() == 0 &&
+				segment.pendingReads.get() == 0)
+			{
+				segments.remove(segment.id);
+				recycle(segment);
+			}
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Keeps an emptied segment for reuse or deletes it if there are enough spares already.
+	 *
+	 * @param segment
+	 */
+	private void recycle(final Segment segment)
+	{
+		synchronized (allocationLock)
+		{
+			if (segment.capacity == segmentSize && spareSegments.size() < MAX_SPARE_SEGMENTS)
+			{
+				segment.position = 0;
+				spareSegments.add(segment);
+				return;
+			}
+		}
+		segment.close();
+		Files.remove(segment.file);
+	}
+
+	/**
+	 * Loads the index written by {@link #saveIndex()} and deletes the segment files which are not
+	 * referenced by it.
+	 */
+	private void loadIndex()
+	{
+		File storeFolder = getStoreFolder();
+		File indexFile = new File(storeFolder, INDEX_FILE_NAME);
+		if (indexFile.exists() && indexFile.length() > 0)
+		{
+			DataInputStream in = null;
+			try
+			{
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+				if (in.readInt() != INDEX_VERSION)
+				{
+					throw new IOException("Unsupported index version");
+				}
+
+				int segmentCount = in.readInt();
+				for (int i = 0; i < segmentCount; i++)
+				{
+					int id = in.readInt();
+					int capacity = in.readInt();
+					int position = in.readInt();
+					File file = getSegmentFile(id);
+					if (file.length() >= capacity)
+					{
+						segments.put(id, new Segment(id, file, capacity, position));
+					}
+					nextSegmentId = Math.max(nextSegmentId, id + 1);
+				}
+
+				int sessionCount = in.readInt();
+				for (int i = 0; i < sessionCount; i++)
+				{
+					String sessionId = in.readUTF();
+					SessionEntry sessionEntry = getSessionEntry(sessionId);
+					int pageCount = in.readInt();
+					for (int j = 0; j < pageCount; j++)
+					{
+						int pageId = in.readInt();
+						int segmentId = in.readInt();
+						int offset = in.readInt();
+						int length = in.readInt();
+						Segment segment = segments.get(segmentId);
+						if (segment != null)
+						{
+							index.put(sessionEntry.key, pageId, segmentId, offset, length);
+							segment.liveBytes += length;
+							sessionEntry.addPage(pageId, length);
+						}
+					}
+				}
+			}
+			catch (Exception e)
+			{
+				log.error("Couldn't load SegmentDataStore index from file " + indexFile + ".", e);
+				for (Segment segment : segments.values())
+				{
+					segment.close();
+				}
+				segments.clear();
+				sessionEntryMap.clear();
+				index.clear();
+			}
+			finally
+			{
+				IOUtils.closeQuietly(in);
+			}
+		}
+		Files.remove(indexFile);
+
+		// the files which are not in the index cannot be read anyway
+		File[] files = storeFolder.listFiles();
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				String name = file.getName();
+				if (name.startsWith(SEGMENT_FILE_PREFIX) && isReferenced(name) == false)
+				{
+					Files.remove(file);
+				}
+			}
+		}
+	}
+
+	private boolean isReferenced(final String segmentFileName)
+	{
+		for (Segment segment : segments.values())
+		{
+			if (segment.file.getName().equals(segmentFileName))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the index so the pages can be found again after a restart. Must be called with the
+	 * write lock held.
+	 */
+	private void saveIndex()
+	{
+		File storeFolder = getStoreFolder();
+		if (storeFolder.exists())
+		{
+			File indexFile = new File(storeFolder, INDEX_FILE_NAME);
+			Files.remove(indexFile);
+			DataOutputStream out = null;
+			try
+			{
+				out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+				out.writeInt(INDEX_VERSION);
+
+				out.writeInt(segments.size());
+				for (Segment segment : segments.values())
+				{
+					segment.flush();
+					out.writeInt(segment.id);
+					out.writeInt(segment.capacity);
+					out.writeInt(segment.position);
+				}
+
+				out.writeInt(sessionEntryMap.size());
+				for (Map.Entry<String, SessionEntry> e : sessionEntryMap.entrySet())
+				{
+					SessionEntry sessionEntry = e.getValue();
+					out.writeUTF(e.getKey());
+					out.writeInt(sessionEntry.pageCount);
+					for (int i = 0; i < sessionEntry.pageCount; i++)
+					{
+						int pageId = sessionEntry.pageIds[i];
+						int slot = index.find(sessionEntry.key, pageId);
+						out.writeInt(pageId);
+						out.writeInt(index.getSegment(slot));
+						out.writeInt(index.getOffset(slot));
+						out.writeInt(index.getLength(slot));
+					}
+				}
+			}
+			catch (Exception e)
+			{
+				log.error("Couldn't write SegmentDataStore index to file " + indexFile + ".", e);
+			}
+			finally
+			{
+				IOUtils.closeQuietly(out);
+			}
+		}
+	}
+
+	/**
+	 * The pages of a single session in the order they have been stored
+	 */
+	private static class SessionEntry
+	{
+		/** the key of the session in the {@link OffHeapPageIndex} */
+		private final int key;
+
+		private int[] pageIds = new int[8];
+
+		private int pageCount;
+
+		/** the total size of the stored pages */
+		private long size;
+
+		private boolean removed;
+
+		private SessionEntry(final int key)
+		{
+			this.key = key;
+		}
+
+		private void addPage(final int pageId, final int length)
+		{
+			if (pageCount == pageIds.length)
+			{
+				int[] newPageIds = new int[pageIds.length * 2];
+				System.arraycopy(pageIds, 0, newPageIds, 0, pageCount);
+				pageIds = newPageIds;
+			}
+			pageIds[pageCount++] = pageId;
+			size += length;
+		}
+
+		private void removePage(final int pageId, final int length)
+		{
+			for (int i = 0; i < pageCount; i++)
+			{
+				if (pageIds[i] == pageId)
+				{
+					System.arraycopy(pageIds, i + 1, pageIds, i, pageCount - i - 1);
+					pageCount--;
+					size -= length;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A memory-mapped file where the pages are appended
+	 */
+	private static class Segment
+	{
+		private final int id;
+
+		private final File file;
+
+		private final FileChannel channel;
+
+		private final MappedByteBuffer buffer;
+
+		private final int capacity;
+
+		/**
+		 * the end of the allocated area. Written with allocationLock held, volatile for the
+		 * compaction which reads it without
+		 */
+		private volatile int position;
+
+		/** the number of bytes referenced by the index. Guarded by the write lock */
+		private long liveBytes;
+
+		/** the number of allocations which are not yet in the index */
+		private final AtomicInteger pendingWrites = new AtomicInteger();
+
+		/** the number of reads of locations found in the index which are not finished yet */
+		private final AtomicInteger pendingReads = new AtomicInteger();
+
+		private Segment(final int id, final File file, final int capacity, final int position)
+			throws IOException
+		{
+			this.id = id;
+			this.file = file;
+			this.capacity = capacity;
+			this.position = position;
+
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+			try
+			{
+				channel = randomAccessFile.getChannel();
+				buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			}
+			catch (IOException e)
+			{
+				IOUtils.closeQuietly(randomAccessFile);
+				throw e;
+			}
+		}
+
+		private void write(final int offset, final byte[] data)
+		{
+			ByteBuffer view = buffer.duplicate();
+			view.position(offset);
+			view.put(data);
+		}
+
+		private byte[] read(final int offset, final int length)
+		{
+			byte[] data = new byte[length];
+			ByteBuffer view = buffer.duplicate();
+			view.position(offset);
+			view.get(data);
+			return data;
+		}
+
+		private void flush()
+		{
+			buffer.force();
+		}
+
+		/**
+		 * Closes the channel. The mapping stays valid until the buffer is garbage collected so
+		 * concurrent readers are not affected.
+		 */
+		private void close()
+		{
+			IOUtils.closeQuietly(channel);
+		}
+	}
+
+	/**
+	 * A reserved area in a segment
+	 */
+	private static class Location
+	{
+		private final Segment segment;
+
+		private final int offset;
+
+		private Location(final Segment segment, final int offset)
+		{
+			this.segment = segment;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * The thread that periodically compacts the segments
+	 */
+	private class CompactionRunnable implements Runnable
+	{
+		private final long interval;
+
+		private CompactionRunnable(final long interval)
+		{
+			this.interval = interval;
+		}
+
+		public void run()
+		{
+			while (destroy.get() == false)
+			{
+				try
+				{
+					synchronized (destroy)
+					{
+						if (destroy.get() == false)
+						{
+							destroy.wait(interval);
+						}
+					}
+					if (destroy.get() == false)
+					{
+						compact();
+					}
+				}
+				catch (InterruptedException e)
+				{
+					log.error(e.getMessage(), e);
+				}
+				catch (RuntimeException e)
+				{
+					log.error("An error occurred while compacting the segments", e);
+				}
+			}
+		}
+	}
+}
@@ -16,18 +16,36 @@
  */
 package org.apache.wicket.pageStore.memory;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Bytes;
-import org.apache.wicket.util.lang.WicketObjects;
 
 /**
- * An eviction strategy that keeps the data store size up to configured bytes
+ * An eviction strategy that keeps the data store size up to configured bytes. The size is the total
+ * size of the stored pages, the least recently used pages are evicted first.
+ * <p>
+ * Optionally the size of the pages of all sessions can be limited too. When the limit is exceeded
+ * the session storing a page evicts its least recently used pages until the total is within the
+ * limit again, keeping at least the page just stored.
  */
-public class MemorySizeEvictionStrategy implements DataStoreEvictionStrategy
+public class MemorySizeEvictionStrategy
+	implements
+		DataStoreEvictionStrategy,
+		MemorySizeEvictionStrategyMBean
 {
 
 	private final Bytes maxBytes;
 
+	private final Bytes maxTotalBytes;
+
+	/** the size of the pages of all sessions */
+	private final AtomicLong totalBytes = new AtomicLong();
+
+	private final AtomicLong evictedPages = new AtomicLong();
+
+	private final AtomicLong evictedBytes = new AtomicLong();
+
 	/**
 	 * Construct.
 	 * 
@@ -35,10 +53,25 @@ public class MemorySizeEvictionStrategy implements DataStoreEvictionStrategy
 	 *            the maximum size of the data store
 	 */
 	public MemorySizeEvictionStrategy(Bytes maxBytes)
+	{
+		this(maxBytes, Bytes.bytes(0));
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxBytes
+	 *            the maximum size of the data store of a session
+	 * @param maxTotalBytes
+	 *            the maximum size of the data stores of all sessions, unlimited if zero
+	 */
+	public MemorySizeEvictionStrategy(Bytes maxBytes, Bytes maxTotalBytes)
 	{
 		Args.notNull(maxBytes, "maxBytes");
+		Args.notNull(maxTotalBytes, "maxTotalBytes");
 
 		this.maxBytes = maxBytes;
+		this.maxTotalBytes = maxTotalBytes;
 	}
 
 	/**
@@ -47,17 +80,71 @@ public class MemorySizeEvictionStrategy implements DataStoreEvictionStrategy
 	 */
 	public void evict(PageTable pageTable)
 	{
+		long total = pageTable.account(totalBytes);
 
-		long storeCurrentSize = WicketObjects.sizeof(pageTable);
-
-		if (storeCurrentSize > maxBytes.bytes())
+		long excess = 0;
+		if (maxTotalBytes.bytes() > 0)
 		{
-			PageTableCleaner cleaner = new PageTableCleaner();
-			cleaner.drop(pageTable, 1);
+			excess = total - maxTotalBytes.bytes();
+		}
 
-			// recurse until enough space is cleaned
-			evict(pageTable);
+		while ((pageTable.getSizeInBytes() > maxBytes.bytes()) ||
+			((excess > 0) && (pageTable.size() > 1)))
+		{
+			Integer pageIdOfTheOldest = pageTable.getOldest();
+			if (pageIdOfTheOldest == null)
+			{
+				break;
+			}
+			byte[] page = pageTable.removePage(pageIdOfTheOldest);
+			if (page != null)
+			{
+				evictedPages.incrementAndGet();
+				evictedBytes.addAndGet(page.length);
+				excess -= page.length;
+			}
 		}
+
+		pageTable.account(totalBytes);
 	}
 
+	/**
+	 * @see org.apache.wicket.pageStore.memory.MemorySizeEvictionStrategyMBean#getMaxBytes()
+	 */
+	public long getMaxBytes()
+	{
+		return maxBytes.bytes();
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.memory.MemorySizeEvictionStrategyMBean#getMaxTotalBytes()
+	 */
+	public long getMaxTotalBytes()
+	{
+		return maxTotalBytes.bytes();
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.memory.MemorySizeEvictionStrategyMBean#getTotalBytes()
+	 */
+	public long getTotalBytes()
+	{
+		return totalBytes.get();
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.memory.MemorySizeEvictionStrategyMBean#getEvictedPages()
+	 */
+	public long getEvictedPages()
+	{
+		return evictedPages.get();
+	}
+
+	/**
+	 * @see org.apache.wicket.pageStore.memory.MemorySizeEvictionStrategyMBean#getEvictedBytes()
+	 */
+	public long getEvictedBytes()
+	{
+		return evictedBytes.get();
+	}
 }
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.memory;
+
+/**
+ * Management interface of {@link MemorySizeEvictionStrategy}, so its counters can be exposed via
+ * JMX, e.g. with
+ * 
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(strategy,
+ * 	new ObjectName(&quot;org.apache.wicket.app.myapp:type=PageStoreMemory&quot;));
+ * </pre>
+ */
+public interface MemorySizeEvictionStrategyMBean
+{
+	/**
+	 * @return the maximum size of the pages of a session, in bytes
+	 */
+	long getMaxBytes();
+
+	/**
+	 * @return the maximum size of the pages of all sessions, in bytes, or 0 if unlimited
+	 */
+	long getMaxTotalBytes();
+
+	/**
+	 * @return the size of the pages of all sessions, in bytes
+	 */
+	long getTotalBytes();
+
+	/**
+	 * @return the number of evicted pages
+	 */
+	long getEvictedPages();
+
+	/**
+	 * @return the size of the evicted pages, in bytes
+	 */
+	long getEvictedBytes();
+}
@@ -20,6 +20,10 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
 
 import org.apache.wicket.IClusterable;
 
@@ -27,9 +31,10 @@ import org.apache.wicket.IClusterable;
  * A structure that holds page id => pageAsBytes.
  * 
  * <p>
- * Additionally it has an index of the least recently used pages
+ * Additionally it has an index of the least recently used pages and keeps the total size of the
+ * pages
  */
-class PageTable implements IClusterable
+class PageTable implements IClusterable, HttpSessionBindingListener
 {
 	private static final long serialVersionUID = 1L;
 
@@ -52,6 +57,22 @@ class PageTable implements IClusterable
 	 */
 	private final ConcurrentMap<Integer, byte[]> pages;
 
+	/**
+	 * The total size of the pages, in bytes
+	 */
+	private volatile long sizeInBytes;
+
+	/**
+	 * The application wide total the size of the pages has been added to, see
+	 * {@link #account(AtomicLong)}
+	 */
+	private transient AtomicLong total;
+
+	/**
+	 * The size of the pages added to {@link #total}
+	 */
+	private transient long accountedBytes;
+
 	public PageTable()
 	{
 		pages = new ConcurrentHashMap<Integer, byte[]>();
@@ -62,7 +83,8 @@ class PageTable implements IClusterable
 	{
 		synchronized (index)
 		{
-			pages.put(pageId, pageAsBytes);
+			byte[] old = pages.put(pageId, pageAsBytes);
+			sizeInBytes += pageAsBytes.length - (old != null ? old.length : 0);
 
 			updateIndex(pageId);
 		}
@@ -84,7 +106,12 @@ class PageTable implements IClusterable
 		{
 			index.remove(pageId);
 
-			return pages.remove(pageId);
+			byte[] removed = pages.remove(pageId);
+			if (removed != null)
+			{
+				sizeInBytes -= removed.length;
+			}
+			return removed;
 		}
 	}
 
@@ -94,6 +121,7 @@ class PageTable implements IClusterable
 		{
 			index.clear();
 			pages.clear();
+			sizeInBytes = 0;
 		}
 	}
 
@@ -102,6 +130,68 @@ class PageTable implements IClusterable
 		return pages.size();
 	}
 
+	/**
+	 * @return the total size of the pages, in bytes
+	 */
+	public long getSizeInBytes()
+	{
+		return sizeInBytes;
+	}
+
+	/**
+	 * Adds the change of the size of the pages since the last call to an application wide total.
+	 * The size is subtracted again when the table is unbound from its session.
+	 * 
+	 * @param total
+	 *            the application wide total
+	 * @return the updated total
+	 */
+	long account(final AtomicLong total)
+	{
+		synchronized (index)
+		{
+			if (this.total != total)
+			{
+				release();
+				this.total = total;
+			}
+			long delta = sizeInBytes - accountedBytes;
+			accountedBytes = sizeInBytes;
+			return total.addAndGet(delta);
+		}
+	}
+
+	/**
+	 * Subtracts the accounted size of the pages from the application wide total
+	 */
+	private void release()
+	{
+		if (total != null)
+		{
+			total.addAndGet(-accountedBytes);
+			total = null;
+		}
+		accountedBytes = 0;
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpSessionBindingListener#valueBound(javax.servlet.http.HttpSessionBindingEvent)
+	 */
+	public void valueBound(final HttpSessionBindingEvent event)
+	{
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpSessionBindingListener#valueUnbound(javax.servlet.http.HttpSessionBindingEvent)
+	 */
+	public void valueUnbound(final HttpSessionBindingEvent event)
+	{
+		synchronized (index)
+		{
+			release();
+		}
+	}
+
 	Integer getOldest()
 	{
 		return index.peek();
@@ -16,21 +16,27 @@
  */
 package org.apache.wicket.protocol.http;
 
-import static java.lang.System.arraycopy;
-
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.Session;
 import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestHandlerDelegate;
 import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.handler.IPageClassRequestHandler;
 import org.apache.wicket.settings.IRequestLoggerSettings;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.time.Time;
@@ -49,6 +55,10 @@ import org.slf4j.LoggerFactory;
  * The information in the log files can take any format, depending on the request logger
  * implementation: currently Wicket supports two formats: a {@link RequestLogger legacy, log4j
  * compatible format}, and a {@link JsonRequestLogger JSON format}.
+ * <p>
+ * The request threads never block each other while recording the statistics: the requests are
+ * kept in a lock-free ring buffer and all counters are atomic, so the statistics can be read at any
+ * time without stopping the request threads.
  */
 public abstract class AbstractRequestLogger implements IRequestLogger
 {
@@ -83,25 +93,15 @@ public abstract class AbstractRequestLogger implements IRequestLogger
 	/**
 	 * Rounded request buffer that keeps the request data for the last N requests in the buffer.
 	 */
-	private RequestData[] requestWindow;
-
-	/**
-	 * Cursor pointing to the current writable location in the buffer. Points to the first empty
-	 * slot or if the buffer has been filled completely to the oldest request in the buffer.
-	 */
-	private int indexInWindow = 0;
+	private final AtomicReference<RequestWindow> requestWindow;
 
-	/**
-	 * records the total request time across the sliding request window so that it can be used to
-	 * calculate the average request time across the window duration.
-	 */
-	private long totalRequestTime = 0l;
+	/** class name of the page => the latency histogram of its requests */
+	private final ConcurrentMap<String, LatencyHistogram> pageLatencies =
+		new ConcurrentHashMap<String, LatencyHistogram>();
 
-	/**
-	 * records the start time of the oldest request across the sliding window so that it can be used
-	 * to calculate the average request time across the window duration.
-	 */
-	private Date startTimeOfOldestRequest;
+	/** class name of the request handler => the latency histogram of its requests */
+	private final ConcurrentMap<String, LatencyHistogram> handlerLatencies =
+		new ConcurrentHashMap<String, LatencyHistogram>();
 
 	/**
 	 * Construct.
@@ -111,7 +111,7 @@ public abstract class AbstractRequestLogger implements IRequestLogger
 		int requestsWindowSize = Application.get()
 			.getRequestLoggerSettings()
 			.getRequestsWindowSize();
-		requestWindow = new RequestData[requestsWindowSize];
+		requestWindow = new AtomicReference<RequestWindow>(new RequestWindow(requestsWindowSize));
 		liveSessions = new ConcurrentHashMap<String, SessionData>();
 	}
 
@@ -140,48 +140,28 @@ public abstract class AbstractRequestLogger implements IRequestLogger
 
 	public List<RequestData> getRequests()
 	{
-		synchronized (requestWindow)
-		{
-			RequestData[] result = new RequestData[hasBufferRolledOver() ? requestWindow.length
-				: indexInWindow];
-			copyRequestsInOrder(result);
-			return Arrays.asList(result);
-		}
+		return requestWindow.get().getRequests();
 	}
 
 	/**
-	 * Copies all request data into {@code copy} such that the oldest request is in slot 0 and the
-	 * most recent request is in slot {@code copy.length}
+	 * Gets the latency histograms of the requests per page class. A request is counted for the
+	 * page class of its response handler if that is a {@link IPageClassRequestHandler}.
 	 * 
-	 * @param copy
-	 *            the target, has to have a capacity of at least {@code requestWindow.length}
+	 * @return a live, unmodifiable view of the histograms keyed by the class name of the page
 	 */
-	private void copyRequestsInOrder(RequestData[] copy)
+	public Map<String, LatencyHistogram> getPageLatencies()
 	{
-		Args.isTrue(copy.length >= requestWindow.length, "copy.length must be at least {}",
-			requestWindow.length);
-		if (hasBufferRolledOver())
-		{
-			// first copy the oldest requests stored behind the cursor into the copy
-			int oldestPos = indexInWindow + 1;
-			if (oldestPos < requestWindow.length)
-				arraycopy(requestWindow, oldestPos, copy, 0, requestWindow.length - oldestPos);
-
-			// then append the newer requests stored from index 0 til the cursor position.
-			arraycopy(requestWindow, 0, copy, requestWindow.length - oldestPos, indexInWindow);
-		}
-		else
-		{
-			arraycopy(requestWindow, 0, copy, 0, indexInWindow);
-		}
+		return Collections.unmodifiableMap(pageLatencies);
 	}
 
 	/**
-	 * @return whether the buffer has been filled to capacity at least once
+	 * Gets the latency histograms of the requests per type of their response handler.
+	 * 
+	 * @return a live, unmodifiable view of the histograms keyed by the class name of the handler
 	 */
-	private boolean hasBufferRolledOver()
+	public Map<String, LatencyHistogram> getHandlerLatencies()
 	{
-		return requestWindow[requestWindow.length - 1] != null;
+		return Collections.unmodifiableMap(handlerLatencies);
 	}
 
 	public int getTotalCreatedSessions()
@@ -270,10 +250,7 @@ public abstract class AbstractRequestLogger implements IRequestLogger
 	public void sessionCreated(String sessionId)
 	{
 		liveSessions.put(sessionId, new SessionData(sessionId));
-		if (liveSessions.size() > peakSessions.get())
-		{
-			peakSessions.set(liveSessions.size());
-		}
+		updatePeak(peakSessions, liveSessions.size());
 		totalCreatedSessions.incrementAndGet();
 	}
 
@@ -294,15 +271,20 @@ public abstract class AbstractRequestLogger implements IRequestLogger
 			rd = new RequestData();
 			requestCycle.setMetaData(REQUEST_DATA, rd);
 			int activeCount = activeRequests.incrementAndGet();
-
-			if (activeCount > peakActiveRequests.get())
-			{
-				peakActiveRequests.set(activeCount);
-			}
+			updatePeak(peakActiveRequests, activeCount);
 		}
 		return rd;
 	}
 
+	private static void updatePeak(final AtomicInteger peak, final int value)
+	{
+		int current = peak.get();
+		while (value > current && peak.compareAndSet(current, value) == false)
+		{
+			current = peak.get();
+		}
+	}
+
 	protected abstract void log(RequestData rd, SessionData sd);
 
 	private Object getSessionInfo(Session session)
@@ -319,69 +301,64 @@ public abstract class AbstractRequestLogger implements IRequestLogger
 		// ensure the buffer has the proper installed length
 		resizeBuffer();
 
-		synchronized (requestWindow)
-		{
-			// if the requestWindow is a zero-length array, nothing gets stored
-			if (requestWindow.length == 0)
-				return;
-
-			// use the oldest request data to recalculate the average request time
-			RequestData old = requestWindow[indexInWindow];
+		requestWindow.get().add(rd);
 
-			// replace the oldest request with the nweset request
-			requestWindow[indexInWindow] = rd;
-
-			// move the cursor to the next writable position containing the oldest request or if the
-			// buffer hasn't been filled completely the first empty slot
-			indexInWindow = (indexInWindow + 1) % requestWindow.length;
-			if (old != null)
-			{
-				startTimeOfOldestRequest = requestWindow[indexInWindow].getStartDate();
-				totalRequestTime -= old.getTimeTaken();
-			}
-			else
+		IRequestHandler handler = rd.getResponseTarget();
+		while (handler instanceof IRequestHandlerDelegate)
+		{
+			handler = ((IRequestHandlerDelegate)handler).getDelegateHandler();
+		}
+		if (handler != null)
+		{
+			getLatencyHistogram(handlerLatencies, handler.getClass().getName()).record(
+				rd.getTimeTaken());
+			if (handler instanceof IPageClassRequestHandler)
 			{
-				if (startTimeOfOldestRequest == null)
-					startTimeOfOldestRequest = rd.getStartDate();
+				getLatencyHistogram(pageLatencies,
+					((IPageClassRequestHandler)handler).getPageClass().getName()).record(
+					rd.getTimeTaken());
 			}
-			totalRequestTime += rd.getTimeTaken();
 		}
 	}
 
-	private int getWindowSize()
+	private static LatencyHistogram getLatencyHistogram(
+		final ConcurrentMap<String, LatencyHistogram> histograms, final String key)
 	{
-		synchronized (requestWindow)
+		LatencyHistogram histogram = histograms.get(key);
+		if (histogram == null)
 		{
-			if (requestWindow[requestWindow.length - 1] == null)
-				return indexInWindow;
-			else
-				return requestWindow.length;
+			histogram = new LatencyHistogram();
+			LatencyHistogram existing = histograms.putIfAbsent(key, histogram);
+			if (existing != null)
+			{
+				histogram = existing;
+			}
 		}
+		return histogram;
 	}
 
 	public long getAverageRequestTime()
 	{
-		synchronized (requestWindow)
-		{
-			int windowSize = getWindowSize();
-			if (windowSize == 0)
-				return 0;
-			return totalRequestTime / windowSize;
-		}
+		RequestWindow window = requestWindow.get();
+		int windowSize = window.size();
+		if (windowSize == 0)
+			return 0;
+		return window.getTotalRequestTime() / windowSize;
 	}
 
 	public long getRequestsPerMinute()
 	{
-		synchronized (requestWindow)
-		{
-			int windowSize = getWindowSize();
-			if (windowSize == 0)
-				return 0;
-			long start = startTimeOfOldestRequest.getTime();
-			long end = System.currentTimeMillis();
-			double diff = end - start;
-			return Math.round(windowSize / (diff / 60000.0));
-		}
+		RequestWindow window = requestWindow.get();
+		int windowSize = window.size();
+		if (windowSize == 0)
+			return 0;
+		Date startTimeOfOldestRequest = window.getStartTimeOfOldestRequest();
+		if (startTimeOfOldestRequest == null)
+			return 0;
+		long start = startTimeOfOldestRequest.getTime();
+		long end = System.currentTimeMillis();
+		double diff = end - start;
+		return Math.round(windowSize / (diff / 60000.0));
 	}
 
 	public void logEventTarget(IRequestHandler requestHandler)
@@ -414,52 +391,110 @@ public abstract class AbstractRequestLogger implements IRequestLogger
 		int newCapacity = Application.get().getRequestLoggerSettings().getRequestsWindowSize();
 
 		// do nothing if the capacity requirement hasn't changed
-		if (newCapacity == requestWindow.length)
+		RequestWindow window = requestWindow.get();
+		if (newCapacity == window.capacity())
 			return;
 
-		RequestData[] newRequestWindow = new RequestData[newCapacity];
-		synchronized (requestWindow)
+		// keep the most recent requests. Requests added to the old buffer while copying may get
+		// lost, which is acceptable for statistics and only happens when the setting changes.
+		RequestWindow newWindow = new RequestWindow(newCapacity);
+		List<RequestData> requests = window.getRequests();
+		for (RequestData rd : requests.subList(Math.max(0, requests.size() - newCapacity),
+			requests.size()))
 		{
-			int oldCapacity = requestWindow.length;
-			int oldNumberOfElements = hasBufferRolledOver() ? oldCapacity : indexInWindow;
+			newWindow.add(rd);
+		}
+		requestWindow.compareAndSet(window, newWindow);
+	}
 
-			if (newCapacity > oldCapacity)
-			{
-				// increase the capacity of the buffer when more requests need to be stored
-				// and preserve the order of the requests while copying them into the new buffer.
-				copyRequestsInOrder(newRequestWindow);
+	/**
+	 * A fixed size ring buffer of the most recent requests which can be written and read
+	 * concurrently without locking.
+	 */
+	private static final class RequestWindow
+	{
+		private final AtomicReferenceArray<RequestData> slots;
+
+		/** the number of requests ever added, the next request goes to slot count % capacity */
+		private final AtomicLong count = new AtomicLong();
+
+		/** the total time taken by the requests in the buffer */
+		private final AtomicLong totalRequestTime = new AtomicLong();
+
+		private RequestWindow(final int capacity)
+		{
+			slots = new AtomicReferenceArray<RequestData>(capacity);
+		}
+
+		private int capacity()
+		{
+			return slots.length();
+		}
+
+		private void add(final RequestData rd)
+		{
+			// if the buffer has no slots, nothing gets stored
+			int capacity = slots.length();
+			if (capacity == 0)
+				return;
 
-				// the next writable position is at the first non-copied element in the buffer
-				indexInWindow = oldNumberOfElements;
-				requestWindow = newRequestWindow;
+			int index = (int)(count.getAndIncrement() % capacity);
+
+			// replace the oldest request and use it to recalculate the total request time
+			RequestData old = slots.getAndSet(index, rd);
+			totalRequestTime.addAndGet(rd.getTimeTaken() - (old != null ? old.getTimeTaken() : 0));
+		}
+
+		private int size()
+		{
+			return (int)Math.min(count.get(), slots.length());
+		}
+
+		private long getTotalRequestTime()
+		{
+			return totalRequestTime.get();
+		}
+
+		/**
+		 * @return the requests, the oldest first
+		 */
+		private List<RequestData> getRequests()
+		{
+			int capacity = slots.length();
+			long end = count.get();
+			long start = Math.max(0, end - capacity);
+			List<RequestData> result = new ArrayList<RequestData>((int)(end - start));
+			for (long i = start; i < end; i++)
+			{
+				// the slot may still be empty while the request is being added
+				RequestData rd = slots.get((int)(i % capacity));
+				if (rd != null)
+				{
+					result.add(rd);
+				}
 			}
-			else if (newCapacity < oldCapacity)
+			return result;
+		}
+
+		/**
+		 * @return the start time of the oldest request in the buffer or {@code null} if empty
+		 */
+		private Date getStartTimeOfOldestRequest()
+		{
+			int capacity = slots.length();
+			long end = count.get();
+			for (long i = Math.max(0, end - capacity); i < end; i++)
 			{
-				// sort the requests in the current buffer such that the oldest request is in slot 0
-				RequestData[] sortedRequestWindow = new RequestData[oldCapacity];
-				copyRequestsInOrder(sortedRequestWindow);
-
-				// determine the number of elements that need to be copied into the smaller target
-				int numberOfElementsToCopy = Math.min(newCapacity, oldNumberOfElements);
-
-				// determine the position from where the copying must start
-				int numberOfElementsToSkip = Math.max(0, oldNumberOfElements -
-					numberOfElementsToCopy);
-
-				// fill the new buffer with the leftovers of the old buffer, skipping the oldest
-				// requests
-				arraycopy(sortedRequestWindow, numberOfElementsToSkip, newRequestWindow, 0,
-					numberOfElementsToCopy);
-
-				// the next writable position is 0 when the buffer is filled to capacity, or the
-				// number of copied elements when the buffer isn't filled to capacity.
-				indexInWindow = numberOfElementsToCopy >= newCapacity ? 0 : numberOfElementsToCopy;
-				requestWindow = newRequestWindow;
+				RequestData rd = slots.get((int)(i % capacity));
+				if (rd != null)
+				{
+					return rd.getStartDate();
+				}
 			}
+			return null;
 		}
 	}
 
-
 	/**
 	 * Thread-safely formats the passed date in format 'yyyy-MM-dd hh:mm:ss,SSS' with GMT timezone
 	 * 
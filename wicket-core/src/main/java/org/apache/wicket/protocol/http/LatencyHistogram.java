@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A histogram of request times which can be recorded and read concurrently without locking.
+ * <p>
+ * The times are counted in buckets whose upper bounds are the powers of two from 1 to 65536
+ * milliseconds, so the percentiles are precise to a factor of two.
+ *
+ * @see AbstractRequestLogger#getPageLatencies()
+ * @see AbstractRequestLogger#getHandlerLatencies()
+ */
+public class LatencyHistogram
+{
+	/** the number of buckets with an upper bound, the last bucket counts everything above */
+	private static final int BOUNDED_BUCKETS = 17;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BOUNDED_BUCKETS + 1);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong totalTime = new AtomicLong();
+
+	private final AtomicLong maxTime = new AtomicLong();
+
+	/**
+	 * Records a request time
+	 *
+	 * @param timeTaken
+	 *            the time in milliseconds
+	 */
+	public void record(long timeTaken)
+	{
+		if (timeTaken < 0)
+		{
+			timeTaken = 0;
+		}
+		buckets.incrementAndGet(getBucket(timeTaken));
+		count.incrementAndGet();
+		totalTime.addAndGet(timeTaken);
+
+		long max = maxTime.get();
+		while (timeTaken > max && maxTime.compareAndSet(max, timeTaken) == false)
+		{
+			max = maxTime.get();
+		}
+	}
+
+	/**
+	 * @return the number of recorded request times
+	 */
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	/**
+	 * @return the average request time in milliseconds
+	 */
+	public long getAverageTime()
+	{
+		long n = count.get();
+		return n > 0 ? totalTime.get() / n : 0;
+	}
+
+	/**
+	 * @return the longest request time in milliseconds
+	 */
+	public long getMaxTime()
+	{
+		return maxTime.get();
+	}
+
+	/**
+	 * Estimates a percentile of the request times
+	 *
+	 * @param percentile
+	 *            between 0 and 100, e.g. 99 for the time 99% of the requests didn't exceed
+	 * @return the upper bound in milliseconds of the bucket the percentile falls into or the
+	 *         longest request time if that is lower, 0 if nothing has been recorded
+	 */
+	public long getPercentile(final double percentile)
+	{
+		Args.isTrue(percentile >= 0 && percentile <= 100,
+			"percentile must be between 0 and 100 but was %s", percentile);
+
+		long[] counts = getCounts();
+		long total = 0;
+		for (long c : counts)
+		{
+			total += c;
+		}
+		if (total == 0)
+		{
+			return 0;
+		}
+
+		long rank = Math.max(1, (long)Math.ceil(total * percentile / 100));
+		long max = maxTime.get();
+		long seen = 0;
+		for (int i = 0; i < BOUNDED_BUCKETS; i++)
+		{
+			seen += counts[i];
+			if (seen >= rank)
+			{
+				return Math.min(getUpperBound(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return the number of request times in each bucket, see {@link #getUpperBound(int)}
+	 */
+	public long[] getCounts()
+	{
+		long[] result = new long[buckets.length()];
+		for (int i = 0; i < result.length; i++)
+		{
+			result[i] = buckets.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * @param bucket
+	 * @return the upper bound (inclusive, in milliseconds) of the bucket or
+	 *         {@link Long#MAX_VALUE} for the last bucket
+	 */
+	public static long getUpperBound(final int bucket)
+	{
+		return bucket < BOUNDED_BUCKETS ? 1L << bucket : Long.MAX_VALUE;
+	}
+
+	private static int getBucket(final long timeTaken)
+	{
+		int bucket = 0;
+		while (bucket < BOUNDED_BUCKETS && timeTaken > (1L << bucket))
+		{
+			bucket++;
+		}
+		return bucket;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "LatencyHistogram [count=" + getCount() + ", average=" + getAverageTime() +
+			"ms, median=" + getPercentile(50) + "ms, 95%=" + getPercentile(95) + "ms, 99%=" +
+			getPercentile(99) + "ms, max=" + getMaxTime() + "ms]";
+	}
+}
@@ -25,17 +25,25 @@ import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.settings.IApplicationSettings;
+import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.string.StringValue;
+import org.apache.wicket.util.upload.DiskFileItem;
 import org.apache.wicket.util.upload.DiskFileItemFactory;
 import org.apache.wicket.util.upload.FileItem;
 import org.apache.wicket.util.upload.FileItemFactory;
+import org.apache.wicket.util.upload.FileItemIterator;
+import org.apache.wicket.util.upload.FileItemStream;
+import org.apache.wicket.util.upload.FileUploadBase.FileUploadIOException;
 import org.apache.wicket.util.upload.FileUploadException;
+import org.apache.wicket.util.upload.ParameterParser;
+import org.apache.wicket.util.upload.RequestContext;
 import org.apache.wicket.util.upload.ServletFileUpload;
 import org.apache.wicket.util.upload.ServletRequestContext;
 import org.apache.wicket.util.value.ValueMap;
@@ -68,6 +76,12 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 	/** content length cache, used for upload notifications */
 	private int totalBytes;
 
+	/** the id of the session the upload is registered for, used for upload notifications */
+	private String sessionId;
+
+	/** the info of the upload, used for upload notifications */
+	private UploadInfo uploadInfo;
+
 	/**
 	 * Constructor.
 	 * 
@@ -105,7 +119,8 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 	 *            prefix to wicket filter mapping
 	 * @param factory
 	 *            {@link DiskFileItemFactory} to use when creating file items used to represent
-	 *            uploaded files
+	 *            uploaded files. The values of form fields are read straight from the request,
+	 *            without creating file items for them
 	 * @throws FileUploadException
 	 *             Thrown if something goes wrong with upload
 	 */
@@ -152,8 +167,6 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 
 		fileUpload.setSizeMax(maxSize.bytes());
 
-		final List<FileItem> items;
-
 		if (wantUploadProgressUpdates())
 		{
 			ServletRequestContext ctx = new ServletRequestContext(request)
@@ -167,54 +180,101 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 			totalBytes = request.getContentLength();
 
 			onUploadStarted(totalBytes);
-			items = fileUpload.parseRequest(ctx);
-			onUploadCompleted();
+			try
+			{
+				parseRequest(fileUpload, ctx, encoding);
+			}
+			finally
+			{
+				onUploadCompleted();
+			}
 
 		}
 		else
 		{
-			items = fileUpload.parseRequest(request);
+			parseRequest(fileUpload, new ServletRequestContext(request), encoding);
 		}
+	}
 
-		// Loop through items
-		for (final FileItem item : items)
+	/**
+	 * Parses the items of the request while they are read from the request. The values of form
+	 * fields are decoded straight from the request into the parameters, only the uploaded files are
+	 * stored in {@link FileItem}s of the factory.
+	 * 
+	 * @param fileUpload
+	 * @param ctx
+	 * @param encoding
+	 *            the encoding of the form fields, may be <code>null</code>
+	 * @throws FileUploadException
+	 */
+	private void parseRequest(final ServletFileUpload fileUpload, final RequestContext ctx,
+		final String encoding) throws FileUploadException
+	{
+		try
 		{
-			// Get next item
-			// If item is a form field
-			if (item.isFormField())
+			final FileItemIterator iterator = fileUpload.getItemIterator(ctx);
+			while (iterator.hasNext())
 			{
-				// Set parameter value
-				final String value;
-				if (encoding != null)
+				final FileItemStream item = iterator.next();
+				if (item.isFormField())
 				{
-					try
-					{
-						value = item.getString(encoding);
-					}
-					catch (UnsupportedEncodingException e)
-					{
-						throw new WicketRuntimeException(e);
-					}
+					addParameter(item.getFieldName(), readString(item, encoding));
 				}
 				else
 				{
-					value = item.getString();
-				}
-
-				addParameter(item.getFieldName(), value);
-			}
-			else
-			{
-				List<FileItem> fileItems = files.get(item.getFieldName());
-				if (fileItems == null)
-				{
-					fileItems = new ArrayList<FileItem>();
-					files.put(item.getFieldName(), fileItems);
+					List<FileItem> fileItems = files.get(item.getFieldName());
+					if (fileItems == null)
+					{
+						fileItems = new ArrayList<FileItem>();
+						files.put(item.getFieldName(), fileItems);
+					}
+					fileItems.add(fileUpload.createItem(item));
 				}
-				// Add to file list
-				fileItems.add(item);
 			}
 		}
+		catch (FileUploadIOException e)
+		{
+			throw (FileUploadException)e.getCause();
+		}
+		catch (IOException e)
+		{
+			throw new FileUploadException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads the value of a form field.
+	 * 
+	 * @param item
+	 * @param encoding
+	 *            the encoding of the value or <code>null</code> to use the charset of the item
+	 * @return the value
+	 * @throws IOException
+	 */
+	private static String readString(final FileItemStream item, final String encoding)
+		throws IOException
+	{
+		String charset = encoding;
+		if (charset == null)
+		{
+			ParameterParser parser = new ParameterParser();
+			parser.setLowerCaseNames(true);
+			charset = parser.parse(item.getContentType(), ';').get("charset");
+		}
+		final InputStream in = item.openStream();
+		try
+		{
+			return new String(IOUtils.toByteArray(in), charset != null ? charset
+				: DiskFileItem.DEFAULT_CHARSET);
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new WicketRuntimeException(e);
+		}
+		finally
+		{
+			IOUtils.closeQuietly(in);
+		}
 	}
 
 	/**
@@ -304,9 +364,10 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 	 */
 	protected void onUploadStarted(int totalBytes)
 	{
-		UploadInfo info = new UploadInfo(totalBytes);
+		uploadInfo = new UploadInfo(totalBytes);
 
-		setUploadInfo(getContainerRequest(), upload, info);
+		sessionId = getContainerRequest().getSession(true).getId();
+		UploadProgressRegistry.get(Application.get()).put(sessionId, upload, uploadInfo);
 	}
 
 	/**
@@ -317,16 +378,15 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 	 */
 	protected void onUploadUpdate(int bytesUploaded, int total)
 	{
-		HttpServletRequest request = getContainerRequest();
-		UploadInfo info = getUploadInfo(request, upload);
-		if (info == null)
+		if (sessionId == null)
 		{
 			throw new IllegalStateException(
-				"could not find UploadInfo object in session which should have been set when uploaded started");
+				"could not find UploadInfo object which should have been registered when upload started");
 		}
-		info.setBytesUploaded(bytesUploaded);
 
-		setUploadInfo(request, upload, info);
+		// a stalled upload may have expired in the meantime, the update registers it again
+		UploadProgressRegistry.get(Application.get()).update(sessionId, upload, uploadInfo,
+			bytesUploaded);
 	}
 
 	/**
@@ -334,7 +394,10 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 	 */
 	protected void onUploadCompleted()
 	{
-		clearUploadInfo(getContainerRequest(), upload);
+		if (sessionId != null)
+		{
+			UploadProgressRegistry.get(Application.get()).remove(sessionId, upload);
+		}
 	}
 
 	/**
@@ -410,37 +473,36 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 		return this;
 	}
 
-	private static final String SESSION_KEY = MultipartServletWebRequestImpl.class.getName();
-
-	private static String getSessionKey(String upload)
-	{
-		return SESSION_KEY + ":" + upload;
-	}
-
 	/**
-	 * Retrieves {@link UploadInfo} from session, null if not found.
+	 * Retrieves {@link UploadInfo} of the session of the request, null if not found. The upload
+	 * infos are kept in the {@link UploadProgressRegistry}, not in the session itself.
 	 * 
 	 * @param req
 	 *            http servlet request, not null
 	 * @param upload
 	 *            upload identifier
-	 * @return {@link UploadInfo} object from session, or null if not found
+	 * @return {@link UploadInfo} object, or null if not found
 	 */
 	public static UploadInfo getUploadInfo(final HttpServletRequest req, String upload)
 	{
 		Args.notNull(req, "req");
-		return (UploadInfo)req.getSession().getAttribute(getSessionKey(upload));
+		HttpSession session = req.getSession(false);
+		if ((session == null) || (upload == null))
+		{
+			return null;
+		}
+		return UploadProgressRegistry.get(Application.get()).get(session.getId(), upload);
 	}
 
 	/**
-	 * Sets the {@link UploadInfo} object into session.
+	 * Sets the {@link UploadInfo} object for the session of the request.
 	 * 
 	 * @param req
 	 *            http servlet request, not null
 	 * @param upload
 	 *            upload identifier
 	 * @param uploadInfo
-	 *            {@link UploadInfo} object to be put into session, not null
+	 *            {@link UploadInfo} object to be registered, not null
 	 */
 	public static void setUploadInfo(final HttpServletRequest req, String upload,
 		final UploadInfo uploadInfo)
@@ -448,11 +510,12 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 		Args.notNull(req, "req");
 		Args.notNull(upload, "upload");
 		Args.notNull(uploadInfo, "uploadInfo");
-		req.getSession().setAttribute(getSessionKey(upload), uploadInfo);
+		UploadProgressRegistry.get(Application.get()).put(req.getSession(true).getId(), upload,
+			uploadInfo);
 	}
 
 	/**
-	 * Clears the {@link UploadInfo} object from session if one exists.
+	 * Clears the {@link UploadInfo} object of the session of the request if one exists.
 	 * 
 	 * @param req
 	 *            http servlet request, not null
@@ -463,6 +526,10 @@ public class MultipartServletWebRequestImpl extends MultipartServletWebRequest
 	{
 		Args.notNull(req, "req");
 		Args.notNull(upload, "upload");
-		req.getSession().removeAttribute(getSessionKey(upload));
+		HttpSession session = req.getSession(false);
+		if (session != null)
+		{
+			UploadProgressRegistry.get(Application.get()).remove(session.getId(), upload);
+		}
 	}
 }
\ No newline at end of file
@@ -86,7 +86,8 @@ public class ServletWebResponse extends WebResponse
 	public void setDateHeader(String name, Time date)
 	{
 		Args.notNull(date, "date");
-		httpServletResponse.setDateHeader(name, date.getMilliseconds());
+		// uses the cached timestamps instead of letting the container format the date again
+		httpServletResponse.setHeader(name, date.toRfc1123TimestampString());
 	}
 
 	@Override
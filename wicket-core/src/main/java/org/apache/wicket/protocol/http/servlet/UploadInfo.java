@@ -34,7 +34,8 @@ public class UploadInfo implements IClusterable
 
 	private transient long timeStarted;
 	private transient long totalBytes;
-	private transient long bytesUploaded;
+	/** updated by the uploading thread, read by the threads polling the progress */
+	private transient volatile long bytesUploaded;
 
 	/**
 	 * @param totalBytes
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http.servlet;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+
+/**
+ * Application wide registry of the {@link UploadInfo}s of the running uploads. Unlike session
+ * attributes the progress of an upload can be updated for every chunk read without causing
+ * session replication, and it can be polled by the upload status resource without locking the
+ * session.
+ * <p>
+ * The uploads are identified by the id of the session and an upload identifier unique within the
+ * session. The progress of an upload is published at most once per update interval, and uploads
+ * which haven't been updated for the expiry time, e.g. because the request failed, are removed.
+ *
+ * @see MultipartServletWebRequestImpl#getUploadInfo(javax.servlet.http.HttpServletRequest, String)
+ */
+public class UploadProgressRegistry
+{
+	private static final MetaDataKey<UploadProgressRegistry> KEY = new MetaDataKey<UploadProgressRegistry>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** The default interval between two updates of the progress of an upload */
+	public static final Duration DEFAULT_UPDATE_INTERVAL = Duration.milliseconds(500);
+
+	/** The default time after which an upload without updates is removed */
+	public static final Duration DEFAULT_EXPIRY_TIME = Duration.minutes(10);
+
+	private final ConcurrentMap<String, Entry> uploads = new ConcurrentHashMap<String, Entry>();
+
+	private volatile long updateInterval = DEFAULT_UPDATE_INTERVAL.getMilliseconds();
+
+	private volatile long expiryTime = DEFAULT_EXPIRY_TIME.getMilliseconds();
+
+	/**
+	 * Gets the registry of the application, creating it on first access.
+	 *
+	 * @param application
+	 * @return the registry of the application
+	 */
+	public static UploadProgressRegistry get(final Application application)
+	{
+		UploadProgressRegistry registry = application.getMetaData(KEY);
+		if (registry == null)
+		{
+			synchronized (application)
+			{
+				registry = application.getMetaData(KEY);
+				if (registry == null)
+				{
+					registry = new UploadProgressRegistry();
+					application.setMetaData(KEY, registry);
+				}
+			}
+		}
+		return registry;
+	}
+
+	/**
+	 * Sets the interval between two updates of the progress of an upload. The reading of an upload
+	 * isn't slowed down by it, only the published number of bytes uploaded lags behind by at most
+	 * the interval.
+	 *
+	 * @param updateInterval
+	 * @return {@code this}
+	 */
+	public UploadProgressRegistry setUpdateInterval(final Duration updateInterval)
+	{
+		Args.notNull(updateInterval, "updateInterval");
+		this.updateInterval = updateInterval.getMilliseconds();
+		return this;
+	}
+
+	/**
+	 * @return the interval between two updates of the progress of an upload
+	 */
+	public Duration getUpdateInterval()
+	{
+		return Duration.milliseconds(updateInterval);
+	}
+
+	/**
+	 * Sets the time after which an upload without updates is removed
+	 *
+	 * @param expiryTime
+	 * @return {@code this}
+	 */
+	public UploadProgressRegistry setExpiryTime(final Duration expiryTime)
+	{
+		Args.notNull(expiryTime, "expiryTime");
+		this.expiryTime = expiryTime.getMilliseconds();
+		return this;
+	}
+
+	/**
+	 * @return the time after which an upload without updates is removed
+	 */
+	public Duration getExpiryTime()
+	{
+		return Duration.milliseconds(expiryTime);
+	}
+
+	/**
+	 * Registers an upload, replacing an upload with the same identifiers
+	 *
+	 * @param sessionId
+	 *            the id of the session
+	 * @param upload
+	 *            the upload identifier
+	 * @param info
+	 *            the upload info
+	 */
+	public void put(final String sessionId, final String upload, final UploadInfo info)
+	{
+		Args.notNull(info, "info");
+		removeExpired(System.currentTimeMillis());
+		uploads.put(key(sessionId, upload), new Entry(info));
+	}
+
+	/**
+	 * Gets the info of an upload
+	 *
+	 * @param sessionId
+	 *            the id of the session
+	 * @param upload
+	 *            the upload identifier
+	 * @return the upload info or {@code null} if there is no such upload
+	 */
+	public UploadInfo get(final String sessionId, final String upload)
+	{
+		Entry entry = uploads.get(key(sessionId, upload));
+		if ((entry == null) || entry.isExpired(System.currentTimeMillis(), expiryTime))
+		{
+			return null;
+		}
+		return entry.info;
+	}
+
+	/**
+	 * Updates the number of bytes uploaded, unless the last update is more recent than the update
+	 * interval and the upload is not complete yet.
+	 *
+	 * @param sessionId
+	 *            the id of the session
+	 * @param upload
+	 *            the upload identifier
+	 * @param bytesUploaded
+	 *            the number of bytes uploaded so far
+	 * @return {@code false} if there is no such upload
+	 */
+	public boolean update(final String sessionId, final String upload, final long bytesUploaded)
+	{
+		Entry entry = uploads.get(key(sessionId, upload));
+		if (entry == null)
+		{
+			return false;
+		}
+
+		long now = System.currentTimeMillis();
+		if ((now - entry.lastUpdate >= updateInterval) ||
+			(bytesUploaded >= entry.info.getTotalBytes()))
+		{
+			entry.info.setBytesUploaded(bytesUploaded);
+			entry.lastUpdate = now;
+		}
+		return true;
+	}
+
+	/**
+	 * Updates the number of bytes uploaded like {@link #update(String, String, long)}, but
+	 * registers the upload again if it is missing, e.g. because it stalled for longer than the
+	 * expiry time and was removed while another upload was registered.
+	 *
+	 * @param sessionId
+	 *            the id of the session
+	 * @param upload
+	 *            the upload identifier
+	 * @param info
+	 *            the upload info registered when the upload started
+	 * @param bytesUploaded
+	 *            the number of bytes uploaded so far
+	 */
+	public void update(final String sessionId, final String upload, final UploadInfo info,
+		final long bytesUploaded)
+	{
+		Args.notNull(info, "info");
+		while (!update(sessionId, upload, bytesUploaded))
+		{
+			uploads.putIfAbsent(key(sessionId, upload), new Entry(info));
+		}
+	}
+
+	/**
+	 * Removes an upload
+	 *
+	 * @param sessionId
+	 *            the id of the session
+	 * @param upload
+	 *            the upload identifier
+	 */
+	public void remove(final String sessionId, final String upload)
+	{
+		uploads.remove(key(sessionId, upload));
+	}
+
+	/**
+	 * @return the number of registered uploads
+	 */
+	public int size()
+	{
+		return uploads.size();
+	}
+
+	private void removeExpired(final long now)
+	{
+		Iterator<Entry> iterator = uploads.values().iterator();
+		while (iterator.hasNext())
+		{
+			if (iterator.next().isExpired(now, expiryTime))
+			{
+				iterator.remove();
+			}
+		}
+	}
+
+	private static String key(final String sessionId, final String upload)
+	{
+		Args.notNull(sessionId, "sessionId");
+		Args.notNull(upload, "upload");
+		return sessionId + ':' + upload;
+	}
+
+	private static final class Entry
+	{
+		private final UploadInfo info;
+
+		private volatile long lastUpdate;
+
+		private Entry(final UploadInfo info)
+		{
+			this.info = info;
+			lastUpdate = System.currentTimeMillis();
+		}
+
+		private boolean isExpired(final long now, final long expiryTime)
+		{
+			return now - lastUpdate > expiryTime;
+		}
+	}
+}
@@ -16,8 +16,12 @@
  */
 package org.apache.wicket.request.mapper;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
@@ -58,8 +62,12 @@ import org.apache.wicket.util.string.Strings;
  * 
  * @author Matej Knopp
  */
-public class MountedMapper extends AbstractBookmarkableMapper
+public class MountedMapper extends AbstractBookmarkableMapper implements IIndexableRequestMapper
 {
+	/** the methods which, when overridden, keep a mapper out of the index */
+	private static final Set<String> MATCHING_METHODS = new HashSet<String>(Arrays.asList(
+		"mapRequest", "mapHandler", "parseRequest", "buildUrl", "urlStartsWith", "checkPageClass"));
+
 	private final IPageParametersEncoder pageParametersEncoder;
 
 	private static class MountPathSegment
@@ -469,6 +477,48 @@ public class MountedMapper extends AbstractBookmarkableMapper
 		return pageClassProvider.get();
 	}
 
+	/**
+	 * @see org.apache.wicket.request.mapper.IIndexableRequestMapper#getMountPrefix()
+	 */
+	public String[] getMountPrefix()
+	{
+		return isIndexable() ? getFixedPrefix(mountSegments) : new String[0];
+	}
+
+	/**
+	 * The key of the handlers is the page class, see
+	 * {@link org.apache.wicket.SystemMapper#getHandlerKey(org.apache.wicket.request.IRequestHandler)}
+	 * 
+	 * @see org.apache.wicket.request.mapper.IIndexableRequestMapper#getHandlerKey()
+	 */
+	public Object getHandlerKey()
+	{
+		return isIndexable() ? getPageClass() : null;
+	}
+
+	/**
+	 * Whether the {@link CompoundRequestMapper} may ask this mapper only for the URLs starting
+	 * with the fixed part of the mount path and for the handlers of the mounted page class. By
+	 * default this is the case unless a subclass overrides how requests or handlers are matched.
+	 * Subclasses can override this method to opt out of or into the index.
+	 * 
+	 * @return <code>true</code> if this mapper can be indexed
+	 */
+	protected boolean isIndexable()
+	{
+		for (Class<?> clazz = getClass(); clazz != MountedMapper.class; clazz = clazz.getSuperclass())
+		{
+			for (Method method : clazz.getDeclaredMethods())
+			{
+				if (MATCHING_METHODS.contains(method.getName()))
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -65,7 +65,7 @@ import org.apache.wicket.util.string.Strings;
  * 
  * @author Peter Ertl
  */
-public class ResourceMapper extends AbstractMapper implements IRequestMapper
+public class ResourceMapper extends AbstractMapper implements IIndexableRequestMapper
 {
 	// encode page parameters into url + decode page parameters from url
 	private final IPageParametersEncoder parametersEncoder;
@@ -154,6 +154,31 @@ public class ResourceMapper extends AbstractMapper implements IRequestMapper
 		return 0; // pages always have priority over resources
 	}
 
+	/**
+	 * @see org.apache.wicket.request.mapper.IIndexableRequestMapper#getMountPrefix()
+	 */
+	public String[] getMountPrefix()
+	{
+		// the last segment may carry caching information
+		String[] prefix = getFixedPrefix(mountSegments);
+		if (prefix.length == mountSegments.length && prefix.length > 0)
+		{
+			String[] shorter = new String[prefix.length - 1];
+			System.arraycopy(prefix, 0, shorter, 0, shorter.length);
+			prefix = shorter;
+		}
+		return prefix;
+	}
+
+	/**
+	 * @see org.apache.wicket.request.mapper.IIndexableRequestMapper#getHandlerKey()
+	 */
+	public Object getHandlerKey()
+	{
+		// the resource can be mapped also through another reference
+		return null;
+	}
+
 	public Url mapHandler(IRequestHandler requestHandler)
 	{
 		if ((requestHandler instanceof ResourceReferenceRequestHandler) == false)
@@ -90,6 +90,7 @@ public abstract class AbstractResource implements IResource
 	public static class ResourceResponse
 	{
 		private Integer errorCode;
+		private Integer statusCode;
 		private String errorMessage;
 		private String fileName = null;
 		private ContentDisposition contentDisposition = ContentDisposition.INLINE;
@@ -97,6 +98,7 @@ public abstract class AbstractResource implements IResource
 		private String textEncoding;
 		private long contentLength = -1;
 		private Time lastModified = null;
+		private String etag = null;
 		private WriteCallback writeCallback;
 		private Duration cacheDuration;
 		private WebResponse.CacheScope cacheScope;
@@ -159,6 +161,26 @@ public abstract class AbstractResource implements IResource
 			return errorMessage;
 		}
 
+		/**
+		 * Sets the status code of a successful response, e.g. 206 (partial content). Unlike an
+		 * error code the data is rendered.
+		 * 
+		 * @param statusCode
+		 *            status code or <code>null</code> for the default
+		 */
+		public void setStatusCode(Integer statusCode)
+		{
+			this.statusCode = statusCode;
+		}
+
+		/**
+		 * @return status code or <code>null</code>
+		 */
+		public Integer getStatusCode()
+		{
+			return statusCode;
+		}
+
 		/**
 		 * Sets the file name of the resource.
 		 * 
@@ -286,10 +308,32 @@ public abstract class AbstractResource implements IResource
 			return lastModified;
 		}
 
+		/**
+		 * Sets the entity tag of the data. If it is set Wicket checks the
+		 * <code>If-None-Match</code> header to determine if the data needs to be sent to client.
+		 * 
+		 * @param etag
+		 *            the entity tag including the quotes, e.g. <code>"1234"</code>
+		 */
+		public void setETag(String etag)
+		{
+			this.etag = etag;
+		}
+
+		/**
+		 * @return entity tag or <code>null</code>
+		 */
+		public String getETag()
+		{
+			return etag;
+		}
+
 		/**
 		 * Check to determine if the resource data needs to be written. This method checks the
-		 * <code>If-Modified-Since</code> request header and compares it to lastModified property.
-		 * In order for this method to work {@link #setLastModified(Time)} has to be called first.
+		 * <code>If-None-Match</code> request header and compares it to the etag property, or else
+		 * the <code>If-Modified-Since</code> request header and compares it to lastModified
+		 * property. In order for this method to work {@link #setETag(String)} or
+		 * {@link #setLastModified(Time)} has to be called first.
 		 * 
 		 * @param attributes
 		 *            request attributes
@@ -299,6 +343,24 @@ public abstract class AbstractResource implements IResource
 		public boolean dataNeedsToBeWritten(Attributes attributes)
 		{
 			WebRequest request = (WebRequest)attributes.getRequest();
+
+			if (etag != null)
+			{
+				String ifNoneMatch = request.getHeader("If-None-Match");
+				if (ifNoneMatch != null)
+				{
+					for (String tag : ifNoneMatch.split(","))
+					{
+						tag = tag.trim();
+						if (tag.equals(etag) || tag.equals("*"))
+						{
+							return false;
+						}
+					}
+					return true;
+				}
+			}
+
 			Time ifModifiedSince = request.getIfModifiedSinceHeader();
 
 			if (ifModifiedSince != null && lastModified != null)
@@ -539,6 +601,12 @@ public abstract class AbstractResource implements IResource
 			// 2. Caching
 			configureCache(data, attributes);
 
+			String etag = data.getETag();
+			if (etag != null)
+			{
+				webResponse.setHeader("ETag", etag);
+			}
+
 			if (!data.dataNeedsToBeWritten(attributes))
 			{
 				webResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
@@ -551,6 +619,11 @@ public abstract class AbstractResource implements IResource
 				return;
 			}
 
+			if (data.getStatusCode() != null)
+			{
+				webResponse.setStatus(data.getStatusCode());
+			}
+
 			String fileName = data.getFileName();
 			ContentDisposition disposition = data.getContentDisposition();
 			String mimeType = data.getContentType();
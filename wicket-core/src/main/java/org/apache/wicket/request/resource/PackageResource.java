@@ -27,6 +27,7 @@ import org.apache.wicket.Session;
 import org.apache.wicket.ThreadContext;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
+import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
 import org.apache.wicket.settings.IResourceSettings;
 import org.apache.wicket.util.io.IOUtils;
@@ -212,6 +213,17 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		return WicketObjects.resolveClass(scopeName);
 	}
 
+	/**
+	 * Gets the path of the resource in the class path, e.g.
+	 * <code>org/apache/wicket/ajax/wicket-ajax.js</code>, without the locale, style and variation.
+	 * 
+	 * @return the absolute path
+	 */
+	public final String getAbsolutePath()
+	{
+		return absolutePath;
+	}
+
 	/**
 	 * Gets the style.
 	 * 
@@ -253,48 +265,258 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 			if (lastModified != null)
 				resourceResponse.setLastModified(lastModified);
 
+			final PackageResourceCache.Entry entry;
 			try
 			{
-				// read resource data
-				final byte[] bytes;
+				entry = getProcessedResource(attributes, resourceStream);
+			}
+			catch (IOException e)
+			{
+				log.debug(e.getMessage(), e);
+				return sendResourceError(resourceResponse, 500, "Unable to read resource stream");
+			}
+			catch (ResourceStreamNotFoundException e)
+			{
+				log.debug(e.getMessage(), e);
+				return sendResourceError(resourceResponse, 500, "Unable to open resource stream");
+			}
+
+			final WebRequest request = attributes.getRequest() instanceof WebRequest
+				? (WebRequest)attributes.getRequest() : null;
+			final String range = request != null ? request.getHeader("Range") : null;
 
-				try
+			// serve the gzipped data if the client accepts it, but never a range of it
+			byte[] data = entry.getData();
+			boolean gzipped = false;
+			if (entry.isCompressible())
+			{
+				resourceResponse.getHeaders().addHeader("Vary", "Accept-Encoding");
+				if (range == null && request != null &&
+					acceptsGzip(request.getHeader("Accept-Encoding")))
 				{
-					bytes = IOUtils.toByteArray(resourceStream.getInputStream());
+					byte[] gzippedData = entry.getGzippedData();
+					if (gzippedData != null)
+					{
+						data = gzippedData;
+						gzipped = true;
+						resourceResponse.getHeaders().addHeader("Content-Encoding", "gzip");
+					}
 				}
-				finally
+			}
+			resourceResponse.setETag(entry.getETag(gzipped));
+			resourceResponse.getHeaders().addHeader("Accept-Ranges", "bytes");
+
+			if (resourceResponse.dataNeedsToBeWritten(attributes) == false)
+			{
+				return resourceResponse;
+			}
+
+			byte[] body = data;
+
+			// a range is only served if the client's copy is still current
+			String ifRange = request != null ? request.getHeader("If-Range") : null;
+			if (range != null && (ifRange == null || ifRange.equals(resourceResponse.getETag())))
+			{
+				long[] bounds = parseRange(range, data.length);
+				if (bounds == null)
 				{
-					resourceStream.close();
+					// an error response would drop the headers, the client needs the length
+					log.debug("Requested range '{}' of resource '{}' not satisfiable", range,
+						absolutePath);
+					resourceResponse.setStatusCode(416);
+					resourceResponse.getHeaders().addHeader("Content-Range",
+						"bytes */" + data.length);
+					body = new byte[0];
 				}
+				else if (bounds.length == 2)
+				{
+					body = new byte[(int)(bounds[1] - bounds[0] + 1)];
+					System.arraycopy(data, (int)bounds[0], body, 0, body.length);
+					resourceResponse.setStatusCode(206);
+					resourceResponse.getHeaders().addHeader("Content-Range",
+						"bytes " + bounds[0] + "-" + bounds[1] + "/" + data.length);
+				}
+			}
+
+			// send Content-Length header
+			resourceResponse.setContentLength(body.length);
+
+			// send response body with resource data
+			final byte[] processed = body;
+			resourceResponse.setWriteCallback(new WriteCallback()
+			{
+				@Override
+				public void writeData(Attributes attributes)
+				{
+					attributes.getResponse().write(processed);
+				}
+			});
+		}
+
+		return resourceResponse;
+	}
+
+	/**
+	 * Reads and processes the data of the resource or takes it from the
+	 * {@link PackageResourceCache} if it has not been modified since.
+	 * 
+	 * @param attributes
+	 * @param resourceStream
+	 * @return the processed data
+	 * @throws IOException
+	 * @throws ResourceStreamNotFoundException
+	 */
+	private PackageResourceCache.Entry getProcessedResource(final Attributes attributes,
+		final IResourceStream resourceStream) throws IOException,
+		ResourceStreamNotFoundException
+	{
+		final Time lastModified = resourceStream.lastModifiedTime();
+		final PackageResourceCache cache = PackageResourceCache.get(Application.get());
+
+		// without the modification time a changed resource couldn't be detected
+		final CacheKey key = lastModified != null && isProcessedResponseCacheable()
+			? new CacheKey(scopeName, absolutePath, resourceStream.getLocale(),
+				resourceStream.getStyle(), resourceStream.getVariation()) : null;
+
+		if (key != null)
+		{
+			PackageResourceCache.Entry entry = cache.get(getClass(), key, lastModified);
+			if (entry != null)
+			{
+				return entry;
+			}
+		}
+
+		// read resource data
+		final byte[] bytes;
+
+		try
+		{
+			bytes = IOUtils.toByteArray(resourceStream.getInputStream());
+		}
+		finally
+		{
+			resourceStream.close();
+		}
+
+		final byte[] processed = processResponse(attributes, bytes);
 
-				final byte[] processed = processResponse(attributes, bytes);
+		if (key != null)
+		{
+			return cache.put(getClass(), key, lastModified, processed,
+				resourceStream.getContentType());
+		}
+		return cache.newEntry(processed, resourceStream.getContentType());
+	}
 
-				// send Content-Length header
-				resourceResponse.setContentLength(processed.length);
+	/**
+	 * Whether the processed data of this resource can be kept in the {@link PackageResourceCache}.
+	 * Resources whose {@link #processResponse(Attributes, byte[])} depends on the request must
+	 * return <code>false</code>.
+	 * 
+	 * @return <code>true</code> by default
+	 */
+	protected boolean isProcessedResponseCacheable()
+	{
+		return true;
+	}
 
-				// send response body with resource data
-				resourceResponse.setWriteCallback(new WriteCallback()
+	/**
+	 * @param acceptEncoding
+	 *            the value of the <code>Accept-Encoding</code> header
+	 * @return whether gzip is an accepted encoding
+	 */
+	private static boolean acceptsGzip(final String acceptEncoding)
+	{
+		if (acceptEncoding == null)
+		{
+			return false;
+		}
+		for (String coding : acceptEncoding.split(","))
+		{
+			String[] parts = coding.split(";");
+			if ("gzip".equalsIgnoreCase(parts[0].trim()))
+			{
+				for (int i = 1; i < parts.length; i++)
 				{
-					@Override
-					public void writeData(Attributes attributes)
+					String param = parts[i].trim();
+					if (param.matches("q=0(\\.0*)?"))
 					{
-						attributes.getResponse().write(processed);
+						return false;
 					}
-				});
+				}
+				return true;
 			}
-			catch (IOException e)
+		}
+		return false;
+	}
+
+	/**
+	 * Parses a <code>Range</code> header of a single byte range.
+	 * 
+	 * @param range
+	 *            the value of the <code>Range</code> header
+	 * @param length
+	 *            the length of the data
+	 * @return the first and the last byte of the range, an empty array if the header isn't
+	 *         supported and the whole data should be sent, or <code>null</code> if the range
+	 *         cannot be satisfied
+	 */
+	static long[] parseRange(final String range, final long length)
+	{
+		String spec = range.trim();
+		if (spec.startsWith("bytes=") == false || spec.indexOf(',') != -1)
+		{
+			// other units and multiple ranges aren't supported
+			return new long[0];
+		}
+		spec = spec.substring("bytes=".length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash == -1)
+		{
+			return new long[0];
+		}
+		if (length == 0)
+		{
+			return null;
+		}
+
+		long first;
+		long last;
+		try
+		{
+			String start = spec.substring(0, dash).trim();
+			String end = spec.substring(dash + 1).trim();
+			if (start.length() == 0)
 			{
-				log.debug(e.getMessage(), e);
-				return sendResourceError(resourceResponse, 500, "Unable to read resource stream");
+				// the last n bytes
+				long suffix = Long.parseLong(end);
+				if (suffix <= 0)
+				{
+					return null;
+				}
+				first = Math.max(0, length - suffix);
+				last = length - 1;
 			}
-			catch (ResourceStreamNotFoundException e)
+			else
 			{
-				log.debug(e.getMessage(), e);
-				return sendResourceError(resourceResponse, 500, "Unable to open resource stream");
+				first = Long.parseLong(start);
+				if (first >= length)
+				{
+					return null;
+				}
+				last = end.length() == 0 ? length - 1 : Math.min(Long.parseLong(end), length - 1);
+				if (last < first)
+				{
+					return new long[0];
+				}
 			}
 		}
-
-		return resourceResponse;
+		catch (NumberFormatException e)
+		{
+			return new long[0];
+		}
+		return new long[] { first, last };
 	}
 
 	/**
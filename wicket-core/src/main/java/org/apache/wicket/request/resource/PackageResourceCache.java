@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.util.collections.WeightedLruCache;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.lang.Objects;
+import org.apache.wicket.util.time.Time;
+
+/**
+ * Application wide cache of the processed data of the {@link PackageResource}s, so a package
+ * resource is read and e.g. compressed by the configured JavaScript or CSS compressor only once
+ * instead of on every request.
+ * <p>
+ * The data is cached together with its last modification time, a changed resource is read and
+ * processed again. Compressible data (text, JavaScript, JSON and XML) is also kept gzipped to be
+ * served to the clients which accept it. Data which isn't cached is gzipped only when a client
+ * accepting it asks for it. The cache is bounded by the total size of the data, the
+ * least recently used data is evicted first.
+ *
+ * @see PackageResource
+ */
+public class PackageResourceCache
+{
+	private static final MetaDataKey<PackageResourceCache> KEY = new MetaDataKey<PackageResourceCache>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** The default maximum size of the cached data */
+	public static final Bytes DEFAULT_MAX_SIZE = Bytes.megabytes(4);
+
+	/** data smaller than this isn't worth gzipping */
+	private static final int MIN_GZIP_SIZE = 256;
+
+	/** the gzipped data of data which doesn't get smaller when gzipped */
+	private static final byte[] NOT_SMALLER = new byte[0];
+
+	/** the cache or {@code null} if caching is disabled */
+	private final WeightedLruCache<Key, Entry> cache;
+
+	private final boolean gzip;
+
+	/**
+	 * Gets the cache of the application, creating a default one on first access.
+	 *
+	 * @param application
+	 * @return the cache of the application
+	 */
+	public static PackageResourceCache get(final Application application)
+	{
+		PackageResourceCache cache = application.getMetaData(KEY);
+		if (cache == null)
+		{
+			synchronized (application)
+			{
+				cache = application.getMetaData(KEY);
+				if (cache == null)
+				{
+					cache = new PackageResourceCache(DEFAULT_MAX_SIZE, true);
+					application.setMetaData(KEY, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Replaces the cache of the application, e.g. to change its size or to disable it.
+	 *
+	 * @param application
+	 * @param cache
+	 */
+	public static void set(final Application application, final PackageResourceCache cache)
+	{
+		Args.notNull(cache, "cache");
+		application.setMetaData(KEY, cache);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param maxSize
+	 *            the maximum total size of the cached data, nothing is cached if zero
+	 * @param gzip
+	 *            whether to serve gzipped data to the clients accepting it
+	 */
+	public PackageResourceCache(final Bytes maxSize, final boolean gzip)
+	{
+		Args.notNull(maxSize, "maxSize");
+		if (maxSize.bytes() > 0)
+		{
+			cache = new WeightedLruCache<Key, Entry>(maxSize.bytes())
+			{
+				@Override
+				protected int weigh(final Key key, final Entry value)
+				{
+					return value.getSize();
+				}
+			};
+		}
+		else
+		{
+			cache = null;
+		}
+		this.gzip = gzip;
+	}
+
+	/**
+	 * Gets the cached data of a resource
+	 *
+	 * @param resourceClass
+	 *            the class of the resource which processed the data
+	 * @param resourceKey
+	 *            the key of the resource, see {@link PackageResource#getCacheKey()}
+	 * @param lastModified
+	 *            the last modification time of the resource
+	 * @return the cached data or {@code null} if not cached or modified since
+	 */
+	public Entry get(final Class<?> resourceClass, final Serializable resourceKey,
+		final Time lastModified)
+	{
+		if (cache == null)
+		{
+			return null;
+		}
+		return cache.get(new Key(resourceClass, resourceKey, lastModified));
+	}
+
+	/**
+	 * Caches the data of a resource
+	 *
+	 * @param resourceClass
+	 *            the class of the resource which processed the data
+	 * @param resourceKey
+	 *            the key of the resource, see {@link PackageResource#getCacheKey()}
+	 * @param lastModified
+	 *            the last modification time of the resource
+	 * @param data
+	 *            the processed data
+	 * @param contentType
+	 *            the content type of the data, may be {@code null}
+	 * @return the entry of the data, also if the cache is disabled
+	 */
+	public Entry put(final Class<?> resourceClass, final Serializable resourceKey,
+		final Time lastModified, final byte[] data, final String contentType)
+	{
+		Entry entry = newEntry(data, contentType);
+		if (cache != null)
+		{
+			// gzip once before the entry is weighed
+			entry.getGzippedData();
+			cache.put(new Key(resourceClass, resourceKey, lastModified), entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Creates the entry of data which should not be cached. The data is gzipped only when the
+	 * gzipped data is asked for.
+	 *
+	 * @param data
+	 *            the processed data
+	 * @param contentType
+	 *            the content type of the data, may be {@code null}
+	 * @return the entry of the data
+	 */
+	public Entry newEntry(final byte[] data, final String contentType)
+	{
+		return new Entry(data, gzip && data.length >= MIN_GZIP_SIZE &&
+			isCompressible(contentType));
+	}
+
+	/**
+	 * @return the number of cached resources
+	 */
+	public int size()
+	{
+		return cache != null ? cache.size() : 0;
+	}
+
+	/**
+	 * Removes all the cached data
+	 */
+	public void clear()
+	{
+		if (cache != null)
+		{
+			cache.clear();
+		}
+	}
+
+	/**
+	 * @param contentType
+	 * @return whether data of the content type gets smaller when gzipped
+	 */
+	protected boolean isCompressible(final String contentType)
+	{
+		if (contentType == null)
+		{
+			return false;
+		}
+		return contentType.startsWith("text/") || contentType.contains("javascript") ||
+			contentType.contains("json") || contentType.contains("xml");
+	}
+
+	/**
+	 * @param data
+	 * @return the gzipped data or {@link #NOT_SMALLER} if it isn't smaller than the data
+	 */
+	private static byte[] gzip(final byte[] data)
+	{
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3);
+			GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+			gzipOut.write(data);
+			gzipOut.close();
+			byte[] gzipped = out.toByteArray();
+			return gzipped.length < data.length ? gzipped : NOT_SMALLER;
+		}
+		catch (IOException e)
+		{
+			throw new WicketRuntimeException("Unable to gzip resource data", e);
+		}
+	}
+
+	/**
+	 * The processed data of a resource
+	 */
+	public static final class Entry
+	{
+		private final byte[] data;
+
+		private final boolean compressible;
+
+		/** the gzipped data, {@code null} until it is asked for */
+		private volatile byte[] gzippedData;
+
+		private final String etag;
+
+		private Entry(final byte[] data, final boolean compressible)
+		{
+			this.data = data;
+			this.compressible = compressible;
+
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			etag = Long.toHexString(data.length) + "-" + Long.toHexString(crc.getValue());
+		}
+
+		/**
+		 * @return the processed data
+		 */
+		public byte[] getData()
+		{
+			return data;
+		}
+
+		/**
+		 * @return whether the data may be served gzipped, i.e. whether the response varies by the
+		 *         accepted encodings
+		 */
+		public boolean isCompressible()
+		{
+			return compressible;
+		}
+
+		/**
+		 * Gets the gzipped data, gzipping the data on first access.
+		 *
+		 * @return the gzipped processed data or {@code null} if it should not be served gzipped
+		 */
+		public byte[] getGzippedData()
+		{
+			if (compressible == false)
+			{
+				return null;
+			}
+			byte[] gzipped = gzippedData;
+			if (gzipped == null)
+			{
+				// concurrent requests may gzip twice, with the same result
+				gzipped = gzip(data);
+				gzippedData = gzipped;
+			}
+			return gzipped != NOT_SMALLER ? gzipped : null;
+		}
+
+		/**
+		 * @param gzipped
+		 *            whether the gzipped data is served
+		 * @return the strong entity tag of the data, including the quotes
+		 */
+		public String getETag(final boolean gzipped)
+		{
+			return '"' + etag + (gzipped ? "-gzip" : "") + '"';
+		}
+
+		private int getSize()
+		{
+			byte[] gzipped = gzippedData;
+			int size = data.length + (gzipped != null ? gzipped.length : 0);
+			return Math.max(1, size);
+		}
+	}
+
+	private static final class Key
+	{
+		private final String resourceClass;
+
+		private final Serializable resourceKey;
+
+		private final long lastModified;
+
+		private Key(final Class<?> resourceClass, final Serializable resourceKey,
+			final Time lastModified)
+		{
+			this.resourceClass = resourceClass.getName();
+			this.resourceKey = Args.notNull(resourceKey, "resourceKey");
+			this.lastModified = lastModified != null ? lastModified.getMilliseconds() : 0;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof Key == false)
+			{
+				return false;
+			}
+			Key other = (Key)obj;
+			return lastModified == other.lastModified &&
+				resourceClass.equals(other.resourceClass) &&
+				Objects.equal(resourceKey, other.resourceKey);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = resourceClass.hashCode();
+			result = 31 * result + resourceKey.hashCode();
+			result = 31 * result + (int)(lastModified ^ (lastModified >>> 32));
+			return result;
+		}
+	}
+}
@@ -17,18 +17,17 @@
 package org.apache.wicket.request.resource.caching.version;
 
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.Map;
 
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
-import org.apache.wicket.util.collections.MostRecentlyUsedMap;
+import org.apache.wicket.util.collections.WeightedLruCache;
 import org.apache.wicket.util.lang.Args;
 
 /**
  * Caches the results of a delegating {@link IResourceVersion} instance
  * in a member variable. The cache will be valid for the lifetime of 
  * this instance. It will expire the oldest entries if the maximum number 
- * of entries is exceeded.
+ * of entries is exceeded. The lookups don't lock, so concurrent requests
+ * for the versions of different resources don't wait for each other.
  * 
  * @autor Peter Ertl
  * 
@@ -54,7 +53,7 @@ public class CachingResourceVersion implements IResourceVersion
 	/**
 	 * cache for resource versions
 	 */
-	private final Map<Serializable, String> cache;
+	private final WeightedLruCache<Serializable, String> cache;
 
 	/**
 	 * create version cache
@@ -89,8 +88,7 @@ public class CachingResourceVersion implements IResourceVersion
 		}
 
 		this.delegate = Args.notNull(delegate, "delegate");
-		this.cache = Collections.synchronizedMap(
-			new MostRecentlyUsedMap<Serializable, String>(maxEntries));
+		this.cache = new WeightedLruCache<Serializable, String>(maxEntries);
 	}
 
 	public String getVersion(IStaticCacheableResource resource)
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource.caching.version;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.application.IClassResolver;
+import org.apache.wicket.request.resource.PackageResource;
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Looks up the versions of package resources in manifests of precomputed content hashes, so the
+ * resources don't have to be read and hashed at runtime. The manifests are generated at build time
+ * by {@link ResourceVersionManifestGenerator}. Every jar or classes folder may contain its own
+ * manifest at {@value #MANIFEST_NAME}, mapping the resource paths, e.g.
+ * <code>org/apache/wicket/ajax/wicket-ajax.js</code>, to their hashes.
+ * <p>
+ * The manifests are loaded once, the lookups don't lock. The versions of the resources not in a
+ * manifest are provided by a fallback, e.g. a {@link MessageDigestResourceVersion}. Each lookup
+ * locates the resource stream to find the path of the located resource, so wrap it in a
+ * {@link CachingResourceVersion} to cache the versions of both the manifest and the fallback.
+ *
+ * @since 1.5
+ */
+public class ManifestResourceVersion implements IResourceVersion
+{
+	/** the location of the manifests in the class path */
+	public static final String MANIFEST_NAME = "META-INF/wicket/resource-versions.properties";
+
+	/**
+	 * resource path => version, immutable
+	 */
+	private final Map<String, String> versions;
+
+	/**
+	 * resource version provider for the resources not in a manifest
+	 */
+	private final IResourceVersion fallback;
+
+	/**
+	 * create a version provider with the manifests found by a class resolver
+	 *
+	 * @param classResolver
+	 *            the class resolver to find the manifests with
+	 * @param fallback
+	 *            resource version provider for the resources not in a manifest
+	 */
+	public ManifestResourceVersion(IClassResolver classResolver, IResourceVersion fallback)
+	{
+		this(loadManifests(classResolver.getResources(MANIFEST_NAME)), fallback);
+	}
+
+	/**
+	 * create a version provider with the given versions
+	 *
+	 * @param versions
+	 *            resource path => version
+	 * @param fallback
+	 *            resource version provider for the resources not in a manifest
+	 */
+	public ManifestResourceVersion(Map<String, String> versions, IResourceVersion fallback)
+	{
+		Args.notNull(versions, "versions");
+		this.versions = Collections.unmodifiableMap(new HashMap<String, String>(versions));
+		this.fallback = Args.notNull(fallback, "fallback");
+	}
+
+	public String getVersion(IStaticCacheableResource resource)
+	{
+		if (!versions.isEmpty() && (resource instanceof PackageResource))
+		{
+			IResourceStream stream = resource.getCacheableResourceStream();
+
+			// if resource stream can not be found do not cache
+			if (stream == null)
+			{
+				return null;
+			}
+
+			String version = versions.get(getPath(((PackageResource)resource).getAbsolutePath(),
+				stream.getLocale(), stream.getStyle(), stream.getVariation()));
+			if (version != null)
+			{
+				return version;
+			}
+		}
+		return fallback.getVersion(resource);
+	}
+
+	/**
+	 * @return the number of resources in the manifests
+	 */
+	public int size()
+	{
+		return versions.size();
+	}
+
+	/**
+	 * Gets the path of a located resource, which is made of the path of the package resource and
+	 * the variation, style and locale of the located resource, e.g.
+	 * <code>org/apache/wicket/resource_var_style_en.txt</code>
+	 *
+	 * @param absolutePath
+	 *            the path of the package resource
+	 * @param locale
+	 * @param style
+	 * @param variation
+	 * @return the path of the resource
+	 */
+	static String getPath(String absolutePath, Locale locale, String style, String variation)
+	{
+		String path = absolutePath.startsWith("/") ? absolutePath.substring(1) : absolutePath;
+		if ((locale == null) && (style == null) && (variation == null))
+		{
+			return path;
+		}
+
+		String extension = null;
+		int dot = path.lastIndexOf('.');
+		if (dot > path.lastIndexOf('/'))
+		{
+			extension = path.substring(dot);
+			path = path.substring(0, dot);
+		}
+
+		StringBuilder builder = new StringBuilder(path);
+		if (variation != null)
+		{
+			builder.append('_').append(variation);
+		}
+		if (style != null)
+		{
+			builder.append('_').append(style);
+		}
+		if (locale != null)
+		{
+			builder.append('_').append(locale);
+		}
+		if (extension != null)
+		{
+			builder.append(extension);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * load and merge manifests
+	 *
+	 * @param manifests
+	 *            the urls of the manifests
+	 * @return resource path => version
+	 */
+	public static Map<String, String> loadManifests(Iterator<URL> manifests)
+	{
+		Map<String, String> versions = new HashMap<String, String>();
+		while (manifests.hasNext())
+		{
+			URL url = manifests.next();
+			Properties properties = new Properties();
+			InputStream in = null;
+			try
+			{
+				in = url.openStream();
+				properties.load(in);
+			}
+			catch (IOException e)
+			{
+				throw new WicketRuntimeException("Unable to load resource versions from " + url, e);
+			}
+			finally
+			{
+				IOUtils.closeQuietly(in);
+			}
+
+			for (Map.Entry<Object, Object> entry : properties.entrySet())
+			{
+				String version = (String)entry.getValue();
+				if (!Strings.isEmpty(version))
+				{
+					versions.put((String)entry.getKey(), version);
+				}
+			}
+		}
+		return versions;
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource.caching.version;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Generates the manifest of the content hashes of the resources in a classes folder or a jar,
+ * which is used by {@link ManifestResourceVersion}. The hashes are computed just like by
+ * {@link MessageDigestResourceVersion}.
+ * <p>
+ * The generator is meant to be run at build time, after the resources have been copied, e.g. with
+ * the exec-maven-plugin in the <code>process-classes</code> phase:
+ *
+ * <pre>
+ * java org.apache.wicket.request.resource.caching.version.ResourceVersionManifestGenerator \
+ *   target/classes/META-INF/wicket/resource-versions.properties target/classes
+ * </pre>
+ *
+ * @since 1.5
+ */
+public class ResourceVersionManifestGenerator
+{
+	private final MessageDigestResourceVersion digest;
+
+	/**
+	 * create a generator using the default algorithm of {@link MessageDigestResourceVersion}
+	 */
+	public ResourceVersionManifestGenerator()
+	{
+		this(new MessageDigestResourceVersion());
+	}
+
+	/**
+	 * create a generator
+	 *
+	 * @param digest
+	 *            the resource version provider computing the hashes
+	 */
+	public ResourceVersionManifestGenerator(MessageDigestResourceVersion digest)
+	{
+		this.digest = Args.notNull(digest, "digest");
+	}
+
+	/**
+	 * compute the hashes of the resources in a classes folder or a jar. Classes and the manifest
+	 * itself are skipped.
+	 *
+	 * @param root
+	 *            classes folder or jar
+	 * @return resource path => hash, sorted by path
+	 * @throws IOException
+	 */
+	public SortedMap<String, String> scan(File root) throws IOException
+	{
+		SortedMap<String, String> versions = new TreeMap<String, String>();
+		if (root.isDirectory())
+		{
+			scanDirectory(root, "", versions);
+		}
+		else
+		{
+			scanArchive(root, versions);
+		}
+		return versions;
+	}
+
+	private void scanDirectory(File directory, String path, Map<String, String> versions)
+		throws IOException
+	{
+		File[] files = directory.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+		for (File file : files)
+		{
+			String filePath = path + file.getName();
+			if (file.isDirectory())
+			{
+				scanDirectory(file, filePath + "/", versions);
+			}
+			else if (isResource(filePath))
+			{
+				InputStream in = new FileInputStream(file);
+				try
+				{
+					versions.put(filePath, Strings.toHexString(digest.computeDigest(in)));
+				}
+				finally
+				{
+					IOUtils.close(in);
+				}
+			}
+		}
+	}
+
+	private void scanArchive(File archive, Map<String, String> versions) throws IOException
+	{
+		ZipFile zip = new ZipFile(archive);
+		try
+		{
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements())
+			{
+				ZipEntry entry = entries.nextElement();
+				if (!entry.isDirectory() && isResource(entry.getName()))
+				{
+					InputStream in = zip.getInputStream(entry);
+					try
+					{
+						versions.put(entry.getName(),
+							Strings.toHexString(digest.computeDigest(in)));
+					}
+					finally
+					{
+						IOUtils.close(in);
+					}
+				}
+			}
+		}
+		finally
+		{
+			zip.close();
+		}
+	}
+
+	/**
+	 * @param path
+	 * @return whether the file at the path is a resource to compute the hash of
+	 */
+	protected boolean isResource(String path)
+	{
+		return !path.endsWith(".class") && !path.equals(ManifestResourceVersion.MANIFEST_NAME);
+	}
+
+	/**
+	 * write a manifest in properties format, without a time stamp so the manifest only changes
+	 * when the resources do
+	 *
+	 * @param versions
+	 *            resource path => hash
+	 * @param manifest
+	 *            the file to write to
+	 * @throws IOException
+	 */
+	public void write(SortedMap<String, String> versions, File manifest) throws IOException
+	{
+		File parent = manifest.getParentFile();
+		if ((parent != null) && !parent.isDirectory() && !parent.mkdirs())
+		{
+			throw new IOException("Unable to create directory " + parent);
+		}
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(manifest), "ISO-8859-1");
+		try
+		{
+			writer.write("# generated by " + getClass().getName() + "\n");
+			for (Map.Entry<String, String> entry : versions.entrySet())
+			{
+				writer.write(escape(entry.getKey()));
+				writer.write('=');
+				writer.write(entry.getValue());
+				writer.write('\n');
+			}
+		}
+		finally
+		{
+			IOUtils.close(writer);
+		}
+	}
+
+	/**
+	 * @param key
+	 * @return the key escaped as required by {@link java.util.Properties#load(InputStream)}
+	 */
+	private static String escape(String key)
+	{
+		StringBuilder builder = new StringBuilder(key.length());
+		for (int i = 0; i < key.length(); i++)
+		{
+			char c = key.charAt(i);
+			if ((c == '\\') || (c == ' ') || (c == ':') || (c == '=') || (c == '#') || (c == '!'))
+			{
+				builder.append('\\').append(c);
+			}
+			else if ((c < 0x20) || (c > 0x7e))
+			{
+				String hex = Integer.toHexString(c);
+				builder.append("\\u");
+				for (int j = hex.length(); j < 4; j++)
+				{
+					builder.append('0');
+				}
+				builder.append(hex);
+			}
+			else
+			{
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * generate a manifest
+	 *
+	 * @param args
+	 *            the manifest file, followed by the classes folders and jars to scan
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2)
+		{
+			System.err.println("Usage: " + ResourceVersionManifestGenerator.class.getName() +
+				" <manifest file> <classes folder or jar>...");
+			System.exit(1);
+		}
+
+		ResourceVersionManifestGenerator generator = new ResourceVersionManifestGenerator();
+		SortedMap<String, String> versions = new TreeMap<String, String>();
+		for (int i = 1; i < args.length; i++)
+		{
+			versions.putAll(generator.scan(new File(args[i])));
+		}
+		generator.write(versions, new File(args[0]));
+	}
+}
@@ -266,7 +266,13 @@ public class PropertiesFactory implements IPropertiesFactory
 
 				// Clear the whole cache as associated localized files may
 				// be affected and may need reloading as well.
-				clearCache();
+				if (propertiesCache != null)
+				{
+					propertiesCache.clear();
+				}
+
+				// The localizer only needs to forget the strings of the locale of the file
+				context.getLocalizer().propertiesChanged(path);
 
 				// Inform all listeners
 				for (IPropertiesChangeListener listener : afterReloadListeners)
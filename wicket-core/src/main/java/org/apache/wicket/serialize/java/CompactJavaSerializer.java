@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.wicket.util.collections.ClassMetaCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link JavaSerializer} which doesn't write the class descriptors in the serialized data.
+ * <p>
+ * Java serialization writes the full descriptor (name, serialVersionUID and the name and type of
+ * each field) of every class the first time it appears in a stream. Since each page is serialized
+ * in its own stream these descriptors make a big part of every stored page. This serializer keeps
+ * an application wide dictionary of the descriptors and writes only their index in it.
+ * <p>
+ * It makes the stored pages smaller, not faster to store: serializing and deserializing take about
+ * as long as with the {@link JavaSerializer}, so use it where the size of the stored pages matters.
+ * <p>
+ * The dictionary lives in the memory of this serializer, so the data can be read only by the same
+ * serializer instance. Data written by another instance (e.g. before a restart or by another node
+ * in a cluster) is detected and deserialized as {@code null}, i.e. the page is considered expired.
+ * Do not use it with replicated sessions or with {@link org.apache.wicket.pageStore.IDataStore}s
+ * which are expected to keep the pages across restarts.
+ */
+public class CompactJavaSerializer extends JavaSerializer
+{
+	private static final Logger log = LoggerFactory.getLogger(CompactJavaSerializer.class);
+
+	/** the dictionary of the class descriptors */
+	private final ClassDictionary dictionary = new ClassDictionary();
+
+	/**
+	 * Construct.
+	 *
+	 * @param applicationKey
+	 */
+	public CompactJavaSerializer(final String applicationKey)
+	{
+		super(applicationKey);
+	}
+
+	@Override
+	public Object deserialize(final byte[] data)
+	{
+		if (dictionary.isWrittenBy(data) == false)
+		{
+			log.warn("The data has been serialized by another instance of CompactJavaSerializer and cannot be read.");
+			return null;
+		}
+		return super.deserialize(data);
+	}
+
+	@Override
+	protected ObjectInputStream newObjectInputStream(final InputStream in) throws IOException
+	{
+		DataInputStream dataIn = new DataInputStream(in);
+		if (dataIn.readLong() != dictionary.id)
+		{
+			throw new StreamCorruptedException(
+				"The data has been written with another class dictionary");
+		}
+		return new DictionaryObjectInputStream(in, dictionary);
+	}
+
+	@Override
+	protected ObjectOutputStream newObjectOutputStream(final OutputStream out) throws IOException
+	{
+		new DataOutputStream(out).writeLong(dictionary.id);
+		return new DictionaryObjectOutputStream(out, dictionary);
+	}
+
+	/**
+	 * The application wide dictionary of the serialized classes. The classes are only added so an
+	 * index never changes its meaning.
+	 * <p>
+	 * The indices are kept per class loader and class name, not per descriptor, since
+	 * {@link ObjectStreamClass#lookup(Class)} creates new descriptors once the old ones have been
+	 * garbage collected. The dictionary references the classes weakly, so it doesn't keep them
+	 * or their class loader from being garbage collected after a redeployment, the data of such
+	 * classes can't be read anymore.
+	 */
+	private static class ClassDictionary
+	{
+		/** identifies the dictionary in the streams */
+		private final long id = new Random().nextLong();
+
+		private final ClassMetaCache<Integer> indices = new ClassMetaCache<Integer>();
+
+		/** guarded by this */
+		private final List<Entry> entries = new ArrayList<Entry>();
+
+		/** the entries as seen by the readers, replaced on each addition */
+		private volatile Entry[] snapshot = new Entry[0];
+
+		private int indexOf(final ObjectStreamClass descriptor)
+		{
+			Class<?> clazz = descriptor.forClass();
+			Integer index = indices.get(clazz);
+			if (index == null)
+			{
+				synchronized (this)
+				{
+					index = indices.get(clazz);
+					if (index == null)
+					{
+						index = entries.size();
+						entries.add(new Entry(clazz));
+						snapshot = entries.toArray(new Entry[entries.size()]);
+						indices.put(clazz, index);
+					}
+				}
+			}
+			return index;
+		}
+
+		private ObjectStreamClass get(final int index) throws InvalidClassException
+		{
+			Entry[] entries = snapshot;
+			if (index < 0 || index >= entries.length)
+			{
+				throw new InvalidClassException("Unknown class descriptor index: " + index);
+			}
+			return entries[index].getDescriptor();
+		}
+
+		/**
+		 * @param data
+		 * @return {@code true} if the data has been written with this dictionary
+		 */
+		private boolean isWrittenBy(final byte[] data)
+		{
+			if (data == null || data.length < 8)
+			{
+				return false;
+			}
+			long streamId = 0;
+			for (int i = 0; i < 8; i++)
+			{
+				streamId = (streamId << 8) | (data[i] & 0xFF);
+			}
+			return streamId == id;
+		}
+	}
+
+	/**
+	 * Writes the index of the class descriptors in the dictionary instead of the descriptors. The
+	 * id of the dictionary is written before the stream.
+	 */
+	private static class DictionaryObjectOutputStream extends CheckerObjectOutputStream
+	{
+		private final ClassDictionary dictionary;
+
+		private DictionaryObjectOutputStream(final OutputStream out,
+			final ClassDictionary dictionary) throws IOException
+		{
+			super(out);
+			this.dictionary = dictionary;
+		}
+
+		@Override
+		protected void writeClassDescriptor(final ObjectStreamClass desc) throws IOException
+		{
+			writeInt(dictionary.indexOf(desc));
+		}
+	}
+
+	/**
+	 * Reads the class descriptors from the dictionary
+	 */
+	private static class DictionaryObjectInputStream extends ClassResolverObjectInputStream
+	{
+		private final ClassDictionary dictionary;
+
+		private DictionaryObjectInputStream(final InputStream in, final ClassDictionary dictionary)
+			throws IOException
+		{
+			super(in);
+			this.dictionary = dictionary;
+		}
+
+		@Override
+		protected ObjectStreamClass readClassDescriptor() throws IOException,
+			ClassNotFoundException
+		{
+			return dictionary.get(readInt());
+		}
+
+		/**
+		 * The descriptors of the dictionary are those of the local classes, so the classes don't
+		 * have to be loaded by their name again.
+		 */
+		@Override
+		protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException,
+			ClassNotFoundException
+		{
+			Class<?> clazz = desc.forClass();
+			return clazz != null ? clazz : super.resolveClass(desc);
+		}
+	}
+
+	/**
+	 * A class of the dictionary
+	 */
+	private static final class Entry
+	{
+		private final String name;
+
+		private final WeakReference<Class<?>> clazz;
+
+		private Entry(final Class<?> clazz)
+		{
+			name = clazz.getName();
+			this.clazz = new WeakReference<Class<?>>(clazz);
+		}
+
+		/**
+		 * @return the descriptor of the class
+		 * @throws InvalidClassException
+		 *             if the class has been garbage collected
+		 */
+		private ObjectStreamClass getDescriptor() throws InvalidClassException
+		{
+			Class<?> clazz = this.clazz.get();
+			if (clazz == null)
+			{
+				throw new InvalidClassException(name, "The class has been unloaded");
+			}
+			return ObjectStreamClass.lookupAny(clazz);
+		}
+	}
+}
@@ -49,6 +49,19 @@ import org.slf4j.LoggerFactory;
 public class JavaSerializer implements ISerializer
 {
 	private static final Logger log = LoggerFactory.getLogger(JavaSerializer.class);
+
+	/**
+	 * Buffers bigger than this are not kept for reuse after serialization
+	 */
+	private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * A buffer per thread which is reused for each serialization. It is taken out while in use so a
+	 * nested serialization in the same thread gets a new one. Only a plain byte array is kept so
+	 * the container's threads do not hold a reference to the application's class loader.
+	 */
+	private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>();
+
 	/**
 	 * The key of the application which can be used later to find the proper {@link IClassResolver}
 	 */
@@ -66,9 +79,10 @@ public class JavaSerializer implements ISerializer
 
 	public byte[] serialize(final Object object)
 	{
+		final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream(BUFFER.get());
+		BUFFER.set(null);
 		try
 		{
-			final ByteArrayOutputStream out = new ByteArrayOutputStream();
 			ObjectOutputStream oos = null;
 			try
 			{
@@ -94,6 +108,10 @@ public class JavaSerializer implements ISerializer
 			log.error("Error serializing object " + object.getClass() + " [object=" + object + "]",
 				e);
 		}
+		finally
+		{
+			BUFFER.set(out.release());
+		}
 		return null;
 	}
 
@@ -175,8 +193,14 @@ public class JavaSerializer implements ISerializer
 	/**
 	 * Extend {@link ObjectInputStream} to add framework class resolution logic.
 	 */
-	private static class ClassResolverObjectInputStream extends ObjectInputStream
+	protected static class ClassResolverObjectInputStream extends ObjectInputStream
 	{
+		/**
+		 * Construct.
+		 * 
+		 * @param in
+		 * @throws IOException
+		 */
 		public ClassResolverObjectInputStream(InputStream in) throws IOException
 		{
 			super(in);
@@ -231,8 +255,14 @@ public class JavaSerializer implements ISerializer
 	 * Write objects to the wrapped output stream and log a meaningful message for serialization
 	 * problems
 	 */
-	private static class CheckerObjectOutputStream extends ObjectOutputStream
+	protected static class CheckerObjectOutputStream extends ObjectOutputStream
 	{
+		/**
+		 * Construct.
+		 * 
+		 * @param out
+		 * @throws IOException
+		 */
 		public CheckerObjectOutputStream(OutputStream out) throws IOException
 		{
 			super(out);
@@ -277,4 +307,25 @@ public class JavaSerializer implements ISerializer
 			super.close();
 		}
 	}
+
+	/**
+	 * A {@link ByteArrayOutputStream} which writes in a given buffer so the buffer can be reused by
+	 * the next serialization
+	 */
+	private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream
+	{
+		private ReusableByteArrayOutputStream(final byte[] buffer)
+		{
+			super(0);
+			buf = buffer != null ? buffer : new byte[4096];
+		}
+
+		/**
+		 * @return the internal buffer if it is small enough to be reused, otherwise {@code null}
+		 */
+		private byte[] release()
+		{
+			return buf.length > MAX_POOLED_BUFFER_SIZE ? null : buf;
+		}
+	}
 }
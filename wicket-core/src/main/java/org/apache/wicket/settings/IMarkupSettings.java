@@ -16,6 +16,7 @@
  */
 package org.apache.wicket.settings;
 
+import org.apache.wicket.markup.MarkupCache;
 import org.apache.wicket.markup.MarkupFactory;
 
 /**
@@ -169,4 +170,22 @@ public interface IMarkupSettings
 	 * @param factory
 	 */
 	void setMarkupFactory(MarkupFactory factory);
+
+	/**
+	 * @return the maximum weight of each of the caches of the {@link MarkupCache}
+	 * @see IMarkupSettings#setMarkupCacheMaxWeight(long)
+	 */
+	long getMarkupCacheMaxWeight();
+
+	/**
+	 * Bounds the memory used by the {@link MarkupCache}. The weight of a cached markup is the
+	 * number of its markup elements. When the limit is exceeded the least recently used markup is
+	 * removed from the cache and loaded again when needed. A value of 0 or less disables the
+	 * limit, which is the default.
+	 * 
+	 * @param maxWeight
+	 *            the maximum weight of each of the caches of the {@link MarkupCache}
+	 * @see MarkupCache.WeightedCacheImplementation
+	 */
+	void setMarkupCacheMaxWeight(long maxWeight);
 }
@@ -100,6 +100,23 @@ public interface IStoreSettings
 	 */
 	void setAsynchronousQueueCapacity(int capacity);
 
+	/**
+	 * @return the number of threads used to store the pages asynchronously
+	 * @see AsynchronousDataStore
+	 */
+	int getAsynchronousWriterCount();
+
+	/**
+	 * Sets the number of threads used to store the pages asynchronously. The pages of a session are
+	 * always stored by the same thread. More than one thread should be used only if the configured
+	 * {@link IDataStore} can be written concurrently.
+	 * 
+	 * @param writerCount
+	 *            the number of writer threads
+	 * @see AsynchronousDataStore
+	 */
+	void setAsynchronousWriterCount(int writerCount);
+
 	/**
 	 * Sets a flag whether to wrap the configured {@link IDataStore} with
 	 * {@link AsynchronousDataStore}. By doing this the HTTP worker thread will not wait for the
@@ -61,6 +61,9 @@ public class MarkupSettings implements IMarkupSettings
 	 */
 	private boolean stripWicketTags = false;
 
+	/** The maximum weight of each of the caches of the markup cache, unbounded if 0 or less */
+	private long markupCacheMaxWeight = 0;
+
 	/**
 	 * Construct
 	 */
@@ -120,6 +123,14 @@ public class MarkupSettings implements IMarkupSettings
 		return markupFactory;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IMarkupSettings#getMarkupCacheMaxWeight()
+	 */
+	public long getMarkupCacheMaxWeight()
+	{
+		return markupCacheMaxWeight;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IMarkupSettings#getStripComments()
 	 */
@@ -193,6 +204,14 @@ public class MarkupSettings implements IMarkupSettings
 		markupFactory = factory;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IMarkupSettings#setMarkupCacheMaxWeight(long)
+	 */
+	public void setMarkupCacheMaxWeight(final long maxWeight)
+	{
+		markupCacheMaxWeight = maxWeight;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IMarkupSettings#setStripComments(boolean)
 	 */
@@ -33,6 +33,7 @@ import org.apache.wicket.request.resource.caching.NoOpResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.version.CachingResourceVersion;
 import org.apache.wicket.request.resource.caching.version.IResourceVersion;
 import org.apache.wicket.request.resource.caching.version.LastModifiedResourceVersion;
+import org.apache.wicket.request.resource.caching.version.ManifestResourceVersion;
 import org.apache.wicket.request.resource.caching.version.MessageDigestResourceVersion;
 import org.apache.wicket.request.resource.caching.version.RequestCycleCachedResourceVersion;
 import org.apache.wicket.resource.PropertiesFactory;
@@ -453,9 +454,12 @@ public class ResourceSettings implements IResourceSettings
 			else
 			{
 				// deployment mode:
+				// use the content hashes precomputed at build time, if any, or else
 				// use message digest over resource content for resource caching
 				// cache the version information for the lifetime of the application
-				resourceVersion = new CachingResourceVersion(new MessageDigestResourceVersion());
+				resourceVersion = new CachingResourceVersion(new ManifestResourceVersion(
+					application.getApplicationSettings().getClassResolver(),
+					new MessageDigestResourceVersion()));
 			}
 			// cache resource with a version string in the filename
 			resourceCachingStrategy = new FilenameWithVersionResourceCachingStrategy(
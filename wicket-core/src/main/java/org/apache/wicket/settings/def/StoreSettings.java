@@ -37,6 +37,8 @@ public class StoreSettings implements IStoreSettings
 
 	private static final int DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY = 100;
 
+	private static final int DEFAULT_ASYNCHRONOUS_WRITER_COUNT = 1;
+
 	private int inmemoryCacheSize = DEFAULT_CACHE_SIZE;
 
 	private Bytes maxSizePerSession = DEFAULT_MAX_SIZE_PER_SESSION;
@@ -45,6 +47,8 @@ public class StoreSettings implements IStoreSettings
 
 	private int asynchronousQueueCapacity = DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY;
 
+	private int asynchronousWriterCount = DEFAULT_ASYNCHRONOUS_WRITER_COUNT;
+
 	private boolean isAsynchronous = true;
 
 	/**
@@ -123,6 +127,21 @@ public class StoreSettings implements IStoreSettings
 		asynchronousQueueCapacity = queueCapacity;
 	}
 
+	public int getAsynchronousWriterCount()
+	{
+		return asynchronousWriterCount;
+	}
+
+	public void setAsynchronousWriterCount(int writerCount)
+	{
+		if (writerCount < 1)
+		{
+			throw new IllegalArgumentException(
+				"The number of asynchronous writer threads should be at least 1.");
+		}
+		asynchronousWriterCount = writerCount;
+	}
+
 	public void setAsynchronous(boolean async)
 	{
 		isAsynchronous = async;
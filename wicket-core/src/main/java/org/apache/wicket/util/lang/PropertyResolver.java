@@ -20,6 +20,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -27,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.wicket.Application;
 import org.apache.wicket.Session;
 import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.util.collections.ClassMetaCache;
 import org.apache.wicket.util.convert.ConversionException;
 import org.apache.wicket.util.lang.PropertyResolver.IClassCache;
 import org.apache.wicket.util.string.Strings;
@@ -247,6 +249,10 @@ public final class PropertyResolver
 	/**
 	 * Receives the class parameter also, since this method can resolve the type for some
 	 * expression, only knowing the target class
+	 * <p>
+	 * The expression is parsed only once. When the default {@link IClassCache} is used, the getters
+	 * and setters found for the expression are remembered for the class, so the next evaluation
+	 * doesn't have to look them up again as long as the properties have the same classes.
 	 * 
 	 * @param expression
 	 * @param object
@@ -255,91 +261,111 @@ public final class PropertyResolver
 	 * @return {@link ObjectAndGetSetter}
 	 */
 	private static ObjectAndGetSetter getObjectAndGetSetter(final String expression,
-		final Object object, final int tryToCreateNull, Class<?> clz)
+		final Object object, final int tryToCreateNull, final Class<?> clz)
 	{
-		String expressionBracketsSeperated = Strings.replaceAll(expression, "[", ".[").toString();
-		int index = getNextDotIndex(expressionBracketsSeperated, 0);
-		while (index == 0 && expressionBracketsSeperated.startsWith("."))
-		{
-			// eat dots at the beginning of the expression since they will confuse
-			// later steps
-			expressionBracketsSeperated = expressionBracketsSeperated.substring(1);
-			index = getNextDotIndex(expressionBracketsSeperated, 0);
-		}
-		int lastIndex = 0;
-		Object value = object;
-		String exp = expressionBracketsSeperated;
+		IClassCache classCache = getClassesToGetAndSetters();
+		DefaultClassCache defaultClassCache = null;
+		if (classCache instanceof DefaultClassCache)
+		{
+			defaultClassCache = (DefaultClassCache)classCache;
+			ResolvedExpression resolved = defaultClassCache.getResolvedExpression(clz, expression);
+			if (resolved != null)
+			{
+				return resolved.getObjectAndGetSetter(object, tryToCreateNull, clz);
+			}
+		}
+
+		ParsedExpression parsed = ParsedExpression.get(expression);
+		List<ResolvedStep> steps = null;
+		if (defaultClassCache != null)
+		{
+			steps = new ArrayList<ResolvedStep>();
+		}
+		ObjectAndGetSetter result = getObjectAndGetSetter(parsed, 0, new Cursor(object, clz),
+			tryToCreateNull, steps);
+		if (result != null && defaultClassCache != null)
+		{
+			defaultClassCache.putResolvedExpression(clz, expression, new ResolvedExpression(
+				parsed, steps));
+		}
+		return result;
+	}
+
+	/**
+	 * Evaluates the expression starting at the given position.
+	 * 
+	 * @param parsed
+	 *            the parsed expression
+	 * @param lastIndex
+	 *            the position in the expression where to start
+	 * @param cursor
+	 *            the current object and class
+	 * @param tryToCreateNull
+	 * @param steps
+	 *            if not null the getters and setters used to evaluate the expression are added to
+	 *            it
+	 * @return {@link ObjectAndGetSetter}
+	 */
+	private static ObjectAndGetSetter getObjectAndGetSetter(final ParsedExpression parsed,
+		int lastIndex, final Cursor cursor, final int tryToCreateNull,
+		final List<ResolvedStep> steps)
+	{
+		final String expression = parsed.expression;
+		int index = parsed.getNextDotIndex(lastIndex);
+		String exp = expression.substring(lastIndex);
 		while (index != -1)
 		{
-			exp = expressionBracketsSeperated.substring(lastIndex, index);
+			exp = expression.substring(lastIndex, index);
 			if (exp.length() == 0)
 			{
-				exp = expressionBracketsSeperated.substring(index + 1);
+				exp = expression.substring(index + 1);
 				break;
 			}
 
 			IGetAndSet getAndSetter = null;
 			try
 			{
-				getAndSetter = getGetAndSetter(exp, clz);
+				getAndSetter = getGetAndSetter(exp, cursor.clz);
 			}
 			catch (WicketRuntimeException ex)
 			{
 				// expression by it self can't be found. try to find a
 				// setPropertyByIndex(int,value) method
-				index = getNextDotIndex(expressionBracketsSeperated, index + 1);
+				index = parsed.getNextDotIndex(index + 1);
 				if (index != -1)
 				{
-					String indexExpression = expressionBracketsSeperated.substring(lastIndex, index);
-					getAndSetter = getGetAndSetter(indexExpression, clz);
+					String indexExpression = expression.substring(lastIndex, index);
+					getAndSetter = getGetAndSetter(indexExpression, cursor.clz);
 				}
 				else
 				{
-					exp = expressionBracketsSeperated.substring(lastIndex);
+					exp = expression.substring(lastIndex);
 					break;
 				}
 			}
-			Object newValue = null;
-			if (value != null)
-			{
-				newValue = getAndSetter.getValue(value);
-			}
-			if (newValue == null)
+			if (steps != null)
 			{
-				if (tryToCreateNull == CREATE_NEW_VALUE)
-				{
-					newValue = getAndSetter.newValue(value);
-					if (newValue == null)
-					{
-						return null;
-					}
-				}
-				else if (tryToCreateNull == RESOLVE_CLASS)
-				{
-					clz = getAndSetter.getTargetClass();
-				}
-				else
-				{
-					return null;
-				}
+				steps.add(new ResolvedStep(cursor.clz, getAndSetter, lastIndex, exp));
 			}
-			value = newValue;
-			if (value != null)
+			if (cursor.next(getAndSetter, tryToCreateNull) == false)
 			{
-				// value can be null if we are in the RESOLVE_CLASS
-				clz = value.getClass();
+				return null;
 			}
 
 			lastIndex = index + 1;
-			index = getNextDotIndex(expressionBracketsSeperated, lastIndex);
+			index = parsed.getNextDotIndex(lastIndex);
 			if (index == -1)
 			{
-				exp = expressionBracketsSeperated.substring(lastIndex);
+				exp = expression.substring(lastIndex);
 				break;
 			}
 		}
-		IGetAndSet getAndSetter = getGetAndSetter(exp, clz);
-		return new ObjectAndGetSetter(getAndSetter, value);
+		IGetAndSet getAndSetter = getGetAndSetter(exp, cursor.clz);
+		if (steps != null)
+		{
+			steps.add(new ResolvedStep(cursor.clz, getAndSetter, lastIndex, exp));
+		}
+		return new ObjectAndGetSetter(getAndSetter, cursor.value);
 	}
 
 	/**
@@ -613,6 +639,213 @@ public final class PropertyResolver
 	{
 	}
 
+	/**
+	 * An expression with the brackets turned into dots and the positions of the dots separating
+	 * the properties.
+	 */
+	private static final class ParsedExpression
+	{
+		/** the number of expressions kept parsed */
+		private static final int MAX_CACHED_EXPRESSIONS = 2000;
+
+		private static final ConcurrentHashMap<String, ParsedExpression> cache = Generics.newConcurrentHashMap(64);
+
+		private final String expression;
+
+		private final int[] dots;
+
+		private ParsedExpression(final String expression)
+		{
+			String expressionBracketsSeperated = Strings.replaceAll(expression, "[", ".[")
+				.toString();
+			int index = PropertyResolver.getNextDotIndex(expressionBracketsSeperated, 0);
+			while (index == 0 && expressionBracketsSeperated.startsWith("."))
+			{
+				// eat dots at the beginning of the expression since they will confuse
+				// later steps
+				expressionBracketsSeperated = expressionBracketsSeperated.substring(1);
+				index = PropertyResolver.getNextDotIndex(expressionBracketsSeperated, 0);
+			}
+			this.expression = expressionBracketsSeperated;
+
+			List<Integer> positions = new ArrayList<Integer>();
+			while (index != -1)
+			{
+				positions.add(index);
+				index = PropertyResolver.getNextDotIndex(expressionBracketsSeperated, index + 1);
+			}
+			dots = new int[positions.size()];
+			for (int i = 0; i < dots.length; i++)
+			{
+				dots[i] = positions.get(i);
+			}
+		}
+
+		/**
+		 * @param expression
+		 * @return the parsed expression
+		 */
+		private static ParsedExpression get(final String expression)
+		{
+			ParsedExpression parsed = cache.get(expression);
+			if (parsed == null)
+			{
+				parsed = new ParsedExpression(expression);
+				if (cache.size() < MAX_CACHED_EXPRESSIONS)
+				{
+					cache.put(expression, parsed);
+				}
+			}
+			return parsed;
+		}
+
+		/**
+		 * @param start
+		 * @return the position of the next dot separating two properties or -1
+		 */
+		private int getNextDotIndex(final int start)
+		{
+			for (int dot : dots)
+			{
+				if (dot >= start)
+				{
+					return dot;
+				}
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * The object reached while evaluating an expression and its class. The class is the target
+	 * class of the last property if the object is null and the class is being resolved.
+	 */
+	private static final class Cursor
+	{
+		private Object value;
+
+		private Class<?> clz;
+
+		private Cursor(final Object value, final Class<?> clz)
+		{
+			this.value = value;
+			this.clz = clz;
+		}
+
+		/**
+		 * Moves to the value of the property.
+		 * 
+		 * @param getAndSetter
+		 *            the property
+		 * @param tryToCreateNull
+		 * @return false if the evaluation has to stop because the value is null
+		 */
+		private boolean next(final IGetAndSet getAndSetter, final int tryToCreateNull)
+		{
+			Object newValue = null;
+			if (value != null)
+			{
+				newValue = getAndSetter.getValue(value);
+			}
+			if (newValue == null)
+			{
+				if (tryToCreateNull == CREATE_NEW_VALUE)
+				{
+					newValue = getAndSetter.newValue(value);
+					if (newValue == null)
+					{
+						return false;
+					}
+				}
+				else if (tryToCreateNull == RESOLVE_CLASS)
+				{
+					clz = getAndSetter.getTargetClass();
+				}
+				else
+				{
+					return false;
+				}
+			}
+			value = newValue;
+			if (value != null)
+			{
+				// value can be null if we are in the RESOLVE_CLASS
+				clz = value.getClass();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * A property of an expression resolved for a class.
+	 */
+	private static final class ResolvedStep
+	{
+		private final Class<?> clz;
+
+		private final IGetAndSet getAndSetter;
+
+		/** the position of the property in the parsed expression */
+		private final int start;
+
+		private final String expression;
+
+		private ResolvedStep(final Class<?> clz, final IGetAndSet getAndSetter, final int start,
+			final String expression)
+		{
+			this.clz = clz;
+			this.getAndSetter = getAndSetter;
+			this.start = start;
+			this.expression = expression;
+		}
+	}
+
+	/**
+	 * The getters and setters used the last time an expression has been evaluated on an object of
+	 * a class. They are used again as long as the properties have the same classes, otherwise the
+	 * rest of the expression is resolved again.
+	 */
+	private static final class ResolvedExpression
+	{
+		private final ParsedExpression parsed;
+
+		private final ResolvedStep[] steps;
+
+		private ResolvedExpression(final ParsedExpression parsed, final List<ResolvedStep> steps)
+		{
+			this.parsed = parsed;
+			this.steps = steps.toArray(new ResolvedStep[steps.size()]);
+		}
+
+		private ObjectAndGetSetter getObjectAndGetSetter(final Object object,
+			final int tryToCreateNull, final Class<?> clz)
+		{
+			Cursor cursor = new Cursor(object, clz);
+			int last = steps.length - 1;
+			for (int i = 0; i < last; i++)
+			{
+				ResolvedStep step = steps[i];
+				if (cursor.clz != step.clz)
+				{
+					return PropertyResolver.getObjectAndGetSetter(parsed, step.start, cursor,
+						tryToCreateNull, null);
+				}
+				if (cursor.next(step.getAndSetter, tryToCreateNull) == false)
+				{
+					return null;
+				}
+			}
+
+			ResolvedStep step = steps[last];
+			IGetAndSet getAndSetter = step.getAndSetter;
+			if (cursor.clz != step.clz)
+			{
+				getAndSetter = getGetAndSetter(step.expression, cursor.clz);
+			}
+			return new ObjectAndGetSetter(getAndSetter, cursor.value);
+		}
+	}
+
 	/**
 	 * @author jcompagner
 	 * 
@@ -1500,7 +1733,9 @@ public final class PropertyResolver
 
 	private static class DefaultClassCache implements IClassCache
 	{
-		private final ConcurrentHashMap<Class<?>, Map<String, IGetAndSet>> map = Generics.newConcurrentHashMap(16);
+		private final ClassMetaCache<Map<String, IGetAndSet>> map = new ClassMetaCache<Map<String, IGetAndSet>>();
+
+		private final ClassMetaCache<ConcurrentHashMap<String, ResolvedExpression>> resolvedExpressions = new ClassMetaCache<ConcurrentHashMap<String, ResolvedExpression>>();
 
 		public Map<String, IGetAndSet> get(Class<?> clz)
 		{
@@ -1511,5 +1746,31 @@ public final class PropertyResolver
 		{
 			map.put(clz, values);
 		}
+
+		private ResolvedExpression getResolvedExpression(Class<?> clz, String expression)
+		{
+			Map<String, ResolvedExpression> expressions = resolvedExpressions.get(clz);
+			return expressions != null ? expressions.get(expression) : null;
+		}
+
+		private void putResolvedExpression(Class<?> clz, String expression,
+			ResolvedExpression resolved)
+		{
+			ConcurrentHashMap<String, ResolvedExpression> expressions = resolvedExpressions.get(clz);
+			if (expressions == null)
+			{
+				expressions = Generics.newConcurrentHashMap(8);
+				ConcurrentHashMap<String, ResolvedExpression> existing = resolvedExpressions.putIfAbsent(
+					clz, expressions);
+				if (existing != null)
+				{
+					expressions = existing;
+				}
+			}
+			if (expressions.size() < ParsedExpression.MAX_CACHED_EXPRESSIONS)
+			{
+				expressions.put(expression, resolved);
+			}
+		}
 	}
 }
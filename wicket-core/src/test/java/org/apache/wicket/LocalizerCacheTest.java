@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import java.util.Locale;
+
+import org.apache.wicket.Localizer.CacheKey;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.repeater.RepeatingView;
+import org.junit.Test;
+
+/**
+ * Tests for the cache of the {@link Localizer}
+ */
+public class LocalizerCacheTest extends WicketTestCase
+{
+	private static final Locale GERMANY = new Locale("de", "DE");
+
+	private static final Locale SWITZERLAND = new Locale("de", "CH");
+
+	private static class TestPage extends WebPage
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final WebMarkupContainer first;
+
+		private final WebMarkupContainer second;
+
+		private final WebMarkupContainer other;
+
+		private TestPage()
+		{
+			RepeatingView repeater = new RepeatingView("repeater");
+			add(repeater);
+			first = new WebMarkupContainer("1");
+			second = new WebMarkupContainer("2");
+			repeater.add(first, second);
+
+			other = new WebMarkupContainer("other");
+			add(other);
+		}
+	}
+
+	/**
+	 * Keys of components at the same place are equal, the ids of repeater items are ignored
+	 */
+	@Test
+	public void cacheKey()
+	{
+		Localizer localizer = new Localizer();
+		TestPage page1 = new TestPage();
+		TestPage page2 = new TestPage();
+
+		CacheKey key1 = localizer.newCacheKey("key", page1.first, GERMANY, null, null);
+		CacheKey key2 = localizer.newCacheKey("key", page2.first, GERMANY, null, null);
+		CacheKey key3 = localizer.newCacheKey("key", page1.second, GERMANY, null, null);
+		assertEquals(key1, key2);
+		assertEquals(key1.hashCode(), key2.hashCode());
+		assertEquals(key1, key3);
+
+		assertFalse(key1.equals(localizer.newCacheKey("key", page1.other, GERMANY, null, null)));
+		assertFalse(key1.equals(localizer.newCacheKey("key", page1.first, SWITZERLAND, null,
+			null)));
+		assertFalse(key1.equals(localizer.newCacheKey("key", page1.first, GERMANY, "style", null)));
+		assertFalse(key1.equals(localizer.newCacheKey("other", page1.first, GERMANY, null, null)));
+		assertFalse(key1.equals(localizer.newCacheKey("key", null, GERMANY, null, null)));
+	}
+
+	/**
+	 * The deprecated string keys still reach the cache
+	 */
+	@Test
+	@SuppressWarnings("deprecation")
+	public void stringKeys()
+	{
+		Localizer localizer = new Localizer();
+		TestPage page = new TestPage();
+
+		String key = localizer.getCacheKey("key", page.first, GERMANY, null, null);
+		assertEquals(localizer.newCacheKey("key", page.first, GERMANY, null, null).toString(), key);
+		assertEquals("key-de_DE-null", localizer.getCacheKey("key", null, GERMANY, null, null));
+
+		localizer.putIntoCache(key, "value");
+		assertEquals("value", localizer.getFromCache(key));
+		assertNull(localizer.getFromCache("other"));
+
+		localizer.clearCache(Locale.ENGLISH);
+		assertNull(localizer.getFromCache(key));
+	}
+
+	/**
+	 * The cache keeps at most the maximum number of strings
+	 */
+	@Test
+	public void boundedCache()
+	{
+		Localizer localizer = new Localizer(10);
+		for (int i = 0; i < 50; i++)
+		{
+			localizer.getStringIgnoreSettings("key" + i, null, null, GERMANY, null, null);
+		}
+		assertTrue(localizer.getCacheSize() <= 10);
+		assertTrue(localizer.getCacheEvictionCount() > 0);
+		assertEquals(50, localizer.getCacheMissCount());
+
+		localizer.getStringIgnoreSettings("key49", null, null, GERMANY, null, null);
+		assertEquals(1, localizer.getCacheHitCount());
+		assertEquals(50, localizer.getCacheMissCount());
+	}
+
+	/**
+	 * A changed properties file removes the strings of its locale only
+	 */
+	@Test
+	public void propertiesChanged()
+	{
+		Localizer localizer = new Localizer();
+		localizer.getStringIgnoreSettings("key", null, null, Locale.ENGLISH, null, null);
+		localizer.getStringIgnoreSettings("key", null, null, Locale.GERMAN, null, null);
+		localizer.getStringIgnoreSettings("key", null, null, GERMANY, null, null);
+		localizer.getStringIgnoreSettings("key", null, null, SWITZERLAND, null, null);
+		assertEquals(4, localizer.getCacheSize());
+
+		localizer.propertiesChanged("org/example/MyPage_de_CH");
+		assertEquals(3, localizer.getCacheSize());
+
+		localizer.propertiesChanged("org/example/MyPage_style_de");
+		assertEquals(1, localizer.getCacheSize());
+
+		localizer.propertiesChanged("org/example/MyPage");
+		assertEquals(0, localizer.getCacheSize());
+	}
+
+	/**
+	 * The locale at the end of the path of a properties file
+	 */
+	@Test
+	public void getLocale()
+	{
+		assertEquals(GERMANY, Localizer.getLocale("org/example/MyPage_de_DE"));
+		assertEquals(Locale.GERMAN, Localizer.getLocale("org/example/MyPage_de"));
+		assertEquals(Locale.GERMAN, Localizer.getLocale("org/example/MyPage_style_de"));
+		assertNull(Localizer.getLocale("org/example/MyPage"));
+		assertNull(Localizer.getLocale("org/example/My_Page"));
+		assertNull(Localizer.getLocale("de"));
+	}
+}
@@ -102,4 +102,74 @@ public class MarkupContainerTest extends WicketTestCase
 		assertNull(b.get("..|.."));
 		assertNull(a.get("q"));
 	}
+
+	/**
+	 * Lookups in a container big enough to index its children by id
+	 */
+	@Test
+	public void getFromManyChildren()
+	{
+		MarkupContainer container = new WebMarkupContainer("component");
+		for (int i = 0; i < 100; i++)
+		{
+			container.add(new WebComponent(Integer.toString(i)));
+		}
+		for (int i = 0; i < 100; i++)
+		{
+			assertEquals(Integer.toString(i), container.get(Integer.toString(i)).getId());
+		}
+		assertNull(container.get("100"));
+
+		// removing shifts the following children
+		container.remove("10");
+		assertNull(container.get("10"));
+		assertEquals(10, getIndex(container, container.get("11")));
+		container.remove("99");
+		assertNull(container.get("99"));
+		assertEquals(98, container.size());
+
+		// replacing keeps the position
+		WebComponent replacement = new WebComponent("50");
+		container.replace(replacement);
+		assertSame(replacement, container.get("50"));
+		assertEquals(49, getIndex(container, replacement));
+
+		container.swap(0, 97);
+		assertEquals(0, getIndex(container, container.get("98")));
+		assertEquals(97, getIndex(container, container.get("0")));
+
+		// iteration order is still the insertion order
+		container.swap(0, 97);
+		int previous = -1;
+		for (Component component : container)
+		{
+			int id = Integer.parseInt(component.getId());
+			assertTrue(id > previous);
+			previous = id;
+		}
+
+		// a container which lost most of its children
+		for (int i = 0; i < 90; i++)
+		{
+			if (i != 10)
+			{
+				container.remove(Integer.toString(i));
+			}
+		}
+		assertEquals(9, container.size());
+		assertNotNull(container.get("90"));
+		assertNull(container.get("89"));
+	}
+
+	private static int getIndex(MarkupContainer container, Component child)
+	{
+		for (int i = 0; i < container.size(); i++)
+		{
+			if (container.get(i) == child)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
 }
@@ -25,14 +25,18 @@ import java.util.regex.Pattern;
 import org.apache.wicket.Component;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.MockPageWithLinkAndComponent;
+import org.apache.wicket.Page;
 import org.apache.wicket.WicketTestCase;
 import org.apache.wicket.ajax.markup.html.AjaxLink;
 import org.apache.wicket.event.IEvent;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
 import org.apache.wicket.markup.html.WebComponent;
 import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.util.IContextProvider;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.tester.DiffUtil;
 import org.apache.wicket.util.time.Time;
 import org.junit.Test;
@@ -257,6 +261,97 @@ public class AjaxRequestTargetTest extends WicketTestCase
 		assertEquals("no-cache, no-store", tester.getLastResponse().getHeader("Cache-Control"));
 	}
 
+	/**
+	 * The markup of the components is escaped for the CDATA section while it is rendered
+	 */
+	@Test
+	public void encodeComponentMarkup()
+	{
+		tester.startPage(new EncodingPage());
+		tester.clickLink("link");
+
+		EncodingPage page = (EncodingPage)tester.getLastRenderedPage();
+		String document = tester.getLastResponseAsString();
+		assertTrue(document, document.contains("encoding=\"wicket1\""));
+		assertTrue(document, document.contains("[a]^]^&gt;b]^"));
+		assertEquals(document.length(), page.target.getResponseSize());
+		assertTrue(page.target.getEncodeTime() >= 0);
+
+		assertEquals("x]^]^>", page.target.encode("x]]>"));
+		assertEquals("plain", page.target.encode("plain"));
+		assertEquals("]^", page.target.encode("]"));
+	}
+
+	/**
+	 * A subclass overriding {@link AjaxRequestTarget#encode(CharSequence)} and disabling the
+	 * streaming encoder encodes the markup of the components too
+	 */
+	@Test
+	@SuppressWarnings("deprecation")
+	public void overriddenEncode()
+	{
+		tester.getApplication().setAjaxRequestTargetProvider(
+			new IContextProvider<AjaxRequestTarget, Page>()
+			{
+				public AjaxRequestTarget get(Page page)
+				{
+					return new AjaxRequestTarget(page)
+					{
+						@Override
+						protected String encode(CharSequence str)
+						{
+							return Strings.replaceAll(str, "]", "]-").toString();
+						}
+
+						@Override
+						protected boolean isStreamingEncoderEnabled()
+						{
+							return false;
+						}
+					};
+				}
+			});
+		tester.startPage(new EncodingPage());
+		tester.clickLink("link");
+
+		String document = tester.getLastResponseAsString();
+		assertTrue(document, document.contains("[a]-]-&gt;b]-"));
+	}
+
+	/**
+	 * Test page for {@linkplain AjaxRequestTargetTest#encodeComponentMarkup()}
+	 */
+	private static class EncodingPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private transient AjaxRequestTarget target;
+
+		private EncodingPage()
+		{
+			final Label label = new Label("label", "[a]]>b]");
+			add(label.setOutputMarkupId(true));
+			add(new AjaxLink<Void>("link")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onClick(AjaxRequestTarget target)
+				{
+					EncodingPage.this.target = target;
+					target.add(label);
+				}
+			});
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><span wicket:id='label'></span><a wicket:id='link'>link</a></body></html>");
+		}
+	}
+
 	/**
 	 * Test page for {@linkplain AjaxRequestTargetTest#testAjaxRedirectSetsNoCachingHeaders()}
 	 */
@@ -19,6 +19,7 @@ package org.apache.wicket.markup;
 import org.apache.wicket.Application;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.MarkupCache.WeightedCacheImplementation;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.junit.Before;
@@ -85,6 +86,33 @@ public class MarkupCacheTest extends WicketTestCase
 		assertNull(markup);
 	}
 
+	/**
+	 * The markup cache is bounded if the maximum weight is set
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void boundedMarkupCache()
+	{
+		tester.getApplication().getMarkupSettings().setMarkupCacheMaxWeight(10000);
+		cache = new MarkupCache();
+		assertTrue(cache.getMarkupCache() instanceof WeightedCacheImplementation);
+
+		tester.startPage(MarkupInheritanceExtension_1.class);
+		tester.assertRenderedPage(MarkupInheritanceExtension_1.class);
+		assertTrue(cache.getLoadCount() > 0);
+
+		WeightedCacheImplementation<String, Markup> weighted = (WeightedCacheImplementation<String, Markup>)cache.getMarkupCache();
+		assertTrue(weighted.getWeight() > cache.size());
+
+		// everything is loaded again once evicted
+		long loadCount = cache.getLoadCount();
+		cache.clear();
+		assertEquals(0, weighted.getWeight());
+		tester.startPage(MarkupInheritanceExtension_1.class);
+		tester.assertRenderedPage(MarkupInheritanceExtension_1.class);
+		assertTrue(cache.getLoadCount() > loadCount);
+	}
+
 	private static class MarkupCachingAssumingComponent extends Panel
 		implements
 			IMarkupResourceStreamProvider
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.IHeaderResponse;
+import org.apache.wicket.markup.html.IStaticHeaderContributor;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.protocol.http.servlet.ServletWebRequest;
+import org.apache.wicket.protocol.http.servlet.ServletWebResponse;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HeaderRenderPlan} and {@link HeaderRenderPlanCache}
+ */
+public class HeaderRenderPlanTest extends WicketTestCase
+{
+	private static final AtomicInteger staticRenders = new AtomicInteger();
+
+	private static final AtomicInteger dynamicRenders = new AtomicInteger();
+
+	private static volatile boolean dynamicCss;
+
+	/** whether the response encodes the session id into the urls */
+	private static volatile boolean rewriteUrls;
+
+	@Override
+	protected WicketTester newWicketTester(final WebApplication app)
+	{
+		return new WicketTester(app)
+		{
+			@Override
+			protected Response newServletWebResponse(final ServletWebRequest servletWebRequest)
+			{
+				return new ServletWebResponse(servletWebRequest, getResponse())
+				{
+					@Override
+					public String encodeURL(CharSequence url)
+					{
+						return rewriteUrls ? url + ";jsessionid=" + getSession().getId()
+							: super.encodeURL(url);
+					}
+				};
+			}
+		};
+	}
+
+	private String renderHead()
+	{
+		tester.startPage(new PlanPage());
+		String document = tester.getLastResponseAsString();
+		return document.substring(document.indexOf("<head>"), document.indexOf("</head>"));
+	}
+
+	private static int count(final String text, final String part)
+	{
+		int count = 0;
+		for (int i = text.indexOf(part); i != -1; i = text.indexOf(part, i + 1))
+		{
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * The static contributions are recorded on the first render and replayed later, the dynamic
+	 * ones are rendered every time
+	 */
+	@Test
+	public void replay()
+	{
+		assertFalse(HeaderRenderPlanCache.get(tester.getApplication()).isEnabled());
+		HeaderRenderPlanCache cache = new HeaderRenderPlanCache(10);
+		HeaderRenderPlanCache.set(tester.getApplication(), cache);
+		staticRenders.set(0);
+		dynamicRenders.set(0);
+		dynamicCss = false;
+
+		String first = renderHead();
+		assertEquals(2, staticRenders.get());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		assertTrue(first, first.contains("static.css"));
+		assertTrue(first, first.contains("static.js"));
+		assertTrue(first, first.contains("var staticVar;"));
+		assertTrue(first, first.contains("<meta name=\"dynamic\" />"));
+
+		String second = renderHead();
+		assertEquals(first, second);
+		assertEquals(2, staticRenders.get());
+		assertEquals(2, dynamicRenders.get());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.size());
+	}
+
+	/**
+	 * The replayed contributions are de-duplicated against the ones rendered before
+	 */
+	@Test
+	public void deduplication()
+	{
+		HeaderRenderPlanCache cache = new HeaderRenderPlanCache(10);
+		HeaderRenderPlanCache.set(tester.getApplication(), cache);
+		staticRenders.set(0);
+
+		dynamicCss = false;
+		assertEquals(1, count(renderHead(), "static.css"));
+
+		dynamicCss = true;
+		String head = renderHead();
+		assertEquals(1, count(head, "static.css"));
+		assertTrue(head, head.contains("static.js"));
+		assertEquals(2, staticRenders.get());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	/**
+	 * The plans are neither recorded nor replayed while the session id is encoded into the urls
+	 */
+	@Test
+	public void sessionEncodedUrls()
+	{
+		HeaderRenderPlanCache cache = new HeaderRenderPlanCache(10);
+		HeaderRenderPlanCache.set(tester.getApplication(), cache);
+		staticRenders.set(0);
+		dynamicCss = false;
+
+		rewriteUrls = true;
+		try
+		{
+			String first = renderHead();
+			assertTrue(first, first.contains("static.js"));
+			assertEquals(first, renderHead());
+			assertEquals(4, staticRenders.get());
+			assertEquals(0, cache.getHitCount());
+			assertEquals(0, cache.getMissCount());
+			assertEquals(0, cache.size());
+		}
+		finally
+		{
+			rewriteUrls = false;
+		}
+
+		// once the urls are not rewritten anymore the plan is recorded
+		renderHead();
+		assertEquals(6, staticRenders.get());
+		assertEquals(1, cache.size());
+	}
+
+	/**
+	 * Test page
+	 */
+	private static class PlanPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private PlanPage()
+		{
+			add(new DynamicComponent("dynamic"));
+			add(new StaticComponent("static").add(new StaticBehavior()));
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><head></head><body><span wicket:id='dynamic'></span><span wicket:id='static'></span></body></html>");
+		}
+	}
+
+	private static class DynamicComponent extends WebComponent
+	{
+		private static final long serialVersionUID = 1L;
+
+		private DynamicComponent(final String id)
+		{
+			super(id);
+		}
+
+		@Override
+		public void renderHead(IHeaderResponse response)
+		{
+			dynamicRenders.incrementAndGet();
+			response.renderString("<meta name=\"dynamic\" />");
+			if (dynamicCss)
+			{
+				response.renderCSSReference("css/static.css");
+			}
+		}
+	}
+
+	private static class StaticComponent extends WebComponent implements IStaticHeaderContributor
+	{
+		private static final long serialVersionUID = 1L;
+
+		private StaticComponent(final String id)
+		{
+			super(id);
+		}
+
+		@Override
+		public void renderHead(IHeaderResponse response)
+		{
+			staticRenders.incrementAndGet();
+			response.renderCSSReference("css/static.css");
+			response.renderJavaScript("var staticVar;", "staticVar");
+		}
+	}
+
+	private static class StaticBehavior extends Behavior implements IStaticHeaderContributor
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void renderHead(Component component, IHeaderResponse response)
+		{
+			staticRenders.incrementAndGet();
+			response.renderJavaScriptReference("js/static.js", "static-js");
+		}
+	}
+}
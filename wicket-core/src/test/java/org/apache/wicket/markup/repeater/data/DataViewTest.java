@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater.data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.repeater.Item;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DataView} with {@link IPagedDataProvider}s and the item count kept across
+ * requests
+ */
+public class DataViewTest extends WicketTestCase
+{
+	/**
+	 * A paged provider is asked once for the items and their count
+	 */
+	@Test
+	public void pagedProvider()
+	{
+		PagedProvider provider = new PagedProvider();
+		TestPage page = new TestPage(provider);
+		page.view.setItemsPerPage(10);
+		page.view.setCurrentPage(2);
+		tester.startPage(page);
+
+		assertEquals(1, provider.pages);
+		assertEquals(0, provider.sizes);
+		assertEquals(0, provider.iterators);
+		assertEquals(25, page.view.getItemCount());
+		tester.assertContains("item20");
+		tester.assertContains("item24");
+		tester.assertContainsNot("item19");
+	}
+
+	/**
+	 * The current page is trimmed if there are less items than expected
+	 */
+	@Test
+	public void pagedProviderWithTrimmedPage()
+	{
+		PagedProvider provider = new PagedProvider();
+		TestPage page = new TestPage(provider);
+		page.view.setItemsPerPage(10);
+		page.view.setCurrentPage(5);
+		tester.startPage(page);
+
+		assertEquals(2, page.view.getCurrentPage());
+		assertEquals(1, provider.iterators);
+		tester.assertContains("item20");
+	}
+
+	/**
+	 * The item count of a page telling only whether there are more items
+	 */
+	@Test
+	public void dataPageWithMore()
+	{
+		List<String> items = new ArrayList<String>();
+		items.add("a");
+		items.add("b");
+
+		DataPage<String> page = DataPage.withMore(10, items, true);
+		assertEquals(13, page.getSize());
+		assertFalse(page.isExact());
+
+		page = DataPage.withMore(10, items, false);
+		assertEquals(12, page.getSize());
+		assertTrue(page.isExact());
+	}
+
+	/**
+	 * The item count is kept across requests if enabled
+	 */
+	@Test
+	public void itemCountCache()
+	{
+		CountingProvider provider = new CountingProvider();
+		TestPage page = new TestPage(provider);
+		page.view.setItemsPerPage(10);
+		page.view.setItemCountCacheDuration(Duration.minutes(1));
+		tester.startPage(page);
+		tester.startPage(page);
+
+		assertEquals(1, provider.sizes);
+		assertEquals(2, provider.iterators);
+
+		page.view.clearItemCountCache();
+		tester.startPage(page);
+		assertEquals(2, provider.sizes);
+
+		page.view.setItemCountCacheDuration(null);
+		tester.startPage(page);
+		assertEquals(3, provider.sizes);
+	}
+
+	private static class CountingProvider implements IDataProvider<String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		int sizes;
+
+		int iterators;
+
+		List<String> items(int first, int count)
+		{
+			List<String> items = new ArrayList<String>();
+			for (int i = first; i < Math.min(first + count, 25); i++)
+			{
+				items.add("item" + i);
+			}
+			return items;
+		}
+
+		public Iterator<? extends String> iterator(int first, int count)
+		{
+			iterators++;
+			return items(first, count).iterator();
+		}
+
+		public int size()
+		{
+			sizes++;
+			return 25;
+		}
+
+		public IModel<String> model(String object)
+		{
+			return Model.of(object);
+		}
+
+		public void detach()
+		{
+		}
+	}
+
+	private static class PagedProvider extends CountingProvider implements
+		IPagedDataProvider<String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int pages;
+
+		public DataPage<String> page(int first, int count)
+		{
+			pages++;
+			return new DataPage<String>(items(first, count), 25);
+		}
+	}
+
+	private static class TestPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final DataView<String> view;
+
+		private TestPage(IDataProvider<String> provider)
+		{
+			view = new DataView<String>("item", provider)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void populateItem(Item<String> item)
+				{
+					item.add(new Label("label", item.getModel()));
+				}
+			};
+			add(view);
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><div wicket:id='item'><span wicket:id='label'></span></div></body></html>");
+		}
+	}
+}
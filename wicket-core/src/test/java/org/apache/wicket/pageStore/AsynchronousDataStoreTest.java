@@ -22,6 +22,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.apache.wicket.versioning.InMemoryPageStore;
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -74,6 +75,67 @@ public class AsynchronousDataStoreTest
 		DATA_STORE.destroy();
 	}
 
+	/**
+	 * Stores a page several times while the writer thread is busy and verifies that only the last
+	 * version is written
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void coalesceQueuedWrites() throws Exception
+	{
+		final CountDownLatch writerBlocked = new CountDownLatch(1);
+		final CountDownLatch releaseWriter = new CountDownLatch(1);
+		final InMemoryPageStore wrapped = new InMemoryPageStore()
+		{
+			@Override
+			public synchronized void storeData(String sessionId, int pageId, byte[] pageAsBytes)
+			{
+				if (pageId == 1)
+				{
+					writerBlocked.countDown();
+					try
+					{
+						releaseWriter.await();
+					}
+					catch (InterruptedException e)
+					{
+						throw new RuntimeException(e);
+					}
+				}
+				super.storeData(sessionId, pageId, pageAsBytes);
+			}
+
+			@Override
+			public synchronized byte[] getData(String sessionId, int pageId)
+			{
+				return super.getData(sessionId, pageId);
+			}
+		};
+		AsynchronousDataStore dataStore = new AsynchronousDataStore(wrapped, 100, 2);
+
+		dataStore.storeData("s1", 1, new byte[] { 1 });
+		writerBlocked.await();
+
+		dataStore.storeData("s1", 2, new byte[] { 1 });
+		dataStore.storeData("s1", 2, new byte[] { 2 });
+		dataStore.storeData("s1", 2, new byte[] { 3 });
+
+		Assert.assertEquals(2, dataStore.getCoalescedCount());
+		Assert.assertEquals(1, dataStore.getQueueSize());
+		Assert.assertArrayEquals(new byte[] { 3 }, dataStore.getData("s1", 2));
+
+		releaseWriter.countDown();
+		while (dataStore.getSavedCount() < 2)
+		{
+			Thread.sleep(10);
+		}
+
+		Assert.assertArrayEquals(new byte[] { 3 }, wrapped.getData("s1", 2));
+		Assert.assertEquals(0, dataStore.getSynchronousCount());
+		dataStore.destroy();
+	}
+
 	private static abstract class AbstractTask implements Runnable
 	{
 
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.versioning.InMemoryPageStore;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DeltaDataStore} and {@link PageDelta}
+ */
+public class DeltaDataStoreTest
+{
+	private final Random random = new Random(42);
+
+	private byte[] randomData(int length)
+	{
+		byte[] data = new byte[length];
+		random.nextBytes(data);
+		return data;
+	}
+
+	private byte[] modify(byte[] data)
+	{
+		byte[] copy = data.clone();
+		for (int i = 0; i < 3; i++)
+		{
+			copy[random.nextInt(copy.length)]++;
+		}
+		return copy;
+	}
+
+	/**
+	 * A delta rebuilds the target from the base and is much smaller than the target
+	 */
+	@Test
+	public void delta()
+	{
+		byte[] base = randomData(5000);
+		byte[] target = modify(base);
+
+		byte[] delta = PageDelta.encode(base, target);
+		assertTrue(delta.length < 200);
+		assertArrayEquals(target, PageDelta.apply(base, delta));
+
+		// inserted and removed ranges
+		byte[] shifted = new byte[base.length + 10];
+		System.arraycopy(base, 0, shifted, 0, 1000);
+		System.arraycopy(base, 1000, shifted, 1010, base.length - 1000);
+		assertArrayEquals(shifted, PageDelta.apply(base, PageDelta.encode(base, shifted)));
+		assertArrayEquals(base, PageDelta.apply(shifted, PageDelta.encode(shifted, base)));
+
+		// totally different and tiny data
+		byte[] other = randomData(7);
+		assertArrayEquals(other, PageDelta.apply(base, PageDelta.encode(base, other)));
+
+		// a delta cannot be applied to another base
+		assertNull(PageDelta.apply(target, delta));
+	}
+
+	/**
+	 * Stores several versions of a page and reads them back through the deltas
+	 */
+	@Test
+	public void storeVersions()
+	{
+		InMemoryPageStore wrapped = new InMemoryPageStore();
+		DeltaDataStore dataStore = new DeltaDataStore(wrapped, 3, 10);
+
+		byte[] data = randomData(2000);
+		dataStore.storeData("s1", 1, data);
+		for (int i = 0; i < 5; i++)
+		{
+			data = modify(data);
+			dataStore.storeData("s1", 1, data);
+			assertArrayEquals(data, dataStore.getData("s1", 1));
+		}
+
+		// one snapshot, three deltas, another snapshot and a delta
+		assertEquals(2, dataStore.getSnapshotCount());
+		assertEquals(4, dataStore.getDeltaCount());
+
+		// without the cache the page is rebuilt from the wrapped store
+		DeltaDataStore restarted = new DeltaDataStore(wrapped, 3, 10);
+		assertArrayEquals(data, restarted.getData("s1", 1));
+
+		dataStore.removeData("s1", 1);
+		assertNull(dataStore.getData("s1", 1));
+		assertNull(restarted.getData("s1", 1));
+	}
+
+	/**
+	 * A snapshot is written again before the data stored in the session since the last snapshot
+	 * could overwrite it
+	 */
+	@Test
+	public void refreshSnapshot()
+	{
+		InMemoryPageStore wrapped = new InMemoryPageStore();
+		DeltaDataStore dataStore = new DeltaDataStore(wrapped, 10, 10, Bytes.bytes(10000));
+
+		byte[] data = randomData(2000);
+		dataStore.storeData("s1", 1, data);
+		dataStore.storeData("s1", 2, randomData(2000));
+		dataStore.storeData("s1", 3, randomData(2000));
+
+		data = modify(data);
+		dataStore.storeData("s1", 1, data);
+		assertEquals(1, dataStore.getDeltaCount());
+
+		dataStore.storeData("s1", 4, randomData(2000));
+
+		// 6000 bytes were stored since the snapshot of the first page
+		data = modify(data);
+		dataStore.storeData("s1", 1, data);
+		assertEquals(1, dataStore.getDeltaCount());
+		assertEquals(5, dataStore.getSnapshotCount());
+		assertArrayEquals(data, new DeltaDataStore(wrapped, 10, 10).getData("s1", 1));
+	}
+}
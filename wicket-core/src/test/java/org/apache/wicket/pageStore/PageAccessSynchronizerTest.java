@@ -16,14 +16,19 @@
  */
 package org.apache.wicket.pageStore;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.wicket.page.CouldNotLockPageException;
 import org.apache.wicket.page.PageAccessSynchronizer;
+import org.apache.wicket.page.PageLockStatistics;
 import org.apache.wicket.util.lang.WicketObjects;
 import org.apache.wicket.util.time.Duration;
 import org.apache.wicket.util.time.Time;
@@ -300,4 +305,103 @@ public class PageAccessSynchronizerTest
 		locker2.run();
 		assertTrue(Duration.milliseconds(System.currentTimeMillis() - start).lessThan(timeout));
 	}
+
+	/**
+	 * The lock is handed over to the waiting threads in the order they asked for it
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testFairness() throws Exception
+	{
+		final PageLockStatistics statistics = new PageLockStatistics();
+		final PageAccessSynchronizer sync = new PageAccessSynchronizer(Duration.seconds(5),
+			statistics);
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+		class Waiter extends Thread
+		{
+			@Override
+			public void run()
+			{
+				sync.lockPage(1);
+				order.add(getName());
+				sync.unlockAllPages();
+			}
+		}
+
+		sync.lockPage(1);
+		sync.lockPage(2);
+
+		Waiter[] waiters = new Waiter[5];
+		for (int i = 0; i < waiters.length; i++)
+		{
+			waiters[i] = new Waiter();
+			waiters[i].setName("waiter " + i);
+			waiters[i].start();
+			Duration.milliseconds(100).sleep();
+		}
+
+		sync.unlockAllPages();
+		for (Waiter waiter : waiters)
+		{
+			waiter.join();
+		}
+
+		for (int i = 0; i < waiters.length; i++)
+		{
+			assertEquals("waiter " + i, order.get(i));
+		}
+		assertEquals(7, statistics.getAcquiredCount());
+		assertEquals(0, statistics.getTimeoutCount());
+
+		// the page 2 has been released as well
+		sync.lockPage(2);
+		sync.unlockAllPages();
+	}
+
+	/**
+	 * A thread which cannot get the lock in time gives up and is counted
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testTimeout() throws Exception
+	{
+		final PageLockStatistics statistics = new PageLockStatistics();
+		final PageAccessSynchronizer sync = new PageAccessSynchronizer(
+			Duration.milliseconds(200), statistics);
+		final boolean[] failed = new boolean[1];
+
+		Thread thread = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					sync.lockPage(1);
+				}
+				catch (CouldNotLockPageException e)
+				{
+					failed[0] = true;
+				}
+				finally
+				{
+					sync.unlockAllPages();
+				}
+			}
+		};
+
+		sync.lockPage(1);
+		thread.start();
+		thread.join();
+		sync.unlockAllPages();
+
+		assertTrue(failed[0]);
+		assertEquals(1, statistics.getAcquiredCount());
+		assertEquals(1, statistics.getTimeoutCount());
+		assertTrue(statistics.getMaxWaitTime() >= 200);
+		assertEquals(1, statistics.getWaitTimeHistogram()[3]);
+	}
 }
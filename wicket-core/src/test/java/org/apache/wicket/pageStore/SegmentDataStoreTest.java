@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FilenameFilter;
+
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.time.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SegmentDataStore}
+ */
+public class SegmentDataStoreTest
+{
+	private File folder;
+
+	private SegmentDataStore dataStore;
+
+	/**
+	 * Creates a data store in a temporary folder
+	 */
+	@Before
+	public void before()
+	{
+		folder = new File(System.getProperty("java.io.tmpdir"), "SegmentDataStoreTest");
+		Files.removeFolder(folder);
+		dataStore = newDataStore();
+	}
+
+	/**
+	 * Destroys the data store and removes its files
+	 */
+	@After
+	public void after()
+	{
+		dataStore.destroy();
+		Files.removeFolder(folder);
+	}
+
+	private SegmentDataStore newDataStore()
+	{
+		return new SegmentDataStore("app", folder, Bytes.bytes(300), Bytes.bytes(1000),
+			Duration.minutes(10));
+	}
+
+	private static byte[] data(int length, int value)
+	{
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++)
+		{
+			data[i] = (byte)(value + i);
+		}
+		return data;
+	}
+
+	/**
+	 * Stores, overwrites and removes pages of several sessions
+	 */
+	@Test
+	public void storeAndRemove()
+	{
+		dataStore.storeData("s1", 1, data(10, 1));
+		dataStore.storeData("s1", 2, data(20, 2));
+		dataStore.storeData("s2", 1, data(30, 3));
+
+		assertArrayEquals(data(10, 1), dataStore.getData("s1", 1));
+		assertArrayEquals(data(20, 2), dataStore.getData("s1", 2));
+		assertArrayEquals(data(30, 3), dataStore.getData("s2", 1));
+		assertNull(dataStore.getData("s2", 2));
+		assertNull(dataStore.getData("s3", 1));
+
+		dataStore.storeData("s1", 1, data(15, 4));
+		assertArrayEquals(data(15, 4), dataStore.getData("s1", 1));
+
+		dataStore.removeData("s1", 2);
+		assertNull(dataStore.getData("s1", 2));
+
+		dataStore.removeData("s2");
+		assertNull(dataStore.getData("s2", 1));
+		assertArrayEquals(data(15, 4), dataStore.getData("s1", 1));
+		assertEquals(1, dataStore.getPageCount());
+	}
+
+	/**
+	 * The oldest pages of a session are dropped when the session exceeds its maximum size
+	 */
+	@Test
+	public void maxSizePerSession()
+	{
+		for (int i = 1; i <= 4; i++)
+		{
+			dataStore.storeData("s1", i, data(100, i));
+		}
+		dataStore.storeData("s2", 1, data(100, 1));
+
+		assertNull(dataStore.getData("s1", 1));
+		assertArrayEquals(data(100, 2), dataStore.getData("s1", 2));
+		assertArrayEquals(data(100, 4), dataStore.getData("s1", 4));
+		assertArrayEquals(data(100, 1), dataStore.getData("s2", 1));
+	}
+
+	/**
+	 * Sparse segments are deleted and their live pages moved to the active segment
+	 */
+	@Test
+	public void compact()
+	{
+		for (int i = 0; i < 30; i++)
+		{
+			dataStore.storeData("s" + i, 1, data(100, i));
+		}
+		assertEquals(3, dataStore.getSegmentCount());
+
+		for (int i = 0; i < 30; i++)
+		{
+			if (i % 10 != 0)
+			{
+				dataStore.removeData("s" + i);
+			}
+		}
+
+		// the first pass may fill the active segment, the second one compacts it too
+		dataStore.compact();
+		dataStore.compact();
+
+		assertEquals(1, dataStore.getSegmentCount());
+		for (int i = 0; i < 30; i += 10)
+		{
+			assertArrayEquals(data(100, i), dataStore.getData("s" + i, 1));
+		}
+	}
+
+	/**
+	 * The compacted segments are written again instead of creating new files
+	 */
+	@Test
+	public void reuseCompactedSegments()
+	{
+		for (int i = 0; i < 30; i++)
+		{
+			dataStore.storeData("s" + i, 1, data(100, i));
+		}
+		for (int i = 0; i < 30; i++)
+		{
+			if (i % 10 != 0)
+			{
+				dataStore.removeData("s" + i);
+			}
+		}
+		dataStore.compact();
+		dataStore.compact();
+		int files = getSegmentFileCount();
+
+		// fills the active segment and the spares
+		for (int i = 30; i < 45; i++)
+		{
+			dataStore.storeData("s" + i, 1, data(100, i));
+		}
+
+		assertEquals(files, getSegmentFileCount());
+		for (int i = 0; i < 30; i += 10)
+		{
+			assertArrayEquals(data(100, i), dataStore.getData("s" + i, 1));
+		}
+		for (int i = 30; i < 45; i++)
+		{
+			assertArrayEquals(data(100, i), dataStore.getData("s" + i, 1));
+		}
+	}
+
+	private int getSegmentFileCount()
+	{
+		return new File(folder, "app-segmentstore").list(new FilenameFilter()
+		{
+			public boolean accept(File dir, String name)
+			{
+				return name.startsWith("segment-");
+			}
+		}).length;
+	}
+
+	/**
+	 * The pages are still available after the data store is re-created
+	 */
+	@Test
+	public void restart()
+	{
+		dataStore.storeData("s1", 1, data(10, 1));
+		dataStore.storeData("s2", 2, data(2000, 2));
+		dataStore.destroy();
+
+		dataStore = newDataStore();
+		assertArrayEquals(data(10, 1), dataStore.getData("s1", 1));
+		assertArrayEquals(data(2000, 2), dataStore.getData("s2", 2));
+
+		dataStore.storeData("s1", 3, data(10, 3));
+		assertArrayEquals(data(10, 3), dataStore.getData("s1", 3));
+	}
+}
@@ -17,10 +17,9 @@
 package org.apache.wicket.pageStore.memory;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertNotNull;
 
 import org.apache.wicket.util.lang.Bytes;
-import org.apache.wicket.util.lang.WicketObjects;
 import org.junit.Test;
 
 /***/
@@ -35,31 +34,65 @@ public class MemorySizeEvictionStrategyTest
 	{
 		PageTable pageTable = new PageTable();
 
-		long sizeOfEmptyPageTable = WicketObjects.sizeof(pageTable);
-
 		// evict to empty page table
-		MemorySizeEvictionStrategy strategy = new MemorySizeEvictionStrategy(
-			Bytes.bytes(sizeOfEmptyPageTable));
+		MemorySizeEvictionStrategy strategy = new MemorySizeEvictionStrategy(Bytes.bytes(0));
 		pageTable.storePage(PAGE1.length, PAGE1);
 		assertEquals(1, pageTable.size());
 		strategy.evict(pageTable);
 		assertEquals(0, pageTable.size());
-		long currentSize = WicketObjects.sizeof(pageTable);
-		assertTrue("Current size: |" + currentSize + "|, strategy size: |" + sizeOfEmptyPageTable +
-			"|", currentSize <= sizeOfEmptyPageTable);
+		assertEquals(0, pageTable.getSizeInBytes());
 
-		// evict to page table with size: empty + PAGE2
+		// evict to page table with size: PAGE2
 		pageTable.storePage(PAGE2.length, PAGE2);
-		long sizeOfWithPage2 = WicketObjects.sizeof(pageTable);
-		strategy = new MemorySizeEvictionStrategy(Bytes.bytes(sizeOfWithPage2));
+		strategy = new MemorySizeEvictionStrategy(Bytes.bytes(PAGE2.length));
 		pageTable.storePage(PAGE1.length, PAGE1);
 		assertEquals(2, pageTable.size());
 		strategy.evict(pageTable);
-		// the following assertion depends on the fact that PAGE2 has
-		// bigger size than PAGE1
+		// PAGE2 is the oldest page
 		assertEquals(1, pageTable.size());
-		currentSize = WicketObjects.sizeof(pageTable);
-		assertTrue("Current size: |" + currentSize + "|, strategy size: |" + sizeOfWithPage2 + "|",
-			currentSize <= sizeOfWithPage2);
+		assertNotNull(pageTable.getPage(PAGE1.length));
+		assertEquals(PAGE1.length, pageTable.getSizeInBytes());
+		assertEquals(1, strategy.getEvictedPages());
+		assertEquals(PAGE2.length, strategy.getEvictedBytes());
+	}
+
+	/**
+	 * The pages of all sessions are limited too
+	 */
+	@Test
+	public void evictTotal()
+	{
+		MemorySizeEvictionStrategy strategy = new MemorySizeEvictionStrategy(Bytes.bytes(100),
+			Bytes.bytes(4));
+
+		PageTable session1 = new PageTable();
+		session1.storePage(1, PAGE2);
+		strategy.evict(session1);
+		session1.storePage(2, PAGE1);
+		strategy.evict(session1);
+		assertEquals(3, strategy.getTotalBytes());
+
+		PageTable session2 = new PageTable();
+		session2.storePage(1, PAGE1);
+		strategy.evict(session2);
+		assertEquals(4, strategy.getTotalBytes());
+
+		// exceeds the total, but the page just stored is kept
+		session2.storePage(2, PAGE2);
+		strategy.evict(session2);
+		assertEquals(1, session2.size());
+		assertNotNull(session2.getPage(2));
+		assertEquals(5, strategy.getTotalBytes());
+
+		session1.storePage(3, PAGE1);
+		strategy.evict(session1);
+		assertEquals(2, session1.size());
+		assertEquals(4, strategy.getTotalBytes());
+
+		// the pages of an expired session are released
+		session2.valueUnbound(null);
+		assertEquals(2, strategy.getTotalBytes());
+		assertEquals(2, strategy.getEvictedPages());
+		assertEquals(PAGE1.length + PAGE2.length, strategy.getEvictedBytes());
 	}
 }
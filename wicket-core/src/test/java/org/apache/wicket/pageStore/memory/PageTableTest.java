@@ -55,4 +55,27 @@ public class PageTableTest
 		// index: 1, 3
 		assertEquals(Integer.valueOf(3), pageTable.getOldest());
 	}
+
+	/***/
+	@Test
+	public void sizeInBytes()
+	{
+		PageTable pageTable = new PageTable();
+		assertEquals(0, pageTable.getSizeInBytes());
+
+		pageTable.storePage(1, data);
+		pageTable.storePage(2, new byte[] { 1, 2, 3 });
+		assertEquals(4, pageTable.getSizeInBytes());
+
+		// replaced
+		pageTable.storePage(2, new byte[] { 1, 2 });
+		assertEquals(3, pageTable.getSizeInBytes());
+
+		pageTable.removePage(1);
+		pageTable.removePage(3);
+		assertEquals(2, pageTable.getSizeInBytes());
+
+		pageTable.clear();
+		assertEquals(0, pageTable.getSizeInBytes());
+	}
 }
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import java.util.List;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.protocol.http.IRequestLogger.RequestData;
+import org.apache.wicket.protocol.http.IRequestLogger.SessionData;
+import org.apache.wicket.request.handler.PageProvider;
+import org.apache.wicket.request.handler.RenderPageRequestHandler;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AbstractRequestLogger} and {@link LatencyHistogram}
+ */
+public class AbstractRequestLoggerTest extends WicketTestCase
+{
+	private static RequestData newRequest(final long timeTaken)
+	{
+		RequestData rd = new RequestData();
+		rd.setTimeTaken(timeTaken);
+		rd.setResponseTarget(new RenderPageRequestHandler(new PageProvider(MockPage.class)));
+		return rd;
+	}
+
+	/**
+	 * The window keeps the most recent requests in order, also when it is resized
+	 */
+	@Test
+	public void requestWindow()
+	{
+		tester.getApplication().getRequestLoggerSettings().setRequestsWindowSize(4);
+		AbstractRequestLogger logger = new TestRequestLogger();
+
+		assertEquals(0, logger.getAverageRequestTime());
+		for (int i = 1; i <= 6; i++)
+		{
+			logger.addRequest(newRequest(i * 10));
+		}
+
+		List<RequestData> requests = logger.getRequests();
+		assertEquals(4, requests.size());
+		assertEquals(30, requests.get(0).getTimeTaken().longValue());
+		assertEquals(60, requests.get(3).getTimeTaken().longValue());
+		assertEquals(45, logger.getAverageRequestTime());
+
+		tester.getApplication().getRequestLoggerSettings().setRequestsWindowSize(2);
+		logger.addRequest(newRequest(70));
+		requests = logger.getRequests();
+		assertEquals(2, requests.size());
+		assertEquals(60, requests.get(0).getTimeTaken().longValue());
+		assertEquals(70, requests.get(1).getTimeTaken().longValue());
+		assertEquals(65, logger.getAverageRequestTime());
+	}
+
+	/**
+	 * The request times are recorded per page class and per handler type
+	 */
+	@Test
+	public void latencies()
+	{
+		AbstractRequestLogger logger = new TestRequestLogger();
+		for (int i = 1; i <= 100; i++)
+		{
+			logger.addRequest(newRequest(i));
+		}
+
+		LatencyHistogram pageLatency = logger.getPageLatencies().get(MockPage.class.getName());
+		assertEquals(100, pageLatency.getCount());
+		assertEquals(50, pageLatency.getAverageTime());
+		assertEquals(100, pageLatency.getMaxTime());
+		assertEquals(64, pageLatency.getPercentile(50));
+		assertEquals(100, pageLatency.getPercentile(99));
+		assertEquals(1, pageLatency.getPercentile(0));
+
+		LatencyHistogram handlerLatency = logger.getHandlerLatencies().get(
+			RenderPageRequestHandler.class.getName());
+		assertEquals(100, handlerLatency.getCount());
+	}
+
+	private static class TestRequestLogger extends AbstractRequestLogger
+	{
+		@Override
+		protected void log(RequestData rd, SessionData sd)
+		{
+		}
+	}
+}
@@ -27,6 +27,7 @@ import java.io.StringWriter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.wicket.util.time.Time;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Matchers;
@@ -99,4 +100,19 @@ public class ServletWebResponseTest extends Assert
 		assertTrue(webResponse.isRedirect());
 
 	}
+
+	/**
+	 * Date headers are written in RFC 1123 format
+	 */
+	@Test
+	public void setDateHeader()
+	{
+		ServletWebRequest webRequest = mock(ServletWebRequest.class);
+		HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+
+		ServletWebResponse webResponse = new ServletWebResponse(webRequest, httpServletResponse);
+		webResponse.setDateHeader("Last-Modified", Time.millis(1000000000000L));
+
+		verify(httpServletResponse).setHeader("Last-Modified", "Sun, 09 Sep 2001 01:46:40 GMT");
+	}
 }
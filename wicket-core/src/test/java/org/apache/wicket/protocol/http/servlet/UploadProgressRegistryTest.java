@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+/**
+ * Tests for {@link UploadProgressRegistry}
+ */
+public class UploadProgressRegistryTest extends WicketTestCase
+{
+	/**
+	 * The uploads of different sessions are kept apart
+	 */
+	@Test
+	public void uploadsPerSession()
+	{
+		UploadProgressRegistry registry = new UploadProgressRegistry();
+		UploadInfo info1 = new UploadInfo(100);
+		UploadInfo info2 = new UploadInfo(100);
+		registry.put("session1", "3", info1);
+		registry.put("session2", "3", info2);
+
+		assertSame(info1, registry.get("session1", "3"));
+		assertSame(info2, registry.get("session2", "3"));
+		assertNull(registry.get("session1", "4"));
+
+		registry.remove("session1", "3");
+		assertNull(registry.get("session1", "3"));
+		assertEquals(1, registry.size());
+		assertFalse(registry.update("session1", "3", 10));
+	}
+
+	/**
+	 * The progress is published at most once per update interval, but always when complete
+	 */
+	@Test
+	public void throttledUpdates()
+	{
+		UploadProgressRegistry registry = new UploadProgressRegistry();
+		registry.setUpdateInterval(Duration.minutes(1));
+		UploadInfo info = new UploadInfo(100);
+		registry.put("session", "1", info);
+
+		assertTrue(registry.update("session", "1", 10));
+		assertEquals(0, info.getBytesUploaded());
+		assertTrue(registry.update("session", "1", 100));
+		assertEquals(100, info.getBytesUploaded());
+
+		registry.setUpdateInterval(Duration.NONE);
+		registry.update("session", "1", 50);
+		assertEquals(50, info.getBytesUploaded());
+	}
+
+	/**
+	 * Uploads without updates expire
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void expiry() throws Exception
+	{
+		UploadProgressRegistry registry = new UploadProgressRegistry();
+		registry.setExpiryTime(Duration.milliseconds(1));
+		registry.put("session", "1", new UploadInfo(100));
+		Thread.sleep(20);
+
+		assertNull(registry.get("session", "1"));
+		registry.put("session", "2", new UploadInfo(100));
+		assertEquals(1, registry.size());
+	}
+
+	/**
+	 * A stalled upload removed as expired is registered again by its next update
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void stalledUploadIsRegisteredAgain() throws Exception
+	{
+		UploadProgressRegistry registry = new UploadProgressRegistry();
+		registry.setExpiryTime(Duration.milliseconds(1));
+		registry.setUpdateInterval(Duration.NONE);
+		UploadInfo info = new UploadInfo(100);
+		registry.put("session", "1", info);
+		Thread.sleep(20);
+
+		// registering another upload removes the stalled one
+		registry.put("session", "2", new UploadInfo(100));
+		assertFalse(registry.update("session", "1", 10));
+
+		registry.setExpiryTime(Duration.minutes(1));
+		registry.update("session", "1", info, 20);
+		assertSame(info, registry.get("session", "1"));
+		assertEquals(20, info.getBytesUploaded());
+	}
+
+	/**
+	 * The request helpers use the registry of the application instead of the session
+	 */
+	@Test
+	public void requestHelpers()
+	{
+		HttpServletRequest request = tester.getRequest();
+		UploadInfo info = new UploadInfo(100);
+		MultipartServletWebRequestImpl.setUploadInfo(request, "1", info);
+
+		assertSame(info, MultipartServletWebRequestImpl.getUploadInfo(request, "1"));
+		assertSame(info,
+			UploadProgressRegistry.get(tester.getApplication()).get(
+				request.getSession(true).getId(), "1"));
+
+		MultipartServletWebRequestImpl.clearUploadInfo(request, "1");
+		assertNull(MultipartServletWebRequestImpl.getUploadInfo(request, "1"));
+	}
+}
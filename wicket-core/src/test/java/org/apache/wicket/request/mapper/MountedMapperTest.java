@@ -16,10 +16,13 @@
  */
 package org.apache.wicket.request.mapper;
 
+import java.util.Arrays;
+
 import org.apache.wicket.MockPage;
 import org.apache.wicket.markup.html.link.ILinkListener;
 import org.apache.wicket.request.IRequestHandler;
 import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestableComponent;
 import org.apache.wicket.request.component.IRequestablePage;
@@ -692,4 +695,25 @@ public class MountedMapperTest extends AbstractMapperTest
 		Url url = optionPlaceholderEncoder.mapHandler(handler);
 		assertEquals("some/path/p2/p3/i1/i2?a=b&b=c", url.toString());
 	}
+
+	/**
+	 * Mappers are indexed by the fixed part of their mount path and their page class, unless they
+	 * override how requests are matched.
+	 */
+	public void testIndexable()
+	{
+		assertTrue(Arrays.equals(new String[] { "some" }, placeholderEncoder.getMountPrefix()));
+		assertEquals(MockPage.class, placeholderEncoder.getHandlerKey());
+
+		MountedMapper custom = new MountedMapper("/some/mount/path", MockPage.class)
+		{
+			@Override
+			public IRequestHandler mapRequest(Request request)
+			{
+				return null;
+			}
+		};
+		assertEquals(0, custom.getMountPrefix().length);
+		assertNull(custom.getHandlerKey());
+	}
 }
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.util.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PackageResourceCache} and the conditional, gzipped and partial responses of
+ * {@link PackageResource}
+ */
+public class PackageResourceCacheTest extends WicketTestCase
+{
+	private static final AtomicInteger processed = new AtomicInteger();
+
+	private static PackageResource newResource()
+	{
+		return new PackageResource(AbstractDefaultAjaxBehavior.class, "wicket-ajax.js", null,
+			null, null)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected byte[] processResponse(Attributes attributes, byte[] original)
+			{
+				processed.incrementAndGet();
+				return original;
+			}
+		};
+	}
+
+	/**
+	 * The resource is read and processed only once
+	 */
+	@Test
+	public void processedDataIsCached()
+	{
+		processed.set(0);
+		tester.startResource(newResource());
+		byte[] first = tester.getLastResponse().getBinaryContent();
+		tester.startResource(newResource());
+		byte[] second = tester.getLastResponse().getBinaryContent();
+
+		assertEquals(1, processed.get());
+		assertTrue(first.length > 0);
+		assertTrue(Arrays.equals(first, second));
+		assertEquals(1, PackageResourceCache.get(tester.getApplication()).size());
+		assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+	}
+
+	/**
+	 * The gzipped data is served if the client accepts it
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void gzip() throws Exception
+	{
+		tester.startResource(newResource());
+		byte[] plain = tester.getLastResponse().getBinaryContent();
+		String etag = tester.getLastResponse().getHeader("ETag");
+
+		tester.addRequestHeader("Accept-Encoding", "gzip, deflate");
+		tester.startResource(newResource());
+		assertEquals("gzip", tester.getLastResponse().getHeader("Content-Encoding"));
+		byte[] gzipped = tester.getLastResponse().getBinaryContent();
+		assertTrue(gzipped.length < plain.length);
+		assertFalse(etag.equals(tester.getLastResponse().getHeader("ETag")));
+
+		byte[] unzipped = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(
+			gzipped)));
+		assertTrue(Arrays.equals(plain, unzipped));
+
+		tester.addRequestHeader("Accept-Encoding", "gzip;q=0");
+		tester.startResource(newResource());
+		assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+	}
+
+	/**
+	 * The data isn't sent again if the client's copy has the same entity tag
+	 */
+	@Test
+	public void etag()
+	{
+		tester.startResource(newResource());
+		String etag = tester.getLastResponse().getHeader("ETag");
+		assertNotNull(etag);
+
+		tester.addRequestHeader("If-None-Match", etag);
+		tester.startResource(newResource());
+		assertEquals(304, tester.getLastResponse().getStatus());
+		assertEquals(0, tester.getLastResponse().getBinaryContent().length);
+	}
+
+	/**
+	 * A single byte range is served as partial content
+	 */
+	@Test
+	public void range()
+	{
+		tester.startResource(newResource());
+		byte[] plain = tester.getLastResponse().getBinaryContent();
+
+		tester.addRequestHeader("Range", "bytes=10-19");
+		tester.startResource(newResource());
+		assertEquals(206, tester.getLastResponse().getStatus());
+		assertEquals("bytes 10-19/" + plain.length,
+			tester.getLastResponse().getHeader("Content-Range"));
+		byte[] part = tester.getLastResponse().getBinaryContent();
+		assertEquals(10, part.length);
+		for (int i = 0; i < part.length; i++)
+		{
+			assertEquals(plain[10 + i], part[i]);
+		}
+	}
+
+	/**
+	 * An unsatisfiable range is answered with the length of the data
+	 */
+	@Test
+	public void unsatisfiableRange()
+	{
+		tester.startResource(newResource());
+		byte[] plain = tester.getLastResponse().getBinaryContent();
+
+		tester.addRequestHeader("Range", "bytes=" + plain.length + "-");
+		tester.startResource(newResource());
+		assertEquals(416, tester.getLastResponse().getStatus());
+		assertEquals("bytes */" + plain.length,
+			tester.getLastResponse().getHeader("Content-Range"));
+		assertEquals(0, tester.getLastResponse().getBinaryContent().length);
+	}
+
+	/**
+	 * Data which isn't cached is gzipped only when asked for
+	 */
+	@Test
+	public void uncachedDataIsGzippedLazily()
+	{
+		PackageResourceCache cache = new PackageResourceCache(PackageResourceCache.DEFAULT_MAX_SIZE,
+			true);
+		byte[] data = new byte[1000];
+		Arrays.fill(data, (byte)'a');
+
+		PackageResourceCache.Entry entry = cache.newEntry(data, "text/css");
+		assertTrue(entry.isCompressible());
+		assertTrue(entry.getGzippedData().length < data.length);
+		assertTrue(entry.getGzippedData() == entry.getGzippedData());
+
+		assertFalse(cache.newEntry(data, "image/png").isCompressible());
+		assertNull(cache.newEntry(data, "image/png").getGzippedData());
+		assertFalse(cache.newEntry(new byte[10], "text/css").isCompressible());
+	}
+
+	/**
+	 * Parsing of the Range header
+	 */
+	@Test
+	public void parseRange()
+	{
+		assertTrue(Arrays.equals(new long[] { 0, 9 }, PackageResource.parseRange("bytes=0-9", 100)));
+		assertTrue(Arrays.equals(new long[] { 90, 99 },
+			PackageResource.parseRange("bytes=90-", 100)));
+		assertTrue(Arrays.equals(new long[] { 80, 99 },
+			PackageResource.parseRange("bytes=-20", 100)));
+		assertTrue(Arrays.equals(new long[] { 50, 99 },
+			PackageResource.parseRange("bytes=50-500", 100)));
+		assertNull(PackageResource.parseRange("bytes=100-", 100));
+		assertEquals(0, PackageResource.parseRange("bytes=0-1,5-6", 100).length);
+		assertEquals(0, PackageResource.parseRange("items=0-1", 100).length);
+		assertEquals(0, PackageResource.parseRange("bytes=x-y", 100).length);
+	}
+}
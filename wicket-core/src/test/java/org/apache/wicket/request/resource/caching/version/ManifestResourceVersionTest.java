@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource.caching.version;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.request.resource.PackageResource;
+import org.apache.wicket.request.resource.PackageResourceReferenceTest;
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.util.file.Files;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ManifestResourceVersion} and {@link ResourceVersionManifestGenerator}
+ */
+public class ManifestResourceVersionTest extends WicketTestCase
+{
+	private static final String PATH = "org/apache/wicket/request/resource/resource_var_style_en.txt";
+
+	private final AtomicInteger fallbackCalls = new AtomicInteger();
+
+	private final IResourceVersion fallback = new IResourceVersion()
+	{
+		public String getVersion(IStaticCacheableResource resource)
+		{
+			fallbackCalls.incrementAndGet();
+			return "fallback";
+		}
+	};
+
+	private PackageResource newResource()
+	{
+		return new PackageResource(PackageResourceReferenceTest.class, "resource.txt",
+			new Locale("en"), "style", "var")
+		{
+			private static final long serialVersionUID = 1L;
+		};
+	}
+
+	/**
+	 * The versions in the manifest are used without asking the fallback
+	 */
+	@Test
+	public void manifestHit()
+	{
+		Map<String, String> versions = new HashMap<String, String>();
+		versions.put(PATH, "ABCDEF");
+		ManifestResourceVersion resourceVersion = new ManifestResourceVersion(versions, fallback);
+
+		assertEquals("ABCDEF", resourceVersion.getVersion(newResource()));
+		assertEquals(0, fallbackCalls.get());
+	}
+
+	/**
+	 * The fallback provides the versions of the resources not in the manifest
+	 */
+	@Test
+	public void fallback()
+	{
+		Map<String, String> versions = Collections.singletonMap("org/apache/other.txt", "ABCDEF");
+		ManifestResourceVersion resourceVersion = new ManifestResourceVersion(versions, fallback);
+
+		assertEquals("fallback", resourceVersion.getVersion(newResource()));
+		assertEquals(1, fallbackCalls.get());
+	}
+
+	/**
+	 * A {@link CachingResourceVersion} around the manifest looks up each resource once
+	 */
+	@Test
+	public void cached()
+	{
+		final AtomicInteger manifestCalls = new AtomicInteger();
+		Map<String, String> versions = new HashMap<String, String>();
+		versions.put(PATH, "ABCDEF");
+		IResourceVersion resourceVersion = new CachingResourceVersion(new ManifestResourceVersion(
+			versions, fallback)
+		{
+			@Override
+			public String getVersion(IStaticCacheableResource resource)
+			{
+				manifestCalls.incrementAndGet();
+				return super.getVersion(resource);
+			}
+		});
+
+		assertEquals("ABCDEF", resourceVersion.getVersion(newResource()));
+		assertEquals("ABCDEF", resourceVersion.getVersion(newResource()));
+		assertEquals(1, manifestCalls.get());
+	}
+
+	/**
+	 * The path of a located resource includes variation, style and locale
+	 */
+	@Test
+	public void path()
+	{
+		assertEquals("org/apache/a.js", ManifestResourceVersion.getPath("/org/apache/a.js", null,
+			null, null));
+		assertEquals("org/apache/a_var_style_en_US.js", ManifestResourceVersion.getPath(
+			"org/apache/a.js", Locale.US, "style", "var"));
+		assertEquals("org/apache.x/a_de", ManifestResourceVersion.getPath("org/apache.x/a",
+			Locale.GERMAN, null, null));
+	}
+
+	/**
+	 * The generated manifest contains the hashes of the resources, not of the classes
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void generate() throws Exception
+	{
+		File folder = new File(System.getProperty("java.io.tmpdir"), "ManifestResourceVersionTest");
+		Files.removeFolder(folder);
+		try
+		{
+			File resource = new File(folder, "org/apache/a b.txt");
+			resource.getParentFile().mkdirs();
+			Files.writeTo(resource, new ByteArrayInputStream("abc".getBytes("UTF-8")));
+			Files.writeTo(new File(folder, "org/apache/A.class"), new ByteArrayInputStream(
+				new byte[] { 1, 2, 3 }));
+
+			ResourceVersionManifestGenerator generator = new ResourceVersionManifestGenerator();
+			SortedMap<String, String> versions = generator.scan(folder);
+			assertEquals(1, versions.size());
+			assertEquals("900150983CD24FB0D6963F7D28E17F72", versions.get("org/apache/a b.txt"));
+
+			File manifest = new File(folder, ManifestResourceVersion.MANIFEST_NAME);
+			generator.write(versions, manifest);
+			Map<String, String> loaded = ManifestResourceVersion.loadManifests(Collections.singletonList(
+				manifest.toURI().toURL()).iterator());
+			assertEquals(versions, loaded);
+
+			// the manifest is not part of the resources
+			assertEquals(versions, generator.scan(folder));
+		}
+		finally
+		{
+			Files.removeFolder(folder);
+		}
+	}
+}
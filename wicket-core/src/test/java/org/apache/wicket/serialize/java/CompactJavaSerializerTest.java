@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import org.apache.wicket.MockPageWithLinkAndComponent;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.link.Link;
+
+/**
+ * Tests for {@link CompactJavaSerializer}
+ */
+public class CompactJavaSerializerTest extends WicketTestCase
+{
+	private static MockPageWithLinkAndComponent newPage()
+	{
+		MockPageWithLinkAndComponent page = new MockPageWithLinkAndComponent();
+		page.add(new Link<Void>(MockPageWithLinkAndComponent.LINK_ID)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void onClick()
+			{
+			}
+		});
+		page.add(new Label(MockPageWithLinkAndComponent.COMPONENT_ID, "label"));
+		return page;
+	}
+
+	/**
+	 * A page written by the serializer is read back and is smaller than the one written by
+	 * {@link JavaSerializer}
+	 */
+	public void testRoundTrip()
+	{
+		CompactJavaSerializer serializer = new CompactJavaSerializer(tester.getApplication()
+			.getApplicationKey());
+		MockPageWithLinkAndComponent page = newPage();
+
+		byte[] compact = serializer.serialize(page);
+		byte[] java = new JavaSerializer(tester.getApplication().getApplicationKey()).serialize(page);
+
+		assertTrue(compact.length < java.length);
+
+		MockPageWithLinkAndComponent deserialized = (MockPageWithLinkAndComponent)serializer.deserialize(compact);
+		assertEquals(page.getPageId(), deserialized.getPageId());
+		assertEquals("label",
+			deserialized.get(MockPageWithLinkAndComponent.COMPONENT_ID).getDefaultModelObject());
+
+		// the second page reuses the descriptors of the first one
+		assertEquals(compact.length, serializer.serialize(newPage()).length);
+	}
+
+	/**
+	 * The data written by another serializer instance cannot be read
+	 */
+	public void testForeignData()
+	{
+		String key = tester.getApplication().getApplicationKey();
+		byte[] data = new CompactJavaSerializer(key).serialize(newPage());
+
+		assertNull(new CompactJavaSerializer(key).deserialize(data));
+	}
+}
@@ -19,6 +19,7 @@ package org.apache.wicket.util.lang;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
@@ -303,6 +304,46 @@ public class PropertyResolverTest extends WicketTestCase
 		assertSame(address, address2);
 	}
 
+	/**
+	 * The getters resolved for an expression are used again only for the same classes
+	 * 
+	 * @throws Exception
+	 */
+	public void testResolvedExpressionWithOtherClasses() throws Exception
+	{
+		person.setCountry(new Country2("a", new Country("b")));
+		for (int i = 0; i < 3; i++)
+		{
+			assertEquals("a", PropertyResolver.getValue("country.name", person));
+			assertEquals("b", PropertyResolver.getValue("country.subCountry.name", person));
+		}
+
+		person.setCountry(new Country("c"));
+		assertEquals("c", PropertyResolver.getValue("country.name", person));
+		try
+		{
+			PropertyResolver.getValue("country.subCountry.name", person);
+			fail("Country has no subCountry");
+		}
+		catch (WicketRuntimeException e)
+		{
+			// expected
+		}
+
+		person.setCountry(null);
+		assertNull(PropertyResolver.getValue("country.subCountry.name", person));
+		assertEquals(Country.class, PropertyResolver.getPropertyClass("country", person));
+		assertEquals(String.class,
+			PropertyResolver.getPropertyClass("country.name", Person.class));
+
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("list", Arrays.asList("x", "y"));
+		assertEquals("y", PropertyResolver.getValue("list[1]", map));
+		map.put("list", new String[] { "z", "w" });
+		assertEquals("w", PropertyResolver.getValue("list[1]", map));
+		assertEquals(2, PropertyResolver.getValue("list.length", map));
+	}
+
 	/**
 	 * @throws Exception
 	 */
@@ -59,6 +59,10 @@ import org.slf4j.LoggerFactory;
  * </code>
  * </pre>
  * 
+ * The progress of the uploads is kept in the application wide
+ * {@link org.apache.wicket.protocol.http.servlet.UploadProgressRegistry}, which can be configured
+ * e.g. with a longer update interval.
+ * 
  * For customizing starting text see {@link #RESOURCE_STARTING}.
  * 
  * Implementation detail: Despite being located in an Ajax package, the progress communication is
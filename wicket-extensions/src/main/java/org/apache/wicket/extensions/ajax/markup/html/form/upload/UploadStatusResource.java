@@ -17,20 +17,22 @@
 package org.apache.wicket.extensions.ajax.markup.html.form.upload;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.Component;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.model.StringResourceModel;
-import org.apache.wicket.protocol.http.servlet.MultipartServletWebRequestImpl;
 import org.apache.wicket.protocol.http.servlet.UploadInfo;
+import org.apache.wicket.protocol.http.servlet.UploadProgressRegistry;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.AbstractResource;
 
 /**
  * A resource that prints out basic statistics about the current upload. This resource is used to
  * feed the progress bar information by the progress bar javascript which requests this resource
- * through ajax.
+ * through ajax. The statistics are read from the {@link UploadProgressRegistry}, the session is not
+ * accessed.
  * 
  * For customizing status text see {@link #RESOURCE_STATUS}.
  * 
@@ -89,8 +91,13 @@ class UploadStatusResource extends AbstractResource
 			.getContainerRequest();
 
 		final String upload = req.getParameter(UPLOAD_PARAMETER);
+		final HttpSession session = req.getSession(false);
 
-		UploadInfo info = MultipartServletWebRequestImpl.getUploadInfo(req, upload);
+		UploadInfo info = null;
+		if ((session != null) && (upload != null))
+		{
+			info = UploadProgressRegistry.get(Application.get()).get(session.getId(), upload);
+		}
 
 		String status = null;
 		if ((info == null) || (info.getTotalBytes() < 1))
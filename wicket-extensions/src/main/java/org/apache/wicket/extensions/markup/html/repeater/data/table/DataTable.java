@@ -27,6 +27,7 @@ import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.navigation.paging.IPageableItems;
 import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.markup.repeater.AbstractPageableView;
 import org.apache.wicket.markup.repeater.IItemReuseStrategy;
 import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.markup.repeater.RefreshingView;
@@ -34,6 +35,7 @@ import org.apache.wicket.markup.repeater.RepeatingView;
 import org.apache.wicket.markup.repeater.data.IDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.time.Duration;
 import org.apache.wicket.util.visit.IVisit;
 import org.apache.wicket.util.visit.IVisitor;
 
@@ -338,6 +340,32 @@ public class DataTable<T> extends Panel implements IPageableItems
 		return datagrid.getItemCount();
 	}
 
+	/**
+	 * Sets how long the number of rows is kept across requests
+	 * 
+	 * @see AbstractPageableView#setItemCountCacheDuration(Duration)
+	 * 
+	 * @param duration
+	 *            the time the number of rows is kept, {@code null} to count the rows in every
+	 *            request
+	 * @return this for chaining
+	 */
+	public final DataTable<T> setItemCountCacheDuration(final Duration duration)
+	{
+		datagrid.setItemCountCacheDuration(duration);
+		return this;
+	}
+
+	/**
+	 * Forgets the number of rows kept across requests, e.g. after rows have been added or removed
+	 * 
+	 * @see AbstractPageableView#clearItemCountCache()
+	 */
+	public final void clearItemCountCache()
+	{
+		datagrid.clearItemCountCache();
+	}
+
 	private void addToolbar(final AbstractToolbar toolbar, final ToolbarsContainer container)
 	{
 		if (toolbar == null)
@@ -18,15 +18,20 @@ package org.apache.wicket.proxy;
 
 import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.cglib.core.DefaultNamingPolicy;
+import net.sf.cglib.core.NamingPolicy;
 import net.sf.cglib.core.Predicate;
+import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.proxy.Enhancer;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
@@ -34,6 +39,7 @@ import net.sf.cglib.proxy.MethodProxy;
 import org.apache.wicket.IClusterable;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.util.collections.ClassMetaCache;
 import org.apache.wicket.util.lang.WicketObjects;
 
 /**
@@ -45,7 +51,8 @@ import org.apache.wicket.util.lang.WicketObjects;
  * forwarded.
  * <p>
  * This factory creates two kinds of proxies: A standard dynamic proxy when the specified type is an
- * interface, and a CGLib proxy when the specified type is a concrete class.
+ * interface, and a CGLib proxy when the specified type is a concrete class. The proxy class of a
+ * type is generated only once, the following proxies of the type are just new instances of it.
  * <p>
  * The general use case for such a proxy is to represent a dependency that should not be serialized
  * with a wicket page or {@link IModel}. The solution is to serialize the proxy and the
@@ -110,6 +117,26 @@ public class LazyInitProxyFactory
 		Float.class, double.class, Double.class, char.class, Character.class, boolean.class,
 		Boolean.class);
 
+	/**
+	 * The proxy classes of the interfaces, per class loader. The proxy classes are referenced
+	 * weakly, so they don't keep the class loader of the application from being garbage collected
+	 * after a redeployment. They are kept as long as any of their proxies is.
+	 */
+	private static final ClassMetaCache<WeakReference<InterfaceProxyType>> interfaceProxyTypes = new ClassMetaCache<WeakReference<InterfaceProxyType>>();
+
+	/** The proxy classes of the concrete classes, per class loader, referenced weakly too */
+	private static final ClassMetaCache<WeakReference<ClassProxyType>> classProxyTypes = new ClassMetaCache<WeakReference<ClassProxyType>>();
+
+	private static final NamingPolicy NAMING_POLICY = new DefaultNamingPolicy()
+	{
+		@Override
+		public String getClassName(final String prefix, final String source, final Object key,
+			final Predicate names)
+		{
+			return super.getClassName("WICKET_" + prefix, source, key, names);
+		}
+	};
+
 	/**
 	 * Create a lazy init proxy for the specified type. The target object will be located using the
 	 * provided locator upon first method invocation.
@@ -132,13 +159,139 @@ public class LazyInitProxyFactory
 		}
 		else if (type.isInterface())
 		{
-			JdkHandler handler = new JdkHandler(type, locator);
+			InterfaceProxyType proxyType = dereference(interfaceProxyTypes.get(type));
+			if (proxyType == null)
+			{
+				// a race creates the proxy type twice, which is harmless
+				proxyType = new InterfaceProxyType(type);
+				interfaceProxyTypes.put(type, new WeakReference<InterfaceProxyType>(proxyType));
+			}
+			return proxyType.newInstance(new JdkHandler(type, locator, proxyType));
+		}
+		else
+		{
+			ClassProxyType proxyType = dereference(classProxyTypes.get(type));
+			if (proxyType == null)
+			{
+				// a race creates the proxy type twice, which is harmless
+				proxyType = new ClassProxyType(type);
+				classProxyTypes.put(type, new WeakReference<ClassProxyType>(proxyType));
+			}
+			return proxyType.newInstance(new CGLibInterceptor(type, locator, proxyType));
+		}
+	}
+
+	/**
+	 * @param <T>
+	 * @param reference
+	 * @return the referenced object or {@code null} if there is none
+	 */
+	private static <T> T dereference(final WeakReference<T> reference)
+	{
+		return reference != null ? reference.get() : null;
+	}
+
+	/**
+	 * The ways the handlers dispatch the invocation of a proxy method
+	 */
+	private static enum Dispatch {
+		/** swallow the call */
+		FINALIZE,
+
+		/** call equals() of the handler */
+		EQUALS,
+
+		/** call hashCode() of the handler */
+		HASHCODE,
+
+		/** call toString() of the handler */
+		TOSTRING,
+
+		/** call writeReplace() of the handler */
+		WRITE_REPLACE,
+
+		/** call getObjectLocator() of the handler */
+		OBJECT_LOCATOR,
+
+		/** forward the call to the target */
+		TARGET;
+
+		/**
+		 * @param method
+		 * @return the way to dispatch the invocation of the method
+		 */
+		private static Dispatch of(final Method method)
+		{
+			if (isFinalizeMethod(method))
+			{
+				return FINALIZE;
+			}
+			else if (isEqualsMethod(method))
+			{
+				return EQUALS;
+			}
+			else if (isHashCodeMethod(method))
+			{
+				return HASHCODE;
+			}
+			else if (isToStringMethod(method))
+			{
+				return TOSTRING;
+			}
+			else if (isWriteReplaceMethod(method))
+			{
+				return WRITE_REPLACE;
+			}
+			else if (method.getDeclaringClass().equals(ILazyInitProxy.class))
+			{
+				return OBJECT_LOCATOR;
+			}
+			return TARGET;
+		}
+	}
+
+	/**
+	 * The generated proxy class of a type. The proxy classes are generated once per type and are
+	 * instantiated with a cached constructor. The way each method of the proxy class is dispatched
+	 * is cached too, instead of inspecting the method on every invocation. The handlers of the
+	 * proxies reference their proxy type, so it stays cached as long as they are used.
+	 */
+	private static abstract class ProxyType
+	{
+		private final ConcurrentHashMap<Method, Dispatch> dispatches = new ConcurrentHashMap<Method, Dispatch>();
+
+		/**
+		 * @param method
+		 * @return the way to dispatch the invocation of the method
+		 */
+		private Dispatch getDispatch(final Method method)
+		{
+			Dispatch dispatch = dispatches.get(method);
+			if (dispatch == null)
+			{
+				dispatch = Dispatch.of(method);
+				dispatches.put(method, dispatch);
+			}
+			return dispatch;
+		}
+	}
 
+	/**
+	 * The JDK dynamic proxy class of an interface
+	 */
+	private static final class InterfaceProxyType extends ProxyType
+	{
+		private final Constructor<?> constructor;
+
+		private InterfaceProxyType(final Class<?> type)
+		{
+			Class<?>[] interfaces = new Class[] { type, Serializable.class, ILazyInitProxy.class,
+					IWriteReplace.class };
+			Class<?> proxyClass;
 			try
 			{
-				return Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(),
-					new Class[] { type, Serializable.class, ILazyInitProxy.class,
-							IWriteReplace.class }, handler);
+				proxyClass = Proxy.getProxyClass(Thread.currentThread().getContextClassLoader(),
+					interfaces);
 			}
 			catch (IllegalArgumentException e)
 			{
@@ -148,32 +301,94 @@ public class LazyInitProxyFactory
 				 * happens, we can try and fall back to the classloader (current) that actually
 				 * loaded this class.
 				 */
-				return Proxy.newProxyInstance(LazyInitProxyFactory.class.getClassLoader(),
-					new Class[] { type, Serializable.class, ILazyInitProxy.class,
-							IWriteReplace.class }, handler);
+				proxyClass = Proxy.getProxyClass(LazyInitProxyFactory.class.getClassLoader(),
+					interfaces);
 			}
 
+			try
+			{
+				constructor = proxyClass.getConstructor(InvocationHandler.class);
+			}
+			catch (NoSuchMethodException e)
+			{
+				throw new WicketRuntimeException("Unable to find the constructor of proxy class " +
+					proxyClass.getName(), e);
+			}
 		}
-		else
+
+		private Object newInstance(final JdkHandler handler)
 		{
-			CGLibInterceptor handler = new CGLibInterceptor(type, locator);
+			try
+			{
+				return constructor.newInstance(handler);
+			}
+			catch (InvocationTargetException e)
+			{
+				throw new WicketRuntimeException("Unable to create a proxy of " +
+					handler.typeName, e.getTargetException());
+			}
+			catch (Exception e)
+			{
+				throw new WicketRuntimeException("Unable to create a proxy of " +
+					handler.typeName, e);
+			}
+		}
+	}
+
+	/**
+	 * The CGLib proxy class of a concrete class. Like {@link Enhancer#create()} the proxies are
+	 * created by registering the callback for the current thread and invoking the constructor of
+	 * the proxy class, so the constructor of the proxied class runs once per proxy.
+	 */
+	private static final class ClassProxyType extends ProxyType
+	{
+		private final Class<?> proxyClass;
 
+		private final Constructor<?> constructor;
+
+		private ClassProxyType(final Class<?> type)
+		{
 			Enhancer e = new Enhancer();
 			e.setInterfaces(new Class[] { Serializable.class, ILazyInitProxy.class,
 					IWriteReplace.class });
 			e.setSuperclass(type);
-			e.setCallback(handler);
-			e.setNamingPolicy(new DefaultNamingPolicy()
+			e.setCallbackType(MethodInterceptor.class);
+			e.setNamingPolicy(NAMING_POLICY);
+			proxyClass = e.createClass();
+
+			try
 			{
-				@Override
-				public String getClassName(final String prefix, final String source,
-					final Object key, final Predicate names)
-				{
-					return super.getClassName("WICKET_" + prefix, source, key, names);
-				}
-			});
-
-			return e.create();
+				constructor = proxyClass.getDeclaredConstructor();
+				constructor.setAccessible(true);
+			}
+			catch (NoSuchMethodException e1)
+			{
+				throw new WicketRuntimeException("Unable to find the default constructor of " +
+					type.getName(), e1);
+			}
+		}
+
+		private Object newInstance(final CGLibInterceptor handler)
+		{
+			Enhancer.registerCallbacks(proxyClass, new Callback[] { handler });
+			try
+			{
+				return constructor.newInstance();
+			}
+			catch (InvocationTargetException e)
+			{
+				throw new WicketRuntimeException("Unable to create a proxy of " +
+					handler.typeName, e.getTargetException());
+			}
+			catch (Exception e)
+			{
+				throw new WicketRuntimeException("Unable to create a proxy of " +
+					handler.typeName, e);
+			}
+			finally
+			{
+				Enhancer.registerCallbacks(proxyClass, null);
+			}
 		}
 	}
 
@@ -262,20 +477,25 @@ public class LazyInitProxyFactory
 
 		private transient Object target;
 
+		private transient ProxyType proxyType;
+
 		/**
 		 * Constructor
 		 * 
 		 * @param type
 		 *            class of the object this proxy was created for
-		 * 
 		 * @param locator
 		 *            object locator used to locate the object this proxy represents
+		 * @param proxyType
+		 *            the proxy class caching the dispatch of its methods, may be {@code null}
 		 */
-		public CGLibInterceptor(final Class<?> type, final IProxyTargetLocator locator)
+		public CGLibInterceptor(final Class<?> type, final IProxyTargetLocator locator,
+			final ProxyType proxyType)
 		{
 			super();
 			typeName = type.getName();
 			this.locator = locator;
+			this.proxyType = proxyType;
 		}
 
 		/**
@@ -285,30 +505,23 @@ public class LazyInitProxyFactory
 		public Object intercept(final Object object, final Method method, final Object[] args,
 			final MethodProxy proxy) throws Throwable
 		{
-			if (isFinalizeMethod(method))
-			{
-				// swallow finalize call
-				return null;
-			}
-			else if (isEqualsMethod(method))
-			{
-				return (equals(args[0])) ? Boolean.TRUE : Boolean.FALSE;
-			}
-			else if (isHashCodeMethod(method))
-			{
-				return hashCode();
-			}
-			else if (isToStringMethod(method))
-			{
-				return toString();
-			}
-			else if (isWriteReplaceMethod(method))
+			switch (getDispatch(proxyType, method))
 			{
-				return writeReplace();
-			}
-			else if (method.getDeclaringClass().equals(ILazyInitProxy.class))
-			{
-				return getObjectLocator();
+				case FINALIZE :
+					// swallow finalize call
+					return null;
+				case EQUALS :
+					return (equals(args[0])) ? Boolean.TRUE : Boolean.FALSE;
+				case HASHCODE :
+					return hashCode();
+				case TOSTRING :
+					return toString();
+				case WRITE_REPLACE :
+					return writeReplace();
+				case OBJECT_LOCATOR :
+					return getObjectLocator();
+				default :
+					break;
 			}
 
 			if (target == null)
@@ -357,20 +570,25 @@ public class LazyInitProxyFactory
 
 		private transient Object target;
 
+		private transient ProxyType proxyType;
+
 		/**
 		 * Constructor
 		 * 
 		 * @param type
 		 *            class of object this handler will represent
-		 * 
 		 * @param locator
 		 *            object locator used to locate the object this proxy represents
+		 * @param proxyType
+		 *            the proxy class caching the dispatch of its methods, may be {@code null}
 		 */
-		public JdkHandler(final Class<?> type, final IProxyTargetLocator locator)
+		public JdkHandler(final Class<?> type, final IProxyTargetLocator locator,
+			final ProxyType proxyType)
 		{
 			super();
 			this.locator = locator;
 			typeName = type.getName();
+			this.proxyType = proxyType;
 		}
 
 		/**
@@ -380,35 +598,27 @@ public class LazyInitProxyFactory
 		public Object invoke(final Object proxy, final Method method, final Object[] args)
 			throws Throwable
 		{
-			if (isFinalizeMethod(method))
-			{
-				// swallow finalize call
-				return null;
-			}
-			else if (isEqualsMethod(method))
+			switch (getDispatch(proxyType, method))
 			{
-				return (equals(args[0])) ? Boolean.TRUE : Boolean.FALSE;
-			}
-			else if (isHashCodeMethod(method))
-			{
-				return hashCode();
-			}
-			else if (isToStringMethod(method))
-			{
-				return toString();
-			}
-			else if (method.getDeclaringClass().equals(ILazyInitProxy.class))
-			{
-				return getObjectLocator();
-			}
-			else if (isWriteReplaceMethod(method))
-			{
-				return writeReplace();
+				case FINALIZE :
+					// swallow finalize call
+					return null;
+				case EQUALS :
+					return (equals(args[0])) ? Boolean.TRUE : Boolean.FALSE;
+				case HASHCODE :
+					return hashCode();
+				case TOSTRING :
+					return toString();
+				case OBJECT_LOCATOR :
+					return getObjectLocator();
+				case WRITE_REPLACE :
+					return writeReplace();
+				default :
+					break;
 			}
 
 			if (target == null)
 			{
-
 				target = locator.locateProxyTarget();
 			}
 			try
@@ -438,6 +648,17 @@ public class LazyInitProxyFactory
 		}
 	}
 
+	/**
+	 * @param proxyType
+	 *            the proxy class caching the dispatch of its methods, may be {@code null}
+	 * @param method
+	 * @return the way to dispatch the invocation of the method
+	 */
+	private static Dispatch getDispatch(final ProxyType proxyType, final Method method)
+	{
+		return proxyType != null ? proxyType.getDispatch(method) : Dispatch.of(method);
+	}
+
 	/**
 	 * Checks if the method is derived from Object.equals()
 	 * 
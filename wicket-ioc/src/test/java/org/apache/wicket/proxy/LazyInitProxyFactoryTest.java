@@ -173,6 +173,80 @@ public class LazyInitProxyFactoryTest extends TestCase
 		assertEquals(proxy2.getMessage(), "concrete");
 	}
 
+	/**
+	 * Tests the proxy classes are generated once per type, while every proxy has its own locator
+	 */
+	public void testProxyClassesAreCached()
+	{
+		IProxyTargetLocator otherInterfaceObjectLocator = new IProxyTargetLocator()
+		{
+			private static final long serialVersionUID = 1L;
+
+			public Object locateProxyTarget()
+			{
+				return new InterfaceObject("other interface");
+			}
+		};
+		IInterface interfaceProxy = (IInterface)LazyInitProxyFactory.createProxy(
+			IInterface.class, interfaceObjectLocator);
+		IInterface otherInterfaceProxy = (IInterface)LazyInitProxyFactory.createProxy(
+			IInterface.class, otherInterfaceObjectLocator);
+		assertSame(interfaceProxy.getClass(), otherInterfaceProxy.getClass());
+		assertEquals("interface", interfaceProxy.getMessage());
+		assertEquals("other interface", otherInterfaceProxy.getMessage());
+		assertSame(otherInterfaceObjectLocator,
+			((ILazyInitProxy)otherInterfaceProxy).getObjectLocator());
+
+		IProxyTargetLocator otherConcreteObjectLocator = new IProxyTargetLocator()
+		{
+			private static final long serialVersionUID = 1L;
+
+			public Object locateProxyTarget()
+			{
+				return new ConcreteObject("other concrete");
+			}
+		};
+		ConcreteObject concreteProxy = (ConcreteObject)LazyInitProxyFactory.createProxy(
+			ConcreteObject.class, concreteObjectLocator);
+		ConcreteObject otherConcreteProxy = (ConcreteObject)LazyInitProxyFactory.createProxy(
+			ConcreteObject.class, otherConcreteObjectLocator);
+		assertSame(concreteProxy.getClass(), otherConcreteProxy.getClass());
+		assertEquals("concrete", concreteProxy.getMessage());
+		assertEquals("other concrete", otherConcreteProxy.getMessage());
+		assertSame(otherConcreteObjectLocator,
+			((ILazyInitProxy)otherConcreteProxy).getObjectLocator());
+		assertFalse(concreteProxy.equals(otherConcreteProxy));
+	}
+
+	/**
+	 * Tests the constructor of the proxied class runs once per proxy, also when the proxy class is
+	 * cached
+	 */
+	public void testConstructorRunsOncePerProxy()
+	{
+		int constructed = CountingObject.constructed;
+		LazyInitProxyFactory.createProxy(CountingObject.class, concreteObjectLocator);
+		assertEquals(constructed + 1, CountingObject.constructed);
+		LazyInitProxyFactory.createProxy(CountingObject.class, concreteObjectLocator);
+		assertEquals(constructed + 2, CountingObject.constructed);
+	}
+
+	/**
+	 * Counts its instances
+	 */
+	public static class CountingObject
+	{
+		private static int constructed;
+
+		/**
+		 * Construct.
+		 */
+		public CountingObject()
+		{
+			constructed++;
+		}
+	}
+
 	/**
 	 * Tests String beans.
 	 */
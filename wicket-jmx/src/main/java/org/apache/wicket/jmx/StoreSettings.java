@@ -55,6 +55,11 @@ public class StoreSettings implements StoreSettingsMBean
 		return application.getStoreSettings().getAsynchronousQueueCapacity();
 	}
 
+	public int getAsynchronousWriterCount()
+	{
+		return application.getStoreSettings().getAsynchronousWriterCount();
+	}
+
 	public boolean isAsynchronous()
 	{
 		return application.getStoreSettings().isAsynchronous();
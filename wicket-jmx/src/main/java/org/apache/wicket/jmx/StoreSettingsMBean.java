@@ -48,6 +48,11 @@ public interface StoreSettingsMBean
 	 */
 	int getAsynchronousQueueCapacity();
 
+	/**
+	 * @return the number of threads used to store the pages asynchronously
+	 */
+	int getAsynchronousWriterCount();
+
 	/**
 	 * @return {@code true} when the HTTP worker thread doesn't wait for the storing of the page's
 	 *         bytes in {@link IDataStore}
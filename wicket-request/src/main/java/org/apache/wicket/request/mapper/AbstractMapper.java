@@ -227,4 +227,23 @@ public abstract class AbstractMapper implements IRequestMapper
 		return res;
 	}
 
+	/**
+	 * Returns the leading segments without placeholders, e.g. <code>[foo, bar]</code> for
+	 * <code>/foo/bar/${baz}/qux</code>.
+	 * 
+	 * @param segments
+	 * @return the fixed segments at the beginning of the segments
+	 */
+	protected String[] getFixedPrefix(final String[] segments)
+	{
+		int length = 0;
+		while (length < segments.length && getPlaceholder(segments[length]) == null &&
+			getOptionalPlaceholder(segments[length]) == null)
+		{
+			length++;
+		}
+		String[] prefix = new String[length];
+		System.arraycopy(segments, 0, prefix, 0, length);
+		return prefix;
+	}
 }
\ No newline at end of file
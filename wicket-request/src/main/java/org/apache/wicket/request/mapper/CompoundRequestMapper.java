@@ -18,10 +18,13 @@ package org.apache.wicket.request.mapper;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.wicket.request.IRequestHandler;
@@ -34,6 +37,10 @@ import org.apache.wicket.request.Url;
  * Thread safe compound {@link IRequestMapper}. The mappers are searched depending on their
  * compatibility score and the orders they were registered. If two or more {@link IRequestMapper}s
  * have the same compatibility score, the last registered mapper has highest priority.
+ * <p>
+ * Mappers implementing {@link IIndexableRequestMapper} are indexed by their mount prefix and by
+ * the key of the request handlers they can map, so only the mappers which can possibly map a
+ * request or a request handler are asked.
  * 
  * @author igor.vaynberg
  * @author Matej Knopp
@@ -47,16 +54,23 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	{
 		private final IRequestMapper mapper;
 		private final int compatibilityScore;
+		private final int order;
 
-		public MapperWithScore(final IRequestMapper mapper, final int compatibilityScore)
+		public MapperWithScore(final IRequestMapper mapper, final int compatibilityScore,
+			final int order)
 		{
 			this.mapper = mapper;
 			this.compatibilityScore = compatibilityScore;
+			this.order = order;
 		}
 
 		public int compareTo(final MapperWithScore o)
 		{
-			return o.compatibilityScore - compatibilityScore;
+			if (o.compatibilityScore != compatibilityScore)
+			{
+				return o.compatibilityScore < compatibilityScore ? -1 : 1;
+			}
+			return order - o.order;
 		}
 
 		public IRequestMapper getMapper()
@@ -74,8 +88,159 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 		}
 	}
 
+	/**
+	 * A mapper and its position in the list of mappers
+	 */
+	private static class IndexEntry
+	{
+		private final IRequestMapper mapper;
+		private final int order;
+
+		private IndexEntry(final IRequestMapper mapper, final int order)
+		{
+			this.mapper = mapper;
+			this.order = order;
+		}
+	}
+
+	/**
+	 * A node of the tree of mount prefixes. Holds the mappers whose prefix ends at this node.
+	 */
+	private static class PrefixNode
+	{
+		private final Map<String, PrefixNode> children = new HashMap<String, PrefixNode>();
+		private final List<IndexEntry> entries = new ArrayList<IndexEntry>();
+
+		private PrefixNode getChild(final String segment)
+		{
+			PrefixNode child = children.get(segment);
+			if (child == null)
+			{
+				child = new PrefixNode();
+				children.put(segment, child);
+			}
+			return child;
+		}
+	}
+
+	/**
+	 * Immutable index of the mappers, built from the list of the mappers when needed
+	 */
+	private static class MapperIndex
+	{
+		/** all the mappers */
+		private final IndexEntry[] all;
+
+		/** the root holds the mappers which can map any URL */
+		private final PrefixNode root = new PrefixNode();
+
+		/** the mappers which can map a request handler, by the key of the handler */
+		private final Map<Object, IRequestMapper[]> handlerMappers = new HashMap<Object, IRequestMapper[]>();
+
+		/** the mappers which can map request handlers with any key */
+		private final IRequestMapper[] unkeyedMappers;
+
+		private MapperIndex(final List<IRequestMapper> mappers)
+		{
+			all = new IndexEntry[mappers.size()];
+			List<IRequestMapper> unkeyed = new ArrayList<IRequestMapper>();
+			Map<Object, List<IRequestMapper>> keyed = new HashMap<Object, List<IRequestMapper>>();
+			for (int i = 0; i < all.length; i++)
+			{
+				IRequestMapper mapper = mappers.get(i);
+				all[i] = new IndexEntry(mapper, i);
+
+				String[] prefix = null;
+				Object key = null;
+				if (mapper instanceof IIndexableRequestMapper)
+				{
+					prefix = ((IIndexableRequestMapper)mapper).getMountPrefix();
+					key = ((IIndexableRequestMapper)mapper).getHandlerKey();
+				}
+
+				PrefixNode node = root;
+				if (prefix != null)
+				{
+					for (String segment : prefix)
+					{
+						node = node.getChild(segment);
+					}
+				}
+				node.entries.add(all[i]);
+
+				if (key == null)
+				{
+					unkeyed.add(mapper);
+					for (List<IRequestMapper> list : keyed.values())
+					{
+						list.add(mapper);
+					}
+				}
+				else
+				{
+					List<IRequestMapper> list = keyed.get(key);
+					if (list == null)
+					{
+						// the mappers of the key are preceded by the mappers for any key
+						list = new ArrayList<IRequestMapper>(unkeyed);
+						keyed.put(key, list);
+					}
+					list.add(mapper);
+				}
+			}
+
+			unkeyedMappers = unkeyed.toArray(new IRequestMapper[unkeyed.size()]);
+			for (Map.Entry<Object, List<IRequestMapper>> entry : keyed.entrySet())
+			{
+				List<IRequestMapper> list = entry.getValue();
+				handlerMappers.put(entry.getKey(), list.toArray(new IRequestMapper[list.size()]));
+			}
+		}
+
+		/**
+		 * @param url
+		 * @return the mappers which can possibly map the URL
+		 */
+		private List<IndexEntry> getCandidates(final Url url)
+		{
+			List<String> segments = url != null ? url.getSegments() : null;
+			if (segments == null || segments.isEmpty())
+			{
+				return Arrays.asList(all);
+			}
+
+			List<IndexEntry> candidates = new ArrayList<IndexEntry>(root.entries);
+			PrefixNode node = root;
+			for (int i = 0; i < segments.size() && node.children.isEmpty() == false; i++)
+			{
+				node = node.children.get(segments.get(i));
+				if (node == null)
+				{
+					break;
+				}
+				candidates.addAll(node.entries);
+			}
+			return candidates;
+		}
+
+		/**
+		 * @param key
+		 *            the key of a request handler
+		 * @return the mappers which can possibly map the request handler, in the order of the
+		 *         mappers
+		 */
+		private IRequestMapper[] getCandidates(final Object key)
+		{
+			IRequestMapper[] candidates = handlerMappers.get(key);
+			return candidates != null ? candidates : unkeyedMappers;
+		}
+	}
+
 	private final List<IRequestMapper> mappers = new CopyOnWriteArrayList<IRequestMapper>();
 
+	/** the index of the mappers or <code>null</code> if the mappers changed since it was built */
+	private volatile MapperIndex index;
+
 	/**
 	 * Construct.
 	 */
@@ -88,7 +253,11 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	 */
 	public CompoundRequestMapper add(final IRequestMapper mapper)
 	{
-		mappers.add(0, mapper);
+		synchronized (mappers)
+		{
+			mappers.add(0, mapper);
+			index = null;
+		}
 		return this;
 	}
 
@@ -97,10 +266,32 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	 */
 	public CompoundRequestMapper remove(final IRequestMapper mapper)
 	{
-		mappers.remove(mapper);
+		synchronized (mappers)
+		{
+			mappers.remove(mapper);
+			index = null;
+		}
 		return this;
 	}
 
+	private MapperIndex getIndex()
+	{
+		MapperIndex result = index;
+		if (result == null)
+		{
+			synchronized (mappers)
+			{
+				result = index;
+				if (result == null)
+				{
+					result = new MapperIndex(mappers);
+					index = result;
+				}
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Searches the registered {@link IRequestMapper}s to find one that can map the {@link Request}.
 	 * Each registered {@link IRequestMapper} is asked to provide its compatibility score. Then the
@@ -115,12 +306,13 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	 */
 	public IRequestHandler mapRequest(final Request request)
 	{
-		List<MapperWithScore> list = new ArrayList<MapperWithScore>(mappers.size());
+		List<IndexEntry> candidates = getIndex().getCandidates(request.getUrl());
+		List<MapperWithScore> list = new ArrayList<MapperWithScore>(candidates.size());
 
-		for (IRequestMapper mapper : mappers)
+		for (IndexEntry candidate : candidates)
 		{
-			int score = mapper.getCompatibilityScore(request);
-			list.add(new MapperWithScore(mapper, score));
+			int score = candidate.mapper.getCompatibilityScore(request);
+			list.add(new MapperWithScore(candidate.mapper, score, candidate.order));
 		}
 
 		Collections.sort(list);
@@ -151,7 +343,10 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	 */
 	public Url mapHandler(final IRequestHandler handler)
 	{
-		for (IRequestMapper mapper : mappers)
+		Object key = getHandlerKey(handler);
+		Iterable<IRequestMapper> candidates = key != null
+			? Arrays.asList(getIndex().getCandidates(key)) : mappers;
+		for (IRequestMapper mapper : candidates)
 		{
 			Url url = mapper.mapHandler(handler);
 			if (url != null)
@@ -162,6 +357,19 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 		return null;
 	}
 
+	/**
+	 * Returns the key of the request handler which is compared to the
+	 * {@link IIndexableRequestMapper#getHandlerKey() keys} of the mappers to find the mappers
+	 * which can map the handler.
+	 * 
+	 * @param handler
+	 * @return the key or <code>null</code> to ask all the mappers
+	 */
+	protected Object getHandlerKey(final IRequestHandler handler)
+	{
+		return null;
+	}
+
 	/**
 	 * The scope of the compound mapper is the highest score of the registered mappers.
 	 * 
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Url;
+
+/**
+ * A {@link IRequestMapper} which can describe the requests and request handlers it is able to
+ * map. {@link CompoundRequestMapper} uses the description to ask only the mappers which can
+ * possibly map a request or a request handler instead of asking all of them.
+ * <p>
+ * The description must not change while the mapper is registered.
+ */
+public interface IIndexableRequestMapper extends IRequestMapper
+{
+	/**
+	 * Returns the segments every {@link Url} this mapper can map starts with. The {@link Url}
+	 * without any segment is always offered to all mappers.
+	 *
+	 * @return the segments or an empty array if the mapper can map URLs starting with any segment
+	 */
+	String[] getMountPrefix();
+
+	/**
+	 * Returns the key of the only request handlers this mapper can map. The key of a request
+	 * handler is computed by {@link CompoundRequestMapper#getHandlerKey(IRequestHandler)}.
+	 *
+	 * @return the key or <code>null</code> if the mapper can map request handlers with any key
+	 */
+	Object getHandlerKey();
+}
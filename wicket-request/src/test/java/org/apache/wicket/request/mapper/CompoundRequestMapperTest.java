@@ -16,9 +16,13 @@
  */
 package org.apache.wicket.request.mapper;
 
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.handler.EmptyRequestHandler;
 import org.apache.wicket.request.mapper.mount.MountMapper;
+import org.apache.wicket.util.lang.Objects;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -59,4 +63,125 @@ public class CompoundRequestMapperTest extends Assert
 			compound.mapRequest(compound.createRequest(Url.parse(MOUNT_PATH_3))) instanceof EmptyRequestHandler);
 	}
 
+	/**
+	 * Only the mappers whose prefix or handler key match are asked
+	 */
+	@Test
+	public void indexedMappers()
+	{
+		CompoundRequestMapper compound = new CompoundRequestMapper()
+		{
+			@Override
+			protected Object getHandlerKey(IRequestHandler handler)
+			{
+				return handler instanceof KeyedHandler ? ((KeyedHandler)handler).key : null;
+			}
+		};
+
+		IndexedMapper a = new IndexedMapper("a", "a");
+		IndexedMapper ab = new IndexedMapper("ab", "a", "b");
+		IndexedMapper c = new IndexedMapper("c", "c");
+		IndexedMapper any = new IndexedMapper(null);
+		compound.add(any);
+		compound.add(a);
+		compound.add(ab);
+		compound.add(c);
+
+		IRequestHandler handler = compound.mapRequest(compound.createRequest(Url.parse("a/b/x")));
+		assertEquals("ab", ((KeyedHandler)handler).key);
+		assertEquals(0, c.asked);
+		assertEquals(0, any.asked);
+
+		handler = compound.mapRequest(compound.createRequest(Url.parse("a/x")));
+		assertEquals("a", ((KeyedHandler)handler).key);
+
+		handler = compound.mapRequest(compound.createRequest(Url.parse("x")));
+		assertSame(any.handler, handler);
+		assertEquals(0, c.asked);
+
+		// the mappers are indexed again after a change
+		compound.remove(ab);
+		handler = compound.mapRequest(compound.createRequest(Url.parse("a/b/x")));
+		assertEquals("a", ((KeyedHandler)handler).key);
+
+		assertEquals(Url.parse("c"), compound.mapHandler(c.handler));
+		assertEquals(Url.parse("a"), compound.mapHandler(a.handler));
+		assertEquals(1, c.handlersAsked);
+		assertEquals(1, a.handlersAsked);
+
+		// all mappers are asked for handlers without a key
+		assertEquals(Url.parse("any"), compound.mapHandler(new KeyedHandler(null)));
+		assertEquals(2, c.handlersAsked);
+	}
+
+	private static class KeyedHandler implements IRequestHandler
+	{
+		private final String key;
+
+		private KeyedHandler(String key)
+		{
+			this.key = key;
+		}
+
+		public void respond(IRequestCycle requestCycle)
+		{
+		}
+
+		public void detach(IRequestCycle requestCycle)
+		{
+		}
+	}
+
+	private static class IndexedMapper implements IIndexableRequestMapper
+	{
+		private final String[] prefix;
+		private final KeyedHandler handler;
+		private int asked;
+		private int handlersAsked;
+
+		private IndexedMapper(String key, String... prefix)
+		{
+			this.prefix = prefix;
+			handler = new KeyedHandler(key);
+		}
+
+		public IRequestHandler mapRequest(Request request)
+		{
+			asked++;
+			for (int i = 0; i < prefix.length; i++)
+			{
+				if (prefix[i].equals(request.getUrl().getSegments().get(i)) == false)
+				{
+					return null;
+				}
+			}
+			return handler;
+		}
+
+		public int getCompatibilityScore(Request request)
+		{
+			return prefix.length;
+		}
+
+		public Url mapHandler(IRequestHandler requestHandler)
+		{
+			handlersAsked++;
+			if (requestHandler instanceof KeyedHandler &&
+				Objects.equal(((KeyedHandler)requestHandler).key, handler.key))
+			{
+				return Url.parse(handler.key != null ? handler.key : "any");
+			}
+			return null;
+		}
+
+		public String[] getMountPrefix()
+		{
+			return prefix;
+		}
+
+		public Object getHandlerKey()
+		{
+			return handler.key;
+		}
+	}
 }
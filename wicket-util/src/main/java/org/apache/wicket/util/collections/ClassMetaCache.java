@@ -16,22 +16,44 @@
  */
 package org.apache.wicket.util.collections;
 
-import java.util.Collections;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * This class wraps a WeakHashMap that holds one ConcurrentHashMap per ClassLoader. In the rare
- * event of a previously unmapped ClassLoader, the WeakHashMap is replaced by a new one. This avoids
- * any synchronization overhead, much like a {@link java.util.concurrent.CopyOnWriteArrayList}
+ * A cache of meta data of classes. It holds one ConcurrentHashMap per ClassLoader, mapping class
+ * names to values, in a ConcurrentHashMap with weak ClassLoader keys. Lookups don't lock at all,
+ * and the values of a ClassLoader are dropped once it has been garbage collected, e.g. after the
+ * application has been redeployed.
+ * <p>
+ * Like the keys of a {@link java.util.WeakHashMap}, a ClassLoader can't be garbage collected as
+ * long as a value of the cache references one of its classes. Owners of such values should call
+ * {@link #remove(ClassLoader)} when the ClassLoader is discarded.
+ * <p>
+ * The cache can count its hits and misses, so its effectiveness can be verified. Counting is
+ * disabled by default, as the shared counters would be contended by the lookups of all threads.
  * 
  * @param <T>
  *            type of objects stored in cache
  */
 public class ClassMetaCache<T>
 {
-	private volatile Map<ClassLoader, ConcurrentHashMap<String, T>> cache = Collections.emptyMap();
+	/** the key of the classes of the bootstrap ClassLoader, which is <code>null</code> */
+	private static final Object BOOTSTRAP = new Object();
+
+	private final ConcurrentMap<Object, ConcurrentMap<String, T>> cache = new ConcurrentHashMap<Object, ConcurrentMap<String, T>>();
+
+	/** the keys of the garbage collected ClassLoaders */
+	private final ReferenceQueue<ClassLoader> collected = new ReferenceQueue<ClassLoader>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private volatile boolean statisticsEnabled;
 
 	/**
 	 * Puts value into cache
@@ -44,8 +66,21 @@ public class ClassMetaCache<T>
 	 */
 	public T put(final Class<?> key, final T value)
 	{
-		ConcurrentHashMap<String, T> container = getClassLoaderCache(key.getClassLoader(), true);
-		return container.put(key(key), value);
+		return put(key.getClassLoader(), key(key), value);
+	}
+
+	/**
+	 * Puts value into cache unless a value is stored for the key already
+	 * 
+	 * @param key
+	 *            the class that will be used as the value's key
+	 * @param value
+	 *            the value that should be stored in cache
+	 * @return value previously stored in cache for this key, or {@code null} if none
+	 */
+	public T putIfAbsent(final Class<?> key, final T value)
+	{
+		return putIfAbsent(key.getClassLoader(), key(key), value);
 	}
 
 	/**
@@ -57,56 +92,168 @@ public class ClassMetaCache<T>
 	 */
 	public T get(final Class<?> key)
 	{
-		ConcurrentHashMap<String, T> container = getClassLoaderCache(key.getClassLoader(), false);
-		if (container == null)
-		{
-			return null;
-		}
-		else
+		return get(key.getClassLoader(), key(key));
+	}
+
+	/**
+	 * Puts value into cache by the name of a class, e.g. for a class that has not been loaded yet
+	 * 
+	 * @param classLoader
+	 *            the ClassLoader of the class, may be {@code null} for the bootstrap ClassLoader
+	 * @param className
+	 *            the name of the class
+	 * @param value
+	 *            the value that should be stored in cache
+	 * @return value previously stored in cache for this key, or {@code null} if none
+	 */
+	public T put(final ClassLoader classLoader, final String className, final T value)
+	{
+		return getClassLoaderCache(classLoader).put(className, value);
+	}
+
+	/**
+	 * Puts value into cache by the name of a class unless a value is stored for it already
+	 * 
+	 * @param classLoader
+	 *            the ClassLoader of the class, may be {@code null} for the bootstrap ClassLoader
+	 * @param className
+	 *            the name of the class
+	 * @param value
+	 *            the value that should be stored in cache
+	 * @return value previously stored in cache for this key, or {@code null} if none
+	 */
+	public T putIfAbsent(final ClassLoader classLoader, final String className, final T value)
+	{
+		return getClassLoaderCache(classLoader).putIfAbsent(className, value);
+	}
+
+	/**
+	 * Gets value from cache by the name of a class or returns {@code null} if not in cache
+	 * 
+	 * @param classLoader
+	 *            the ClassLoader of the class, may be {@code null} for the bootstrap ClassLoader
+	 * @param className
+	 *            the name of the class
+	 * @return value stored in cache or {@code null} if none
+	 */
+	public T get(final ClassLoader classLoader, final String className)
+	{
+		ConcurrentMap<String, T> container = cache.get(lookupKey(classLoader));
+		T value = container != null ? container.get(className) : null;
+		if (statisticsEnabled)
 		{
-			return container.get(key(key));
+			if (value != null)
+			{
+				hits.incrementAndGet();
+			}
+			else
+			{
+				misses.incrementAndGet();
+			}
 		}
+		return value;
+	}
+
+	/**
+	 * Removes all values of the classes of a ClassLoader
+	 * 
+	 * @param classLoader
+	 *            the ClassLoader, may be {@code null} for the bootstrap ClassLoader
+	 */
+	public void remove(final ClassLoader classLoader)
+	{
+		expungeCollected();
+		cache.remove(lookupKey(classLoader));
+	}
+
+	/**
+	 * Removes all values
+	 */
+	public void clear()
+	{
+		cache.clear();
+		expungeCollected();
+	}
+
+	/**
+	 * Enables or disables counting the hits and misses of the lookups
+	 * 
+	 * @param statisticsEnabled
+	 */
+	public void setStatisticsEnabled(final boolean statisticsEnabled)
+	{
+		this.statisticsEnabled = statisticsEnabled;
+	}
+
+	/**
+	 * @return whether the hits and misses of the lookups are counted
+	 */
+	public boolean isStatisticsEnabled()
+	{
+		return statisticsEnabled;
+	}
+
+	/**
+	 * @return the number of lookups that found a value while the statistics were enabled
+	 */
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of lookups that didn't find a value while the statistics were enabled
+	 */
+	public long getMisses()
+	{
+		return misses.get();
 	}
 
 	/**
 	 * @param classLoader
-	 * @param create
-	 * @return a {@link ConcurrentHashMap} mapping class names to injectable fields, never
-	 *         <code>null</code>
+	 * @return a {@link ConcurrentMap} mapping class names to values, never <code>null</code>
 	 */
-	private ConcurrentHashMap<String, T> getClassLoaderCache(final ClassLoader classLoader,
-		final boolean create)
+	private ConcurrentMap<String, T> getClassLoaderCache(final ClassLoader classLoader)
 	{
-		ConcurrentHashMap<String, T> container = cache.get(classLoader);
+		ConcurrentMap<String, T> container = cache.get(lookupKey(classLoader));
 		if (container == null)
 		{
-			if (!create)
-			{
-				return container;
-			}
+			// only in the rare event of an unknown ClassLoader
+			expungeCollected();
 
-			// only lock in rare event of unknown ClassLoader
-			synchronized (this)
+			container = new ConcurrentHashMap<String, T>();
+			Object key = classLoader == null ? BOOTSTRAP : new ClassLoaderReference(classLoader,
+				collected);
+			ConcurrentMap<String, T> existing = cache.putIfAbsent(key, container);
+			if (existing != null)
 			{
-				// check again inside lock
-				container = cache.get(classLoader);
-				if (container == null)
-				{
-					container = new ConcurrentHashMap<String, T>();
-
-					/*
-					 * don't write to current cache, copy instead
-					 */
-					Map<ClassLoader, ConcurrentHashMap<String, T>> newCache = new WeakHashMap<ClassLoader, ConcurrentHashMap<String, T>>(
-						cache);
-					newCache.put(classLoader, container);
-					cache = Collections.unmodifiableMap(newCache);
-				}
+				container = existing;
 			}
 		}
 		return container;
 	}
 
+	/**
+	 * Removes the values of the garbage collected ClassLoaders
+	 */
+	private void expungeCollected()
+	{
+		Reference<? extends ClassLoader> reference;
+		while ((reference = collected.poll()) != null)
+		{
+			cache.remove(reference);
+		}
+	}
+
+	/**
+	 * @param classLoader
+	 * @return a key that equals the key of the ClassLoader in the cache
+	 */
+	private static Object lookupKey(final ClassLoader classLoader)
+	{
+		return classLoader == null ? BOOTSTRAP : new ClassLoaderLookup(classLoader);
+	}
+
 	/**
 	 * converts class into a key used by the cache
 	 * 
@@ -118,4 +265,86 @@ public class ClassMetaCache<T>
 	{
 		return clazz.getName();
 	}
+
+	/**
+	 * A key of the cache that identifies a ClassLoader
+	 */
+	private static interface ClassLoaderKey
+	{
+		/**
+		 * @return the ClassLoader or <code>null</code> if it has been garbage collected
+		 */
+		ClassLoader getClassLoader();
+	}
+
+	/**
+	 * The key of a ClassLoader in the cache, which doesn't keep it from being garbage collected
+	 */
+	private static final class ClassLoaderReference extends WeakReference<ClassLoader>
+		implements
+			ClassLoaderKey
+	{
+		private final int hash;
+
+		ClassLoaderReference(final ClassLoader classLoader,
+			final ReferenceQueue<ClassLoader> queue)
+		{
+			super(classLoader, queue);
+			hash = System.identityHashCode(classLoader);
+		}
+
+		public ClassLoader getClassLoader()
+		{
+			return get();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (obj == this)
+			{
+				return true;
+			}
+			ClassLoader classLoader = get();
+			return classLoader != null && obj instanceof ClassLoaderKey &&
+				((ClassLoaderKey)obj).getClassLoader() == classLoader;
+		}
+	}
+
+	/**
+	 * A short lived key to look up a ClassLoader in the cache
+	 */
+	private static final class ClassLoaderLookup implements ClassLoaderKey
+	{
+		private final ClassLoader classLoader;
+
+		ClassLoaderLookup(final ClassLoader classLoader)
+		{
+			this.classLoader = classLoader;
+		}
+
+		public ClassLoader getClassLoader()
+		{
+			return classLoader;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return System.identityHashCode(classLoader);
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			return obj instanceof ClassLoaderKey &&
+				((ClassLoaderKey)obj).getClassLoader() == classLoader;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread-safe cache whose entries are removed when their total weight exceeds a limit. By
+ * default every entry weighs 1, so the limit is the number of entries, subclasses can weigh the
+ * entries e.g. by their size in bytes.
+ * <p>
+ * The eviction approximates LRU: every access stamps the entry and, once the limit is exceeded,
+ * the least recently used entries are removed until the total weight drops to three quarters of
+ * the limit. Lookups never lock, only the eviction does.
+ *
+ * @param <K>
+ *            the type of the keys
+ * @param <V>
+ *            the type of the values
+ */
+public class WeightedLruCache<K, V>
+{
+	private static final Logger log = LoggerFactory.getLogger(WeightedLruCache.class);
+
+	private final ConcurrentHashMap<K, CacheEntry<V>> cache = new ConcurrentHashMap<K, CacheEntry<V>>();
+
+	private final long maxWeight;
+
+	/** the total weight of the entries */
+	private final AtomicLong weight = new AtomicLong();
+
+	/** a logical clock to stamp the accesses with */
+	private final AtomicLong clock = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private final Object evictionLock = new Object();
+
+	/**
+	 * Construct.
+	 *
+	 * @param maxWeight
+	 *            the total weight of the entries above which the least recently used entries are
+	 *            removed
+	 */
+	public WeightedLruCache(final long maxWeight)
+	{
+		Args.isTrue(maxWeight > 0, "maxWeight must be positive but was %s", maxWeight);
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Gets the value of a key and marks it as recently used.
+	 *
+	 * @param key
+	 * @return the value or <code>null</code> if the key is not cached
+	 */
+	public V get(final Object key)
+	{
+		if (key == null)
+		{
+			return null;
+		}
+		CacheEntry<V> entry = cache.get(key);
+		if (entry == null)
+		{
+			missCount.incrementAndGet();
+			return null;
+		}
+		entry.lastAccess = clock.incrementAndGet();
+		hitCount.incrementAndGet();
+		return entry.value;
+	}
+
+	/**
+	 * Puts a value into the cache, removing the least recently used entries if the cache gets too
+	 * heavy.
+	 *
+	 * @param key
+	 *            the key, must not be <code>null</code>
+	 * @param value
+	 *            the value, must not be <code>null</code>
+	 */
+	public void put(final K key, final V value)
+	{
+		CacheEntry<V> entry = new CacheEntry<V>(value, weigh(key, value), clock.incrementAndGet());
+		CacheEntry<V> previous = cache.put(key, entry);
+		long delta = entry.weight - (previous != null ? previous.weight : 0);
+		if (weight.addAndGet(delta) > maxWeight)
+		{
+			evict();
+		}
+	}
+
+	/**
+	 * Removes the value of a key.
+	 *
+	 * @param key
+	 * @return <code>true</code> if the key was cached
+	 */
+	public boolean remove(final Object key)
+	{
+		if (key == null)
+		{
+			return false;
+		}
+		CacheEntry<V> entry = cache.remove(key);
+		if (entry != null)
+		{
+			weight.addAndGet(-entry.weight);
+		}
+		return entry != null;
+	}
+
+	/**
+	 * @param key
+	 * @return <code>true</code> if the key is cached
+	 */
+	public boolean containsKey(final Object key)
+	{
+		if (key == null)
+		{
+			return false;
+		}
+		return cache.containsKey(key);
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear()
+	{
+		for (Map.Entry<K, CacheEntry<V>> entry : cache.entrySet())
+		{
+			removeEntry(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size()
+	{
+		return cache.size();
+	}
+
+	/**
+	 * @return a view of the keys, removing a key removes its entry
+	 */
+	public Collection<K> keys()
+	{
+		return new View<K>()
+		{
+			@Override
+			protected K extract(final Map.Entry<K, CacheEntry<V>> entry)
+			{
+				return entry.getKey();
+			}
+		};
+	}
+
+	/**
+	 * @return a view of the values, removing a value removes its entry
+	 */
+	public Collection<V> values()
+	{
+		return new View<V>()
+		{
+			@Override
+			protected V extract(final Map.Entry<K, CacheEntry<V>> entry)
+			{
+				return entry.getValue().value;
+			}
+		};
+	}
+
+	/**
+	 * Computes the weight of a value. By default every value weighs 1.
+	 *
+	 * @param key
+	 * @param value
+	 * @return the weight of the value, at least 1
+	 */
+	protected int weigh(final K key, final V value)
+	{
+		return 1;
+	}
+
+	/**
+	 * @return the maximum total weight of the entries
+	 */
+	public final long getMaxWeight()
+	{
+		return maxWeight;
+	}
+
+	/**
+	 * @return the total weight of the entries
+	 */
+	public final long getWeight()
+	{
+		return weight.get();
+	}
+
+	/**
+	 * @return the number of lookups which found an entry
+	 */
+	public final long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * @return the number of lookups which didn't find an entry
+	 */
+	public final long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	/**
+	 * @return the number of entries removed because the cache was too heavy
+	 */
+	public final long getEvictionCount()
+	{
+		return evictionCount.get();
+	}
+
+	/**
+	 * Removes the least recently used entries until the total weight drops to three quarters of the
+	 * maximum weight.
+	 */
+	private void evict()
+	{
+		synchronized (evictionLock)
+		{
+			if (weight.get() <= maxWeight)
+			{
+				// another thread evicted already
+				return;
+			}
+
+			// snapshot the access stamps, they keep changing while sorting
+			List<Candidate<K, V>> candidates = new ArrayList<Candidate<K, V>>(cache.size());
+			for (Map.Entry<K, CacheEntry<V>> entry : cache.entrySet())
+			{
+				candidates.add(new Candidate<K, V>(entry.getKey(), entry.getValue()));
+			}
+			Collections.sort(candidates);
+
+			long lowWater = maxWeight - maxWeight / 4;
+			for (Candidate<K, V> candidate : candidates)
+			{
+				if (weight.get() <= lowWater)
+				{
+					break;
+				}
+				if (removeEntry(candidate.key, candidate.entry))
+				{
+					evictionCount.incrementAndGet();
+					if (log.isDebugEnabled())
+					{
+						log.debug("Evicted from cache: " + candidate.key);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the entry unless it has been replaced in the meantime
+	 *
+	 * @param key
+	 * @param entry
+	 * @return true if removed
+	 */
+	private boolean removeEntry(final K key, final CacheEntry<V> entry)
+	{
+		if (cache.remove(key, entry))
+		{
+			weight.addAndGet(-entry.weight);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * A view of the keys or values which keeps the total weight in sync on removal.
+	 *
+	 * @param <T>
+	 */
+	private abstract class View<T> extends AbstractCollection<T>
+	{
+		@Override
+		public Iterator<T> iterator()
+		{
+			final Iterator<Map.Entry<K, CacheEntry<V>>> iterator = cache.entrySet().iterator();
+			return new Iterator<T>()
+			{
+				private Map.Entry<K, CacheEntry<V>> current;
+
+				public boolean hasNext()
+				{
+					return iterator.hasNext();
+				}
+
+				public T next()
+				{
+					current = iterator.next();
+					return extract(current);
+				}
+
+				public void remove()
+				{
+					if (current == null)
+					{
+						throw new IllegalStateException();
+					}
+					removeEntry(current.getKey(), current.getValue());
+					current = null;
+				}
+			};
+		}
+
+		@Override
+		public int size()
+		{
+			return cache.size();
+		}
+
+		protected abstract T extract(Map.Entry<K, CacheEntry<V>> entry);
+	}
+
+	private static class CacheEntry<V>
+	{
+		private final V value;
+
+		private final int weight;
+
+		private volatile long lastAccess;
+
+		private CacheEntry(final V value, final int weight, final long lastAccess)
+		{
+			this.value = value;
+			this.weight = weight;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	private static class Candidate<K, V> implements Comparable<Candidate<K, V>>
+	{
+		private final K key;
+
+		private final CacheEntry<V> entry;
+
+		private final long lastAccess;
+
+		private Candidate(final K key, final CacheEntry<V> entry)
+		{
+			this.key = key;
+			this.entry = entry;
+			lastAccess = entry.lastAccess;
+		}
+
+		public int compareTo(final Candidate<K, V> other)
+		{
+			return lastAccess < other.lastAccess ? -1 : (lastAccess == other.lastAccess ? 0 : 1);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.crypt;
+
+import java.io.IOException;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+
+/**
+ * Encrypts strings with AES in Galois/Counter Mode (AES-GCM), an authenticated encryption mode.
+ * Unlike with {@link SunJceCrypt} a modified text fails to decrypt instead of decrypting to
+ * garbage, and every encryption of the same text differs because of a random nonce.
+ * <p>
+ * The AES key is derived only once from the encryption key, with PBKDF2, and the ciphers are
+ * pooled, so an instance can be shared by many threads. Use it e.g. with
+ *
+ * <pre>
+ * getSecuritySettings().setCryptFactory(
+ * 	new CryptFactoryCachingDecorator(new ClassCryptFactory(AesGcmCrypt.class, key)));
+ * </pre>
+ *
+ * AES-GCM requires a Java 8 or newer runtime, see {@link #isSupported()}.
+ */
+public class AesGcmCrypt extends AbstractCrypt
+{
+	/** Name of encryption method */
+	private static final String CRYPT_METHOD = "AES/GCM/NoPadding";
+
+	/** Name of the method deriving the AES key from the encryption key */
+	private static final String KEY_DERIVATION_METHOD = "PBKDF2WithHmacSHA1";
+
+	private static final int KEY_DERIVATION_COUNT = 1000;
+
+	/** AES key size in bits */
+	private static final int KEY_SIZE = 128;
+
+	/** size of the nonce prepended to the encrypted text, in bytes */
+	private static final int NONCE_SIZE = 12;
+
+	/** size of the authentication tag appended to the encrypted text, in bytes */
+	private static final int TAG_SIZE = 16;
+
+	/** Salt */
+	private final static byte[] salt = { (byte)0x3b, (byte)0x91, (byte)0x0e, (byte)0xd4,
+			(byte)0x57, (byte)0xa2, (byte)0x6c, (byte)0xf8 };
+
+	private static final SecureRandom random = new SecureRandom();
+
+	/** The ciphers for the current key, created on first use */
+	private volatile CipherPool ciphers;
+
+	/**
+	 * @return whether the runtime supports AES-GCM
+	 */
+	public static boolean isSupported()
+	{
+		try
+		{
+			Cipher.getInstance(CRYPT_METHOD);
+			newParameters(new byte[NONCE_SIZE]);
+			return true;
+		}
+		catch (GeneralSecurityException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Crypts the given byte array. The encrypted text is the nonce followed by the cipher text
+	 * and the authentication tag.
+	 *
+	 * @param input
+	 *            byte array to be crypted
+	 * @param mode
+	 *            crypt mode
+	 * @return the input crypted
+	 * @throws GeneralSecurityException
+	 *             also if the text to decrypt has been modified
+	 */
+	@Override
+	protected final byte[] crypt(final byte[] input, final int mode)
+		throws GeneralSecurityException
+	{
+		final String encryptionKey = getKey();
+		CipherPool pool = ciphers;
+		if ((pool == null) || !pool.encryptionKey.equals(encryptionKey))
+		{
+			// a race creates an extra pool, which is harmless
+			pool = new CipherPool(encryptionKey, deriveKey(encryptionKey));
+			ciphers = pool;
+		}
+
+		Cipher cipher = pool.ciphers.poll();
+		if (cipher == null)
+		{
+			cipher = Cipher.getInstance(CRYPT_METHOD);
+		}
+
+		final byte[] result;
+		if (mode == Cipher.ENCRYPT_MODE)
+		{
+			byte[] nonce = new byte[NONCE_SIZE];
+			random.nextBytes(nonce);
+			cipher.init(mode, pool.key, newParameters(nonce));
+			byte[] encrypted = cipher.doFinal(input);
+
+			result = new byte[NONCE_SIZE + encrypted.length];
+			System.arraycopy(nonce, 0, result, 0, NONCE_SIZE);
+			System.arraycopy(encrypted, 0, result, NONCE_SIZE, encrypted.length);
+		}
+		else
+		{
+			if (input.length < NONCE_SIZE + TAG_SIZE)
+			{
+				throw new GeneralSecurityException("The encrypted text is too short");
+			}
+			byte[] nonce = new byte[NONCE_SIZE];
+			System.arraycopy(input, 0, nonce, 0, NONCE_SIZE);
+			cipher.init(mode, pool.key, newParameters(nonce));
+			result = cipher.doFinal(input, NONCE_SIZE, input.length - NONCE_SIZE);
+		}
+
+		pool.ciphers.offer(cipher);
+		return result;
+	}
+
+	/**
+	 * @param encryptionKey
+	 * @return the AES key derived from the encryption key
+	 * @throws GeneralSecurityException
+	 */
+	private static SecretKey deriveKey(final String encryptionKey)
+		throws GeneralSecurityException
+	{
+		PBEKeySpec spec = new PBEKeySpec(encryptionKey.toCharArray(), salt, KEY_DERIVATION_COUNT,
+			KEY_SIZE);
+		byte[] key = SecretKeyFactory.getInstance(KEY_DERIVATION_METHOD)
+			.generateSecret(spec)
+			.getEncoded();
+		return new SecretKeySpec(key, "AES");
+	}
+
+	/**
+	 * Creates the GCM parameters from their ASN.1 encoding (RFC 5084), which unlike
+	 * <code>GCMParameterSpec</code> is available on older runtimes too.
+	 *
+	 * @param nonce
+	 * @return the parameters
+	 * @throws GeneralSecurityException
+	 */
+	private static AlgorithmParameters newParameters(final byte[] nonce)
+		throws GeneralSecurityException
+	{
+		// SEQUENCE { OCTET STRING nonce, INTEGER tagSize }
+		byte[] encoded = new byte[NONCE_SIZE + 7];
+		encoded[0] = 0x30;
+		encoded[1] = NONCE_SIZE + 5;
+		encoded[2] = 0x04;
+		encoded[3] = NONCE_SIZE;
+		System.arraycopy(nonce, 0, encoded, 4, NONCE_SIZE);
+		encoded[NONCE_SIZE + 4] = 0x02;
+		encoded[NONCE_SIZE + 5] = 0x01;
+		encoded[NONCE_SIZE + 6] = TAG_SIZE;
+
+		AlgorithmParameters parameters = AlgorithmParameters.getInstance("GCM");
+		try
+		{
+			parameters.init(encoded);
+		}
+		catch (IOException e)
+		{
+			throw new GeneralSecurityException("Unable to create the GCM parameters", e);
+		}
+		return parameters;
+	}
+
+	/**
+	 * The ciphers for a key. {@link Cipher}s aren't thread safe, a thread takes a cipher out of
+	 * the pool while using it.
+	 */
+	private static final class CipherPool
+	{
+		private final String encryptionKey;
+
+		private final SecretKey key;
+
+		private final Queue<Cipher> ciphers = new ConcurrentLinkedQueue<Cipher>();
+
+		private CipherPool(final String encryptionKey, final SecretKey key)
+		{
+			this.encryptionKey = encryptionKey;
+			this.key = key;
+		}
+	}
+}
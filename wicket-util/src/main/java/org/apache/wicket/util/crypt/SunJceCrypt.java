@@ -21,6 +21,8 @@ import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.Security;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -34,7 +36,12 @@ import javax.crypto.spec.PBEParameterSpec;
  * implementation is based around Sun's security providers and uses the <a
  * href="http://www.ietf.org/rfc/rfc2898.txt">PBEWithMD5AndDES</a> method to encrypt and decrypt the
  * data.
+ * <p>
+ * The key is derived only once and the initialized ciphers are pooled, so an instance can be
+ * shared by many threads without paying for the key derivation and cipher initialization on
+ * every call.
  * 
+ * @see AesGcmCrypt
  * @author Juergen Donnerstag
  */
 public class SunJceCrypt extends AbstractCrypt
@@ -51,6 +58,9 @@ public class SunJceCrypt extends AbstractCrypt
 	private final static byte[] salt = { (byte)0x15, (byte)0x8c, (byte)0xa3, (byte)0x4a,
 			(byte)0x66, (byte)0x51, (byte)0x2a, (byte)0xbc };
 
+	/** The ciphers initialized with the current key, created on first use */
+	private volatile CipherPool ciphers;
+
 	/**
 	 * Constructor
 	 */
@@ -87,11 +97,30 @@ public class SunJceCrypt extends AbstractCrypt
 	protected final byte[] crypt(final byte[] input, final int mode)
 		throws GeneralSecurityException
 	{
-		SecretKey key = generateSecretKey();
-		PBEParameterSpec spec = new PBEParameterSpec(salt, COUNT);
-		Cipher ciph = Cipher.getInstance(CRYPT_METHOD);
-		ciph.init(mode, key, spec);
-		return ciph.doFinal(input);
+		final String encryptionKey = getKey();
+		CipherPool pool = ciphers;
+		if ((pool == null) || !pool.encryptionKey.equals(encryptionKey))
+		{
+			// a race creates an extra pool, which is harmless
+			pool = new CipherPool(encryptionKey, generateSecretKey(encryptionKey));
+			ciphers = pool;
+		}
+
+		Queue<Cipher> queue = mode == Cipher.ENCRYPT_MODE ? pool.encryptCiphers
+			: pool.decryptCiphers;
+		Cipher ciph = queue.poll();
+		if (ciph == null)
+		{
+			PBEParameterSpec spec = new PBEParameterSpec(salt, COUNT);
+			ciph = Cipher.getInstance(CRYPT_METHOD);
+			ciph.init(mode, pool.key, spec);
+		}
+
+		// doFinal() resets the cipher to its initialized state, so it can be reused unless it
+		// failed
+		byte[] result = ciph.doFinal(input);
+		queue.offer(ciph);
+		return result;
 	}
 
 	/**
@@ -100,16 +129,40 @@ public class SunJceCrypt extends AbstractCrypt
 	 * Note: if you don't provide your own encryption key, the implementation will use a default. Be
 	 * aware that this is potential security risk. Thus make sure you always provide your own one.
 	 * 
+	 * @param encryptionKey
+	 *            the encryption key
 	 * @return secretKey the security key generated
 	 * @throws NoSuchAlgorithmException
 	 *             unable to find encryption algorithm specified
 	 * @throws InvalidKeySpecException
 	 *             invalid encryption key
 	 */
-	private final SecretKey generateSecretKey() throws NoSuchAlgorithmException,
-		InvalidKeySpecException
+	private final SecretKey generateSecretKey(final String encryptionKey)
+		throws NoSuchAlgorithmException, InvalidKeySpecException
 	{
-		final PBEKeySpec spec = new PBEKeySpec(getKey().toCharArray());
+		final PBEKeySpec spec = new PBEKeySpec(encryptionKey.toCharArray());
 		return SecretKeyFactory.getInstance(CRYPT_METHOD).generateSecret(spec);
 	}
+
+	/**
+	 * The ciphers initialized with a key. {@link Cipher}s aren't thread safe, a thread takes a
+	 * cipher out of the pool while using it. A pool is replaced when the encryption key changes,
+	 * the ciphers in use then return to the discarded pool.
+	 */
+	private static final class CipherPool
+	{
+		private final String encryptionKey;
+
+		private final SecretKey key;
+
+		private final Queue<Cipher> encryptCiphers = new ConcurrentLinkedQueue<Cipher>();
+
+		private final Queue<Cipher> decryptCiphers = new ConcurrentLinkedQueue<Cipher>();
+
+		private CipherPool(final String encryptionKey, final SecretKey key)
+		{
+			this.encryptionKey = encryptionKey;
+			this.key = key;
+		}
+	}
 }
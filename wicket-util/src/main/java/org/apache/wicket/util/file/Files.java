@@ -16,14 +16,13 @@
  */
 package org.apache.wicket.util.file;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 
 import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.io.Streams;
@@ -315,7 +314,8 @@ public class Files
 	}
 
 	/**
-	 * make a copy of a file
+	 * make a copy of a file. The content is transferred by the file channels, which lets the
+	 * operating system copy it without passing it through the heap.
 	 * 
 	 * @param sourceFile
 	 *            source file that needs to be cloned
@@ -326,15 +326,25 @@ public class Files
 	 */
 	public static void copy(final File sourceFile, final File targetFile) throws IOException
 	{
-		BufferedInputStream in = null;
-		BufferedOutputStream out = null;
+		FileInputStream in = null;
+		FileOutputStream out = null;
 
 		try
 		{
-			in = new BufferedInputStream(new FileInputStream(sourceFile));
-			out = new BufferedOutputStream(new FileOutputStream(targetFile));
-
-			IOUtils.copy(in, out);
+			in = new FileInputStream(sourceFile);
+			out = new FileOutputStream(targetFile);
+
+			FileChannel source = in.getChannel();
+			FileChannel target = out.getChannel();
+			long size = source.size();
+			long position = 0;
+			long bytes;
+			// nothing transferred means the source has been truncated meanwhile
+			while (position < size &&
+				(bytes = source.transferTo(position, size - position, target)) > 0)
+			{
+				position += bytes;
+			}
 		}
 		finally
 		{
@@ -19,7 +19,11 @@ package org.apache.wicket.util.io;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 
 import org.apache.wicket.util.lang.Args;
 
@@ -40,6 +44,9 @@ import org.apache.wicket.util.lang.Args;
  */
 public class DeferredFileOutputStream extends ThresholdingOutputStream
 {
+	/** the maximum number of bytes transferred into the file at once */
+	private static final long TRANSFER_SIZE = 1024 * 1024;
+
 	/**
 	 * The output stream to which data will be written at any given time. This will always be one of
 	 * <code>memoryOutputStream</code> or <code>diskOutputStream</code>.
@@ -58,6 +65,12 @@ public class DeferredFileOutputStream extends ThresholdingOutputStream
 
 	private final FileFactory fileFactory;
 
+	/**
+	 * The number of bytes transferred into the file by {@link #transferFrom(InputStream)}, which
+	 * bypasses the counting of the written bytes.
+	 */
+	private long transferred;
+
 	/**
 	 * Constructs an instance of this class which will trigger an event at the specified threshold,
 	 * and save data to a file beyond that point.
@@ -96,6 +109,56 @@ public class DeferredFileOutputStream extends ThresholdingOutputStream
 		currentOutputStream = memoryOutputStream;
 	}
 
+	/**
+	 * Writes the content of an input stream into this output stream. The content is kept in memory
+	 * until the threshold is exceeded, as if it was written with {@link #write(byte[], int, int)}.
+	 * The rest of the content is transferred into the file with a {@link FileChannel}, without
+	 * passing through this stream.
+	 * 
+	 * @param in
+	 *            the input stream to read from, it is not closed
+	 * @return the number of bytes read from the input stream
+	 * @throws IOException
+	 */
+	public long transferFrom(final InputStream in) throws IOException
+	{
+		long count = 0;
+		final byte[] buffer = new byte[4096];
+		while (isInMemory())
+		{
+			int read = in.read(buffer);
+			if (read == -1)
+			{
+				return count;
+			}
+			write(buffer, 0, read);
+			count += read;
+		}
+
+		final FileChannel channel = ((FileOutputStream)currentOutputStream).getChannel();
+		final ReadableByteChannel source = Channels.newChannel(in);
+		long position = channel.position();
+		long bytes;
+		// the source blocks until data is available, so nothing transferred means the end
+		while ((bytes = channel.transferFrom(source, position, TRANSFER_SIZE)) > 0)
+		{
+			position += bytes;
+			transferred += bytes;
+			count += bytes;
+		}
+		channel.position(position);
+		return count;
+	}
+
+	/**
+	 * @see org.apache.wicket.util.io.ThresholdingOutputStream#getByteCount()
+	 */
+	@Override
+	public long getByteCount()
+	{
+		return super.getByteCount() + transferred;
+	}
+
 	/**
 	 * Returns the data for this output stream as an array of bytes, assuming that the data has been
 	 * retained in memory. If the data was written to disk, this method returns <code>null</code>.
@@ -464,6 +464,68 @@ public final class AppendingStringBuffer implements java.io.Serializable, CharSe
 		return this;
 	}
 
+	/**
+	 * Appends a subsequence of the specified <code>CharSequence</code> to this string buffer.
+	 * <p>
+	 * The characters of the argument <code>s</code>, starting at index <code>start</code>, are
+	 * appended, in order, to the contents of this string buffer up to the (exclusive) index
+	 * <code>end</code>. Unlike {@link #append(Object)} the sequence isn't converted to a string
+	 * first. If <code>s</code> is <code>null</code>, then characters are appended as if
+	 * <code>s</code> contained the four characters <code>"null"</code>.
+	 * 
+	 * @param s
+	 *            the sequence to append.
+	 * @param start
+	 *            the starting index of the subsequence to be appended.
+	 * @param end
+	 *            the end index of the subsequence to be appended.
+	 * @return a reference to this <code>AppendingStringBuffer</code>.
+	 * @exception IndexOutOfBoundsException
+	 *                if <code>start</code> or <code>end</code> are negative, or
+	 *                <code>start</code> is greater than <code>end</code> or <code>end</code> is
+	 *                greater than <code>s.length()</code>
+	 */
+	public AppendingStringBuffer append(CharSequence s, final int start, final int end)
+	{
+		if (s == null)
+		{
+			s = "null";
+		}
+		if ((start < 0) || (start > end) || (end > s.length()))
+		{
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " +
+				s.length());
+		}
+
+		int len = end - start;
+		int newcount = count + len;
+		if (newcount > value.length)
+		{
+			expandCapacity(newcount);
+		}
+		if (s instanceof String)
+		{
+			((String)s).getChars(start, end, value, count);
+		}
+		else if (s instanceof AppendingStringBuffer)
+		{
+			((AppendingStringBuffer)s).getChars(start, end, value, count);
+		}
+		else if (s instanceof StringBuilder)
+		{
+			((StringBuilder)s).getChars(start, end, value, count);
+		}
+		else
+		{
+			for (int i = start; i < end; i++)
+			{
+				value[count + i - start] = s.charAt(i);
+			}
+		}
+		count = newcount;
+		return this;
+	}
+
 	/**
 	 * Appends the string representation of the <code>char</code> array argument to this string
 	 * buffer.
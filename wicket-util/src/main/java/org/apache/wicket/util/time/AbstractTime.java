@@ -16,10 +16,7 @@
  */
 package org.apache.wicket.util.time;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
 
 /**
  * Abstract base class for subclasses that represent a point in time (as opposed to a
@@ -32,11 +29,35 @@ abstract class AbstractTime extends AbstractTimeValue
 {
 	private static final long serialVersionUID = 1L;
 
-	/** calendar for the local time zone */
+	/** calendar for the local time zone, never modified, see {@link #confine(Calendar)} */
 	static final Calendar localtime = Calendar.getInstance();
 
+	/** per thread copies of the local time calendar */
+	private static final ThreadLocal<Calendar> threadLocaltime = new ThreadLocal<Calendar>()
+	{
+		@Override
+		protected Calendar initialValue()
+		{
+			return (Calendar)localtime.clone();
+		}
+	};
+
 	/** time format */
-	static final SimpleDateFormat timeFormat = new SimpleDateFormat("h.mma", Locale.ENGLISH);
+	static final TimeFormat timeFormat = new TimeFormat("h.mma");
+
+	/**
+	 * Gets the <code>Calendar</code> to modify in a conversion, which is a copy confined to the
+	 * current thread for the shared local time <code>Calendar</code>, so conversions in local time
+	 * don't need to lock each other out.
+	 * 
+	 * @param calendar
+	 *            the <code>Calendar</code> to use in a conversion
+	 * @return the <code>Calendar</code> to modify
+	 */
+	static Calendar confine(final Calendar calendar)
+	{
+		return calendar == localtime ? threadLocaltime.get() : calendar;
+	}
 
 	/**
 	 * @param milliseconds
@@ -95,14 +116,7 @@ abstract class AbstractTime extends AbstractTimeValue
 	 */
 	public final String toTimeString(final Calendar calendar)
 	{
-		synchronized (timeFormat)
-		{
-			synchronized (calendar)
-			{
-				timeFormat.setCalendar(calendar);
-				return timeFormat.format(new Date(getMilliseconds())).toLowerCase();
-			}
-		}
+		return timeFormat.format(calendar, getMilliseconds()).toLowerCase();
 	}
 
 	/**
@@ -23,6 +23,7 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * An immutable <code>Time</code> class that represents a specific point in time. The underlying
@@ -42,12 +43,10 @@ public final class Time extends AbstractTime
 	public static final Time START_OF_UNIX_TIME = millis(0);
 
 	/** parser in 'yyyy.MM.dd' format. */
-	private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy.MM.dd",
-		Locale.ENGLISH);
+	private static final TimeFormat dateFormat = new TimeFormat("yyyy.MM.dd");
 
 	/** parser in 'yyyy.MM.dd-h.mma' format. */
-	private static final SimpleDateFormat dateTimeFormat = new SimpleDateFormat("yyyy.MM.dd-h.mma",
-		Locale.ENGLISH);
+	private static final TimeFormat dateTimeFormat = new TimeFormat("yyyy.MM.dd-h.mma");
 
 	/** required for rfc1123 date format */
 	private static final String[] DAYS =
@@ -59,6 +58,23 @@ public final class Time extends AbstractTime
 
 	/** time zone for greenwich mean time */
 	public static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+	/** the number of recently formatted rfc1123 timestamps to keep, a power of two */
+	private static final int RFC1123_CACHE_SIZE = 64;
+
+	/** recently formatted rfc1123 timestamps, indexed by the second they represent */
+	private static final AtomicReferenceArray<Rfc1123Timestamp> rfc1123Cache = new AtomicReferenceArray<Rfc1123Timestamp>(
+		RFC1123_CACHE_SIZE);
+
+	/** per thread calendars for rfc1123 date format */
+	private static final ThreadLocal<Calendar> gmtCalendar = new ThreadLocal<Calendar>()
+	{
+		@Override
+		protected Calendar initialValue()
+		{
+			return new GregorianCalendar(GMT);
+		}
+	};
 	
 	/**
 	 * Retrieves a <code>Time</code> instance based on the current time.
@@ -95,15 +111,7 @@ public final class Time extends AbstractTime
 	public static Time parseDate(final Calendar calendar, final String string)
 		throws ParseException
 	{
-		synchronized (dateFormat)
-		{
-			synchronized (calendar)
-			{
-				dateFormat.setCalendar(calendar);
-
-				return valueOf(dateFormat.parse(string));
-			}
-		}
+		return valueOf(dateFormat.parse(calendar, string));
 	}
 
 	/**
@@ -147,15 +155,7 @@ public final class Time extends AbstractTime
 	 */
 	public static Time valueOf(final Calendar calendar, final String string) throws ParseException
 	{
-		synchronized (dateTimeFormat)
-		{
-			synchronized (calendar)
-			{
-				dateTimeFormat.setCalendar(calendar);
-
-				return valueOf(dateTimeFormat.parse(string));
-			}
-		}
+		return valueOf(dateTimeFormat.parse(calendar, string));
 	}
 
 	/**
@@ -170,17 +170,18 @@ public final class Time extends AbstractTime
 	 */
 	public static Time valueOf(final Calendar calendar, final TimeOfDay timeOfDay)
 	{
-		synchronized (calendar)
+		final Calendar confined = confine(calendar);
+		synchronized (confined)
 		{
 			// Set time to midnight today
-			calendar.setTimeInMillis(System.currentTimeMillis());
-			calendar.set(Calendar.HOUR_OF_DAY, 0); // ﻿WICKET-2349
-			calendar.set(Calendar.MINUTE, 0);
-			calendar.set(Calendar.SECOND, 0);
-			calendar.set(Calendar.MILLISECOND, 0); // WICKET-1670
+			confined.setTimeInMillis(System.currentTimeMillis());
+			confined.set(Calendar.HOUR_OF_DAY, 0); // ﻿WICKET-2349
+			confined.set(Calendar.MINUTE, 0);
+			confined.set(Calendar.SECOND, 0);
+			confined.set(Calendar.MILLISECOND, 0); // WICKET-1670
 
 			// Add time of day milliseconds to midnight
-			return millis(calendar.getTimeInMillis() + timeOfDay.getMilliseconds());
+			return millis(confined.getTimeInMillis() + timeOfDay.getMilliseconds());
 		}
 	}
 
@@ -222,7 +223,7 @@ public final class Time extends AbstractTime
 	public static Time valueOf(final String string, final String pattern) throws ParseException
 	{
 		final SimpleDateFormat dateTimeFormat = new SimpleDateFormat(pattern, Locale.ENGLISH);
-		dateTimeFormat.setCalendar(localtime);
+		dateTimeFormat.setCalendar(confine(localtime));
 		return valueOf(dateTimeFormat.parse(string));
 	}
 
@@ -303,11 +304,12 @@ public final class Time extends AbstractTime
 	 */
 	public int get(final Calendar calendar, final int field)
 	{
-		synchronized (calendar)
+		final Calendar confined = confine(calendar);
+		synchronized (confined)
 		{
-			calendar.setTimeInMillis(getMilliseconds());
+			confined.setTimeInMillis(getMilliseconds());
 
-			return calendar.get(field);
+			return confined.get(field);
 		}
 	}
 
@@ -514,15 +516,7 @@ public final class Time extends AbstractTime
 	 */
 	public String toDateString(final Calendar calendar)
 	{
-		synchronized (dateFormat)
-		{
-			synchronized (calendar)
-			{
-				dateFormat.setCalendar(calendar);
-
-				return dateFormat.format(new Date(getMilliseconds())).toLowerCase();
-			}
-		}
+		return dateFormat.format(calendar, getMilliseconds()).toLowerCase();
 	}
 
 	/**
@@ -550,7 +544,7 @@ public final class Time extends AbstractTime
 	public String toString(final Calendar calendar, final String format)
 	{
 		final SimpleDateFormat dateTimeFormat = new SimpleDateFormat(format, Locale.ENGLISH);
-		dateTimeFormat.setCalendar(calendar == null ? localtime : calendar);
+		dateTimeFormat.setCalendar(confine(calendar == null ? localtime : calendar));
 		return dateTimeFormat.format(new Date(getMilliseconds()));
 	}
 
@@ -570,15 +564,40 @@ public final class Time extends AbstractTime
 	 * return timestamp string in RFC1123 format
 	 * <p/>
 	 * Contrary to {@link java.text.SimpleDateFormat} this is thread-safe.
+	 * <p/>
+	 * The timestamps have a resolution of a second, so the recently formatted ones are cached, e.g.
+	 * for the 'Date' and 'Last-Modified' headers of the responses within the same second.
+	 */
+	public String toRfc1123TimestampString()
+	{
+		final long millis = getMilliseconds();
+		final long second = millis >= 0 ? millis / 1000 : (millis - 999) / 1000;
+		final int index = (int)(second & (RFC1123_CACHE_SIZE - 1));
+
+		Rfc1123Timestamp timestamp = rfc1123Cache.get(index);
+		if (timestamp == null || timestamp.second != second)
+		{
+			// a race formats the same timestamp twice, which is harmless
+			timestamp = new Rfc1123Timestamp(second, formatRfc1123(millis));
+			rfc1123Cache.set(index, timestamp);
+		}
+		return timestamp.text;
+	}
+
+	/**
+	 * format a timestamp in RFC1123 format
 	 * <p/> 
 	 * taken from the source code of jetty 7.3.0, credits + thanks to Greg Wilkins!
+	 * 
+	 * @param millis
+	 * @return timestamp string in RFC1123 format
 	 */
-	public String toRfc1123TimestampString()
+	private static String formatRfc1123(final long millis)
 	{
-		final Calendar cal = GregorianCalendar.getInstance(GMT);
+		final Calendar cal = gmtCalendar.get();
 		final StringBuilder buf = new StringBuilder(32);
 
-		cal.setTimeInMillis(getMilliseconds());
+		cal.setTimeInMillis(millis);
 
 		int day_of_week = cal.get(Calendar.DAY_OF_WEEK);
 		int day_of_month = cal.get(Calendar.DAY_OF_MONTH);
@@ -614,7 +633,7 @@ public final class Time extends AbstractTime
 	}
 
 	/**
-	 * helper method for {@link #toRfc1123TimestampString()}
+	 * helper method for {@link #formatRfc1123(long)}
 	 * 
 	 * @param str
 	 * @param number
@@ -624,4 +643,20 @@ public final class Time extends AbstractTime
 		str.append((char)(number / 10 + '0'));
 		str.append((char)(number % 10 + '0'));
 	}
+
+	/**
+	 * a formatted rfc1123 timestamp and the second it represents
+	 */
+	private static final class Rfc1123Timestamp
+	{
+		private final long second;
+
+		private final String text;
+
+		private Rfc1123Timestamp(final long second, final String text)
+		{
+			this.second = second;
+			this.text = text;
+		}
+	}
 }
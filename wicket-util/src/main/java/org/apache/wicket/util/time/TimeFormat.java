@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.time;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * An immutable and thread-safe date format of a fixed pattern. Each thread formats and parses with
+ * its own <code>SimpleDateFormat</code>, and with its own copy of the local time
+ * <code>Calendar</code>, so concurrent conversions don't lock each other out. Conversions with
+ * another <code>Calendar</code> synchronize on that <code>Calendar</code> only.
+ *
+ * @since 1.5
+ */
+final class TimeFormat
+{
+	private final String pattern;
+
+	private final ThreadLocal<SimpleDateFormat> formats = new ThreadLocal<SimpleDateFormat>()
+	{
+		@Override
+		protected SimpleDateFormat initialValue()
+		{
+			return new SimpleDateFormat(pattern, Locale.ENGLISH);
+		}
+	};
+
+	/**
+	 * Construct.
+	 *
+	 * @param pattern
+	 *            the <code>SimpleDateFormat</code> pattern
+	 */
+	TimeFormat(final String pattern)
+	{
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Formats a point in time.
+	 *
+	 * @param calendar
+	 *            the <code>Calendar</code> to use in the conversion
+	 * @param milliseconds
+	 *            the point in time
+	 * @return the formatted <code>String</code>
+	 */
+	String format(final Calendar calendar, final long milliseconds)
+	{
+		final Calendar confined = AbstractTime.confine(calendar);
+		final SimpleDateFormat format = formats.get();
+		synchronized (confined)
+		{
+			format.setCalendar(confined);
+			return format.format(new Date(milliseconds));
+		}
+	}
+
+	/**
+	 * Parses a point in time.
+	 *
+	 * @param calendar
+	 *            the <code>Calendar</code> to use in the conversion
+	 * @param string
+	 *            the <code>String</code> to parse
+	 * @return the parsed <code>Date</code>
+	 * @throws ParseException
+	 */
+	Date parse(final Calendar calendar, final String string) throws ParseException
+	{
+		final Calendar confined = AbstractTime.confine(calendar);
+		final SimpleDateFormat format = formats.get();
+		synchronized (confined)
+		{
+			format.setCalendar(confined);
+			return format.parse(string);
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return pattern;
+	}
+}
@@ -212,14 +212,7 @@ public final class TimeOfDay extends AbstractTime
 	public static TimeOfDay valueOf(final Calendar calendar, final String time)
 		throws ParseException
 	{
-		synchronized (timeFormat)
-		{
-			synchronized (calendar)
-			{
-				timeFormat.setCalendar(calendar);
-				return new TimeOfDay(timeFormat.parse(time).getTime());
-			}
-		}
+		return new TimeOfDay(timeFormat.parse(calendar, time).getTime());
 	}
 
 	/**
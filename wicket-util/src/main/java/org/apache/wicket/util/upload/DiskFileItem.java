@@ -16,8 +16,6 @@
  */
 package org.apache.wicket.util.upload;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -35,7 +33,6 @@ import java.util.UUID;
 import org.apache.wicket.util.file.Files;
 import org.apache.wicket.util.file.IFileCleaner;
 import org.apache.wicket.util.io.DeferredFileOutputStream;
-import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.io.Streams;
 import org.apache.wicket.util.lang.Checks;
 import org.slf4j.Logger;
@@ -423,19 +420,8 @@ public class DiskFileItem implements FileItem, FileItemHeadersSupport
 			 */
 			if (!outputFile.renameTo(file))
 			{
-				BufferedInputStream in = null;
-				BufferedOutputStream out = null;
-				try
-				{
-					in = new BufferedInputStream(new FileInputStream(outputFile));
-					out = new BufferedOutputStream(new FileOutputStream(file));
-					Streams.copy(in, out);
-				}
-				finally
-				{
-					IOUtils.closeQuietly(in);
-					IOUtils.closeQuietly(out);
-				}
+				// e.g. on another file system
+				Files.copy(outputFile, file);
 			}
 		}
 	}
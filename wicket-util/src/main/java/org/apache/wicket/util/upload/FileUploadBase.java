@@ -18,6 +18,7 @@ package org.apache.wicket.util.upload;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,8 @@ import java.util.NoSuchElementException;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.wicket.util.io.DeferredFileOutputStream;
+import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.io.Streams;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Generics;
@@ -290,35 +293,9 @@ public abstract class FileUploadBase
 		{
 			FileItemIterator iter = getItemIterator(ctx);
 			List<FileItem> items = Generics.newArrayList();
-			FileItemFactory fac = getFileItemFactory();
-			if (fac == null)
-			{
-				throw new NullPointerException("No FileItemFactory has been set.");
-			}
 			while (iter.hasNext())
 			{
-				FileItemStream item = iter.next();
-				FileItem fileItem = fac.createItem(item.getFieldName(), item.getContentType(),
-					item.isFormField(), item.getName());
-				try
-				{
-					Streams.copyAndClose(item.openStream(), fileItem.getOutputStream());
-				}
-				catch (FileUploadIOException e)
-				{
-					throw (FileUploadException)e.getCause();
-				}
-				catch (IOException e)
-				{
-					throw new IOFileUploadException("Processing of " + MULTIPART_FORM_DATA +
-						" request failed. " + e.getMessage(), e);
-				}
-				if (fileItem instanceof FileItemHeadersSupport)
-				{
-					final FileItemHeaders fih = item.getHeaders();
-					((FileItemHeadersSupport)fileItem).setHeaders(fih);
-				}
-				items.add(fileItem);
+				items.add(createItem(iter.next()));
 			}
 			return items;
 		}
@@ -332,6 +309,64 @@ public abstract class FileUploadBase
 		}
 	}
 
+	/**
+	 * Creates the <code>FileItem</code> of an item of a request with the {@link FileItemFactory}
+	 * and stores the content of the item in it. The content is streamed into the item: if it is
+	 * written to a {@link DeferredFileOutputStream} the content exceeding its threshold is
+	 * transferred straight into its file.
+	 * 
+	 * @param item
+	 *            the item returned by the iterator of {@link #getItemIterator(RequestContext)}
+	 * @return the stored item
+	 * @throws FileUploadException
+	 *             if there are problems reading the item or storing it
+	 */
+	public FileItem createItem(final FileItemStream item) throws FileUploadException
+	{
+		FileItemFactory fac = getFileItemFactory();
+		if (fac == null)
+		{
+			throw new NullPointerException("No FileItemFactory has been set.");
+		}
+		FileItem fileItem = fac.createItem(item.getFieldName(), item.getContentType(),
+			item.isFormField(), item.getName());
+		InputStream in = null;
+		OutputStream out = null;
+		try
+		{
+			in = item.openStream();
+			out = fileItem.getOutputStream();
+			if (out instanceof DeferredFileOutputStream)
+			{
+				((DeferredFileOutputStream)out).transferFrom(in);
+			}
+			else
+			{
+				Streams.copy(in, out);
+			}
+		}
+		catch (FileUploadIOException e)
+		{
+			throw (FileUploadException)e.getCause();
+		}
+		catch (IOException e)
+		{
+			throw new IOFileUploadException("Processing of " + MULTIPART_FORM_DATA +
+				" request failed. " + e.getMessage(), e);
+		}
+		finally
+		{
+			IOUtils.closeQuietly(in);
+			IOUtils.closeQuietly(out);
+		}
+		if (fileItem instanceof FileItemHeadersSupport)
+		{
+			final FileItemHeaders fih = item.getHeaders();
+			((FileItemHeadersSupport)fileItem).setHeaders(fih);
+		}
+		return fileItem;
+	}
+
 
 	// ------------------------------------------------------ Protected methods
 
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link ClassMetaCache}
+ */
+public class ClassMetaCacheTest extends TestCase
+{
+	/**
+	 * Values are found by class and by class name, also for the bootstrap class loader. The hits
+	 * and misses are counted only while the statistics are enabled.
+	 */
+	public void testPutAndGet()
+	{
+		ClassMetaCache<String> cache = new ClassMetaCache<String>();
+		assertNull(cache.get(ClassMetaCacheTest.class));
+		assertEquals(0, cache.getMisses());
+		cache.setStatisticsEnabled(true);
+		assertNull(cache.get(ClassMetaCacheTest.class));
+
+		assertNull(cache.put(ClassMetaCacheTest.class, "test"));
+		assertNull(cache.put(String.class, "string"));
+
+		assertEquals("test", cache.get(ClassMetaCacheTest.class));
+		assertEquals("test",
+			cache.get(ClassMetaCacheTest.class.getClassLoader(), ClassMetaCacheTest.class.getName()));
+		assertEquals("string", cache.get(String.class));
+		assertEquals("string", cache.get(null, "java.lang.String"));
+
+		assertEquals("string", cache.putIfAbsent(String.class, "other"));
+		assertEquals("string", cache.get(String.class));
+
+		assertEquals(5, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	/**
+	 * The values of a class loader are separate from those of other class loaders.
+	 */
+	public void testClassLoaders()
+	{
+		ClassLoader classLoader = new URLClassLoader(new URL[0]);
+		ClassMetaCache<String> cache = new ClassMetaCache<String>();
+		cache.put(ClassMetaCacheTest.class, "test");
+		cache.put(classLoader, ClassMetaCacheTest.class.getName(), "other");
+
+		assertEquals("test", cache.get(ClassMetaCacheTest.class));
+		assertEquals("other", cache.get(classLoader, ClassMetaCacheTest.class.getName()));
+
+		cache.remove(classLoader);
+		assertNull(cache.get(classLoader, ClassMetaCacheTest.class.getName()));
+		assertEquals("test", cache.get(ClassMetaCacheTest.class));
+
+		cache.clear();
+		assertNull(cache.get(ClassMetaCacheTest.class));
+	}
+}
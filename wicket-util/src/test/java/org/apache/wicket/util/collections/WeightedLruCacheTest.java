@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link WeightedLruCache}
+ */
+public class WeightedLruCacheTest extends TestCase
+{
+	/**
+	 * The least recently used entries are evicted once the cache is too heavy
+	 */
+	public void testEvictsLeastRecentlyUsed()
+	{
+		WeightedLruCache<String, String> cache = new WeightedLruCache<String, String>(4);
+		cache.put("a", "a");
+		cache.put("b", "b");
+		cache.put("c", "c");
+		cache.put("d", "d");
+		assertEquals(4, cache.getWeight());
+
+		// touch "a" so "b" and "c" are the least recently used
+		assertEquals("a", cache.get("a"));
+		cache.put("e", "e");
+
+		assertEquals(3, cache.size());
+		assertEquals(3, cache.getWeight());
+		assertEquals(2, cache.getEvictionCount());
+		assertNull(cache.get("b"));
+		assertNull(cache.get("c"));
+		assertEquals("a", cache.get("a"));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+
+		// removing through the views keeps the weight in sync
+		cache.values().remove("d");
+		assertEquals(2, cache.getWeight());
+		assertTrue(cache.remove("e"));
+		assertFalse(cache.remove("e"));
+		assertEquals(1, cache.getWeight());
+		cache.clear();
+		assertEquals(0, cache.getWeight());
+	}
+
+	/**
+	 * Subclasses weigh the entries
+	 */
+	public void testWeigh()
+	{
+		WeightedLruCache<String, String> cache = new WeightedLruCache<String, String>(10)
+		{
+			@Override
+			protected int weigh(String key, String value)
+			{
+				return value.length();
+			}
+		};
+		cache.put("a", "1234");
+		cache.put("b", "123456");
+		assertEquals(10, cache.getWeight());
+		assertEquals(0, cache.getEvictionCount());
+
+		cache.put("b", "12");
+		assertEquals(6, cache.getWeight());
+
+		cache.put("c", "12345678");
+		assertTrue(cache.getWeight() <= 10);
+		assertFalse(cache.containsKey("a"));
+		assertEquals("12345678", cache.get("c"));
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.crypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link AesGcmCrypt} and the shared use of {@link SunJceCrypt}
+ */
+public class AesGcmCryptTest extends TestCase
+{
+	private static final String TEXT = "wicket/page?3-1.ILinkListener-form-link&foo=bar";
+
+	/**
+	 * 
+	 */
+	public void testEncryptDecrypt()
+	{
+		if (!AesGcmCrypt.isSupported())
+		{
+			return;
+		}
+
+		AesGcmCrypt crypt = new AesGcmCrypt();
+		crypt.setKey("secret");
+
+		String encrypted = crypt.encryptUrlSafe(TEXT);
+		assertEquals(TEXT, crypt.decryptUrlSafe(encrypted));
+
+		// a random nonce makes each encryption different
+		assertFalse(encrypted.equals(crypt.encryptUrlSafe(TEXT)));
+
+		// modified texts and other keys are rejected
+		char[] chars = encrypted.toCharArray();
+		chars[20] = chars[20] == 'A' ? 'B' : 'A';
+		assertNull(crypt.decryptUrlSafe(new String(chars)));
+		assertNull(crypt.decryptUrlSafe("c2hvcnQ"));
+
+		AesGcmCrypt other = new AesGcmCrypt();
+		other.setKey("other");
+		assertNull(other.decryptUrlSafe(encrypted));
+
+		// the key can be changed
+		crypt.setKey("other");
+		assertEquals(TEXT, other.decryptUrlSafe(crypt.encryptUrlSafe(TEXT)));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testConcurrentUse() throws Exception
+	{
+		if (AesGcmCrypt.isSupported())
+		{
+			assertConcurrentUse(new AesGcmCrypt());
+		}
+		assertConcurrentUse(new SunJceCrypt());
+	}
+
+	private void assertConcurrentUse(final ICrypt crypt) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 200; i++)
+			{
+				final String text = TEXT + i;
+				results.add(executor.submit(new Callable<Boolean>()
+				{
+					public Boolean call() throws Exception
+					{
+						return text.equals(crypt.decryptUrlSafe(crypt.encryptUrlSafe(text)));
+					}
+				}));
+			}
+			for (Future<Boolean> result : results)
+			{
+				assertTrue(result.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
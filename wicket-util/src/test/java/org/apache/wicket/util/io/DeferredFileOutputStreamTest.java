@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.wicket.util.file.Files;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DeferredFileOutputStream}
+ */
+public class DeferredFileOutputStreamTest extends Assert
+{
+	private static final int THRESHOLD = 1024;
+
+	private File file;
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void before() throws IOException
+	{
+		file = File.createTempFile("deferred", ".tmp");
+		Files.remove(file);
+	}
+
+	/**
+	 * 
+	 */
+	@After
+	public void after()
+	{
+		Files.remove(file);
+	}
+
+	/**
+	 * Content up to the threshold is kept in memory.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void transferBelowThreshold() throws IOException
+	{
+		byte[] data = data(THRESHOLD);
+		DeferredFileOutputStream out = new DeferredFileOutputStream(THRESHOLD, file);
+
+		assertEquals(data.length, out.transferFrom(new ByteArrayInputStream(data)));
+		out.close();
+
+		assertTrue(out.isInMemory());
+		assertFalse(file.exists());
+		assertArrayEquals(data, out.getData());
+		assertEquals(data.length, out.getByteCount());
+	}
+
+	/**
+	 * Content exceeding the threshold is transferred into the file.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void transferAboveThreshold() throws IOException
+	{
+		byte[] data = data(THRESHOLD * 300 + 7);
+		DeferredFileOutputStream out = new DeferredFileOutputStream(THRESHOLD, file);
+		out.write(data, 0, 10);
+
+		assertEquals(data.length - 10, out.transferFrom(new ByteArrayInputStream(data, 10,
+			data.length - 10)));
+		out.close();
+
+		assertFalse(out.isInMemory());
+		assertNull(out.getData());
+		assertArrayEquals(data, Files.readBytes(file));
+		assertEquals(data.length, out.getByteCount());
+	}
+
+	/**
+	 * A file copied by the file channels equals its source.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void copyFile() throws IOException
+	{
+		byte[] data = data(THRESHOLD * 5);
+		DeferredFileOutputStream out = new DeferredFileOutputStream(0, file);
+		out.transferFrom(new ByteArrayInputStream(data));
+		out.close();
+
+		File copy = new File(file.getPath() + ".copy");
+		try
+		{
+			Files.copy(file, copy);
+			assertArrayEquals(data, Files.readBytes(copy));
+		}
+		finally
+		{
+			Files.remove(copy);
+		}
+	}
+
+	private static byte[] data(int length)
+	{
+		byte[] data = new byte[length];
+		new Random(length).nextBytes(data);
+		return data;
+	}
+}
@@ -114,4 +114,28 @@ public class AppendingStringBufferTest extends TestCase
 		assertFalse(asb.endsWith("67890"));
 	}
 
+	/**
+	 * @throws Exception
+	 */
+	public void testAppendSubSequence() throws Exception
+	{
+		AppendingStringBuffer asb = new AppendingStringBuffer(2);
+		asb.append("0123456789", 2, 5);
+		asb.append(new StringBuilder("abcdef"), 0, 2);
+		asb.append(new AppendingStringBuffer("ghij"), 3, 4);
+		asb.append(new StringBuffer("xyz"), 1, 3);
+		asb.append("xyz", 1, 1);
+		assertEquals("234abjyz", asb.toString());
+
+		try
+		{
+			asb.append("xyz", 2, 4);
+			fail();
+		}
+		catch (IndexOutOfBoundsException e)
+		{
+			// expected
+		}
+	}
+
 }
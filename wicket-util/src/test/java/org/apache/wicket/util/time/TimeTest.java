@@ -18,7 +18,13 @@ package org.apache.wicket.util.time;
 
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
@@ -52,4 +58,68 @@ public final class TimeTest extends TestCase
 
 		Assert.assertEquals(y2k, Time.valueOf(y2k).toString());
 	}
+
+	/**
+	 * The rfc1123 timestamps are cached per second
+	 * 
+	 * @throws Exception
+	 */
+	public void testRfc1123() throws Exception
+	{
+		Assert.assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", Time.millis(0)
+			.toRfc1123TimestampString());
+		Assert.assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", Time.millis(999)
+			.toRfc1123TimestampString());
+		Assert.assertEquals("Wed, 31 Dec 1969 23:59:59 GMT", Time.millis(-1)
+			.toRfc1123TimestampString());
+		// same cache slot as the first timestamp
+		Assert.assertEquals("Thu, 01 Jan 1970 00:01:04 GMT", Time.millis(64000)
+			.toRfc1123TimestampString());
+		Assert.assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", Time.millis(0)
+			.toRfc1123TimestampString());
+		Assert.assertEquals("Sat, 01 Jan 2000 12:30:45 GMT", Time.valueOf(
+			Calendar.getInstance(Time.GMT), "2000.01.01-12.30pm").add(Duration.seconds(45)).toRfc1123TimestampString());
+	}
+
+	/**
+	 * Conversions in local time from many threads
+	 * 
+	 * @throws Exception
+	 */
+	public void testConcurrentConversions() throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < 64; i++)
+			{
+				final String date = "19" + (10 + i) + ".0" + (1 + i % 9) + ".1" + (i % 10);
+				results.add(executor.submit(new Callable<String>()
+				{
+					public String call() throws Exception
+					{
+						String result = null;
+						for (int j = 0; j < 100; j++)
+						{
+							Time time = Time.parseDate(date);
+							result = time.toDateString() + "-" + time.getYear() + "-" +
+								TimeOfDay.valueOf(time.toTimeString()).getMilliseconds();
+						}
+						return result;
+					}
+				}));
+			}
+			for (int i = 0; i < results.size(); i++)
+			{
+				String date = "19" + (10 + i) + ".0" + (1 + i % 9) + ".1" + (i % 10);
+				Assert.assertEquals(date + "-19" + (10 + i) + "-0", results.get(i)
+					.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
 }